@@ -1,7 +1,6 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.codeInsight;
 
-import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.roots.ProjectRootManager;
 import com.intellij.openapi.util.NotNullLazyValue;
@@ -13,12 +12,12 @@ import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiModificationTracker;
-import com.intellij.util.containers.MultiMap;
 import one.util.streamex.StreamEx;
 import org.angular2.entities.Angular2Declaration;
 import org.angular2.entities.Angular2EntitiesProvider;
 import org.angular2.entities.Angular2Entity;
 import org.angular2.entities.Angular2Module;
+import org.angular2.entities.Angular2ModuleExportGraph;
 import org.angular2.entities.metadata.psi.Angular2MetadataEntity;
 import org.angular2.index.Angular2IndexingHandler;
 import org.jetbrains.annotations.NotNull;
@@ -29,8 +28,6 @@ import java.util.*;
 import static com.intellij.openapi.util.Pair.pair;
 import static com.intellij.openapi.util.Trinity.create;
 import static com.intellij.util.ObjectUtils.doIfNotNull;
-import static com.intellij.util.containers.ContainerUtil.exists;
-import static com.intellij.util.containers.ContainerUtil.filter;
 
 /**
  * Objects of this class should not be cached or stored. It is intended for single use.
@@ -38,7 +35,7 @@ import static com.intellij.util.containers.ContainerUtil.filter;
 public class Angular2DeclarationsScope {
 
   private final NotNullLazyValue<Trinity<Angular2Module, Set<Angular2Declaration>, Boolean>> myScope;
-  private final Map<Project, MultiMap<Angular2Declaration, Angular2Module>> myExport2NgModuleMap = new HashMap<>();
+  private final NotNullLazyValue<Angular2ModuleExportGraph> myExportGraph;
   private final NotNullLazyValue<ProjectFileIndex> myFileIndex;
 
   public Angular2DeclarationsScope(@NotNull PsiElement element) {
@@ -51,11 +48,13 @@ public class Angular2DeclarationsScope {
         Angular2Module module = doIfNotNull(Angular2EntitiesProvider.getComponent(
           Angular2IndexingHandler.findComponentClass(file)), c -> c.getModule());
         return CachedValueProvider.Result.create(
-          module != null ? create(module, module.getDeclarationsInScope(), module.isScopeFullyResolved())
+          module != null ? create(module, Angular2ModuleExportGraph.getInstance(file.getProject()).getDeclarationsInScope(module),
+                                 module.isScopeFullyResolved())
                          : create(null, null, false),
           PsiModificationTracker.MODIFICATION_COUNT);
       });
     });
+    myExportGraph = NotNullLazyValue.createValue(() -> Angular2ModuleExportGraph.getInstance(element.getProject()));
     myFileIndex = NotNullLazyValue.createValue(
       () -> ProjectRootManager.getInstance(element.getProject()).getFileIndex());
   }
@@ -83,11 +82,7 @@ public class Angular2DeclarationsScope {
   }
 
   public List<Angular2Module> getPublicModulesExporting(@NotNull Angular2Declaration declaration) {
-    return filter(myExport2NgModuleMap
-                    .computeIfAbsent(declaration.getSourceElement().getProject(),
-                                     p -> Angular2EntitiesProvider.getExportedDeclarationToModuleMap(p))
-                    .get(declaration),
-                  module -> module.isPublic() && module.getTypeScriptClass() != null);
+    return myExportGraph.getValue().getPublicModulesExporting(declaration);
   }
 
   @NotNull
@@ -95,11 +90,8 @@ public class Angular2DeclarationsScope {
     if (contains(declaration)) {
       return DeclarationProximity.IN_SCOPE;
     }
-    Collection<Angular2Module> modules = myExport2NgModuleMap
-      .computeIfAbsent(declaration.getSourceElement().getProject(),
-                       p -> Angular2EntitiesProvider.getExportedDeclarationToModuleMap(p))
-      .get(declaration);
-    if (modules.isEmpty()) {
+    Angular2ModuleExportGraph exportGraph = myExportGraph.getValue();
+    if (exportGraph.getModulesExporting(declaration).isEmpty()) {
       if (!isInSource(declaration)) {
         return DeclarationProximity.NOT_REACHABLE;
       }
@@ -107,7 +99,7 @@ public class Angular2DeclarationsScope {
              ? DeclarationProximity.NOT_DECLARED_IN_ANY_MODULE
              : DeclarationProximity.NOT_EXPORTED_BY_MODULE;
     }
-    else if (exists(modules, Angular2Module::isPublic)) {
+    else if (exportGraph.isExportedByPublicModule(declaration)) {
       return DeclarationProximity.EXPORTED_BY_PUBLIC_MODULE;
     }
     return DeclarationProximity.NOT_REACHABLE;
@@ -2,8 +2,10 @@
 package org.angular2.codeInsight.attributes;
 
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.util.NotNullLazyValue;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.psi.xml.XmlTag;
+import com.intellij.util.ConcurrencyUtil;
 import com.intellij.util.containers.ContainerUtil;
 import org.angular2.entities.Angular2Directive;
 import org.angular2.lang.expr.psi.Angular2TemplateBindings;
@@ -12,14 +14,16 @@ import org.angular2.lang.selector.Angular2SelectorMatcher;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
+import static com.intellij.psi.util.CachedValueProvider.Result.create;
 import static org.angular2.codeInsight.tags.Angular2TagDescriptorsProvider.NG_TEMPLATE;
 import static org.angular2.codeInsight.template.Angular2TemplateElementsScopeProvider.isTemplateTag;
 import static org.angular2.entities.Angular2EntitiesProvider.findElementDirectivesCandidates;
 
 public class Angular2ApplicableDirectivesProvider {
 
-  private final NotNullLazyValue<List<Angular2Directive>> myDirectiveCandidates;
+  private final List<Angular2Directive> myDirectiveCandidates;
   private final List<Angular2Directive> myMatchedDirectives;
 
   public Angular2ApplicableDirectivesProvider(@NotNull XmlTag xmlTag) {
@@ -40,32 +44,76 @@ public class Angular2ApplicableDirectivesProvider {
                                                @NotNull String tagName,
                                                boolean onlyMatchingTagName,
                                                @NotNull Angular2DirectiveSimpleSelector cssSelector) {
-    Set<Angular2Directive> directiveCandidates = new HashSet<>(
-      findElementDirectivesCandidates(project, tagName));
-    if (!onlyMatchingTagName) {
-      directiveCandidates.addAll(findElementDirectivesCandidates(project, ""));
-    }
-
-    Angular2SelectorMatcher<Angular2Directive> matcher = new Angular2SelectorMatcher<>();
-    directiveCandidates.forEach(d -> matcher.addSelectables(d.getSelector().getSimpleSelectors(), d));
-    myDirectiveCandidates = NotNullLazyValue.createValue(() -> new ArrayList<>(directiveCandidates));
-
-    boolean isTemplateTag = isTemplateTag(tagName);
-    Set<Angular2Directive> matchedDirectives = new HashSet<>();
-    matcher.match(cssSelector, (selector, directive) -> {
-      if (directive.getDirectiveKind().isRegular() || isTemplateTag) {
-        matchedDirectives.add(directive);
-      }
-    });
-    myMatchedDirectives = ContainerUtil.sorted(matchedDirectives,
-                                               Comparator.comparing(Angular2Directive::getName));
+    DirectivesMatcher matcher = getDirectivesMatcher(project, tagName, onlyMatchingTagName);
+    myDirectiveCandidates = matcher.myCandidates;
+    myMatchedDirectives = matcher.match(cssSelector);
   }
 
   public List<Angular2Directive> getCandidates() {
-    return myDirectiveCandidates.getValue();
+    return myDirectiveCandidates;
   }
 
   public List<Angular2Directive> getMatched() {
     return myMatchedDirectives;
   }
+
+  @NotNull
+  private static DirectivesMatcher getDirectivesMatcher(@NotNull Project project, @NotNull String tagName, boolean onlyMatchingTagName) {
+    Map<String, DirectivesMatcher> matchers = CachedValuesManager.getManager(project).getCachedValue(project, () -> create(
+      new ConcurrentHashMap<>(), PsiModificationTracker.MODIFICATION_COUNT));
+    String key = (onlyMatchingTagName ? "+" : "-") + tagName;
+    DirectivesMatcher matcher = matchers.get(key);
+    if (matcher == null) {
+      // created outside of computeIfAbsent, as it queries indexes
+      matcher = ConcurrencyUtil.cacheOrGet(matchers, key, new DirectivesMatcher(project, tagName, onlyMatchingTagName));
+    }
+    return matcher;
+  }
+
+  /**
+   * Immutable selector matcher over the directives that may apply to tags with a particular name. It is shared by all tags with this
+   * name until the next PSI change, so are the match results of tags with the same attributes.
+   */
+  private static final class DirectivesMatcher {
+    private static final int MAX_CACHED_RESULTS = 10_000;
+
+    private final List<Angular2Directive> myCandidates;
+    private final Angular2SelectorMatcher<Angular2Directive> myMatcher = new Angular2SelectorMatcher<>();
+    private final boolean myIsTemplateTag;
+    // element selector signature -> matched directives
+    private final Map<String, List<Angular2Directive>> myMatchedDirectives = new ConcurrentHashMap<>();
+
+    private DirectivesMatcher(@NotNull Project project, @NotNull String tagName, boolean onlyMatchingTagName) {
+      Set<Angular2Directive> directiveCandidates = new HashSet<>(
+        findElementDirectivesCandidates(project, tagName));
+      if (!onlyMatchingTagName) {
+        directiveCandidates.addAll(findElementDirectivesCandidates(project, ""));
+      }
+      directiveCandidates.forEach(d -> myMatcher.addSelectables(d.getSelector().getSimpleSelectors(), d));
+      myCandidates = Collections.unmodifiableList(new ArrayList<>(directiveCandidates));
+      myIsTemplateTag = isTemplateTag(tagName);
+    }
+
+    @NotNull
+    private List<Angular2Directive> match(@NotNull Angular2DirectiveSimpleSelector cssSelector) {
+      String signature = cssSelector.getSignature();
+      List<Angular2Directive> result = myMatchedDirectives.get(signature);
+      if (result != null) {
+        return result;
+      }
+
+      Set<Angular2Directive> matchedDirectives = new HashSet<>();
+      myMatcher.match(cssSelector, (selector, directive) -> {
+        if (directive.getDirectiveKind().isRegular() || myIsTemplateTag) {
+          matchedDirectives.add(directive);
+        }
+      });
+      result = Collections.unmodifiableList(ContainerUtil.sorted(matchedDirectives,
+                                                                 Comparator.comparing(Angular2Directive::getName)));
+      if (myMatchedDirectives.size() < MAX_CACHED_RESULTS) {
+        myMatchedDirectives.put(signature, result);
+      }
+      return result;
+    }
+  }
 }
@@ -3,7 +3,6 @@ package org.angular2.entities;
 
 import org.jetbrains.annotations.NotNull;
 
-import java.util.HashSet;
 import java.util.Set;
 
 public interface Angular2Module extends Angular2Entity {
@@ -30,16 +29,7 @@ public interface Angular2Module extends Angular2Entity {
 
   @NotNull
   default Set<Angular2Declaration> getDeclarationsInScope() {
-    Set<Angular2Declaration> result = new HashSet<>(getDeclarations());
-    for (Angular2Module imported : getImports()) {
-      result.addAll(imported.getAllExportedDeclarations());
-    }
-    for (Angular2Entity entity : getExports()) {
-      if (entity instanceof Angular2Module) {
-        result.addAll(((Angular2Module)entity).getAllExportedDeclarations());
-      }
-    }
-    return result;
+    return Angular2ModuleExportGraph.getInstance(getSourceElement().getProject()).getDeclarationsInScope(this);
   }
 
   Angular2Module[] EMPTY_ARRAY = new Angular2Module[0];
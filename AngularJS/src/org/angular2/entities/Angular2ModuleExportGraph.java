@@ -0,0 +1,137 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.entities;
+
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.AtomicNotNullLazyValue;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.psi.util.PsiModificationTracker;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.containers.Stack;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+import static com.intellij.psi.util.CachedValueProvider.Result.create;
+
+/**
+ * Graph of exports of the modules in the project, valid until the next PSI modification. Declarations exported by a module directly
+ * or transitively are collected once and reused by all modules that export or import it, so a chain of re-exporting modules is
+ * walked once instead of once per module. {@link Angular2Module#getAllExportedDeclarations()} and the declarations in scope used by
+ * {@link org.angular2.codeInsight.Angular2DeclarationsScope} come from here. For every exported declaration the graph also keeps the modules exporting it, which is used to find the
+ * modules to import.
+ */
+public final class Angular2ModuleExportGraph {
+
+  private final ConcurrentMap<Angular2Module, Set<Angular2Declaration>> myExportedDeclarations = ContainerUtil.newConcurrentMap();
+  private final AtomicNotNullLazyValue<Map<Angular2Declaration, List<Angular2Module>>> myExportingModules;
+  private final AtomicNotNullLazyValue<Map<Angular2Declaration, List<Angular2Module>>> myPublicExportingModules;
+
+  @NotNull
+  public static Angular2ModuleExportGraph getInstance(@NotNull Project project) {
+    return CachedValuesManager.getManager(project).getCachedValue(project, () -> create(
+      new Angular2ModuleExportGraph(project), PsiModificationTracker.MODIFICATION_COUNT));
+  }
+
+  private Angular2ModuleExportGraph(@NotNull Project project) {
+    myExportingModules = AtomicNotNullLazyValue.createValue(() -> {
+      Map<Angular2Declaration, List<Angular2Module>> exportingModules = new HashMap<>();
+      for (Angular2Module module : Angular2EntitiesProvider.getAllModules(project)) {
+        for (Angular2Declaration declaration : getExportedDeclarations(module)) {
+          exportingModules.computeIfAbsent(declaration, d -> new ArrayList<>()).add(module);
+        }
+      }
+      exportingModules.replaceAll((declaration, exporting) -> Collections.unmodifiableList(exporting));
+      return exportingModules;
+    });
+    myPublicExportingModules = AtomicNotNullLazyValue.createValue(() -> {
+      Map<Angular2Declaration, List<Angular2Module>> publicExportingModules = new HashMap<>();
+      myExportingModules.getValue().forEach((declaration, exporting) -> {
+        List<Angular2Module> publicModules = ContainerUtil.filter(
+          exporting, module -> module.isPublic() && module.getTypeScriptClass() != null);
+        if (!publicModules.isEmpty()) {
+          publicExportingModules.put(declaration, Collections.unmodifiableList(publicModules));
+        }
+      });
+      return publicExportingModules;
+    });
+  }
+
+  /**
+   * Declarations exported by the module directly or through the exported modules.
+   */
+  @NotNull
+  public Set<Angular2Declaration> getExportedDeclarations(@NotNull Angular2Module module) {
+    Set<Angular2Declaration> result = myExportedDeclarations.get(module);
+    if (result != null) {
+      return result;
+    }
+    result = new HashSet<>();
+    Set<Angular2Module> visitedModules = new HashSet<>();
+    Stack<Angular2Module> moduleQueue = new Stack<>(module);
+    while (!moduleQueue.empty()) {
+      Angular2Module current = moduleQueue.pop();
+      if (!visitedModules.add(current)) {
+        continue;
+      }
+      // exports of a module that has been processed already are complete, there is no need to walk them again
+      Set<Angular2Declaration> currentExports = current != module ? myExportedDeclarations.get(current) : null;
+      if (currentExports != null) {
+        result.addAll(currentExports);
+        continue;
+      }
+      for (Angular2Entity export : current.getExports()) {
+        if (export instanceof Angular2Module) {
+          moduleQueue.push((Angular2Module)export);
+        }
+        else if (export instanceof Angular2Declaration) {
+          result.add((Angular2Declaration)export);
+        }
+        else {
+          throw new IllegalArgumentException(
+            "Class " + export.getClass() + " extends neither Angular2Module nor Angular2Declaration");
+        }
+      }
+    }
+    result = Collections.unmodifiableSet(result);
+    Set<Angular2Declaration> previous = myExportedDeclarations.putIfAbsent(module, result);
+    return previous != null ? previous : result;
+  }
+
+  /**
+   * Declarations of the module and declarations exported by the modules it imports or exports.
+   */
+  @NotNull
+  public Set<Angular2Declaration> getDeclarationsInScope(@NotNull Angular2Module module) {
+    Set<Angular2Declaration> result = new HashSet<>(module.getDeclarations());
+    for (Angular2Module imported : module.getImports()) {
+      result.addAll(getExportedDeclarations(imported));
+    }
+    for (Angular2Entity entity : module.getExports()) {
+      if (entity instanceof Angular2Module) {
+        result.addAll(getExportedDeclarations((Angular2Module)entity));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Modules of the project exporting the declaration directly or transitively.
+   */
+  @NotNull
+  public List<Angular2Module> getModulesExporting(@NotNull Angular2Declaration declaration) {
+    return myExportingModules.getValue().getOrDefault(declaration, Collections.emptyList());
+  }
+
+  /**
+   * Public modules with a TypeScript class, which can be imported to use the declaration.
+   */
+  @NotNull
+  public List<Angular2Module> getPublicModulesExporting(@NotNull Angular2Declaration declaration) {
+    return myPublicExportingModules.getValue().getOrDefault(declaration, Collections.emptyList());
+  }
+
+  public boolean isExportedByPublicModule(@NotNull Angular2Declaration declaration) {
+    return ContainerUtil.exists(getModulesExporting(declaration), Angular2Module::isPublic);
+  }
+}
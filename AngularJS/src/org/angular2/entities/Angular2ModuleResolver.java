@@ -7,15 +7,12 @@ import com.intellij.psi.PsiElement;
 import com.intellij.psi.util.CachedValue;
 import com.intellij.psi.util.CachedValueProvider.Result;
 import com.intellij.psi.util.CachedValuesManager;
-import com.intellij.psi.util.PsiModificationTracker;
 import com.intellij.util.containers.ContainerUtil;
-import com.intellij.util.containers.Stack;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 import java.util.function.Supplier;
 
@@ -82,34 +79,13 @@ public class Angular2ModuleResolver<T extends PsiElement> {
   @NotNull
   public Set<Angular2Declaration> getAllExportedDeclarations() {
     final T source = mySourceSupplier.get();
-    return CachedValuesManager.getCachedValue(source, () -> {
-      Set<Angular2Declaration> result = new HashSet<>();
-      Angular2Module module = source instanceof Angular2Module
-                              ? (Angular2Module)source
-                              : Angular2EntitiesProvider.getModule(source);
-      if (module != null) {
-        Set<Angular2Module> processedModules = new HashSet<>();
-        Stack<Angular2Module> moduleQueue = new Stack<>(module);
-        while (!moduleQueue.empty()) {
-          Angular2Module current = moduleQueue.pop();
-          if (processedModules.add(current)) {
-            for (Angular2Entity export : current.getExports()) {
-              if (export instanceof Angular2Module) {
-                moduleQueue.push((Angular2Module)export);
-              }
-              else if (export instanceof Angular2Declaration) {
-                result.add((Angular2Declaration)export);
-              }
-              else {
-                throw new IllegalArgumentException(
-                  "Class " + export.getClass() + " extends neither Angular2Module nor Angular2Declaration");
-              }
-            }
-          }
-        }
-      }
-      return Result.create(result, PsiModificationTracker.MODIFICATION_COUNT);
-    });
+    Angular2Module module = source instanceof Angular2Module
+                            ? (Angular2Module)source
+                            : Angular2EntitiesProvider.getModule(source);
+    // the graph reuses exports of modules that have been walked already
+    return module != null
+           ? Angular2ModuleExportGraph.getInstance(source.getProject()).getExportedDeclarations(module)
+           : Collections.emptySet();
   }
 
   @NotNull
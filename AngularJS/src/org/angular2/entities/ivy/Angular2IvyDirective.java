@@ -9,7 +9,6 @@ import com.intellij.lang.javascript.psi.util.JSClassUtils;
 import com.intellij.openapi.util.TextRange;
 import com.intellij.psi.util.CachedValueProvider;
 import com.intellij.psi.util.CachedValuesManager;
-import org.angular2.Angular2DecoratorUtil;
 import org.angular2.entities.*;
 import org.angular2.entities.source.Angular2SourceDirectiveProperty;
 import org.angular2.entities.source.Angular2SourceDirectiveVirtualProperty;
@@ -47,7 +46,7 @@ public class Angular2IvyDirective extends Angular2IvyDeclaration<Angular2IvyEnti
   @NotNull
   @Override
   public List<String> getExportAsList() {
-    return myEntityDef.getExportAsList();
+    return myEntityDef.getData().getExportAsList();
   }
 
   @NotNull
@@ -99,10 +98,9 @@ public class Angular2IvyDirective extends Angular2IvyDeclaration<Angular2IvyEnti
       if (aClass instanceof TypeScriptClass) {
         Angular2IvyEntityDef entityDef = Angular2IvyEntityDef.get((TypeScriptClass)aClass);
         if (entityDef instanceof Angular2IvyEntityDef.Directive) {
-          inputMap.putAll(((Angular2IvyEntityDef.Directive)entityDef)
-                            .readPropertyMappings(Angular2DecoratorUtil.INPUTS_PROP));
-          outputMap.putAll(((Angular2IvyEntityDef.Directive)entityDef)
-                             .readPropertyMappings(Angular2DecoratorUtil.OUTPUTS_PROP));
+          Angular2IvyEntityDef.DirectiveData data = ((Angular2IvyEntityDef.Directive)entityDef).getData();
+          inputMap.putAll(data.getInputs());
+          outputMap.putAll(data.getOutputs());
         }
       }
       return true;
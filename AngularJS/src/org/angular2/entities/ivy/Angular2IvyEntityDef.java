@@ -9,8 +9,10 @@ import com.intellij.lang.javascript.psi.ecmal4.JSAttributeList;
 import com.intellij.lang.javascript.psi.stubs.*;
 import com.intellij.lang.typescript.TypeScriptStubElementTypes;
 import com.intellij.psi.stubs.StubElement;
+import com.intellij.psi.util.CachedValuesManager;
 import com.intellij.psi.util.PsiTreeUtil;
 import one.util.streamex.StreamEx;
+import org.angular2.index.Angular2IvyDirectiveDataIndex;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -18,6 +20,7 @@ import org.jetbrains.annotations.Nullable;
 import java.util.*;
 import java.util.function.Function;
 
+import static com.intellij.psi.util.CachedValueProvider.Result.create;
 import static com.intellij.util.ObjectUtils.*;
 import static org.angular2.Angular2DecoratorUtil.*;
 
@@ -128,6 +131,28 @@ public abstract class Angular2IvyEntityDef {
                                    TypeScriptStringLiteralType::getInnerText);
     }
 
+    /**
+     * ExportAs list and property mappings. Definitions from {@code .d.ts} files are read from {@link Angular2IvyDirectiveDataIndex},
+     * other ones are decoded from type PSI. The result is cached until the containing file changes.
+     * Should not be used during indexing.
+     */
+    @NotNull
+    public DirectiveData getData() {
+      TypeScriptField field = getField();
+      return CachedValuesManager.getCachedValue(field, () -> {
+        DirectiveData data = Angular2IvyDirectiveDataIndex.getData(field);
+        return create(data != null ? data : decodeData(), field);
+      });
+    }
+
+    /**
+     * Decodes exportAs list and property mappings from the definition type arguments.
+     */
+    @NotNull
+    public DirectiveData decodeData() {
+      return new DirectiveData(getExportAsList(), readPropertyMappings(INPUTS_PROP), readPropertyMappings(OUTPUTS_PROP));
+    }
+
     @NotNull
     @Override
     protected String getDefTypeName() {
@@ -135,6 +160,48 @@ public abstract class Angular2IvyEntityDef {
     }
   }
 
+  public static final class DirectiveData {
+    private final List<String> myExportAsList;
+    private final Map<String, String> myInputs;
+    private final Map<String, String> myOutputs;
+
+    public DirectiveData(@NotNull List<String> exportAsList, @NotNull Map<String, String> inputs, @NotNull Map<String, String> outputs) {
+      myExportAsList = Collections.unmodifiableList(exportAsList);
+      myInputs = Collections.unmodifiableMap(inputs);
+      myOutputs = Collections.unmodifiableMap(outputs);
+    }
+
+    @NotNull
+    public List<String> getExportAsList() {
+      return myExportAsList;
+    }
+
+    @NotNull
+    public Map<String, String> getInputs() {
+      return myInputs;
+    }
+
+    @NotNull
+    public Map<String, String> getOutputs() {
+      return myOutputs;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (o == null || getClass() != o.getClass()) return false;
+      DirectiveData data = (DirectiveData)o;
+      return myExportAsList.equals(data.myExportAsList)
+             && myInputs.equals(data.myInputs)
+             && myOutputs.equals(data.myOutputs);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(myExportAsList, myInputs, myOutputs);
+    }
+  }
+
   public static class Component extends Directive {
     private Component(@NotNull Object fieldStubOrPsi) {super(fieldStubOrPsi);}
 
@@ -21,7 +21,9 @@ public class Angular2IvyPipe extends Angular2IvyDeclaration<Angular2IvyEntityDef
   @NotNull
   @Override
   public String getName() {
-    return notNull(myEntityDef.getName(), () -> Angular2Bundle.message("angular.description.unnamed"));
+    String name = getCachedValue(() -> CachedValueProvider.Result.create(
+      myEntityDef.getName(), myEntityDef.getField()));
+    return notNull(name, () -> Angular2Bundle.message("angular.description.unnamed"));
   }
 
   @NotNull
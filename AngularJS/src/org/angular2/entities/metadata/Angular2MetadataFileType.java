@@ -1,7 +1,6 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata;
 
-import com.intellij.json.psi.JsonValue;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.tree.IStubFileElementType;
@@ -9,6 +8,7 @@ import org.angular2.entities.metadata.stubs.Angular2MetadataNodeModuleStub;
 import org.angular2.lang.Angular2Bundle;
 import org.angular2.lang.metadata.MetadataJsonFileType;
 import org.angular2.lang.metadata.MetadataJsonLanguage;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.angular2.lang.metadata.psi.MetadataStubFileElementType;
 import org.angular2.lang.metadata.stubs.MetadataFileStubImpl;
 import org.jetbrains.annotations.NonNls;
@@ -53,7 +53,12 @@ public final class Angular2MetadataFileType extends MetadataJsonFileType {
   }
 
   @Override
-  protected void createRootStub(MetadataFileStubImpl fileStub, JsonValue jsonRoot) {
+  protected boolean isRootPropertyUsed(@NotNull String name) {
+    return Angular2MetadataNodeModuleStub.isRootPropertyUsed(name);
+  }
+
+  @Override
+  protected void createRootStub(MetadataFileStubImpl fileStub, MetadataJsonValue jsonRoot) {
     new Angular2MetadataNodeModuleStub(fileStub, jsonRoot);
   }
 }
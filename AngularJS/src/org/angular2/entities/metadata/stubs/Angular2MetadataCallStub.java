@@ -1,14 +1,14 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonProperty;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataCall;
 import org.angular2.entities.metadata.psi.Angular2MetadataElement;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonProperty;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -24,11 +24,11 @@ public class Angular2MetadataCallStub extends Angular2MetadataElementStub<Angula
   @NonNls private static final String CALL_RESULT = "#expression";
 
   public static Angular2MetadataCallStub createCallStub(@Nullable String memberName,
-                                                        @NotNull JsonValue source,
+                                                        @NotNull MetadataJsonValue source,
                                                         @Nullable StubElement parent) {
-    JsonObject sourceObject = (JsonObject)source;
+    MetadataJsonObject sourceObject = (MetadataJsonObject)source;
     if (SYMBOL_CALL.equals(readStringPropertyValue(sourceObject.findProperty(SYMBOL_TYPE)))) {
-      JsonValue callResult = doIfNotNull(sourceObject.findProperty(EXPRESSION), JsonProperty::getValue);
+      MetadataJsonValue callResult = doIfNotNull(sourceObject.findProperty(EXPRESSION), MetadataJsonProperty::getValue);
       if (callResult != null) {
         return new Angular2MetadataCallStub(memberName, callResult, parent);
       }
@@ -37,7 +37,7 @@ public class Angular2MetadataCallStub extends Angular2MetadataElementStub<Angula
   }
 
   private Angular2MetadataCallStub(@Nullable String memberName,
-                                   @NotNull JsonValue callResult,
+                                   @NotNull MetadataJsonValue callResult,
                                    @Nullable StubElement parent) {
     super(memberName, parent, Angular2MetadataElementTypes.CALL);
     createMember(CALL_RESULT, callResult);
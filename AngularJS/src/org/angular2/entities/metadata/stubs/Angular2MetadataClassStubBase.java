@@ -1,7 +1,6 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.*;
 import com.intellij.lang.javascript.index.flags.BooleanStructureElement;
 import com.intellij.lang.javascript.index.flags.FlagsStructure;
 import com.intellij.openapi.util.AtomicNotNullLazyValue;
@@ -15,6 +14,7 @@ import org.angular2.entities.Angular2EntityUtils;
 import org.angular2.entities.metadata.psi.Angular2MetadataClassBase;
 import org.angular2.index.Angular2MetadataClassNameIndex;
 import org.angular2.lang.metadata.MetadataUtils;
+import org.angular2.lang.metadata.json.*;
 import org.angular2.lang.metadata.psi.MetadataElementType;
 import org.angular2.lang.metadata.stubs.MetadataElementStub;
 import org.jetbrains.annotations.NonNls;
@@ -56,11 +56,11 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
   }
 
   public static Angular2MetadataClassStubBase<?> createClassStub(@Nullable String memberName,
-                                                                 @NotNull JsonValue source,
+                                                                 @NotNull MetadataJsonValue source,
                                                                  @Nullable StubElement parent) {
-    return streamDecorators((JsonObject)source)
+    return streamDecorators((MetadataJsonObject)source)
       .map(pair -> doIfNotNull(getEntityFactories().get(pair.first),
-                               factory -> factory.create(memberName, parent, (JsonObject)source, pair.second)))
+                               factory -> factory.create(memberName, parent, (MetadataJsonObject)source, pair.second)))
       .filter(Objects::nonNull)
       .findFirst()
       .orElseGet(() -> new Angular2MetadataClassStub(memberName, source, parent));
@@ -84,13 +84,13 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
 
   public Angular2MetadataClassStubBase(@Nullable String memberName,
                                        @Nullable StubElement parent,
-                                       @NotNull JsonObject source,
+                                       @NotNull MetadataJsonObject source,
                                        @NotNull MetadataElementType elementType) {
     super(memberName, parent, elementType);
     if (loadInOuts()) {
       readTemplateFlag(source);
     }
-    JsonObject extendsClass = getPropertyValue(source.findProperty(EXTENDS), JsonObject.class);
+    MetadataJsonObject extendsClass = getPropertyValue(source.findProperty(EXTENDS), MetadataJsonObject.class);
     if (extendsClass != null) {
       Angular2MetadataReferenceStub.createReferenceStub(EXTENDS_MEMBER, extendsClass, this);
     }
@@ -99,8 +99,8 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
     MetadataUtils.streamObjectProperty(source.findProperty(MEMBERS))
       .forEach(this::loadMember);
     MetadataUtils.streamObjectProperty(source.findProperty(STATICS))
-      .filter(prop -> prop.getValue() instanceof JsonObject
-                      && SYMBOL_FUNCTION.equals(readStringPropertyValue(((JsonObject)prop.getValue()).findProperty(SYMBOL_TYPE))))
+      .filter(prop -> prop.getValue() instanceof MetadataJsonObject
+                      && SYMBOL_FUNCTION.equals(readStringPropertyValue(((MetadataJsonObject)prop.getValue()).findProperty(SYMBOL_TYPE))))
       .forEach(this::loadMemberProperty);
   }
 
@@ -171,10 +171,10 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
     return FLAGS_STRUCTURE;
   }
 
-  private void readTemplateFlag(JsonObject source) {
-    JsonObject members = tryCast(doIfNotNull(source.findProperty(MEMBERS), JsonProperty::getValue), JsonObject.class);
-    JsonProperty constructor = members != null ? members.findProperty(CONSTRUCTOR) : null;
-    String constructorText = constructor != null ? constructor.getText() : "";
+  private void readTemplateFlag(MetadataJsonObject source) {
+    MetadataJsonObject members = getPropertyValue(source.findProperty(MEMBERS), MetadataJsonObject.class);
+    MetadataJsonProperty constructor = members != null ? members.findProperty(CONSTRUCTOR) : null;
+    String constructorText = constructor != null ? constructor.getValue().getText() : "";
     Angular2DirectiveKind kind = Angular2DirectiveKind.get(
       constructorText.contains(Angular2EntityUtils.ELEMENT_REF),
       constructorText.contains(Angular2EntityUtils.TEMPLATE_REF),
@@ -184,13 +184,13 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
     writeFlag(IS_REGULAR_DIRECTIVE_FLAG, kind != null && kind.isRegular());
   }
 
-  private void loadMember(@NotNull JsonProperty property) {
+  private void loadMember(@NotNull MetadataJsonProperty property) {
     String name = property.getName();
-    JsonArray val = tryCast(property.getValue(), JsonArray.class);
+    MetadataJsonArray val = tryCast(property.getValue(), MetadataJsonArray.class);
     if (val == null || val.getValueList().size() != 1) {
       return;
     }
-    JsonObject obj = tryCast(val.getValueList().get(0), JsonObject.class);
+    MetadataJsonObject obj = tryCast(val.getValueList().get(0), MetadataJsonObject.class);
     if (obj == null) {
       return;
     }
@@ -198,10 +198,10 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
     if (loadInOuts() && (SYMBOL_PROPERTY.equals(memberSymbol) || SYMBOL_METHOD.equals(memberSymbol))) {
       streamDecorators(obj).forEach(dec -> {
         if (INPUT_DEC.equals(dec.first)) {
-          addBindingMapping(name, myInputMappings, getDecoratorInitializer(dec.second, JsonStringLiteral.class));
+          addBindingMapping(name, myInputMappings, getDecoratorInitializer(dec.second, MetadataJsonString.class));
         }
         else if (OUTPUT_DEC.equals(dec.first)) {
-          addBindingMapping(name, myOutputMappings, getDecoratorInitializer(dec.second, JsonStringLiteral.class));
+          addBindingMapping(name, myOutputMappings, getDecoratorInitializer(dec.second, MetadataJsonString.class));
         }
       });
     }
@@ -212,7 +212,7 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
 
   private static void addBindingMapping(@NotNull String fieldName,
                                         @NotNull Map<String, String> mappings,
-                                        @Nullable JsonStringLiteral initializer) {
+                                        @Nullable MetadataJsonString initializer) {
     String bindingName = initializer != null ? initializer.getValue() : fieldName;
     mappings.put(fieldName, bindingName);
   }
@@ -221,7 +221,7 @@ public class Angular2MetadataClassStubBase<Psi extends Angular2MetadataClassBase
     @Nullable
     Angular2MetadataClassStubBase create(@Nullable String memberName,
                                          @Nullable StubElement parent,
-                                         @NotNull JsonObject classSource,
-                                         @NotNull JsonObject decoratorSource);
+                                         @NotNull MetadataJsonObject classSource,
+                                         @NotNull MetadataJsonObject decoratorSource);
   }
 }
@@ -1,11 +1,11 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonProperty;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import org.angular2.entities.metadata.psi.Angular2MetadataEntity;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonProperty;
 import org.angular2.lang.metadata.psi.MetadataElementType;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
@@ -20,7 +20,7 @@ public class Angular2MetadataEntityStub<Psi extends Angular2MetadataEntity> exte
 
   public Angular2MetadataEntityStub(@Nullable String memberName,
                                     @Nullable StubElement parent,
-                                    @NotNull JsonObject source,
+                                    @NotNull MetadataJsonObject source,
                                     @NotNull MetadataElementType elementType) {
     super(memberName, parent, source, elementType);
   }
@@ -30,9 +30,9 @@ public class Angular2MetadataEntityStub<Psi extends Angular2MetadataEntity> exte
     super(stream, parent, elementType);
   }
 
-  protected void stubDecoratorFields(@NotNull JsonObject initializer, String @NotNull ... fields) {
+  protected void stubDecoratorFields(@NotNull MetadataJsonObject initializer, String @NotNull ... fields) {
     for (String name : fields) {
-      JsonProperty property = initializer.findProperty(name);
+      MetadataJsonProperty property = initializer.findProperty(name);
       if (property != null) {
         createMember(DECORATOR_FIELD_PREFIX + name, property.getValue());
       }
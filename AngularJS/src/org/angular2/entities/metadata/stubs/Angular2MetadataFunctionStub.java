@@ -1,9 +1,6 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonProperty;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
@@ -11,6 +8,9 @@ import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataElement;
 import org.angular2.entities.metadata.psi.Angular2MetadataFunction;
 import org.angular2.index.Angular2MetadataFunctionIndex;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonProperty;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -26,11 +26,11 @@ public class Angular2MetadataFunctionStub extends Angular2MetadataElementStub<An
   @NonNls private static final String VALUE_OBJ = "#value";
 
   public static Angular2MetadataFunctionStub createFunctionStub(@Nullable String memberName,
-                                                                @NotNull JsonValue source,
+                                                                @NotNull MetadataJsonValue source,
                                                                 @Nullable StubElement parent) {
-    JsonObject sourceObject = (JsonObject)source;
+    MetadataJsonObject sourceObject = (MetadataJsonObject)source;
     if (memberName != null && SYMBOL_FUNCTION.equals(readStringPropertyValue(sourceObject.findProperty(SYMBOL_TYPE)))) {
-      JsonValue value = doIfNotNull(sourceObject.findProperty(FUNCTION_VALUE), JsonProperty::getValue);
+      MetadataJsonValue value = doIfNotNull(sourceObject.findProperty(FUNCTION_VALUE), MetadataJsonProperty::getValue);
       if (value != null) {
         return new Angular2MetadataFunctionStub(memberName, value, parent);
       }
@@ -43,7 +43,7 @@ public class Angular2MetadataFunctionStub extends Angular2MetadataElementStub<An
   }
 
   public Angular2MetadataFunctionStub(@NotNull String memberName,
-                                      @NotNull JsonValue value,
+                                      @NotNull MetadataJsonValue value,
                                       @Nullable StubElement parent) {
     super(memberName, parent, Angular2MetadataElementTypes.FUNCTION);
     createMember(VALUE_OBJ, value);
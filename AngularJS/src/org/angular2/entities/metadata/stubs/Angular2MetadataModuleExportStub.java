@@ -1,9 +1,6 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonArray;
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonProperty;
 import com.intellij.lang.javascript.index.flags.BooleanStructureElement;
 import com.intellij.lang.javascript.index.flags.FlagsStructure;
 import com.intellij.openapi.util.Pair;
@@ -15,6 +12,9 @@ import one.util.streamex.StreamEx;
 import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataModuleExport;
 import org.angular2.lang.metadata.MetadataUtils;
+import org.angular2.lang.metadata.json.MetadataJsonArray;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonProperty;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -42,14 +42,14 @@ public class Angular2MetadataModuleExportStub extends Angular2MetadataElementStu
   private final Map<String, String> myExportMappings;
 
   public Angular2MetadataModuleExportStub(@NotNull StubElement parent,
-                                          @NotNull JsonObject source) {
+                                          @NotNull MetadataJsonObject source) {
     super((String)null, parent, Angular2MetadataElementTypes.MODULE_EXPORT);
     myFrom = StringRef.fromString(MetadataUtils.readStringPropertyValue(source.findProperty(FROM)));
     myExportMappings = StreamEx.ofNullable(source.findProperty(EXPORT))
-      .map(JsonProperty::getValue)
-      .select(JsonArray.class)
-      .flatCollection(JsonArray::getValueList)
-      .select(JsonObject.class)
+      .map(MetadataJsonProperty::getValue)
+      .select(MetadataJsonArray.class)
+      .flatCollection(MetadataJsonArray::getValueList)
+      .select(MetadataJsonObject.class)
       .map(obj -> {
         String name = MetadataUtils.readStringPropertyValue(obj.findProperty(NAME));
         String as = MetadataUtils.readStringPropertyValue(obj.findProperty(AS));
@@ -1,7 +1,6 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
@@ -9,6 +8,7 @@ import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataModule;
 import org.angular2.index.Angular2IndexingHandler;
 import org.angular2.index.Angular2MetadataModuleIndex;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -22,11 +22,11 @@ public class Angular2MetadataModuleStub extends Angular2MetadataEntityStub<Angul
 
   public Angular2MetadataModuleStub(@Nullable String memberName,
                                     @Nullable StubElement parent,
-                                    @NotNull JsonObject classSource,
-                                    @NotNull JsonObject decoratorSource) {
+                                    @NotNull MetadataJsonObject classSource,
+                                    @NotNull MetadataJsonObject decoratorSource) {
     super(memberName, parent, classSource, Angular2MetadataElementTypes.MODULE);
 
-    JsonObject initializer = getDecoratorInitializer(decoratorSource, JsonObject.class);
+    MetadataJsonObject initializer = getDecoratorInitializer(decoratorSource, MetadataJsonObject.class);
     if (initializer != null) {
       stubDecoratorFields(initializer, STUBBED_DECORATOR_FIELDS);
     }
@@ -1,9 +1,6 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonArray;
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
@@ -14,6 +11,9 @@ import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataNodeModule;
 import org.angular2.index.Angular2MetadataNodeModuleIndex;
 import org.angular2.lang.metadata.MetadataUtils;
+import org.angular2.lang.metadata.json.MetadataJsonArray;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -24,27 +24,34 @@ public class Angular2MetadataNodeModuleStub extends Angular2MetadataElementStub<
 
   @NonNls private static final String IMPORT_AS = "importAs";
   @NonNls private static final String EXPORTS = "exports";
-  private static final String METADATA = "metadata";
+  @NonNls private static final String METADATA = "metadata";
 
   @Nullable
   private final StringRef myImportAs;
 
+  /**
+   * @return whether the property of the file root object is used to build the stub
+   */
+  public static boolean isRootPropertyUsed(@NotNull String name) {
+    return IMPORT_AS.equals(name) || EXPORTS.equals(name) || METADATA.equals(name);
+  }
+
   public Angular2MetadataNodeModuleStub(@NotNull StubInputStream stream, @Nullable StubElement parentStub) throws IOException {
     super(stream, parentStub, Angular2MetadataElementTypes.NODE_MODULE);
     myImportAs = stream.readName();
   }
 
-  public Angular2MetadataNodeModuleStub(@Nullable StubElement parentStub, @Nullable JsonValue fileRoot) {
+  public Angular2MetadataNodeModuleStub(@Nullable StubElement parentStub, @Nullable MetadataJsonValue fileRoot) {
     super((String)null, parentStub, Angular2MetadataElementTypes.NODE_MODULE);
-    if (fileRoot instanceof JsonArray) {
-      fileRoot = ((JsonArray)fileRoot).getValueList().get(0);
+    if (fileRoot instanceof MetadataJsonArray) {
+      fileRoot = ((MetadataJsonArray)fileRoot).getValueList().get(0);
     }
-    if (fileRoot instanceof JsonObject) {
-      JsonObject fileRootObject = (JsonObject)fileRoot;
+    if (fileRoot instanceof MetadataJsonObject) {
+      MetadataJsonObject fileRootObject = (MetadataJsonObject)fileRoot;
       myImportAs = StringRef.fromString(MetadataUtils.readStringPropertyValue(fileRootObject.findProperty(IMPORT_AS)));
-      StreamEx.ofNullable(MetadataUtils.getPropertyValue(fileRootObject.findProperty(EXPORTS), JsonArray.class))
-        .flatCollection(JsonArray::getValueList)
-        .select(JsonObject.class)
+      StreamEx.ofNullable(MetadataUtils.getPropertyValue(fileRootObject.findProperty(EXPORTS), MetadataJsonArray.class))
+        .flatCollection(MetadataJsonArray::getValueList)
+        .select(MetadataJsonObject.class)
         .forEach(object -> new Angular2MetadataModuleExportStub(this, object));
       MetadataUtils.streamObjectProperty(fileRootObject.findProperty(METADATA))
         .forEach(this::loadMemberProperty);
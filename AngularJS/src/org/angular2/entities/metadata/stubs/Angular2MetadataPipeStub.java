@@ -1,7 +1,6 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
 import com.intellij.psi.stubs.IndexSink;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
@@ -11,6 +10,7 @@ import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataPipe;
 import org.angular2.index.Angular2MetadataPipeIndex;
 import org.angular2.lang.metadata.MetadataUtils;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -21,9 +21,9 @@ public class Angular2MetadataPipeStub extends Angular2MetadataEntityStub<Angular
   @Nullable
   public static Angular2MetadataPipeStub createPipeStub(@Nullable String memberName,
                                                         @Nullable StubElement parent,
-                                                        @NotNull JsonObject classSource,
-                                                        @NotNull JsonObject decoratorSource) {
-    JsonObject decoratorArg = getDecoratorInitializer(decoratorSource, JsonObject.class);
+                                                        @NotNull MetadataJsonObject classSource,
+                                                        @NotNull MetadataJsonObject decoratorSource) {
+    MetadataJsonObject decoratorArg = getDecoratorInitializer(decoratorSource, MetadataJsonObject.class);
     if (decoratorArg != null) {
       String pipeName = MetadataUtils.readStringPropertyValue(decoratorArg.findProperty(NAME));
       if (pipeName != null) {
@@ -37,7 +37,7 @@ public class Angular2MetadataPipeStub extends Angular2MetadataEntityStub<Angular
 
   private Angular2MetadataPipeStub(@Nullable String memberName,
                                    @Nullable StubElement parent,
-                                   @NotNull JsonObject classSource,
+                                   @NotNull MetadataJsonObject classSource,
                                    @NotNull String pipeName) {
     super(memberName, parent, classSource, Angular2MetadataElementTypes.PIPE);
     myPipeName = StringRef.fromString(pipeName);
@@ -1,8 +1,6 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.lang.javascript.index.flags.BooleanStructureElement;
 import com.intellij.lang.javascript.index.flags.FlagsStructure;
 import com.intellij.psi.stubs.StubElement;
@@ -11,6 +9,8 @@ import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.io.StringRef;
 import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataReference;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -21,9 +21,9 @@ import static org.angular2.lang.metadata.MetadataUtils.readStringPropertyValue;
 public class Angular2MetadataReferenceStub extends Angular2MetadataElementStub<Angular2MetadataReference> {
 
   public static Angular2MetadataReferenceStub createReferenceStub(@Nullable String memberName,
-                                                                  @NotNull JsonValue source,
+                                                                  @NotNull MetadataJsonValue source,
                                                                   @Nullable StubElement parent) {
-    JsonObject sourceObject = (JsonObject)source;
+    MetadataJsonObject sourceObject = (MetadataJsonObject)source;
     if (SYMBOL_REFERENCE.equals(readStringPropertyValue(sourceObject.findProperty(SYMBOL_TYPE)))) {
       String name = readStringPropertyValue(sourceObject.findProperty(REFERENCE_NAME));
       String module = readStringPropertyValue(sourceObject.findProperty(REFERENCE_MODULE));
@@ -1,14 +1,14 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonProperty;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataElement;
 import org.angular2.entities.metadata.psi.Angular2MetadataSpread;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonProperty;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NonNls;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -24,11 +24,11 @@ public class Angular2MetadataSpreadStub extends Angular2MetadataElementStub<Angu
   @NonNls private static final String SPREAD_EXPRESSION = "#expression";
 
   public static Angular2MetadataSpreadStub createSpreadStub(@Nullable String memberName,
-                                                            @NotNull JsonValue source,
+                                                            @NotNull MetadataJsonValue source,
                                                             @Nullable StubElement parent) {
-    JsonObject sourceObject = (JsonObject)source;
+    MetadataJsonObject sourceObject = (MetadataJsonObject)source;
     if (SYMBOL_SPREAD.equals(readStringPropertyValue(sourceObject.findProperty(SYMBOL_TYPE)))) {
-      JsonValue spreadExpression = doIfNotNull(sourceObject.findProperty(EXPRESSION), JsonProperty::getValue);
+      MetadataJsonValue spreadExpression = doIfNotNull(sourceObject.findProperty(EXPRESSION), MetadataJsonProperty::getValue);
       if (spreadExpression != null) {
         return new Angular2MetadataSpreadStub(memberName, spreadExpression, parent);
       }
@@ -37,7 +37,7 @@ public class Angular2MetadataSpreadStub extends Angular2MetadataElementStub<Angu
   }
 
   private Angular2MetadataSpreadStub(@Nullable String memberName,
-                                     @NotNull JsonValue spreadExpression,
+                                     @NotNull MetadataJsonValue spreadExpression,
                                      @Nullable StubElement parent) {
     super(memberName, parent, Angular2MetadataElementTypes.SPREAD);
     createMember(SPREAD_EXPRESSION, spreadExpression);
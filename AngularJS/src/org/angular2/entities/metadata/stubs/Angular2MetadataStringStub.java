@@ -1,14 +1,14 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.entities.metadata.stubs;
 
-import com.intellij.json.psi.JsonStringLiteral;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.psi.stubs.StubElement;
 import com.intellij.psi.stubs.StubInputStream;
 import com.intellij.psi.stubs.StubOutputStream;
 import com.intellij.util.io.StringRef;
 import org.angular2.entities.metadata.Angular2MetadataElementTypes;
 import org.angular2.entities.metadata.psi.Angular2MetadataString;
+import org.angular2.lang.metadata.json.MetadataJsonString;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -22,10 +22,10 @@ public class Angular2MetadataStringStub extends Angular2MetadataElementStub<Angu
   private final StringRef myValue;
 
   public Angular2MetadataStringStub(@Nullable String memberName,
-                                    @NotNull JsonValue source,
+                                    @NotNull MetadataJsonValue source,
                                     @Nullable StubElement parent) {
     super(memberName, parent, Angular2MetadataElementTypes.STRING);
-    myValue = StringRef.fromString(((JsonStringLiteral)source).getValue());
+    myValue = StringRef.fromString(((MetadataJsonString)source).getValue());
   }
 
   public Angular2MetadataStringStub(@NotNull StubInputStream stream, @Nullable StubElement parent) throws IOException {
@@ -0,0 +1,161 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.index;
+
+import com.intellij.lang.javascript.TypeScriptFileType;
+import com.intellij.lang.javascript.psi.ecma6.TypeScriptClass;
+import com.intellij.lang.javascript.psi.ecma6.TypeScriptField;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.indexing.*;
+import com.intellij.util.io.DataExternalizer;
+import com.intellij.util.io.DataInputOutputUtil;
+import com.intellij.util.io.EnumeratorStringDescriptor;
+import com.intellij.util.io.KeyDescriptor;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import org.angular2.entities.ivy.Angular2IvyEntityDef;
+import org.angular2.entities.ivy.Angular2IvyEntityDef.DirectiveData;
+import org.angular2.entities.metadata.Angular2MetadataFileType;
+import org.jetbrains.annotations.NonNls;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Decoded Ivy directive definitions of {@code .d.ts} files by class name. Classes whose name occurs more than once in a file
+ * are not indexed.
+ */
+public class Angular2IvyDirectiveDataIndex extends FileBasedIndexExtension<String, DirectiveData> {
+
+  public static final ID<String, DirectiveData> KEY = ID.create("angular2.ivy.directive.data.index");
+
+  @NonNls private static final String DEF_WITH_META = "DefWithMeta";
+
+  private static final DefaultFileTypeSpecificInputFilter INPUT_FILTER = new DefaultFileTypeSpecificInputFilter(TypeScriptFileType.INSTANCE) {
+    @Override
+    public boolean acceptInput(@NotNull VirtualFile file) {
+      return super.acceptInput(file) && file.getName().endsWith(Angular2MetadataFileType.D_TS_SUFFIX);
+    }
+  };
+
+  @Nullable
+  public static DirectiveData getData(@NotNull TypeScriptField field) {
+    TypeScriptClass tsClass = PsiTreeUtil.getContextOfType(field, TypeScriptClass.class);
+    VirtualFile file = field.getContainingFile().getOriginalFile().getVirtualFile();
+    if (tsClass == null || tsClass.getName() == null || file == null
+        || !INPUT_FILTER.acceptInput(file) || DumbService.isDumb(field.getProject())) {
+      return null;
+    }
+    return FileBasedIndex.getInstance().getFileData(KEY, file, field.getProject()).get(tsClass.getName());
+  }
+
+  @NotNull
+  @Override
+  public ID<String, DirectiveData> getName() {
+    return KEY;
+  }
+
+  @NotNull
+  @Override
+  public DataIndexer<String, DirectiveData, FileContent> getIndexer() {
+    return inputData -> {
+      if (!StringUtil.contains(inputData.getContentAsText(), DEF_WITH_META)) {
+        return Collections.emptyMap();
+      }
+      Map<String, DirectiveData> result = new THashMap<>();
+      Set<String> duplicates = new THashSet<>();
+      for (TypeScriptClass tsClass : PsiTreeUtil.findChildrenOfType(inputData.getPsiFile(), TypeScriptClass.class)) {
+        String name = tsClass.getName();
+        if (name == null || duplicates.contains(name)) {
+          continue;
+        }
+        Angular2IvyEntityDef entityDef = Angular2IvyEntityDef.get(tsClass);
+        if (entityDef instanceof Angular2IvyEntityDef.Directive
+            && result.put(name, ((Angular2IvyEntityDef.Directive)entityDef).decodeData()) != null) {
+          result.remove(name);
+          duplicates.add(name);
+        }
+      }
+      return result;
+    };
+  }
+
+  @NotNull
+  @Override
+  public KeyDescriptor<String> getKeyDescriptor() {
+    return EnumeratorStringDescriptor.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public DataExternalizer<DirectiveData> getValueExternalizer() {
+    return DirectiveDataExternalizer.INSTANCE;
+  }
+
+  @NotNull
+  @Override
+  public FileBasedIndex.InputFilter getInputFilter() {
+    return INPUT_FILTER;
+  }
+
+  @Override
+  public boolean dependsOnFileContent() {
+    return true;
+  }
+
+  @Override
+  public int getVersion() {
+    return 1;
+  }
+
+  private static final class DirectiveDataExternalizer implements DataExternalizer<DirectiveData> {
+    private static final DirectiveDataExternalizer INSTANCE = new DirectiveDataExternalizer();
+
+    @Override
+    public void save(@NotNull DataOutput out, DirectiveData value) throws IOException {
+      DataInputOutputUtil.writeINT(out, value.getExportAsList().size());
+      for (String exportAs : value.getExportAsList()) {
+        out.writeUTF(exportAs);
+      }
+      saveMap(out, value.getInputs());
+      saveMap(out, value.getOutputs());
+    }
+
+    @Override
+    public DirectiveData read(@NotNull DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      List<String> exportAsList = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        exportAsList.add(in.readUTF());
+      }
+      Map<String, String> inputs = readMap(in);
+      Map<String, String> outputs = readMap(in);
+      return new DirectiveData(exportAsList, inputs, outputs);
+    }
+
+    private static void saveMap(@NotNull DataOutput out, @NotNull Map<String, String> map) throws IOException {
+      DataInputOutputUtil.writeINT(out, map.size());
+      for (Map.Entry<String, String> entry : map.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeUTF(entry.getValue());
+      }
+    }
+
+    @NotNull
+    private static Map<String, String> readMap(@NotNull DataInput in) throws IOException {
+      int size = DataInputOutputUtil.readINT(in);
+      // keep the declaration order
+      Map<String, String> result = new LinkedHashMap<>(size);
+      for (int i = 0; i < size; i++) {
+        result.put(in.readUTF(), in.readUTF());
+      }
+      return result;
+    }
+  }
+}
@@ -1,11 +1,11 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.lang.metadata;
 
-import com.intellij.json.psi.JsonValue;
 import com.intellij.openapi.fileTypes.FileType;
 import com.intellij.openapi.fileTypes.ex.FileTypeIdentifiableByVirtualFile;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.tree.IStubFileElementType;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.angular2.lang.metadata.stubs.MetadataFileStubImpl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -47,5 +47,12 @@ public abstract class MetadataJsonFileType implements FileType, FileTypeIdentifi
 
   public abstract IStubFileElementType getFileElementType();
 
-  protected abstract void createRootStub(MetadataFileStubImpl result, JsonValue value);
+  /**
+   * @return whether the property of the root object should be read, other properties are skipped when the stub is built
+   */
+  protected boolean isRootPropertyUsed(@NotNull String name) {
+    return true;
+  }
+
+  protected abstract void createRootStub(MetadataFileStubImpl result, MetadataJsonValue value);
 }
@@ -1,14 +1,13 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.lang.metadata;
 
-import com.intellij.json.JsonLanguage;
-import com.intellij.json.psi.impl.JsonFileImpl;
 import com.intellij.openapi.fileEditor.impl.LoadTextUtil;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.intellij.psi.PsiFileFactory;
 import com.intellij.psi.stubs.BinaryFileStubBuilder;
 import com.intellij.psi.stubs.Stub;
 import com.intellij.util.indexing.FileContent;
+import org.angular2.lang.metadata.json.MetadataJsonReader;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.angular2.lang.metadata.stubs.MetadataFileStubImpl;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -28,19 +27,17 @@ public class MetadataJsonStubBuilder implements BinaryFileStubBuilder {
     CharSequence text = LoadTextUtil.getTextByBinaryPresentation(
       fileContent.getContent(), fileContent.getFile());
 
-    JsonFileImpl jsonFile = (JsonFileImpl)PsiFileFactory
-      .getInstance(fileContent.getProject())
-      .createFileFromText(JsonLanguage.INSTANCE, text);
+    MetadataJsonValue root = MetadataJsonReader.read(text, fileType::isRootPropertyUsed);
 
     MetadataFileStubImpl result = new MetadataFileStubImpl(null, fileType.getFileElementType());
-    if (jsonFile.getTopLevelValue() != null) {
-      fileType.createRootStub(result, jsonFile.getTopLevelValue());
+    if (root != null) {
+      fileType.createRootStub(result, root);
     }
     return result;
   }
 
   @Override
   public int getStubVersion() {
-    return 22;
+    return 23;
   }
 }
@@ -1,11 +1,11 @@
 // Copyright 2000-2018 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package org.angular2.lang.metadata;
 
-import com.intellij.json.psi.JsonObject;
-import com.intellij.json.psi.JsonProperty;
-import com.intellij.json.psi.JsonStringLiteral;
-import com.intellij.json.psi.JsonValue;
 import com.intellij.openapi.util.Pair;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonProperty;
+import org.angular2.lang.metadata.json.MetadataJsonString;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -17,31 +17,31 @@ import static com.intellij.util.ObjectUtils.tryCast;
 public class MetadataUtils {
 
   @NotNull
-  public static Stream<JsonProperty> streamObjectProperty(@Nullable JsonProperty property) {
-    if (property == null || !(property.getValue() instanceof JsonObject)) {
+  public static Stream<MetadataJsonProperty> streamObjectProperty(@Nullable MetadataJsonProperty property) {
+    if (property == null || !(property.getValue() instanceof MetadataJsonObject)) {
       return Stream.empty();
     }
-    return ((JsonObject)property.getValue()).getPropertyList().stream();
+    return ((MetadataJsonObject)property.getValue()).getPropertyList().stream();
   }
 
   @Nullable
-  public static Pair<String, String> readStringProperty(@Nullable JsonProperty property) {
-    if (property != null && property.getValue() instanceof JsonStringLiteral) {
-      return pair(property.getName(), ((JsonStringLiteral)property.getValue()).getValue());
+  public static Pair<String, String> readStringProperty(@Nullable MetadataJsonProperty property) {
+    if (property != null && property.getValue() instanceof MetadataJsonString) {
+      return pair(property.getName(), ((MetadataJsonString)property.getValue()).getValue());
     }
     return null;
   }
 
   @Nullable
-  public static String readStringPropertyValue(@Nullable JsonProperty property) {
-    if (property != null && property.getValue() instanceof JsonStringLiteral) {
-      return ((JsonStringLiteral)property.getValue()).getValue();
+  public static String readStringPropertyValue(@Nullable MetadataJsonProperty property) {
+    if (property != null && property.getValue() instanceof MetadataJsonString) {
+      return ((MetadataJsonString)property.getValue()).getValue();
     }
     return null;
   }
 
   @Nullable
-  public static <T extends JsonValue> T getPropertyValue(@Nullable JsonProperty property, Class<T> valueClass) {
+  public static <T extends MetadataJsonValue> T getPropertyValue(@Nullable MetadataJsonProperty property, Class<T> valueClass) {
     return property != null ? tryCast(property.getValue(), valueClass) : null;
   }
 }
@@ -0,0 +1,21 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+public final class MetadataJsonArray extends MetadataJsonValue {
+
+  private final List<MetadataJsonValue> myValues;
+
+  MetadataJsonArray(@NotNull CharSequence fileText, int startOffset, int endOffset, @NotNull List<MetadataJsonValue> values) {
+    super(fileText, startOffset, endOffset);
+    myValues = values;
+  }
+
+  @NotNull
+  public List<MetadataJsonValue> getValueList() {
+    return myValues;
+  }
+}
@@ -0,0 +1,14 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Number, boolean or {@code null} value. Stubs don't use them, but they keep positions of values in arrays.
+ */
+public final class MetadataJsonLiteral extends MetadataJsonValue {
+
+  MetadataJsonLiteral(@NotNull CharSequence fileText, int startOffset, int endOffset) {
+    super(fileText, startOffset, endOffset);
+  }
+}
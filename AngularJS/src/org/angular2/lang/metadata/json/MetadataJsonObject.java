@@ -0,0 +1,32 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+
+public final class MetadataJsonObject extends MetadataJsonValue {
+
+  private final List<MetadataJsonProperty> myProperties;
+
+  MetadataJsonObject(@NotNull CharSequence fileText, int startOffset, int endOffset, @NotNull List<MetadataJsonProperty> properties) {
+    super(fileText, startOffset, endOffset);
+    myProperties = properties;
+  }
+
+  @NotNull
+  public List<MetadataJsonProperty> getPropertyList() {
+    return myProperties;
+  }
+
+  @Nullable
+  public MetadataJsonProperty findProperty(@NotNull String name) {
+    for (MetadataJsonProperty property : myProperties) {
+      if (name.equals(property.getName())) {
+        return property;
+      }
+    }
+    return null;
+  }
+}
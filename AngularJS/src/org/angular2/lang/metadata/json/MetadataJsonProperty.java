@@ -0,0 +1,25 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import org.jetbrains.annotations.NotNull;
+
+public final class MetadataJsonProperty {
+
+  private final String myName;
+  private final MetadataJsonValue myValue;
+
+  MetadataJsonProperty(@NotNull String name, @NotNull MetadataJsonValue value) {
+    myName = name;
+    myValue = value;
+  }
+
+  @NotNull
+  public String getName() {
+    return myName;
+  }
+
+  @NotNull
+  public MetadataJsonValue getValue() {
+    return myValue;
+  }
+}
@@ -0,0 +1,303 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import com.intellij.util.SmartList;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Reads metadata JSON in a single pass into {@link MetadataJsonValue} tree, without building the lexer tokens, AST and PSI
+ * of a JSON file. Properties of the top level objects rejected by the filter are skipped without creating any values for them.
+ * <p>
+ * Like the JSON parser, the reader is tolerant to syntax errors: a malformed property or array element is skipped up to the next
+ * comma or closing bracket of its container, and containers that are not closed end at the end of the text.
+ */
+public final class MetadataJsonReader {
+
+  private final CharSequence myText;
+  private final int myLength;
+  private final Predicate<? super String> myTopLevelPropertyFilter;
+  private int myOffset;
+
+  private MetadataJsonReader(@NotNull CharSequence text, @NotNull Predicate<? super String> topLevelPropertyFilter) {
+    myText = text;
+    myLength = text.length();
+    myTopLevelPropertyFilter = topLevelPropertyFilter;
+  }
+
+  /**
+   * @param topLevelPropertyFilter accepts properties to be read from the root object or objects of the root array
+   * @return root value or {@code null} if the text doesn't start with a JSON value
+   */
+  @Nullable
+  public static MetadataJsonValue read(@NotNull CharSequence text, @NotNull Predicate<? super String> topLevelPropertyFilter) {
+    MetadataJsonReader reader = new MetadataJsonReader(text, topLevelPropertyFilter);
+    try {
+      return reader.readValue(0);
+    }
+    catch (MalformedJsonException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param depth 0 for the root value, 1 for the elements of the root array
+   */
+  @NotNull
+  private MetadataJsonValue readValue(int depth) {
+    skipWhitespace();
+    switch (currentChar()) {
+      case '{':
+        return readObject(depth <= 1);
+      case '[':
+        return readArray(depth);
+      case '"':
+        int start = myOffset;
+        String value = readString();
+        return new MetadataJsonString(myText, start, myOffset, value);
+      default:
+        return readLiteral();
+    }
+  }
+
+  @NotNull
+  private MetadataJsonObject readObject(boolean topLevel) {
+    int start = myOffset++;
+    List<MetadataJsonProperty> properties = new SmartList<>();
+    skipWhitespace();
+    if (myOffset < myLength && myText.charAt(myOffset) == '}') {
+      myOffset++;
+      return new MetadataJsonObject(myText, start, myOffset, Collections.emptyList());
+    }
+    while (true) {
+      try {
+        skipWhitespace();
+        if (currentChar() != '"') {
+          throw new MalformedJsonException();
+        }
+        String name = readString();
+        skipWhitespace();
+        expect(':');
+        if (!topLevel || myTopLevelPropertyFilter.test(name)) {
+          properties.add(new MetadataJsonProperty(name, readValue(2)));
+        }
+        else {
+          skipValue();
+        }
+      }
+      catch (MalformedJsonException e) {
+        skipToSeparator();
+      }
+      if (!skipSeparator(']')) {
+        return new MetadataJsonObject(myText, start, myOffset, properties);
+      }
+    }
+  }
+
+  @NotNull
+  private MetadataJsonArray readArray(int depth) {
+    int start = myOffset++;
+    skipWhitespace();
+    if (myOffset < myLength && myText.charAt(myOffset) == ']') {
+      myOffset++;
+      return new MetadataJsonArray(myText, start, myOffset, Collections.emptyList());
+    }
+    List<MetadataJsonValue> values = new ArrayList<>();
+    while (true) {
+      try {
+        values.add(readValue(depth + 1));
+      }
+      catch (MalformedJsonException e) {
+        skipToSeparator();
+      }
+      if (!skipSeparator('}')) {
+        return new MetadataJsonArray(myText, start, myOffset, values);
+      }
+    }
+  }
+
+  /**
+   * Moves past the comma or the closing bracket after a property or an array element.
+   *
+   * @param otherClosingBracket closing bracket of the other kind, which ends the enclosing container and is left for it
+   * @return {@code true} if the next property or element follows, {@code false} if the container has ended
+   */
+  private boolean skipSeparator(char otherClosingBracket) {
+    // anything else after a value is malformed
+    skipToSeparator();
+    if (myOffset >= myLength) {
+      // an escape at the end of the text may have been skipped past it
+      myOffset = myLength;
+      return false;
+    }
+    char c = myText.charAt(myOffset);
+    if (c == otherClosingBracket) {
+      return false;
+    }
+    myOffset++;
+    return c == ',';
+  }
+
+  /**
+   * Skips malformed input up to a comma or a closing bracket outside of nested objects, arrays and strings.
+   */
+  private void skipToSeparator() {
+    int depth = 0;
+    while (myOffset < myLength) {
+      char c = myText.charAt(myOffset);
+      if (depth == 0 && (c == ',' || c == '}' || c == ']')) {
+        return;
+      }
+      if (c == '"') {
+        myOffset++;
+        while (myOffset < myLength && myText.charAt(myOffset) != '"') {
+          myOffset += myText.charAt(myOffset) == '\\' ? 2 : 1;
+        }
+      }
+      else if (c == '{' || c == '[') {
+        depth++;
+      }
+      else if (c == '}' || c == ']') {
+        depth--;
+      }
+      myOffset++;
+    }
+  }
+
+  @NotNull
+  private MetadataJsonLiteral readLiteral() {
+    int start = myOffset;
+    while (myOffset < myLength && isLiteralChar(myText.charAt(myOffset))) {
+      myOffset++;
+    }
+    if (start == myOffset) {
+      throw new MalformedJsonException();
+    }
+    return new MetadataJsonLiteral(myText, start, myOffset);
+  }
+
+  @NotNull
+  private String readString() {
+    int start = ++myOffset;
+    // most of the strings have no escapes and are copied at once
+    while (myOffset < myLength) {
+      char c = myText.charAt(myOffset);
+      if (c == '"') {
+        return myText.subSequence(start, myOffset++).toString();
+      }
+      if (c == '\\') {
+        break;
+      }
+      myOffset++;
+    }
+    StringBuilder result = new StringBuilder().append(myText, start, myOffset);
+    while (true) {
+      char c = currentChar();
+      myOffset++;
+      if (c == '"') {
+        return result.toString();
+      }
+      if (c != '\\') {
+        result.append(c);
+        continue;
+      }
+      char escaped = currentChar();
+      myOffset++;
+      switch (escaped) {
+        case 'b': result.append('\b'); break;
+        case 'f': result.append('\f'); break;
+        case 'n': result.append('\n'); break;
+        case 'r': result.append('\r'); break;
+        case 't': result.append('\t'); break;
+        case 'u':
+          if (myOffset + 4 > myLength) {
+            throw new MalformedJsonException();
+          }
+          try {
+            result.append((char)Integer.parseInt(myText.subSequence(myOffset, myOffset + 4).toString(), 16));
+          }
+          catch (NumberFormatException e) {
+            throw new MalformedJsonException();
+          }
+          myOffset += 4;
+          break;
+        default: result.append(escaped);
+      }
+    }
+  }
+
+  private void skipValue() {
+    skipWhitespace();
+    char c = currentChar();
+    if (c == '"') {
+      skipString();
+    }
+    else if (c == '{' || c == '[') {
+      int depth = 0;
+      do {
+        c = currentChar();
+        if (c == '"') {
+          skipString();
+          continue;
+        }
+        if (c == '{' || c == '[') {
+          depth++;
+        }
+        else if (c == '}' || c == ']') {
+          depth--;
+        }
+        myOffset++;
+      }
+      while (depth > 0);
+    }
+    else {
+      readLiteral();
+    }
+  }
+
+  private void skipString() {
+    myOffset++;
+    while (true) {
+      char c = currentChar();
+      myOffset += c == '\\' ? 2 : 1;
+      if (c == '"') {
+        return;
+      }
+    }
+  }
+
+  private void skipWhitespace() {
+    while (myOffset < myLength && Character.isWhitespace(myText.charAt(myOffset))) {
+      myOffset++;
+    }
+  }
+
+  private void expect(char c) {
+    if (currentChar() != c) {
+      throw new MalformedJsonException();
+    }
+    myOffset++;
+  }
+
+  private char currentChar() {
+    if (myOffset >= myLength) {
+      throw new MalformedJsonException();
+    }
+    return myText.charAt(myOffset);
+  }
+
+  private static boolean isLiteralChar(char c) {
+    return Character.isLetterOrDigit(c) || c == '-' || c == '+' || c == '.';
+  }
+
+  private static class MalformedJsonException extends RuntimeException {
+    MalformedJsonException() {
+      super(null, null, false, false);
+    }
+  }
+}
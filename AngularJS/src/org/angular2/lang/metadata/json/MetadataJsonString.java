@@ -0,0 +1,19 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import org.jetbrains.annotations.NotNull;
+
+public final class MetadataJsonString extends MetadataJsonValue {
+
+  private final String myValue;
+
+  MetadataJsonString(@NotNull CharSequence fileText, int startOffset, int endOffset, @NotNull String value) {
+    super(fileText, startOffset, endOffset);
+    myValue = value;
+  }
+
+  @NotNull
+  public String getValue() {
+    return myValue;
+  }
+}
@@ -0,0 +1,25 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.lang.metadata.json;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Lightweight JSON value read by {@link MetadataJsonReader}. Unlike JSON PSI it keeps only the values and their offsets in the text.
+ */
+public abstract class MetadataJsonValue {
+
+  private final CharSequence myFileText;
+  private final int myStartOffset;
+  private final int myEndOffset;
+
+  MetadataJsonValue(@NotNull CharSequence fileText, int startOffset, int endOffset) {
+    myFileText = fileText;
+    myStartOffset = startOffset;
+    myEndOffset = endOffset;
+  }
+
+  @NotNull
+  public String getText() {
+    return myFileText.subSequence(myStartOffset, myEndOffset).toString();
+  }
+}
@@ -236,6 +236,27 @@ public class Angular2DirectiveSimpleSelector {
     classNames.add(StringUtil.toLowerCase(name));
   }
 
+  /**
+   * @return a string that is the same for selectors with the same element, classes, attributes and not-selectors, unlike
+   * {@link #toString()} it is not ambiguous when attribute values contain selector syntax
+   */
+  @NotNull
+  public String getSignature() {
+    @NonNls StringBuilder result = new StringBuilder();
+    appendSignaturePart(result, StringUtil.notNullize(element));
+    result.append(classNames.size()).append(':');
+    classNames.forEach(cls -> appendSignaturePart(result, cls));
+    result.append(attrs.size()).append(':');
+    attrs.forEach(attr -> appendSignaturePart(result, attr));
+    result.append(notSelectors.size()).append(':');
+    notSelectors.forEach(selector -> appendSignaturePart(result, selector.getSignature()));
+    return result.toString();
+  }
+
+  private static void appendSignaturePart(@NotNull StringBuilder builder, @NotNull String part) {
+    builder.append(part.length()).append(':').append(part);
+  }
+
   @NotNull
   public String toString() {
     @NonNls StringBuilder result = new StringBuilder();
@@ -0,0 +1,332 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angularjs.index;
+
+import com.intellij.ProjectTopics;
+import com.intellij.lang.javascript.JavascriptLanguage;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.fileTypes.FileType;
+import com.intellij.openapi.fileTypes.LanguageFileType;
+import com.intellij.openapi.project.DumbService;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.psi.PsiElement;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiManager;
+import com.intellij.psi.PsiTreeChangeAdapter;
+import com.intellij.psi.PsiTreeChangeEvent;
+import com.intellij.psi.search.GlobalSearchScope;
+import com.intellij.psi.stubs.*;
+import com.intellij.psi.util.PsiUtilCore;
+import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
+import com.intellij.util.indexing.ID;
+import com.intellij.util.messages.MessageBusConnection;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the keys of Angular indexes that have values in the project scope and updates them incrementally. An update costs nothing if
+ * no indexed file has changed since the previous one. Otherwise only the keys of the changed files, keys without known files and keys
+ * whose values came only from the changed files are checked against the index again, the keys of a changed file are taken from its
+ * own index data or stub tree.
+ * Files are reported as changed by PSI and VFS events, only JavaScript, TypeScript and HTML files of the project and its libraries are
+ * tracked. The whole state is dropped when project roots change or indexes are rebuilt, and all keys of an index are checked again
+ * after a directory change or when too many files have changed since its last update.
+ */
+public final class AngularIndexKeysCache implements Disposable {
+  // files are remembered per valid key to detect that all of its values may have gone
+  private static final int MAX_FILES_PER_KEY = 3;
+  private static final int MAX_CHANGED_FILES = 1000;
+
+  private final Project myProject;
+  // index name -> keys
+  private final ConcurrentMap<String, IndexKeys> myIndexKeys = ContainerUtil.newConcurrentMap();
+
+  public static AngularIndexKeysCache getInstance(@NotNull Project project) {
+    return ServiceManager.getService(project, AngularIndexKeysCache.class);
+  }
+
+  public AngularIndexKeysCache(@NotNull Project project) {
+    myProject = project;
+
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+      @Override
+      public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        fileChanged(event.getFile());
+      }
+
+      @Override
+      public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        fileChanged(event.getFile());
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        fileChanged(event.getFile());
+      }
+
+      @Override
+      public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        fileChanged(event.getFile());
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        fileChanged(event.getFile());
+      }
+    }, this);
+
+    MessageBusConnection connection = project.getMessageBus().connect(this);
+    connection.subscribe(VirtualFileManager.VFS_CHANGES, new BulkFileListener() {
+      @Override
+      public void after(@NotNull List<? extends VFileEvent> events) {
+        for (VFileEvent event : events) {
+          fileChanged(event.getFile());
+        }
+      }
+    });
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+      @Override
+      public void rootsChanged(@NotNull ModuleRootEvent event) {
+        myIndexKeys.clear();
+      }
+    });
+    connection.subscribe(DumbService.DUMB_MODE, new DumbService.DumbModeListener() {
+      @Override
+      public void enteredDumbMode() {
+        myIndexKeys.clear();
+      }
+    });
+  }
+
+  private void fileChanged(@Nullable PsiFile file) {
+    // changes of the file structure come from VFS events
+    if (file != null) {
+      fileChanged(file.getViewProvider().getVirtualFile());
+    }
+  }
+
+  private void fileChanged(@Nullable VirtualFile file) {
+    if (file == null || myIndexKeys.isEmpty()) return;
+    if (!file.isDirectory() && !isIndexedFile(file)) return;
+    // deleted files can't be checked, they are in the scope if they had values
+    if (file.isValid() && !GlobalSearchScope.allScope(myProject).contains(file)) return;
+
+    for (IndexKeys keys : myIndexKeys.values()) {
+      if (file.isDirectory()) {
+        // the files in it are not reported separately
+        keys.invalidateAll();
+      }
+      else {
+        keys.fileChanged(file);
+      }
+    }
+  }
+
+  private static boolean isIndexedFile(@NotNull VirtualFile file) {
+    FileType fileType = file.getFileType();
+    return fileType instanceof LanguageFileType && ((LanguageFileType)fileType).getLanguage().isKindOf(JavascriptLanguage.INSTANCE) ||
+           AngularTemplateIndexInputFilter.INSTANCE.acceptInput(file);
+  }
+
+  @Override
+  public void dispose() {
+    myIndexKeys.clear();
+  }
+
+  @NotNull
+  Collection<String> getKeys(@NotNull ID<String, ?> index) {
+    IndexKeys keys = myIndexKeys.computeIfAbsent(index.getName(), name -> new IndexKeys());
+    return keys.update(myProject, index);
+  }
+
+  private static final class IndexKeys {
+    private final Set<VirtualFile> myChangedFiles = ContainerUtil.newConcurrentSet();
+    private final AtomicBoolean myAllKeysChanged = new AtomicBoolean(true);
+    // key that has values in the project scope -> some of the files that contain them, empty if the files are unknown
+    private final Map<String, VirtualFile[]> myValidKeys = new THashMap<>();
+    // known file -> valid keys that have values in it
+    private final Map<VirtualFile, Set<String>> myKeysByFile = new THashMap<>();
+    private final Set<String> myKeysWithUnknownFiles = new THashSet<>();
+    private Collection<String> myResult = Collections.emptyList();
+
+    private synchronized Collection<String> update(@NotNull Project project, @NotNull ID<String, ?> id) {
+      Set<String> keysToCheck;
+      Set<VirtualFile> changedFiles;
+      if (myAllKeysChanged.getAndSet(false)) {
+        myChangedFiles.clear();
+        changedFiles = Collections.emptySet();
+        myValidKeys.clear();
+        myKeysByFile.clear();
+        myKeysWithUnknownFiles.clear();
+        keysToCheck = new THashSet<>(id instanceof StubIndexKey
+                                     ? StubIndex.getInstance().getAllKeys((StubIndexKey<String, ?>)id, project)
+                                     : FileBasedIndex.getInstance().getAllKeys(id, project));
+      }
+      else {
+        if (myChangedFiles.isEmpty() && myKeysWithUnknownFiles.isEmpty()) return myResult;
+
+        changedFiles = new THashSet<>(myChangedFiles);
+        myChangedFiles.removeAll(changedFiles);
+        keysToCheck = new THashSet<>(myKeysWithUnknownFiles);
+        for (VirtualFile file : changedFiles) {
+          Set<String> keys = myKeysByFile.get(file);
+          if (keys != null) {
+            keysToCheck.addAll(keys);
+          }
+          collectFileKeys(project, id, file, keysToCheck);
+        }
+      }
+
+      boolean changed = false;
+      for (String key : keysToCheck) {
+        VirtualFile[] files = myValidKeys.get(key);
+        if (files != null && hasUnchangedFile(files, changedFiles)) continue;
+
+        VirtualFile[] newFiles = findFiles(project, id, key);
+        if (newFiles == null) {
+          if (files != null) {
+            setFiles(key, files, null);
+            changed = true;
+          }
+        }
+        else {
+          setFiles(key, files, newFiles);
+          changed |= files == null;
+        }
+      }
+
+      if (changed) {
+        myResult = Collections.unmodifiableCollection(new ArrayList<>(myValidKeys.keySet()));
+      }
+      return myResult;
+    }
+
+    /**
+     * @return some of the files that contain values of the key, empty if the files are unknown, {@code null} if there are no values
+     */
+    @SuppressWarnings("unchecked")
+    private static VirtualFile @Nullable [] findFiles(@NotNull Project project, @NotNull ID<String, ?> id, @NotNull String key) {
+      GlobalSearchScope scope = GlobalSearchScope.allScope(project);
+      FoundFiles foundFiles = new FoundFiles();
+      if (id instanceof StubIndexKey) {
+        StubIndex.getInstance().processElements((StubIndexKey<String, PsiElement>)id, key, project, scope, PsiElement.class,
+                                                element -> foundFiles.add(PsiUtilCore.getVirtualFile(element)));
+      }
+      else {
+        FileBasedIndex.getInstance().processValues(id, key, null, (file, value) -> foundFiles.add(file), scope);
+      }
+      return foundFiles.myFound ? foundFiles.myFiles.toArray(VirtualFile.EMPTY_ARRAY) : null;
+    }
+
+    /**
+     * Adds the keys that the current content of the file has in the index, they may be new.
+     */
+    private static void collectFileKeys(@NotNull Project project,
+                                        @NotNull ID<String, ?> id,
+                                        @NotNull VirtualFile file,
+                                        @NotNull Set<String> result) {
+      // keys of deleted files are known from their previous values
+      if (!file.isValid()) return;
+
+      if (!(id instanceof StubIndexKey)) {
+        result.addAll(FileBasedIndex.getInstance().getFileData(id, file, project).keySet());
+        return;
+      }
+
+      PsiFile psiFile = PsiManager.getInstance(project).findFile(file);
+      ObjectStubTree<?> stubTree = psiFile != null ? StubTreeLoader.getInstance().readOrBuild(project, file, psiFile) : null;
+      if (stubTree == null) return;
+
+      IndexSink sink = new IndexSink() {
+        @Override
+        public <Psi extends PsiElement, K> void occurrence(@NotNull StubIndexKey<K, Psi> indexKey, @NotNull K value) {
+          if (indexKey.equals(id)) {
+            result.add((String)value);
+          }
+        }
+      };
+      for (Stub stub : stubTree.getPlainList()) {
+        @SuppressWarnings("unchecked") ObjectStubSerializer<Stub, ?> type = (ObjectStubSerializer<Stub, ?>)stub.getStubType();
+        if (type != null) {
+          type.indexStub(stub, sink);
+        }
+      }
+    }
+
+    private void setFiles(@NotNull String key, VirtualFile @Nullable [] oldFiles, VirtualFile @Nullable [] newFiles) {
+      if (oldFiles != null) {
+        for (VirtualFile file : oldFiles) {
+          Set<String> keys = myKeysByFile.get(file);
+          if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            myKeysByFile.remove(file);
+          }
+        }
+      }
+      myKeysWithUnknownFiles.remove(key);
+
+      if (newFiles == null) {
+        myValidKeys.remove(key);
+        return;
+      }
+      myValidKeys.put(key, newFiles);
+      if (newFiles.length == 0) {
+        // a key without known files is checked again on every update
+        myKeysWithUnknownFiles.add(key);
+      }
+      for (VirtualFile file : newFiles) {
+        myKeysByFile.computeIfAbsent(file, f -> new THashSet<>()).add(key);
+      }
+    }
+
+    private void fileChanged(@NotNull VirtualFile file) {
+      if (myAllKeysChanged.get()) return;
+      myChangedFiles.add(file);
+      if (myChangedFiles.size() > MAX_CHANGED_FILES) {
+        invalidateAll();
+      }
+    }
+
+    private void invalidateAll() {
+      myAllKeysChanged.set(true);
+      myChangedFiles.clear();
+    }
+
+    private static boolean hasUnchangedFile(VirtualFile @NotNull [] files, @NotNull Set<VirtualFile> changedFiles) {
+      for (VirtualFile file : files) {
+        if (!changedFiles.contains(file)) return true;
+      }
+      return false;
+    }
+  }
+
+  private static final class FoundFiles {
+    private final List<VirtualFile> myFiles = new ArrayList<>(MAX_FILES_PER_KEY);
+    private boolean myFound;
+
+    /**
+     * @return {@code false} to stop processing when enough files are found or the file is not known
+     */
+    private boolean add(@Nullable VirtualFile file) {
+      myFound = true;
+      if (file == null) {
+        myFiles.clear();
+        return false;
+      }
+      myFiles.add(file);
+      return myFiles.size() < MAX_FILES_PER_KEY;
+    }
+  }
+}
@@ -221,25 +221,11 @@ public class AngularIndexUtil {
   }
 
   private static class AngularKeysProvider implements ParameterizedCachedValueProvider<Collection<String>, Pair<Project, ID<String, ?>>> {
-    @SuppressWarnings("unchecked")
     @Override
     public Result<Collection<String>> compute(final Pair<Project, ID<String, ?>> projectAndIndex) {
       final Project project = projectAndIndex.first;
-      final ID<String, ?> id = projectAndIndex.second;
-      final GlobalSearchScope scope = GlobalSearchScope.allScope(project);
-      final FileBasedIndex fileIndex = FileBasedIndex.getInstance();
-      final StubIndex stubIndex = StubIndex.getInstance();
-      Collection<String> allKeys = id instanceof StubIndexKey
-                                   ? stubIndex.getAllKeys((StubIndexKey<String, ?>)id, project)
-                                   : fileIndex.getAllKeys(id, project);
-
-      List<String> filteredKeys = ContainerUtil.filter(
-        allKeys,
-        key -> id instanceof StubIndexKey
-               ? !stubIndex.processElements((StubIndexKey<String, PsiElement>)id, key, project, scope, PsiElement.class, element -> false)
-               : !fileIndex.processValues(id, key, null, (file, value) -> false, scope)
-      );
-      return Result.create(filteredKeys, PsiManager.getInstance(project).getModificationTracker());
+      Collection<String> keys = AngularIndexKeysCache.getInstance(project).getKeys(projectAndIndex.second);
+      return Result.create(keys, PsiManager.getInstance(project).getModificationTracker());
     }
   }
 }
@@ -0,0 +1,84 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.codeInsight;
+
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.xml.XmlTag;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.angular2.Angular2CodeInsightFixtureTestCase;
+import org.angular2.codeInsight.attributes.Angular2ApplicableDirectivesProvider;
+import org.angular2.entities.Angular2Directive;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+public class DirectivesMatchingPerformanceTest extends Angular2CodeInsightFixtureTestCase {
+
+  private static final int DIRECTIVES_COUNT = 1500;
+  private static final int COMPONENTS_COUNT = 500;
+  private static final int TAGS_COUNT = 2000;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myFixture.addFileToProject("package.json", "{\"dependencies\": {\"@angular/core\": \"0.0.0\"}}");
+    myFixture.addFileToProject("directives.ts", createDirectives());
+  }
+
+  public void testMatchedDirectives() {
+    PsiFile file = myFixture.configureByText("template.html", "<mat-comp3 matDir7 class='foo'></mat-comp3>" +
+                                                              "<mat-thing5 matAlt5></mat-thing5>" +
+                                                              "<div matDir7 class='foo'></div>");
+    List<XmlTag> tags = ContainerUtil.newArrayList(PsiTreeUtil.findChildrenOfType(file, XmlTag.class));
+    assertEquals(Arrays.asList("MatComp3", "MatDir7"), getMatchedNames(tags.get(0)));
+    assertEquals(Arrays.asList("MatDir5"), getMatchedNames(tags.get(1)));
+    // same attributes on a tag with another name are matched separately
+    assertEquals(Arrays.asList("MatDir7"), getMatchedNames(tags.get(2)));
+    // cached results are the same
+    assertEquals(Arrays.asList("MatComp3", "MatDir7"), getMatchedNames(tags.get(0)));
+  }
+
+  public void testLargeTemplate() {
+    PsiFile file = myFixture.configureByText("template.html", createTemplate());
+    Collection<XmlTag> tags = PsiTreeUtil.findChildrenOfType(file, XmlTag.class);
+    assertEquals(TAGS_COUNT, tags.size());
+
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 3000, () -> {
+      for (XmlTag tag : tags) {
+        new Angular2ApplicableDirectivesProvider(tag).getMatched();
+        new Angular2ApplicableDirectivesProvider(tag, true).getCandidates();
+      }
+    }).setup(() -> myFixture.getPsiManager().dropPsiCaches()).attempts(5).assertTiming();
+  }
+
+  private static List<String> getMatchedNames(XmlTag tag) {
+    return ContainerUtil.map(new Angular2ApplicableDirectivesProvider(tag).getMatched(), Angular2Directive::getName);
+  }
+
+  private static String createDirectives() {
+    StringBuilder result = new StringBuilder("import {Component, Directive} from \"@angular/core\";\n");
+    for (int i = 0; i < DIRECTIVES_COUNT; i++) {
+      result.append("@Directive({selector: \"[matDir").append(i).append("], mat-thing").append(i).append("[matAlt").append(i)
+        .append("]\"})\nexport class MatDir").append(i).append(" {}\n");
+    }
+    for (int i = 0; i < COMPONENTS_COUNT; i++) {
+      result.append("@Component({selector: \"mat-comp").append(i).append("\", template: \"\"})\nexport class MatComp").append(i)
+        .append(" {}\n");
+    }
+    return result.toString();
+  }
+
+  private static String createTemplate() {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < TAGS_COUNT; i++) {
+      String tagName = "mat-comp" + (i % COMPONENTS_COUNT);
+      result.append('<').append(tagName)
+        .append(" matDir").append(i % DIRECTIVES_COUNT)
+        .append(" class=\"row").append(i % 10).append("\"")
+        .append(" title=\"item\"></").append(tagName).append(">\n");
+    }
+    return result.toString();
+  }
+}
@@ -12,12 +12,14 @@ import org.angular2.entities.Angular2Declaration;
 import org.angular2.entities.Angular2EntitiesProvider;
 import org.angular2.entities.Angular2Entity;
 import org.angular2.entities.Angular2Module;
+import org.angular2.entities.Angular2ModuleExportGraph;
 import org.angularjs.AngularTestUtil;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 public class ModulesTest extends Angular2CodeInsightFixtureTestCase {
@@ -169,6 +171,44 @@ public class ModulesTest extends Angular2CodeInsightFixtureTestCase {
                                   "CommonModuleMetadataTest");
   }
 
+  public void testExportGraph() {
+    myFixture.copyDirectoryToProject("router-metadata", "/");
+    Angular2ModuleExportGraph graph = Angular2ModuleExportGraph.getInstance(getProject());
+    List<Angular2Module> modules = Angular2EntitiesProvider.getAllModules(getProject());
+    for (Angular2Module module : modules) {
+      for (Angular2Declaration declaration : module.getAllExportedDeclarations()) {
+        assertContainsElements(graph.getModulesExporting(declaration), module);
+      }
+    }
+    for (Angular2Module module : modules) {
+      for (Angular2Declaration declaration : module.getDeclarations()) {
+        for (Angular2Module exporting : graph.getModulesExporting(declaration)) {
+          assertContainsElements(exporting.getAllExportedDeclarations(), declaration);
+        }
+      }
+    }
+    for (Angular2Module module : modules) {
+      // transitive exports are the direct ones and the exports of the exported modules
+      Set<Angular2Declaration> expected = new HashSet<>();
+      for (Angular2Entity export : module.getExports()) {
+        if (export instanceof Angular2Module) {
+          expected.addAll(graph.getExportedDeclarations((Angular2Module)export));
+        }
+        else {
+          expected.add((Angular2Declaration)export);
+        }
+      }
+      assertEquals(expected, graph.getExportedDeclarations(module));
+      assertSame(graph.getExportedDeclarations(module), module.getAllExportedDeclarations());
+
+      Set<Angular2Declaration> scope = graph.getDeclarationsInScope(module);
+      assertContainsElements(scope, module.getDeclarations());
+      for (Angular2Module imported : module.getImports()) {
+        assertContainsElements(scope, imported.getAllExportedDeclarations());
+      }
+    }
+  }
+
   private void doResolutionTest(@NotNull String directory,
                                 @NotNull String moduleFile,
                                 @NotNull String signature,
@@ -3,13 +3,28 @@ package org.angular2.metadata;
 
 import com.intellij.codeInspection.htmlInspections.HtmlUnknownAttributeInspection;
 import com.intellij.codeInspection.htmlInspections.HtmlUnknownTagInspection;
+import com.intellij.lang.javascript.psi.ecma6.TypeScriptClass;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
 import com.intellij.util.containers.ContainerUtil;
+import com.intellij.util.indexing.FileBasedIndex;
 import org.angular2.Angular2CodeInsightFixtureTestCase;
+import org.angular2.entities.Angular2Directive;
+import org.angular2.entities.Angular2DirectiveProperty;
+import org.angular2.entities.Angular2EntitiesProvider;
+import org.angular2.entities.ivy.Angular2IvyEntityDef;
+import org.angular2.index.Angular2IvyDirectiveDataIndex;
 import org.angular2.inspections.Angular2TemplateInspectionsProvider;
 import org.angular2.inspections.AngularAmbiguousComponentTagInspection;
 import org.angular2.inspections.AngularUndefinedBindingInspection;
 import org.angular2.inspections.AngularUndefinedTagInspection;
 import org.angularjs.AngularTestUtil;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
 
 public class IvyMetadataTest extends Angular2CodeInsightFixtureTestCase {
 
@@ -76,4 +91,39 @@ public class IvyMetadataTest extends Angular2CodeInsightFixtureTestCase {
     myFixture.configureFromTempProjectFile("transloco.html");
     myFixture.checkHighlighting();
   }
+
+  public void testDirectiveDataInHierarchy() {
+    VirtualFile file = myFixture.copyFileToProject("directive_hierarchy/directives.d.ts", "directives.d.ts");
+    PsiFile psiFile = myFixture.getPsiManager().findFile(file);
+    TypeScriptClass base = findClass(psiFile, "BaseDirective");
+    TypeScriptClass child = findClass(psiFile, "ChildDirective");
+
+    Map<String, Angular2IvyEntityDef.DirectiveData> indexed =
+      FileBasedIndex.getInstance().getFileData(Angular2IvyDirectiveDataIndex.KEY, file, getProject());
+    assertEquals(ContainerUtil.newHashSet("BaseDirective", "ChildDirective"), indexed.keySet());
+
+    Angular2IvyEntityDef.Directive childDef = (Angular2IvyEntityDef.Directive)Angular2IvyEntityDef.get(child);
+    Angular2IvyEntityDef.DirectiveData childData = childDef.getData();
+    assertEquals(childDef.decodeData(), childData);
+    assertEquals(indexed.get("ChildDirective"), childData);
+    assertSame(childData, childDef.getData());
+    assertEquals(Arrays.asList("child", "childAlias"), childData.getExportAsList());
+    assertEquals(indexed.get("BaseDirective"), ((Angular2IvyEntityDef.Directive)Angular2IvyEntityDef.get(base)).getData());
+
+    Angular2Directive directive = Angular2EntitiesProvider.getDirective(child);
+    assertNotNull(directive);
+    assertEquals(Arrays.asList("child", "childAlias"), directive.getExportAsList());
+    assertEquals(ContainerUtil.newHashSet("childInput", "baseAlias"), getNames(directive.getBindings().getInputs()));
+    assertEquals(ContainerUtil.newHashSet("childChange", "baseOutput"), getNames(directive.getBindings().getOutputs()));
+  }
+
+  @NotNull
+  private static TypeScriptClass findClass(@NotNull PsiFile file, @NotNull String name) {
+    return ContainerUtil.find(PsiTreeUtil.findChildrenOfType(file, TypeScriptClass.class), cls -> name.equals(cls.getName()));
+  }
+
+  @NotNull
+  private static Collection<String> getNames(@NotNull Collection<? extends Angular2DirectiveProperty> properties) {
+    return ContainerUtil.map2Set(properties, Angular2DirectiveProperty::getName);
+  }
 }
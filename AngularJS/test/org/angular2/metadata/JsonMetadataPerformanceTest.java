@@ -0,0 +1,49 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angular2.metadata;
+
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.FileContentImpl;
+import org.angular2.Angular2CodeInsightFixtureTestCase;
+import org.angular2.lang.metadata.MetadataJsonFileType;
+import org.angular2.lang.metadata.MetadataJsonStubBuilder;
+import org.angularjs.AngularTestUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class JsonMetadataPerformanceTest extends Angular2CodeInsightFixtureTestCase {
+
+  @Override
+  protected String getTestDataPath() {
+    return AngularTestUtil.getBaseTestDataPath(getClass()) + "/json";
+  }
+
+  public void testMaterialMetadataStubBuilding() {
+    myFixture.copyDirectoryToProject("material", ".");
+    List<FileContent> contents = new ArrayList<>();
+    VfsUtilCore.iterateChildrenRecursively(myFixture.getTempDirFixture().getFile("node_modules/@angular"), null, file -> {
+      if (file.getFileType() instanceof MetadataJsonFileType) {
+        try {
+          contents.add(FileContentImpl.createByFile(file, getProject()));
+        }
+        catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      return true;
+    });
+    assertNotEmpty(contents);
+
+    MetadataJsonStubBuilder builder = new MetadataJsonStubBuilder();
+    PlatformTestUtil.startPerformanceTest(getTestName(false), 3000, () -> {
+      for (int i = 0; i < 50; i++) {
+        for (FileContent content : contents) {
+          assertNotNull(builder.buildStubTree(content));
+        }
+      }
+    }).attempts(3).assertTiming();
+  }
+}
@@ -11,22 +11,34 @@ import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiDirectory;
 import com.intellij.psi.PsiElementVisitor;
 import com.intellij.psi.PsiFile;
+import com.intellij.psi.PsiFileFactory;
 import com.intellij.psi.SingleRootFileViewProvider;
 import com.intellij.psi.impl.DebugUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.psi.xml.XmlAttribute;
 import com.intellij.testFramework.UsefulTestCase;
 import org.angular2.Angular2CodeInsightFixtureTestCase;
+import org.angular2.entities.metadata.psi.Angular2MetadataComponent;
 import org.angular2.entities.metadata.psi.Angular2MetadataNodeModule;
 import org.angular2.entities.metadata.psi.Angular2MetadataReference;
 import org.angular2.inspections.Angular2TemplateInspectionsProvider;
 import org.angular2.inspections.AngularAmbiguousComponentTagInspection;
 import org.angular2.inspections.AngularUndefinedBindingInspection;
 import org.angular2.inspections.AngularUndefinedTagInspection;
+import org.angular2.lang.html.Angular2HtmlLanguage;
+import org.angular2.lang.html.psi.Angular2HtmlRecursiveElementWalkingVisitor;
 import org.angular2.lang.metadata.MetadataJsonFileViewProviderFactory;
+import org.angular2.lang.metadata.json.MetadataJsonArray;
+import org.angular2.lang.metadata.json.MetadataJsonObject;
+import org.angular2.lang.metadata.json.MetadataJsonReader;
+import org.angular2.lang.metadata.json.MetadataJsonValue;
 import org.angular2.lang.metadata.psi.MetadataFileImpl;
 import org.angularjs.AngularTestUtil;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 
 import static com.intellij.openapi.util.Pair.pair;
 import static java.util.Arrays.asList;
@@ -177,6 +189,54 @@ public class JsonMetadataTest extends Angular2CodeInsightFixtureTestCase {
     });
   }
 
+  public void testNgContentSelectorsStubBuilding() {
+    String template = "<div><ng-content select=\"my-header\"></ng-content><section><ng-content select=\"[body], .body\"></ng-content>" +
+                      "</section><ng-content select=\"  \"></ng-content><ng-content></ng-content><div select=\"not-content\"></div>" +
+                      "<ng-content select=\"my-footer\"/></div>";
+    myFixture.configureByFiles("package.json");
+    myFixture.addFileToProject("ng-content.d.ts", "export declare class MyContainer {\n}\n");
+    PsiFile file = myFixture.addFileToProject(
+      "ng-content.metadata.json",
+      "{\"__symbolic\": \"module\", \"version\": 4, \"metadata\": {\"MyContainer\": {\"__symbolic\": \"class\", \"decorators\": " +
+      "[{\"__symbolic\": \"call\", \"expression\": {\"__symbolic\": \"reference\", \"module\": \"@angular/core\", " +
+      "\"name\": \"Component\"}, \"arguments\": [{\"selector\": \"my-container\", " +
+      "\"template\": \"" + template.replace("\"", "\\\"") + "\"}]}]}}}");
+    assert file instanceof MetadataFileImpl;
+    Angular2MetadataComponent component = PsiTreeUtil.findChildOfType(file, Angular2MetadataComponent.class);
+    assertNotNull(component);
+
+    List<String> selectors = component.getStub().getNgContentSelectors();
+    assertEquals(asList("my-header", "[body], .body", "my-footer"), selectors);
+
+    // the template used to be parsed in the project which owns the metadata file
+    List<String> projectSelectors = new ArrayList<>();
+    PsiFileFactory.getInstance(getProject()).createFileFromText(Angular2HtmlLanguage.INSTANCE, template).accept(
+      new Angular2HtmlRecursiveElementWalkingVisitor() {
+        @Override
+        public void visitXmlAttribute(XmlAttribute attribute) {
+          if (attribute.getName().equals("select") && attribute.getParent().getName().equals("ng-content")
+              && !StringUtil.isEmptyOrSpaces(attribute.getValue())) {
+            projectSelectors.add(attribute.getValue());
+          }
+        }
+      });
+    assertEquals(projectSelectors, selectors);
+  }
+
+  public void testMalformedMetadataRecovery() {
+    MetadataJsonValue root = MetadataJsonReader.read(
+      "{\"a\": 1, \"b\" 2, \"c\": [1, ?, {\"d\": \"x\" \"e\": 3}], \"f\": \"y\", \"g\": [", name -> true);
+    assertInstanceOf(root, MetadataJsonObject.class);
+    MetadataJsonObject object = (MetadataJsonObject)root;
+    assertEquals("1", object.findProperty("a").getValue().getText());
+    assertNull(object.findProperty("b"));
+    MetadataJsonArray array = (MetadataJsonArray)object.findProperty("c").getValue();
+    assertEquals(2, array.getValueList().size());
+    assertNotNull(((MetadataJsonObject)array.getValueList().get(1)).findProperty("d"));
+    assertEquals("\"y\"", object.findProperty("f").getValue().getText());
+    assertEmpty(((MetadataJsonArray)object.findProperty("g").getValue()).getValueList());
+  }
+
   public void testIonicMetadataResolution() {
     myFixture.copyDirectoryToProject("ionic", ".");
     myFixture.enableInspections(AngularAmbiguousComponentTagInspection.class,
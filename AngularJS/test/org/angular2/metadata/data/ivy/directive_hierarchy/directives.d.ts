@@ -0,0 +1,11 @@
+import * as i0 from "@angular/core";
+export declare class BaseDirective {
+    baseInput: string;
+    baseOutput: any;
+    static ɵdir: i0.ɵɵDirectiveDefWithMeta<BaseDirective, "[base]", ["base"], { 'baseInput': "baseAlias" }, { 'baseOutput': "baseOutput" }, never>;
+}
+export declare class ChildDirective extends BaseDirective {
+    childInput: string;
+    childOutput: any;
+    static ɵdir: i0.ɵɵDirectiveDefWithMeta<ChildDirective, "[child]", ["child", "childAlias"], { 'childInput': "childInput" }, { 'childOutput': "childChange" }, never>;
+}
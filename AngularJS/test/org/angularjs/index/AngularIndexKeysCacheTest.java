@@ -0,0 +1,82 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package org.angularjs.index;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+
+import java.util.Collection;
+
+public class AngularIndexKeysCacheTest extends BasePlatformTestCase {
+
+  public void testKeysUpdatedOnChange() {
+    PsiFile first = myFixture.addFileToProject("first.js", "angular.module('app', []).filter('first', function() {});");
+    myFixture.addFileToProject("second.js", "angular.module('app', []).filter('second', function() {}).filter('shared', function() {});");
+    PsiFile third = myFixture.addFileToProject("third.js", "angular.module('app', []).filter('shared', function() {});");
+    assertSameElements(getFilters(), "first", "second", "shared");
+
+    replaceText(first, "angular.module('app', []).filter('renamed', function() {});");
+    assertSameElements(getFilters(), "renamed", "second", "shared");
+
+    // the key still has values in an unchanged file
+    replaceText(third, "");
+    assertSameElements(getFilters(), "renamed", "second", "shared");
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> first.delete());
+    assertSameElements(getFilters(), "second", "shared");
+  }
+
+  public void testKeysUpdatedOnDirectoryDeletion() {
+    PsiFile first = myFixture.addFileToProject("dir/first.js", "angular.module('app', []).filter('first', function() {});");
+    myFixture.addFileToProject("second.js", "angular.module('app', []).filter('second', function() {});");
+    assertSameElements(getFilters(), "first", "second");
+
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> first.getContainingDirectory().delete());
+    assertSameElements(getFilters(), "second");
+  }
+
+  public void testNewKeysOfChangedFiles() {
+    PsiFile first = myFixture.addFileToProject("first.js", "angular.module('app', []).filter('first', function() {});");
+    assertSameElements(getFilters(), "first");
+
+    replaceText(first, "angular.module('app', []).filter('first', function() {}).filter('added', function() {});");
+    assertSameElements(getFilters(), "first", "added");
+
+    myFixture.addFileToProject("second.js", "angular.module('app', []).filter('second', function() {});");
+    assertSameElements(getFilters(), "first", "added", "second");
+
+    // an unrelated change doesn't affect the keys
+    myFixture.addFileToProject("style.css", ".first {}");
+    assertSameElements(getFilters(), "first", "added", "second");
+  }
+
+  public void testFileBasedIndexKeys() {
+    PsiFile first = myFixture.addFileToProject("first.html", "<script type=\"text/ng-template\" id=\"first.html\"></script>");
+    assertSameElements(getTemplates(), "first.html");
+
+    replaceText(first, "<script type=\"text/ng-template\" id=\"renamed.html\"></script>");
+    assertSameElements(getTemplates(), "renamed.html");
+
+    myFixture.addFileToProject("second.html", "<script type=\"text/ng-template\" id=\"second.html\"></script>");
+    assertSameElements(getTemplates(), "renamed.html", "second.html");
+  }
+
+  private Collection<String> getTemplates() {
+    return AngularIndexUtil.getAllKeys(AngularTemplateCacheIndex.TEMPLATE_CACHE_INDEX, getProject());
+  }
+
+  private Collection<String> getFilters() {
+    return AngularIndexUtil.getAllKeys(AngularFilterIndex.KEY, getProject());
+  }
+
+  private void replaceText(PsiFile file, String text) {
+    Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+    assertNotNull(document);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> {
+      document.setText(text);
+      PsiDocumentManager.getInstance(getProject()).commitDocument(document);
+    });
+  }
+}
@@ -0,0 +1,327 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.Alarm;
+import gnu.trove.THashMap;
+import org.dartlang.analysis.server.protocol.AnalysisError;
+import org.dartlang.analysis.server.protocol.DiagnosticMessage;
+import org.dartlang.analysis.server.protocol.Location;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Keeps the last known analysis errors on disk, so that they can be shown right after the project is reopened, long before
+ * the analysis server reports them again. Each entry is keyed by the file path and remembers the hash of the file contents that
+ * the errors were computed for; entries for files that have changed since are ignored on load.
+ * <p>
+ * The cache file is written as a whole by a pooled thread and read into a heap buffer at once, so that it is never kept open
+ * while it is replaced. Its format is versioned: a file with another {@link #VERSION} is ignored and overwritten.
+ */
+final class DartAnalysisResultsCache {
+  private static final Logger LOG = Logger.getInstance(DartAnalysisResultsCache.class);
+
+  private static final int MAGIC = 0xDA27CAC7;
+  private static final int VERSION = 1;
+  private static final int SAVE_DELAY = 5000;
+
+  @NotNull private final File myCacheFile;
+  @NotNull private final Alarm mySaveAlarm;
+
+  private final Object myLock = new Object();
+  // filePath -> entry, includes entries loaded from disk that haven't been confirmed by the server yet
+  private final Map<String, Entry> myEntries = new THashMap<>();
+  // filePath -> errors (empty list means removal); hashes are computed by the pooled thread right before saving
+  private final Map<String, List<AnalysisError>> myPendingUpdates = new THashMap<>();
+  private boolean myLoaded;
+
+  DartAnalysisResultsCache(@NotNull final Project project, @NotNull final DartAnalysisServerService service) {
+    myCacheFile = new File(PathManager.getSystemPath(), "dart-analysis/" + project.getLocationHash() + "/errors.bin");
+    mySaveAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, service);
+  }
+
+  /**
+   * Loads the cache file once per IDE session.
+   *
+   * @return errors of the files that haven't changed since they were saved, keyed by system-independent file path
+   */
+  @NotNull
+  Map<String, List<AnalysisError>> loadValidErrors() {
+    synchronized (myLock) {
+      if (myLoaded) return Collections.emptyMap();
+      myLoaded = true;
+
+      if (myCacheFile.isFile()) {
+        try {
+          readCacheFile();
+        }
+        catch (IOException | RuntimeException e) {
+          LOG.info("Failed to read Dart analysis results cache, it will be rebuilt: " + e.getMessage());
+          myEntries.clear();
+        }
+      }
+    }
+
+    final Map<String, Entry> entries;
+    synchronized (myLock) {
+      entries = new THashMap<>(myEntries);
+    }
+
+    final Map<String, List<AnalysisError>> result = new THashMap<>();
+    for (Map.Entry<String, Entry> mapEntry : entries.entrySet()) {
+      final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(mapEntry.getKey());
+      final Entry entry = mapEntry.getValue();
+      if (file != null && !isModifiedInEditor(file) && entry.myContentHash == computeContentHash(file)) {
+        result.put(mapEntry.getKey(), entry.myErrors);
+      }
+      else {
+        synchronized (myLock) {
+          myEntries.remove(mapEntry.getKey(), entry);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Remembers errors reported by the server. The file is hashed and the cache is written later in a pooled thread.
+   */
+  void errorsComputed(@NotNull final String filePath, @NotNull final List<AnalysisError> errors) {
+    synchronized (myLock) {
+      if (myPendingUpdates.isEmpty()) {
+        mySaveAlarm.addRequest(this::save, SAVE_DELAY);
+      }
+      myPendingUpdates.put(filePath, errors);
+    }
+  }
+
+  void save() {
+    final Map<String, List<AnalysisError>> updates;
+    synchronized (myLock) {
+      if (myPendingUpdates.isEmpty()) return;
+      updates = new THashMap<>(myPendingUpdates);
+      myPendingUpdates.clear();
+    }
+
+    final Map<String, Entry> newEntries = new THashMap<>();
+    final Set<String> removedPaths = new HashSet<>();
+    for (Map.Entry<String, List<AnalysisError>> update : updates.entrySet()) {
+      final String filePath = update.getKey();
+      final VirtualFile file = update.getValue().isEmpty() ? null : LocalFileSystem.getInstance().findFileByPath(filePath);
+      if (file == null) {
+        removedPaths.add(filePath);
+      }
+      else if (!isModifiedInEditor(file)) {
+        // errors for unsaved content can't be validated on the next start
+        newEntries.put(filePath, new Entry(computeContentHash(file), update.getValue()));
+      }
+    }
+
+    synchronized (myLock) {
+      myEntries.keySet().removeAll(removedPaths);
+      myEntries.putAll(newEntries);
+
+      try {
+        writeCacheFile();
+      }
+      catch (IOException e) {
+        LOG.info("Failed to write Dart analysis results cache: " + e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Writes the entries that have been hashed already. Files aren't hashed on dispose, entries of the files with pending updates
+   * are dropped instead, they'll be reported by the server again on the next start.
+   */
+  void dispose() {
+    mySaveAlarm.cancelAllRequests();
+    synchronized (myLock) {
+      if (myPendingUpdates.isEmpty()) return;
+      myEntries.keySet().removeAll(myPendingUpdates.keySet());
+      myPendingUpdates.clear();
+
+      try {
+        writeCacheFile();
+      }
+      catch (IOException e) {
+        LOG.info("Failed to write Dart analysis results cache: " + e.getMessage());
+      }
+    }
+  }
+
+  private static boolean isModifiedInEditor(@NotNull final VirtualFile file) {
+    return ReadAction.compute(() -> FileDocumentManager.getInstance().isFileModified(file));
+  }
+
+  private static long computeContentHash(@NotNull final VirtualFile file) {
+    try {
+      final byte[] bytes = file.contentsToByteArray();
+      final CRC32 crc = new CRC32();
+      crc.update(bytes, 0, bytes.length);
+      return ((long)bytes.length << 32) | crc.getValue();
+    }
+    catch (IOException e) {
+      return -1;
+    }
+  }
+
+  private void writeCacheFile() throws IOException {
+    FileUtil.createParentDirs(myCacheFile);
+    final File tempFile = new File(myCacheFile.getPath() + ".tmp");
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(myEntries.size());
+      for (Map.Entry<String, Entry> mapEntry : myEntries.entrySet()) {
+        writeString(out, mapEntry.getKey());
+        out.writeLong(mapEntry.getValue().myContentHash);
+        final List<AnalysisError> errors = mapEntry.getValue().myErrors;
+        out.writeInt(errors.size());
+        for (AnalysisError error : errors) {
+          writeError(out, error);
+        }
+      }
+    }
+
+    FileUtil.rename(tempFile, myCacheFile);
+  }
+
+  private void readCacheFile() throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(FileUtil.loadFileBytes(myCacheFile));
+    if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return;
+
+    final int entryCount = readCount(buffer);
+    for (int i = 0; i < entryCount; i++) {
+      final String filePath = readString(buffer);
+      final long contentHash = buffer.getLong();
+      final int errorCount = readCount(buffer);
+      final List<AnalysisError> errors = new ArrayList<>(errorCount);
+      for (int j = 0; j < errorCount; j++) {
+        errors.add(readError(buffer));
+      }
+      myEntries.put(filePath, new Entry(contentHash, errors));
+    }
+  }
+
+  /**
+   * Reads the size of a list or a string. A size that the rest of the buffer can't hold means that the file is corrupted,
+   * it must not be used to allocate memory.
+   */
+  private static int readCount(@NotNull final ByteBuffer buffer) {
+    final int count = buffer.getInt();
+    if (count < 0 || count > buffer.remaining()) {
+      throw new IllegalStateException("Invalid size " + count + " at offset " + (buffer.position() - 4));
+    }
+    return count;
+  }
+
+  private static void writeError(@NotNull final DataOutput out, @NotNull final AnalysisError error) throws IOException {
+    writeString(out, error.getSeverity());
+    writeString(out, error.getType());
+    writeLocation(out, error.getLocation());
+    writeString(out, error.getMessage());
+    writeNullableString(out, error.getCorrection());
+    writeNullableString(out, error.getCode());
+    writeNullableString(out, error.getUrl());
+    out.writeByte(error.getHasFix() == null ? -1 : error.getHasFix() ? 1 : 0);
+
+    final List<DiagnosticMessage> contextMessages = error.getContextMessages();
+    out.writeInt(contextMessages == null ? -1 : contextMessages.size());
+    if (contextMessages != null) {
+      for (DiagnosticMessage message : contextMessages) {
+        writeString(out, message.getMessage());
+        writeLocation(out, message.getLocation());
+      }
+    }
+  }
+
+  @NotNull
+  private static AnalysisError readError(@NotNull final ByteBuffer buffer) {
+    final String severity = readString(buffer);
+    final String type = readString(buffer);
+    final Location location = readLocation(buffer);
+    final String message = readString(buffer);
+    final String correction = readNullableString(buffer);
+    final String code = readNullableString(buffer);
+    final String url = readNullableString(buffer);
+    final byte hasFix = buffer.get();
+
+    final int contextMessageCount = buffer.getInt();
+    List<DiagnosticMessage> contextMessages = null;
+    if (contextMessageCount >= 0) {
+      if (contextMessageCount > buffer.remaining()) {
+        throw new IllegalStateException("Invalid size " + contextMessageCount + " at offset " + (buffer.position() - 4));
+      }
+      contextMessages = new ArrayList<>(contextMessageCount);
+      for (int i = 0; i < contextMessageCount; i++) {
+        contextMessages.add(new DiagnosticMessage(readString(buffer), readLocation(buffer)));
+      }
+    }
+
+    return new AnalysisError(severity, type, location, message, correction, code, url, contextMessages,
+                             hasFix < 0 ? null : hasFix == 1);
+  }
+
+  private static void writeLocation(@NotNull final DataOutput out, @NotNull final Location location) throws IOException {
+    writeString(out, location.getFile());
+    out.writeInt(location.getOffset());
+    out.writeInt(location.getLength());
+    out.writeInt(location.getStartLine());
+    out.writeInt(location.getStartColumn());
+  }
+
+  @NotNull
+  private static Location readLocation(@NotNull final ByteBuffer buffer) {
+    return new Location(readString(buffer), buffer.getInt(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+  }
+
+  private static void writeNullableString(@NotNull final DataOutput out, @Nullable final String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      writeString(out, value);
+    }
+  }
+
+  @Nullable
+  private static String readNullableString(@NotNull final ByteBuffer buffer) {
+    return buffer.get() != 0 ? readString(buffer) : null;
+  }
+
+  private static void writeString(@NotNull final DataOutput out, @NotNull final String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  @NotNull
+  private static String readString(@NotNull final ByteBuffer buffer) {
+    final byte[] bytes = new byte[readCount(buffer)];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static final class Entry {
+    private final long myContentHash;
+    @NotNull private final List<AnalysisError> myErrors;
+
+    private Entry(final long contentHash, @NotNull final List<AnalysisError> errors) {
+      myContentHash = contentHash;
+      myErrors = errors;
+    }
+  }
+}
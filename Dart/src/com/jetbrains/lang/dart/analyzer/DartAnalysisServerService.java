@@ -8,6 +8,7 @@ import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Uninterruptibles;
 import com.google.dart.server.*;
 import com.google.dart.server.generated.AnalysisServer;
+import com.google.dart.server.internal.remote.ByteRequestSink;
 import com.google.dart.server.internal.remote.DebugPrintStream;
 import com.google.dart.server.internal.remote.RemoteAnalysisServerImpl;
 import com.google.dart.server.internal.remote.StdioServerSocket;
@@ -41,6 +42,7 @@ import com.intellij.openapi.util.Ref;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.search.SearchScope;
@@ -88,6 +90,7 @@ public final class DartAnalysisServerService implements Disposable {
   public static final String MIN_WEBDEV_SDK_VERSION = "2.6.0";
 
   private static final long UPDATE_FILES_TIMEOUT = 300;
+  private static final String REUSED_COMPLETION_ID_PREFIX = "reused:";
 
   private static final long CHECK_CANCELLED_PERIOD = 10;
   private static final long SEND_REQUEST_TIMEOUT = TimeUnit.SECONDS.toMillis(1);
@@ -136,15 +139,27 @@ public final class DartAnalysisServerService implements Disposable {
   @Nullable private String mySdkHome;
 
   private final DartServerRootsHandler myRootsHandler;
-  private final Map<String, Long> myFilePathWithOverlaidContentToTimestamp = new THashMap<>();
+  // modified under myLock, but read without it by getConvertedOffset() and getOriginalOffset() that are called very often
+  private final Map<String, Long> myFilePathWithOverlaidContentToTimestamp = ContainerUtil.newConcurrentMap();
+  // document changes collected since the last analysis.updateContent request, used to send ChangeContentOverlay instead of full text
+  private final Map<String, PendingOverlayEdits> myFilePathToPendingOverlayEdits = new THashMap<>();
+  // files for which the server rejected incremental overlay change, full content must be sent for them next time
+  private final Set<String> myFilePathsToResendFullOverlay = new THashSet<>();
   private final List<String> myVisibleFiles = new ArrayList<>();
   private final Set<Document> myChangedDocuments = new THashSet<>();
   private final Alarm myUpdateFilesAlarm;
 
   @NotNull private final Queue<CompletionInfo> myCompletionInfos = new LinkedList<>();
+  // the last completion request, its results are reused while the user keeps typing an identifier at the completion offset
+  @Nullable private volatile LastCompletion myLastCompletion;
+  @Nullable private volatile ReusedCompletion myReusedCompletion;
+  @NotNull private final DartCompletionStatistics myCompletionStatistics = new DartCompletionStatistics();
   @NotNull private final Queue<SearchResultsSet> mySearchResultSets = new LinkedList<>();
 
   @NotNull private final DartServerData myServerData;
+  @NotNull private final DartAnalysisResultsCache myResultsCache;
+  // serializes updates of the errors reported by the server with errors loaded from myResultsCache
+  private final Object myErrorsUpdateLock = new Object();
 
   private volatile boolean myAnalysisInProgress;
   private volatile boolean myPubListInProgress;
@@ -163,6 +178,10 @@ public final class DartAnalysisServerService implements Disposable {
   // errors hash is tracked to optimize error notification listener: do not handle equal notifications more than once
   @NotNull private final TObjectIntHashMap<String> myFilePathToErrorsHash = new TObjectIntHashMap<>();
 
+  // size in UTF-8 bytes of the file content sent to the server within analysis.updateContent requests
+  private volatile long myLastOverlayUpdateSize;
+  private volatile long myTotalOverlayUpdateSize;
+
   @NotNull private final EvictingQueue<String> myDebugLog = EvictingQueue.create(DEBUG_LOG_CAPACITY);
 
   public static String getClientId() {
@@ -221,11 +240,17 @@ public final class DartAnalysisServerService implements Disposable {
 
       final int newHash = errorsWithoutTodo.isEmpty() ? 0 : ensureNotZero(errorsWithoutTodo.hashCode());
       // do nothing if errors are the same as were already handled previously
-      if (oldHash == newHash && !myServerData.isErrorInfoInaccurate(filePathSI)) return;
+      if (oldHash == newHash && !myServerData.isErrorInfoInaccurate(filePathSI) && !myServerData.isErrorInfoStale(filePathSI)) return;
 
       final boolean visible = myVisibleFiles.contains(filePathSD);
-      if (myServerData.computedErrors(filePathSI, errorsWithoutTodo, visible)) {
-        onErrorsUpdated(filePathSI, errorsWithoutTodo, hasSevereProblems, newHash);
+      synchronized (myErrorsUpdateLock) {
+        if (myServerData.computedErrors(filePathSI, errorsWithoutTodo, visible)) {
+          onErrorsUpdated(filePathSI, errorsWithoutTodo, hasSevereProblems, newHash);
+        }
+      }
+
+      if (isResultsCacheEnabled()) {
+        myResultsCache.errorsComputed(filePathSI, errorsWithoutTodo);
       }
     }
 
@@ -272,6 +297,9 @@ public final class DartAnalysisServerService implements Disposable {
 
       for (String filePath : filePaths) {
         onErrorsUpdated(filePath, AnalysisError.EMPTY_LIST, false, 0);
+        if (isResultsCacheEnabled()) {
+          myResultsCache.errorsComputed(filePath, AnalysisError.EMPTY_LIST);
+        }
       }
     }
 
@@ -310,6 +338,9 @@ public final class DartAnalysisServerService implements Disposable {
       if (RequestErrorCode.SERVER_ERROR.equals(error.getCode())) {
         serverError(false, error.getMessage(), error.getStackTrace());
       }
+      else if (ByteRequestSink.REQUEST_SUPERSEDED.equals(error.getCode())) {
+        LOG.debug(error.getMessage());
+      }
       else {
         LOG.info(getShortErrorMessage("unknown", null, error));
       }
@@ -341,9 +372,14 @@ public final class DartAnalysisServerService implements Disposable {
     public void serverStatus(@Nullable final AnalysisStatus analysisStatus, @Nullable final PubStatus pubStatus) {
       final boolean wasBusy = myAnalysisInProgress || myPubListInProgress;
 
+      final boolean wasAnalyzing = myAnalysisInProgress;
       if (analysisStatus != null) myAnalysisInProgress = analysisStatus.isAnalyzing();
       if (pubStatus != null) myPubListInProgress = pubStatus.isListingPackageDirs();
 
+      if (wasAnalyzing && !myAnalysisInProgress) {
+        expireCachedErrors();
+      }
+
       if (!wasBusy && (myAnalysisInProgress || myPubListInProgress)) {
         final Runnable delayedRunnable = () -> {
           if (myAnalysisInProgress || myPubListInProgress) {
@@ -457,39 +493,108 @@ public final class DartAnalysisServerService implements Disposable {
                              @NotNull final String completionId,
                              @NotNull final CompletionSuggestionConsumer consumer,
                              @NotNull final CompletionLibraryRefConsumer libraryRefConsumer) {
-    while (true) {
+    if (completionId.startsWith(REUSED_COMPLETION_ID_PREFIX)) {
+      final ReusedCompletion reusedCompletion = myReusedCompletion;
+      if (reusedCompletion != null && reusedCompletion.myCompletionId.equals(completionId)) {
+        myCompletionStatistics.resultReused();
+        consumeCompletionInfo(reusedCompletion.myCompletionInfo, reusedCompletion.myConvertedReplacementOffset,
+                              reusedCompletion.myTypedLength, consumer, libraryRefConsumer);
+      }
+      return;
+    }
+
+    final long startNanos = System.nanoTime();
+    CompletionInfo completionInfo = null;
+    while (completionInfo == null) {
       ProgressManager.checkCanceled();
 
       synchronized (myCompletionInfos) {
-        CompletionInfo completionInfo;
-        while ((completionInfo = myCompletionInfos.poll()) != null) {
-          if (!completionInfo.myCompletionId.equals(completionId)) continue;
-          if (!completionInfo.isLast) continue;
-
-          for (final CompletionSuggestion completion : completionInfo.myCompletions) {
-            final int convertedReplacementOffset = getConvertedOffset(file, completionInfo.myOriginalReplacementOffset);
-            consumer.consumeCompletionSuggestion(convertedReplacementOffset, completionInfo.myReplacementLength, completion);
+        CompletionInfo info;
+        while ((info = myCompletionInfos.poll()) != null) {
+          if (info.myCompletionId.equals(completionId) && info.isLast) {
+            completionInfo = info;
+            break;
           }
+        }
 
-          final Set<String> includedKinds = Sets.newHashSet(completionInfo.myIncludedElementKinds);
-          final Map<String, IncludedSuggestionRelevanceTag> includedRelevanceTags = new HashMap<>();
-          for (IncludedSuggestionRelevanceTag includedRelevanceTag : completionInfo.myIncludedSuggestionRelevanceTags) {
-            includedRelevanceTags.put(includedRelevanceTag.getTag(), includedRelevanceTag);
+        if (completionInfo == null) {
+          try {
+            myCompletionInfos.wait(CHECK_CANCELLED_PERIOD);
           }
-          for (final IncludedSuggestionSet includedSet : completionInfo.myIncludedSuggestionSets) {
-            libraryRefConsumer.consumeLibraryRef(includedSet, includedKinds, includedRelevanceTags, completionInfo.myLibraryFilePathSD);
+          catch (InterruptedException e) {
+            return;
           }
-          return;
-        }
-
-        try {
-          myCompletionInfos.wait(CHECK_CANCELLED_PERIOD);
-        }
-        catch (InterruptedException e) {
-          return;
         }
       }
     }
+    myCompletionStatistics.record(DartCompletionStatistics.Phase.WAIT_RESULTS, startNanos);
+
+    final int convertedReplacementOffset = getConvertedOffset(file, completionInfo.myOriginalReplacementOffset);
+    final LastCompletion lastCompletion = myLastCompletion;
+    if (lastCompletion != null && lastCompletion.myCompletionId.equals(completionId)) {
+      lastCompletion.setResults(completionInfo, convertedReplacementOffset);
+    }
+
+    consumeCompletionInfo(completionInfo, convertedReplacementOffset, 0, consumer, libraryRefConsumer);
+  }
+
+  private void consumeCompletionInfo(@NotNull final CompletionInfo completionInfo,
+                                     final int convertedReplacementOffset,
+                                     final int typedLength,
+                                     @NotNull final CompletionSuggestionConsumer consumer,
+                                     @NotNull final CompletionLibraryRefConsumer libraryRefConsumer) {
+    final long startNanos = System.nanoTime();
+    final int replacementLength = completionInfo.myReplacementLength + typedLength;
+    for (final CompletionSuggestion completion : completionInfo.myCompletions) {
+      consumer.consumeCompletionSuggestion(convertedReplacementOffset, replacementLength, completion);
+    }
+
+    final Set<String> includedKinds = Sets.newHashSet(completionInfo.myIncludedElementKinds);
+    final Map<String, IncludedSuggestionRelevanceTag> includedRelevanceTags = new HashMap<>();
+    for (IncludedSuggestionRelevanceTag includedRelevanceTag : completionInfo.myIncludedSuggestionRelevanceTags) {
+      includedRelevanceTags.put(includedRelevanceTag.getTag(), includedRelevanceTag);
+    }
+    for (final IncludedSuggestionSet includedSet : completionInfo.myIncludedSuggestionSets) {
+      libraryRefConsumer.consumeLibraryRef(includedSet, includedKinds, includedRelevanceTags, completionInfo.myLibraryFilePathSD);
+    }
+    myCompletionStatistics.record(DartCompletionStatistics.Phase.CONSUME_RESULTS, startNanos);
+  }
+
+  /**
+   * If since the previous completion request the user has only typed identifier characters at the completion offset, the previous
+   * results are still valid: the server would return the same suggestions, and the IDE filters them by the longer prefix anyway.
+   *
+   * @return completion id to pass to {@link #addCompletions}, or {@code null} if the server must be asked
+   */
+  @Nullable
+  private String reuseLastCompletion(@NotNull final VirtualFile file, final int offset, @NotNull final CharSequence text) {
+    final LastCompletion last = myLastCompletion;
+    final CompletionInfo completionInfo = last != null ? last.myCompletionInfo : null;
+    if (completionInfo == null || !last.myFile.equals(file)) return null;
+    if (!Registry.is("dart.completion.reuse.results", true)) return null;
+
+    final int typedLength = offset - last.myOffset;
+    if (typedLength <= 0 || text.length() - last.myText.length() != typedLength) return null;
+
+    final int replacementOffset = last.myConvertedReplacementOffset;
+    if (replacementOffset < 0 || replacementOffset > last.myOffset) return null;
+    for (int i = replacementOffset; i < offset; i++) {
+      if (!Character.isJavaIdentifierPart(text.charAt(i))) return null;
+    }
+
+    if (!StringUtil.equals(text.subSequence(0, last.myOffset), last.myText.subSequence(0, last.myOffset)) ||
+        !StringUtil.equals(text.subSequence(offset, text.length()), last.myText.subSequence(last.myOffset, last.myText.length()))) {
+      return null;
+    }
+
+    final String completionId = REUSED_COMPLETION_ID_PREFIX + last.myCompletionId + "+" + typedLength;
+    myReusedCompletion = new ReusedCompletion(completionId, completionInfo, replacementOffset, typedLength);
+    return completionId;
+  }
+
+  @NotNull
+  public DartCompletionStatistics getCompletionStatistics() {
+    return myCompletionStatistics;
   }
 
   public static class FormatResult {
@@ -521,6 +626,7 @@ public final class DartAnalysisServerService implements Disposable {
     myProject = project;
     myRootsHandler = new DartServerRootsHandler(project);
     myServerData = new DartServerData(this);
+    myResultsCache = new DartAnalysisResultsCache(project, this);
     myUpdateFilesAlarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD, project);
     myShowServerProgressAlarm = new Alarm(project);
     myServerErrorHandler = new DartAnalysisServerErrorHandler(project);
@@ -705,6 +811,10 @@ public final class DartAnalysisServerService implements Disposable {
 
         final VirtualFile file = FileDocumentManager.getInstance().getFile(e.getDocument());
         if (isLocalAnalyzableFile(file)) {
+          synchronized (myLock) {
+            recordPendingOverlayEdit(file.getPath(), e);
+          }
+
           for (VirtualFile fileInEditor : FileEditorManager.getInstance(myProject).getOpenFiles()) {
             if (fileInEditor.equals(file)) {
               synchronized (myLock) {
@@ -741,6 +851,7 @@ public final class DartAnalysisServerService implements Disposable {
   @Override
   public void dispose() {
     stopServer();
+    myResultsCache.dispose();
   }
 
   private void handleClosingLabelPreferenceChanged() {
@@ -791,6 +902,28 @@ public final class DartAnalysisServerService implements Disposable {
     return myServerData.getImplementedMembers(file);
   }
 
+  /**
+   * @return human-readable statistics collected on the IDE side, complementary to the server diagnostics page
+   */
+  @NotNull
+  public String getClientDiagnostics() {
+    final StringBuilder builder = new StringBuilder();
+    builder.append("Content sent by the last analysis.updateContent: ").append(StringUtil.formatFileSize(myLastOverlayUpdateSize))
+      .append(", total: ").append(StringUtil.formatFileSize(myTotalOverlayUpdateSize));
+
+    for (VirtualFile file : FileEditorManager.getInstance(myProject).getOpenFiles()) {
+      if (isLocalAnalyzableFile(file)) {
+        builder.append("\n").append(file.getPath()).append(": ")
+          .append(StringUtil.formatFileSize(myServerData.getRegionsMemorySize(file))).append(" in highlighting and navigation regions");
+      }
+    }
+
+    builder.append("\n").append(myServerData.getAvailableSuggestionSetStatistics());
+    builder.append("\n").append(myCompletionStatistics.getStatistics());
+
+    return builder.toString();
+  }
+
   @Nullable
   @Contract("null -> null")
   public Outline getOutline(@Nullable final VirtualFile file) {
@@ -868,9 +1001,21 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
-  private void doUpdateFilesContent() {
-    // may be use DocumentListener to collect deltas instead of sending the whole Document.getText() each time?
+  private static boolean isIncrementalOverlayUpdateEnabled() {
+    return Registry.is("dart.server.incremental.content.overlays", true);
+  }
 
+  private void recordPendingOverlayEdit(@NotNull final String filePath, @NotNull final DocumentEvent e) {
+    final Document document = e.getDocument();
+    PendingOverlayEdits pendingEdits = myFilePathToPendingOverlayEdits.get(filePath);
+    if (pendingEdits == null) {
+      pendingEdits = new PendingOverlayEdits(document.getModificationStamp());
+      myFilePathToPendingOverlayEdits.put(filePath, pendingEdits);
+    }
+    pendingEdits.addEdit(e.getOffset(), e.getOldLength(), e.getNewFragment().toString(), document.getTextLength());
+  }
+
+  private void doUpdateFilesContent() {
     AnalysisServer server = myServer;
     if (server == null) {
       return;
@@ -891,6 +1036,20 @@ public final class DartAnalysisServerService implements Disposable {
       myChangedDocuments.clear();
       ContainerUtil.addAll(documents, fileDocumentManager.getUnsavedDocuments());
 
+      // the server has rejected incremental changes for these files, so their overlays must be re-sent in full
+      for (String path : myFilePathsToResendFullOverlay) {
+        myFilePathWithOverlaidContentToTimestamp.remove(path);
+        final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(path);
+        final Document document = file == null ? null : fileDocumentManager.getCachedDocument(file);
+        if (document != null) {
+          documents.add(document);
+        }
+      }
+      myFilePathsToResendFullOverlay.clear();
+
+      final boolean incremental = isIncrementalOverlayUpdateEnabled();
+      long updateSize = 0;
+
       for (Document document : documents) {
         final VirtualFile file = fileDocumentManager.getFile(document);
         if (isLocalAnalyzableFile(file)) {
@@ -898,15 +1057,37 @@ public final class DartAnalysisServerService implements Disposable {
 
           final Long oldTimestamp = myFilePathWithOverlaidContentToTimestamp.get(file.getPath());
           if (oldTimestamp == null || document.getModificationStamp() != oldTimestamp) {
-            filesToUpdate.put(FileUtil.toSystemDependentName(file.getPath()), new AddContentOverlay(document.getText()));
+            final PendingOverlayEdits pendingEdits = myFilePathToPendingOverlayEdits.get(file.getPath());
+            final String filePathSD = FileUtil.toSystemDependentName(file.getPath());
+            if (incremental && oldTimestamp != null && pendingEdits != null && pendingEdits.isApplicableTo(oldTimestamp)) {
+              final List<SourceEdit> edits = pendingEdits.getEdits();
+              filesToUpdate.put(filePathSD, new ChangeContentOverlay(edits));
+              for (SourceEdit edit : edits) {
+                updateSize += getUtf8Length(edit.getReplacement());
+              }
+            }
+            else {
+              final String text = document.getText();
+              filesToUpdate.put(filePathSD, new AddContentOverlay(text));
+              updateSize += getUtf8Length(text);
+            }
             myFilePathWithOverlaidContentToTimestamp.put(file.getPath(), document.getModificationStamp());
           }
         }
       }
 
+      // all edits made before this moment are either sent or covered by full overlays
+      myFilePathToPendingOverlayEdits.clear();
+
+      if (!filesToUpdate.isEmpty()) {
+        myLastOverlayUpdateSize = updateSize;
+        myTotalOverlayUpdateSize += updateSize;
+      }
+
       // oldTrackedFiles at this point contains only those files that are not in FileDocumentManager.getUnsavedDocuments() any more
       for (String oldPath : oldTrackedFiles) {
         final Long removed = myFilePathWithOverlaidContentToTimestamp.remove(oldPath);
+        myFilePathsToResendFullOverlay.remove(oldPath);
         LOG.assertTrue(removed != null, oldPath);
         filesToUpdate.put(FileUtil.toSystemDependentName(oldPath), new RemoveContentOverlay());
       }
@@ -927,10 +1108,56 @@ public final class DartAnalysisServerService implements Disposable {
     }
 
     if (!filesToUpdate.isEmpty()) {
-      server.analysis_updateContent(filesToUpdate, myServerData::onFilesContentUpdated);
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("analysis.updateContent content size: " + myLastOverlayUpdateSize + " bytes, total: " + myTotalOverlayUpdateSize + " bytes");
+      }
+
+      server.analysis_updateContent(filesToUpdate, new UpdateContentConsumer() {
+        @Override
+        public void onResponse() {
+          myServerData.onFilesContentUpdated();
+        }
+
+        @Override
+        public void onError(RequestError requestError) {
+          if (RequestErrorCode.INVALID_OVERLAY_CHANGE.equals(requestError.getCode())) {
+            synchronized (myLock) {
+              for (Map.Entry<String, Object> entry : filesToUpdate.entrySet()) {
+                if (entry.getValue() instanceof ChangeContentOverlay) {
+                  myFilePathsToResendFullOverlay.add(FileUtil.toSystemIndependentName(entry.getKey()));
+                }
+              }
+            }
+            myUpdateFilesAlarm.cancelAllRequests();
+            myUpdateFilesAlarm.addRequest(DartAnalysisServerService.this::updateFilesContent, 0);
+          }
+          onResponse();
+        }
+      });
     }
   }
 
+  private static long getUtf8Length(@NotNull final CharSequence text) {
+    long result = 0;
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (c < 0x80) {
+        result++;
+      }
+      else if (c < 0x800) {
+        result += 2;
+      }
+      else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+        result += 4;
+        i++;
+      }
+      else {
+        result += 3;
+      }
+    }
+    return result;
+  }
+
   public void ensureAnalysisRootsUpToDate() {
     myRootsHandler.updateRoots();
   }
@@ -1442,6 +1669,16 @@ public final class DartAnalysisServerService implements Disposable {
       return null;
     }
 
+    final Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    final CharSequence text = document != null ? document.getImmutableCharSequence() : null;
+    if (text != null) {
+      final String reusedCompletionId = reuseLastCompletion(file, _offset, text);
+      if (reusedCompletionId != null) {
+        return reusedCompletionId;
+      }
+    }
+
+    final long startNanos = System.nanoTime();
     final String filePath = FileUtil.toSystemDependentName(file.getPath());
     final Ref<String> resultRef = new Ref<>();
     final CountDownLatch latch = new CountDownLatch(1);
@@ -1465,8 +1702,11 @@ public final class DartAnalysisServerService implements Disposable {
     if (latch.getCount() > 0) {
       logTookTooLongMessage("completion_getSuggestions", GET_SUGGESTIONS_TIMEOUT, filePath);
     }
+    myCompletionStatistics.record(DartCompletionStatistics.Phase.GET_SUGGESTIONS, startNanos);
 
-    return resultRef.get();
+    final String completionId = resultRef.get();
+    myLastCompletion = completionId != null && text != null ? new LastCompletion(completionId, file, _offset, text) : null;
+    return completionId;
   }
 
   @Nullable
@@ -2079,6 +2319,74 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
+  private static boolean isResultsCacheEnabled() {
+    return Registry.is("dart.server.cached.errors", true);
+  }
+
+  /**
+   * Shows errors known from the previous IDE session until the server reports fresh ones. Scheduled via the EDT queue so that
+   * the errors are loaded after {@link #clearAllErrors()} requested by {@link #stopServer()} has cleared the Problems view.
+   */
+  private void scheduleLoadingCachedErrors() {
+    if (!isResultsCacheEnabled()) return;
+
+    ApplicationManager.getApplication().invokeLater(
+      () -> ApplicationManager.getApplication().executeOnPooledThread(this::loadCachedErrors),
+      ModalityState.NON_MODAL,
+      myProject.getDisposed()
+    );
+  }
+
+  private void loadCachedErrors() {
+    final Map<String, List<AnalysisError>> filePathToErrors = myResultsCache.loadValidErrors();
+    for (Map.Entry<String, List<AnalysisError>> entry : filePathToErrors.entrySet()) {
+      final String filePath = entry.getKey();
+      final List<AnalysisError> errors = entry.getValue();
+
+      boolean hasSevereProblems = false;
+      for (AnalysisError error : errors) {
+        if (AnalysisErrorSeverity.ERROR.equals(error.getSeverity())) {
+          hasSevereProblems = true;
+          break;
+        }
+      }
+
+      synchronized (myErrorsUpdateLock) {
+        if (!isServerProcessActive()) return;
+        if (myServerData.computedCachedErrors(filePath, errors)) {
+          onErrorsUpdated(filePath, errors, hasSevereProblems, errors.isEmpty() ? 0 : ensureNotZero(errors.hashCode()));
+        }
+      }
+    }
+  }
+
+  /**
+   * Cached errors of the files that the server hasn't reported by the end of the analysis would be shown as stale forever.
+   */
+  private void expireCachedErrors() {
+    if (!myServerData.hasStaleErrorInfo()) return;
+
+    synchronized (myErrorsUpdateLock) {
+      for (String filePath : myServerData.expireCachedErrors()) {
+        onErrorsUpdated(filePath, AnalysisError.EMPTY_LIST, false, 0);
+        if (isResultsCacheEnabled()) {
+          myResultsCache.errorsComputed(filePath, AnalysisError.EMPTY_LIST);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} if errors shown for the file were loaded from the previous IDE session and the server hasn't confirmed them yet
+   */
+  public boolean isErrorInfoStale(@NotNull final VirtualFile file) {
+    return myServerData.isErrorInfoStale(file.getPath());
+  }
+
+  public boolean hasStaleErrorInfo() {
+    return myServerData.hasStaleErrorInfo();
+  }
+
   public boolean isServerProcessActive() {
     synchronized (myLock) {
       return myServer != null && myServer.isSocketOpen();
@@ -2106,6 +2414,7 @@ public final class DartAnalysisServerService implements Disposable {
 
         if (myServer != null) {
           myRootsHandler.onServerStarted();
+          scheduleLoadingCachedErrors();
         }
       }
 
@@ -2152,8 +2461,14 @@ public final class DartAnalysisServerService implements Disposable {
       myServer = null;
       mySdkHome = null;
       myFilePathWithOverlaidContentToTimestamp.clear();
+      myFilePathToPendingOverlayEdits.clear();
+      myFilePathsToResendFullOverlay.clear();
+      myLastOverlayUpdateSize = 0;
+      myTotalOverlayUpdateSize = 0;
       myVisibleFiles.clear();
       myChangedDocuments.clear();
+      myLastCompletion = null;
+      myReusedCompletion = null;
       myServerData.clearData();
       myRootsHandler.onServerStopped();
 
@@ -2353,6 +2668,48 @@ public final class DartAnalysisServerService implements Disposable {
     }
   }
 
+  private static final class LastCompletion {
+    @NotNull private final String myCompletionId;
+    @NotNull private final VirtualFile myFile;
+    private final int myOffset;
+    @NotNull private final CharSequence myText;
+    // set when the results are received
+    @Nullable private volatile CompletionInfo myCompletionInfo;
+    private volatile int myConvertedReplacementOffset = -1;
+
+    private LastCompletion(@NotNull final String completionId,
+                           @NotNull final VirtualFile file,
+                           final int offset,
+                           @NotNull final CharSequence text) {
+      myCompletionId = completionId;
+      myFile = file;
+      myOffset = offset;
+      myText = text;
+    }
+
+    private void setResults(@NotNull final CompletionInfo completionInfo, final int convertedReplacementOffset) {
+      myConvertedReplacementOffset = convertedReplacementOffset;
+      myCompletionInfo = completionInfo;
+    }
+  }
+
+  private static final class ReusedCompletion {
+    @NotNull private final String myCompletionId;
+    @NotNull private final CompletionInfo myCompletionInfo;
+    private final int myConvertedReplacementOffset;
+    private final int myTypedLength;
+
+    private ReusedCompletion(@NotNull final String completionId,
+                             @NotNull final CompletionInfo completionInfo,
+                             final int convertedReplacementOffset,
+                             final int typedLength) {
+      myCompletionId = completionId;
+      myCompletionInfo = completionInfo;
+      myConvertedReplacementOffset = convertedReplacementOffset;
+      myTypedLength = typedLength;
+    }
+  }
+
   /**
    * A set of {@link SearchResult}s.
    */
@@ -2427,4 +2784,42 @@ public final class DartAnalysisServerService implements Disposable {
                                                             : Collections.singletonList(ServerService.STATUS));
     }
   }
+
+  /**
+   * Document changes made since the last {@code analysis.updateContent} request. They can be sent as a {@link ChangeContentOverlay}
+   * only if the server already has the overlay with the content that the document had before the first of these changes.
+   */
+  private static final class PendingOverlayEdits {
+    private final long myBaseModificationStamp;
+    private final List<SourceEdit> myEdits = new ArrayList<>();
+    private long mySize;
+    private boolean myTooLarge;
+
+    private PendingOverlayEdits(long baseModificationStamp) {
+      myBaseModificationStamp = baseModificationStamp;
+    }
+
+    private void addEdit(int offset, int length, @NotNull String replacement, int documentLength) {
+      if (myTooLarge) return;
+
+      mySize += replacement.length();
+      if (mySize > documentLength) {
+        // sending the whole text is cheaper
+        myTooLarge = true;
+        myEdits.clear();
+        return;
+      }
+
+      myEdits.add(new SourceEdit(offset, length, replacement, null));
+    }
+
+    private boolean isApplicableTo(long overlayModificationStamp) {
+      return !myTooLarge && myBaseModificationStamp == overlayModificationStamp;
+    }
+
+    @NotNull
+    private List<SourceEdit> getEdits() {
+      return new ArrayList<>(myEdits);
+    }
+  }
 }
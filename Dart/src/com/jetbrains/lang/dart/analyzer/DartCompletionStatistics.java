@@ -0,0 +1,65 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Timing of the code completion phases, reported by {@link DartAnalysisServerService#getClientDiagnostics()}.
+ */
+public final class DartCompletionStatistics {
+  public enum Phase {
+    UPDATE_CONTENT("sending changed content"),
+    GET_SUGGESTIONS("completion.getSuggestions request"),
+    WAIT_RESULTS("waiting for results"),
+    CONSUME_RESULTS("creating lookup elements");
+
+    @NotNull private final String myPresentableName;
+
+    Phase(@NotNull final String presentableName) {
+      myPresentableName = presentableName;
+    }
+  }
+
+  private final AtomicLongArray myCounts = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray myTotalNanos = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray myMaxNanos = new AtomicLongArray(Phase.values().length);
+  private final AtomicLong myReusedResults = new AtomicLong();
+
+  /**
+   * @param startNanos {@link System#nanoTime()} at the beginning of the phase
+   */
+  public void record(@NotNull final Phase phase, final long startNanos) {
+    final long nanos = System.nanoTime() - startNanos;
+    final int index = phase.ordinal();
+    myCounts.incrementAndGet(index);
+    myTotalNanos.addAndGet(index, nanos);
+
+    long max;
+    while (nanos > (max = myMaxNanos.get(index)) && !myMaxNanos.compareAndSet(index, max, nanos)) {
+      // retry
+    }
+  }
+
+  void resultReused() {
+    myReusedResults.incrementAndGet();
+  }
+
+  @NotNull
+  String getStatistics() {
+    final StringBuilder builder = new StringBuilder("Completion results reused without server request: ").append(myReusedResults.get());
+    for (Phase phase : Phase.values()) {
+      final int index = phase.ordinal();
+      final long count = myCounts.get(index);
+      builder.append("\nCompletion, ").append(phase.myPresentableName).append(": ").append(count).append(" times");
+      if (count > 0) {
+        builder.append(", average ").append(TimeUnit.NANOSECONDS.toMillis(myTotalNanos.get(index) / count)).append(" ms")
+          .append(", max ").append(TimeUnit.NANOSECONDS.toMillis(myMaxNanos.get(index))).append(" ms");
+      }
+    }
+    return builder.toString();
+  }
+}
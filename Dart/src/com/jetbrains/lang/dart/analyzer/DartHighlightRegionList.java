@@ -0,0 +1,89 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.vfs.VirtualFile;
+import gnu.trove.TObjectIntHashMap;
+import org.dartlang.analysis.server.protocol.HighlightRegion;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packed list of {@link DartServerData.DartHighlightRegion}s: offsets, lengths and indices in the table of highlighting types.
+ */
+public final class DartHighlightRegionList extends DartRegionList<DartServerData.DartHighlightRegion> {
+  private final String @NotNull [] myTypes;
+  private final int @NotNull [] myTypeIndices;
+
+  private DartHighlightRegionList(final int @NotNull [] offsets,
+                                  final int @NotNull [] lengths,
+                                  final String @NotNull [] types,
+                                  final int @NotNull [] typeIndices) {
+    super(offsets, lengths);
+    myTypes = types;
+    myTypeIndices = typeIndices;
+  }
+
+  @NotNull
+  static DartHighlightRegionList create(@NotNull final DartAnalysisServerService service,
+                                        @Nullable final VirtualFile file,
+                                        @NotNull final List<? extends HighlightRegion> regions) {
+    final int[] offsets = new int[regions.size()];
+    final int[] lengths = new int[regions.size()];
+    final int[] typeIndices = new int[regions.size()];
+    final List<String> types = new ArrayList<>();
+    final TObjectIntHashMap<String> typeToIndex = new TObjectIntHashMap<>();
+    int count = 0;
+
+    for (HighlightRegion region : regions) {
+      if (region.getLength() > 0) {
+        final int offset = service.getConvertedOffset(file, region.getOffset());
+        offsets[count] = offset;
+        lengths[count] = service.getConvertedOffset(file, region.getOffset() + region.getLength()) - offset;
+
+        final String type = region.getType();
+        if (!typeToIndex.containsKey(type)) {
+          typeToIndex.put(type, types.size());
+          types.add(type.intern());
+        }
+        typeIndices[count] = typeToIndex.get(type);
+        count++;
+      }
+    }
+
+    return new DartHighlightRegionList(trim(offsets, count), trim(lengths, count), types.toArray(new String[0]), trim(typeIndices, count));
+  }
+
+  @NotNull
+  public String getType(final int index) {
+    return myTypes[myTypeIndices[index]];
+  }
+
+  @Override
+  public DartServerData.DartHighlightRegion get(final int index) {
+    return new DartServerData.DartHighlightRegion(myOffsets[index], myLengths[index], getType(index));
+  }
+
+  @Override
+  public long getMemorySize() {
+    return super.getMemorySize() + ARRAY_HEADER_SIZE + 4L * myTypeIndices.length + ARRAY_HEADER_SIZE + 4L * myTypes.length;
+  }
+
+  @NotNull
+  @Override
+  DartHighlightRegionList updateUpdatingTouched(@NotNull final DocumentEvent e) {
+    return (DartHighlightRegionList)super.updateUpdatingTouched(e);
+  }
+
+  @NotNull
+  @Override
+  protected DartHighlightRegionList select(final int @NotNull [] indices,
+                                           final int @NotNull [] offsets,
+                                           final int @NotNull [] lengths,
+                                           final int count) {
+    return new DartHighlightRegionList(trim(offsets, count), trim(lengths, count), myTypes, gather(myTypeIndices, indices, count));
+  }
+}
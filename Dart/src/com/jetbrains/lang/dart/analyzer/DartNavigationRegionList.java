@@ -0,0 +1,234 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.editor.event.DocumentEvent;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.util.SmartList;
+import gnu.trove.TObjectIntHashMap;
+import org.dartlang.analysis.server.protocol.NavigationRegion;
+import org.dartlang.analysis.server.protocol.NavigationTarget;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * Packed list of {@link DartServerData.DartNavigationRegion}s. Regions are stored as parallel int arrays, each region refers to
+ * a range in the flat array of target indices. Targets are stored in a {@link Targets} table shared by all regions of the file,
+ * target file paths and kinds are stored once per file.
+ */
+public final class DartNavigationRegionList extends DartRegionList<DartServerData.DartNavigationRegion> {
+  private final int @NotNull [] myTargetsFrom;
+  private final int @NotNull [] myTargetsTo;
+  private final int @NotNull [] myRegionTargets;
+  @NotNull private final Targets myTargets;
+
+  private DartNavigationRegionList(final int @NotNull [] offsets,
+                                   final int @NotNull [] lengths,
+                                   final int @NotNull [] targetsFrom,
+                                   final int @NotNull [] targetsTo,
+                                   final int @NotNull [] regionTargets,
+                                   @NotNull final Targets targets) {
+    super(offsets, lengths);
+    myTargetsFrom = targetsFrom;
+    myTargetsTo = targetsTo;
+    myRegionTargets = regionTargets;
+    myTargets = targets;
+  }
+
+  @NotNull
+  static DartNavigationRegionList create(@NotNull final DartAnalysisServerService service,
+                                         @Nullable final VirtualFile file,
+                                         @NotNull final List<? extends NavigationRegion> regions) {
+    final int size = regions.size();
+    final int[] offsets = new int[size];
+    final int[] lengths = new int[size];
+    final int[] targetsFrom = new int[size];
+    final int[] targetsTo = new int[size];
+    int count = 0;
+
+    int regionTargetCount = 0;
+    for (NavigationRegion region : regions) {
+      regionTargetCount += region.getTargetObjects().size();
+    }
+    final int[] regionTargets = new int[regionTargetCount];
+    regionTargetCount = 0;
+
+    // targets are shared by regions in the server notification, so identity is enough to find duplicates
+    final Map<NavigationTarget, Integer> targetToIndex = new IdentityHashMap<>();
+    final TargetsBuilder targetsBuilder = new TargetsBuilder();
+
+    for (NavigationRegion region : regions) {
+      if (region.getLength() <= 0) continue;
+
+      final int offset = service.getConvertedOffset(file, region.getOffset());
+      offsets[count] = offset;
+      lengths[count] = service.getConvertedOffset(file, region.getOffset() + region.getLength()) - offset;
+      targetsFrom[count] = regionTargetCount;
+      for (NavigationTarget target : region.getTargetObjects()) {
+        Integer targetIndex = targetToIndex.get(target);
+        if (targetIndex == null) {
+          targetIndex = targetsBuilder.add(target);
+          targetToIndex.put(target, targetIndex);
+        }
+        regionTargets[regionTargetCount++] = targetIndex;
+      }
+      targetsTo[count] = regionTargetCount;
+      count++;
+    }
+
+    return new DartNavigationRegionList(trim(offsets, count), trim(lengths, count), trim(targetsFrom, count), trim(targetsTo, count),
+                                        trim(regionTargets, regionTargetCount), targetsBuilder.build());
+  }
+
+  @Override
+  public DartServerData.DartNavigationRegion get(final int index) {
+    final List<DartServerData.DartNavigationTarget> targets = new SmartList<>();
+    for (int i = myTargetsFrom[index]; i < myTargetsTo[index]; i++) {
+      targets.add(myTargets.createTarget(myRegionTargets[i]));
+    }
+    return new DartServerData.DartNavigationRegion(myOffsets[index], myLengths[index], targets);
+  }
+
+  @Override
+  public long getMemorySize() {
+    return super.getMemorySize() +
+           2L * (ARRAY_HEADER_SIZE + 4L * myTargetsFrom.length) +
+           ARRAY_HEADER_SIZE + 4L * myRegionTargets.length +
+           myTargets.getMemorySize();
+  }
+
+  @NotNull
+  @Override
+  DartNavigationRegionList updateDeletingTouched(@NotNull final DocumentEvent e) {
+    return (DartNavigationRegionList)super.updateDeletingTouched(e);
+  }
+
+  @NotNull
+  @Override
+  protected DartNavigationRegionList select(final int @NotNull [] indices,
+                                            final int @NotNull [] offsets,
+                                            final int @NotNull [] lengths,
+                                            final int count) {
+    return new DartNavigationRegionList(trim(offsets, count), trim(lengths, count),
+                                        gather(myTargetsFrom, indices, count), gather(myTargetsTo, indices, count),
+                                        myRegionTargets, myTargets);
+  }
+
+  /**
+   * Shifts already computed offsets of the targets located in the edited file.
+   *
+   * @return this list if no target is affected
+   */
+  @NotNull
+  DartNavigationRegionList withShiftedTargets(@NotNull final String filePath, final int eventOffset, final int deltaLength) {
+    final Targets shifted = myTargets.withShiftedOffsets(filePath, eventOffset, deltaLength);
+    return shifted == myTargets
+           ? this
+           : new DartNavigationRegionList(myOffsets, myLengths, myTargetsFrom, myTargetsTo, myRegionTargets, shifted);
+  }
+
+  /**
+   * Table of navigation targets. Converted offsets are computed lazily and cached in {@link #myConvertedOffsets}.
+   */
+  static final class Targets {
+    private final String @NotNull [] myFiles;
+    private final String @NotNull [] myKinds;
+    private final int @NotNull [] myFileIndices;
+    private final int @NotNull [] myKindIndices;
+    private final int @NotNull [] myOriginalOffsets;
+    private final int @NotNull [] myConvertedOffsets;
+
+    private Targets(final String @NotNull [] files,
+                    final String @NotNull [] kinds,
+                    final int @NotNull [] fileIndices,
+                    final int @NotNull [] kindIndices,
+                    final int @NotNull [] originalOffsets,
+                    final int @NotNull [] convertedOffsets) {
+      myFiles = files;
+      myKinds = kinds;
+      myFileIndices = fileIndices;
+      myKindIndices = kindIndices;
+      myOriginalOffsets = originalOffsets;
+      myConvertedOffsets = convertedOffsets;
+    }
+
+    @NotNull
+    private DartServerData.DartNavigationTarget createTarget(final int index) {
+      return new DartServerData.DartNavigationTarget(myFiles[myFileIndices[index]], myOriginalOffsets[index],
+                                                     myKinds[myKindIndices[index]], myConvertedOffsets[index], this, index);
+    }
+
+    void cacheConvertedOffset(final int index, final int convertedOffset) {
+      // benign race: all threads compute the same value
+      myConvertedOffsets[index] = convertedOffset;
+    }
+
+    @NotNull
+    private Targets withShiftedOffsets(@NotNull final String filePath, final int eventOffset, final int deltaLength) {
+      if (deltaLength == 0) return this;
+
+      int[] newConvertedOffsets = null;
+      for (int i = 0; i < myConvertedOffsets.length; i++) {
+        final int convertedOffset = myConvertedOffsets[i];
+        if (convertedOffset >= eventOffset && myFiles[myFileIndices[i]].equals(filePath)) {
+          if (newConvertedOffsets == null) {
+            newConvertedOffsets = myConvertedOffsets.clone();
+          }
+          newConvertedOffsets[i] = convertedOffset + deltaLength;
+        }
+      }
+
+      return newConvertedOffsets == null
+             ? this
+             : new Targets(myFiles, myKinds, myFileIndices, myKindIndices, myOriginalOffsets, newConvertedOffsets);
+    }
+
+    private long getMemorySize() {
+      return 4L * (ARRAY_HEADER_SIZE + 4L * myFileIndices.length) +
+             2L * ARRAY_HEADER_SIZE + 4L * (myFiles.length + myKinds.length);
+    }
+  }
+
+  private static final class TargetsBuilder {
+    private final List<String> myFiles = new ArrayList<>();
+    private final List<String> myKinds = new ArrayList<>();
+    private final TObjectIntHashMap<String> myFileToIndex = new TObjectIntHashMap<>();
+    private final TObjectIntHashMap<String> myKindToIndex = new TObjectIntHashMap<>();
+    private int[] myFileIndices = new int[16];
+    private int[] myKindIndices = new int[16];
+    private int[] myOriginalOffsets = new int[16];
+    private int mySize;
+
+    private int add(@NotNull final NavigationTarget target) {
+      if (mySize == myFileIndices.length) {
+        myFileIndices = Arrays.copyOf(myFileIndices, mySize * 2);
+        myKindIndices = Arrays.copyOf(myKindIndices, mySize * 2);
+        myOriginalOffsets = Arrays.copyOf(myOriginalOffsets, mySize * 2);
+      }
+
+      final String file = FileUtil.toSystemIndependentName(target.getFile().trim());
+      myFileIndices[mySize] = getIndex(file, myFiles, myFileToIndex);
+      myKindIndices[mySize] = getIndex(target.getKind(), myKinds, myKindToIndex);
+      myOriginalOffsets[mySize] = target.getOffset();
+      return mySize++;
+    }
+
+    private static int getIndex(@NotNull final String value, @NotNull final List<String> values, @NotNull final TObjectIntHashMap<String> map) {
+      if (!map.containsKey(value)) {
+        map.put(value, values.size());
+        values.add(value.intern());
+      }
+      return map.get(value);
+    }
+
+    @NotNull
+    private Targets build() {
+      final int[] convertedOffsets = new int[mySize];
+      Arrays.fill(convertedOffsets, -1);
+      return new Targets(myFiles.toArray(new String[0]), myKinds.toArray(new String[0]),
+                         trim(myFileIndices, mySize), trim(myKindIndices, mySize), trim(myOriginalOffsets, mySize), convertedOffsets);
+    }
+  }
+}
@@ -0,0 +1,188 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.intellij.openapi.editor.event.DocumentEvent;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Immutable list of regions packed into parallel int arrays. Region objects are created on demand by {@link #get(int)},
+ * so callers that only need offsets should use {@link #getOffset(int)}, {@link #getLength(int)} and {@link #findFirstIndex(int)}.
+ */
+public abstract class DartRegionList<T extends DartServerData.DartRegion> extends AbstractList<T> implements RandomAccess {
+  protected static final int ARRAY_HEADER_SIZE = 16;
+
+  protected final int[] myOffsets;
+  protected final int[] myLengths;
+
+  protected DartRegionList(final int @NotNull [] offsets, final int @NotNull [] lengths) {
+    assert offsets.length == lengths.length;
+    myOffsets = offsets;
+    myLengths = lengths;
+  }
+
+  @Override
+  public int size() {
+    return myOffsets.length;
+  }
+
+  public int getOffset(final int index) {
+    return myOffsets[index];
+  }
+
+  public int getLength(final int index) {
+    return myLengths[index];
+  }
+
+  /**
+   * Regions are expected to be sorted by offset.
+   *
+   * @return index of the first region with offset not less than {@code offset}, or {@link #size()} if there's no such region
+   */
+  public int findFirstIndex(final int offset) {
+    int low = 0;
+    int high = myOffsets.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (myOffsets[mid] < offset) {
+        low = mid + 1;
+      }
+      else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Approximate number of bytes retained by this list.
+   */
+  public long getMemorySize() {
+    return 2L * (ARRAY_HEADER_SIZE + 4L * myOffsets.length);
+  }
+
+  /**
+   * Creates a list of the same kind that contains regions with given {@code indices} of this list with new offsets and lengths.
+   */
+  @NotNull
+  protected abstract DartRegionList<T> select(final int @NotNull [] indices,
+                                              final int @NotNull [] offsets,
+                                              final int @NotNull [] lengths,
+                                              final int count);
+
+  /**
+   * Shifts regions that are after the change, deletes regions touched by the change.
+   *
+   * @return this list if nothing has changed
+   */
+  @NotNull
+  DartRegionList<T> updateDeletingTouched(@NotNull final DocumentEvent e) {
+    final int eventOffset = e.getOffset();
+    final int deltaLength = e.getNewLength() - e.getOldLength();
+    if (deltaLength == 0) return this;
+
+    final int eventRightOffset = deltaLength > 0 ? eventOffset : eventOffset - deltaLength;
+    final int size = size();
+    final int[] indices = new int[size];
+    final int[] offsets = new int[size];
+    final int[] lengths = new int[size];
+    int count = 0;
+    boolean updated = false;
+
+    for (int i = 0; i < size; i++) {
+      final int offset = myOffsets[i];
+      final int length = myLengths[i];
+
+      if (eventRightOffset <= offset) {
+        indices[count] = i;
+        offsets[count] = offset + deltaLength;
+        lengths[count] = length;
+        count++;
+        updated = true;
+      }
+      else if (eventOffset < offset + length) {
+        updated = true;
+      }
+      else {
+        indices[count] = i;
+        offsets[count] = offset;
+        lengths[count] = length;
+        count++;
+      }
+    }
+
+    return updated ? select(indices, offsets, lengths, count) : this;
+  }
+
+  /**
+   * Shifts regions that are after the change, extends or shrinks regions that contain the change, deletes other touched regions.
+   *
+   * @return this list if nothing has changed
+   */
+  @NotNull
+  DartRegionList<T> updateUpdatingTouched(@NotNull final DocumentEvent e) {
+    final int eventOffset = e.getOffset();
+    final int deltaLength = e.getNewLength() - e.getOldLength();
+    if (deltaLength == 0) return this;
+
+    final int size = size();
+    final int[] indices = new int[size];
+    final int[] offsets = new int[size];
+    final int[] lengths = new int[size];
+    int count = 0;
+
+    for (int i = 0; i < size; i++) {
+      int offset = myOffsets[i];
+      int length = myLengths[i];
+
+      if (deltaLength > 0) {
+        // Something was typed. Shift untouched regions, update touched.
+        if (eventOffset <= offset) {
+          offset += deltaLength;
+        }
+        else if (eventOffset < offset + length) {
+          length += deltaLength;
+        }
+      }
+      else {
+        // Some text was deleted. Shift untouched regions, delete or update touched.
+        final int eventRightOffset = eventOffset - deltaLength;
+        final int regionRightOffset = offset + length;
+
+        if (eventRightOffset <= offset) {
+          offset += deltaLength;
+        }
+        else if (offset <= eventOffset && eventRightOffset <= regionRightOffset && length != -deltaLength) {
+          length += deltaLength;
+        }
+        else if (eventOffset < regionRightOffset) {
+          continue;
+        }
+      }
+
+      indices[count] = i;
+      offsets[count] = offset;
+      lengths[count] = length;
+      count++;
+    }
+
+    return select(indices, offsets, lengths, count);
+  }
+
+  protected static int @NotNull [] gather(final int @NotNull [] source, final int @NotNull [] indices, final int count) {
+    final int[] result = new int[count];
+    for (int i = 0; i < count; i++) {
+      result[i] = source[indices[i]];
+    }
+    return result;
+  }
+
+  protected static int @NotNull [] trim(final int @NotNull [] array, final int count) {
+    if (array.length == count) return array;
+    final int[] result = new int[count];
+    System.arraycopy(array, 0, result, 0, count);
+    return result;
+  }
+}
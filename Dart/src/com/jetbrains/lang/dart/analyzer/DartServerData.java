@@ -9,6 +9,7 @@ import com.intellij.openapi.editor.event.DocumentEvent;
 import com.intellij.openapi.fileEditor.FileDocumentManager;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.vfs.LocalFileSystem;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.psi.PsiManager;
@@ -19,10 +20,13 @@ import com.intellij.util.EventDispatcher;
 import com.intellij.util.SmartList;
 import gnu.trove.THashMap;
 import org.dartlang.analysis.server.protocol.*;
+import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 public class DartServerData {
 
@@ -34,14 +38,10 @@ public class DartServerData {
 
   private final EventDispatcher<OutlineListener> myEventDispatcher = EventDispatcher.create(OutlineListener.class);
 
-  private final Map<String, List<DartError>> myErrorData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<String, List<DartHighlightRegion>> myHighlightData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<String, List<DartNavigationRegion>> myNavigationData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<String, List<DartOverrideMember>> myOverrideData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<String, List<DartRegion>> myImplementedClassData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<String, List<DartRegion>> myImplementedMemberData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<String, Outline> myOutlineData = Collections.synchronizedMap(new THashMap<>());
-  private final Map<Integer, AvailableSuggestionSet> myAvailableSuggestionSetMap = Collections.synchronizedMap(new THashMap<>());
+  // Per-file data published as immutable snapshots: writers replace the whole FileData record, readers never take locks
+  private final Map<String, FileData> myFileData = new ConcurrentHashMap<>();
+  private final DartSuggestionSetStore myAvailableSuggestionSets =
+    new DartSuggestionSetStore(Registry.intValue("dart.server.suggestion.sets.memory.mb", 64) * 1024L * 1024L);
   private final Map<String, Map<String, Map<String, Set<String>>>> myExistingImports = Collections.synchronizedMap(new THashMap<>());
 
   private final Set<String> myFilePathsWithUnsentChanges = Sets.newConcurrentHashSet();
@@ -49,6 +49,9 @@ public class DartServerData {
   // keeps track of files in which error regions have been updated by DocumentListener
   private final Set<String> myFilePathsWithInaccurateErrorInfo = Sets.newConcurrentHashSet();
 
+  // files with errors loaded from DartAnalysisResultsCache and not yet confirmed by the server, modified only within myFileData.compute()
+  private final Set<String> myFilePathsWithCachedErrorInfo = Sets.newConcurrentHashSet();
+
   DartServerData(@NotNull final DartAnalysisServerService service) {
     myService = service;
   }
@@ -57,6 +60,17 @@ public class DartServerData {
     return myFilePathsWithInaccurateErrorInfo.contains(filePath);
   }
 
+  /**
+   * @return {@code true} if errors for the file have been loaded from the on-disk cache and the server hasn't reported them yet
+   */
+  boolean isErrorInfoStale(@NotNull final String filePath) {
+    return myFilePathsWithCachedErrorInfo.contains(filePath);
+  }
+
+  boolean hasStaleErrorInfo() {
+    return !myFilePathsWithCachedErrorInfo.isEmpty();
+  }
+
   /**
    * @return {@code true} if {@code errors} were processes, {@code false} if ignored;
    * errors are ignored if the file has been edited and new contents has not yet been sent to the server.
@@ -74,7 +88,10 @@ public class DartServerData {
     }
 
     myFilePathsWithInaccurateErrorInfo.remove(filePath);
-    myErrorData.put(filePath, newErrors);
+    updateFileData(filePath, data -> {
+      data.myErrors = Collections.unmodifiableList(newErrors);
+      myFilePathsWithCachedErrorInfo.remove(filePath);
+    });
 
     if (restartHighlighting) {
       forceFileAnnotation(file, false);
@@ -83,6 +100,40 @@ public class DartServerData {
     return true;
   }
 
+  /**
+   * Applies errors loaded from the on-disk cache. They are marked as stale until the server reports errors for the file.
+   *
+   * @return {@code true} if errors were applied, {@code false} if the server has already reported errors for this file
+   * or the file has been edited
+   */
+  boolean computedCachedErrors(@NotNull final String filePath, final @NotNull List<? extends AnalysisError> errors) {
+    if (myFilePathsWithUnsentChanges.contains(filePath)) return false;
+
+    final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(filePath);
+    final List<DartError> newErrors = new ArrayList<>(errors.size());
+    for (AnalysisError error : errors) {
+      final int offset = myService.getConvertedOffset(file, error.getLocation().getOffset());
+      final int length = myService.getConvertedOffset(file, error.getLocation().getOffset() + error.getLocation().getLength()) - offset;
+      newErrors.add(new DartError(error, offset, length));
+    }
+
+    final boolean[] applied = {false};
+    myFileData.compute(filePath, (path, oldData) -> {
+      if (oldData != null && oldData.myErrors != null) return oldData;
+
+      final FileData newData = new FileData(oldData);
+      newData.myErrors = Collections.unmodifiableList(newErrors);
+      myFilePathsWithCachedErrorInfo.add(filePath);
+      applied[0] = true;
+      return newData;
+    });
+
+    if (applied[0]) {
+      forceFileAnnotation(file, false);
+    }
+    return applied[0];
+  }
+
   void computedClosingLabels(@NotNull final String filePath, @NotNull final List<ClosingLabel> labels) {
     if (myFilePathsWithUnsentChanges.contains(filePath)) return;
 
@@ -92,42 +143,27 @@ public class DartServerData {
   void computedHighlights(@NotNull final String filePath, final @NotNull List<? extends HighlightRegion> regions) {
     if (myFilePathsWithUnsentChanges.contains(filePath)) return;
 
-    final List<DartHighlightRegion> newRegions = new ArrayList<>(regions.size());
     final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(filePath);
+    final DartHighlightRegionList newRegions = DartHighlightRegionList.create(myService, file, regions);
 
-    for (HighlightRegion region : regions) {
-      if (region.getLength() > 0) {
-        final int offset = myService.getConvertedOffset(file, region.getOffset());
-        final int length = myService.getConvertedOffset(file, region.getOffset() + region.getLength()) - offset;
-        newRegions.add(new DartHighlightRegion(offset, length, region.getType()));
-      }
-    }
-
-    myHighlightData.put(filePath, newRegions);
+    updateFileData(filePath, data -> data.myHighlights = newRegions);
     forceFileAnnotation(file, false);
   }
 
   void computedNavigation(@NotNull final String filePath, final @NotNull List<? extends NavigationRegion> regions) {
     if (myFilePathsWithUnsentChanges.contains(filePath)) return;
 
-    final List<DartNavigationRegion> newRegions = new ArrayList<>(regions.size());
     final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(filePath);
+    final DartNavigationRegionList newRegions = DartNavigationRegionList.create(myService, file, regions);
 
-    for (NavigationRegion region : regions) {
-      if (region.getLength() > 0) {
-        final DartNavigationRegion dartNavigationRegion = createDartNavigationRegion(myService, file, region);
-        newRegions.add(dartNavigationRegion);
-      }
-    }
-
-    myNavigationData.put(filePath, newRegions);
+    updateFileData(filePath, data -> data.myNavigation = newRegions);
     forceFileAnnotation(file, true);
   }
 
   void computedOutline(@NotNull final String filePath, @NotNull final Outline outline) {
     if (myFilePathsWithUnsentChanges.contains(filePath)) return;
 
-    myOutlineData.put(filePath, outline);
+    updateFileData(filePath, data -> data.myOutline = outline);
     ApplicationManager.getApplication().invokeLater(() -> myEventDispatcher.getMulticaster().outlineUpdated(filePath),
                                                     ModalityState.NON_MODAL,
                                                     myService.getProject().getDisposed());
@@ -135,10 +171,10 @@ public class DartServerData {
 
   void computedAvailableSuggestions(final @NotNull List<? extends AvailableSuggestionSet> changed, final int @NotNull [] removed) {
     for (int id : removed) {
-      myAvailableSuggestionSetMap.remove(id);
+      myAvailableSuggestionSets.remove(id);
     }
     for (AvailableSuggestionSet suggestionSet : changed) {
-      myAvailableSuggestionSetMap.put(suggestionSet.getId(), suggestionSet);
+      myAvailableSuggestionSets.put(suggestionSet);
     }
   }
 
@@ -178,7 +214,7 @@ public class DartServerData {
       }
     }
 
-    myOverrideData.put(filePath, newOverrides);
+    updateFileData(filePath, data -> data.myOverrides = Collections.unmodifiableList(newOverrides));
     forceFileAnnotation(file, false);
   }
 
@@ -203,34 +239,43 @@ public class DartServerData {
       newImplementedMembers.add(new DartRegion(offset, length));
     }
 
-    boolean hasChanges = false;
-    final List<DartRegion> oldClasses = myImplementedClassData.get(filePath);
-    if (oldClasses == null || !oldClasses.equals(newImplementedClasses)) {
-      hasChanges = true;
-      myImplementedClassData.put(filePath, newImplementedClasses);
-    }
+    final FileData oldData = myFileData.get(filePath);
+    final boolean classesChanged = oldData == null || oldData.myImplementedClasses == null ||
+                                   !oldData.myImplementedClasses.equals(newImplementedClasses);
+    final boolean membersChanged = oldData == null || oldData.myImplementedMembers == null ||
+                                   !oldData.myImplementedMembers.equals(newImplementedMembers);
 
-    final List<DartRegion> oldMembers = myImplementedMemberData.get(filePath);
-    if (oldMembers == null || !oldMembers.equals(newImplementedMembers)) {
-      hasChanges = true;
-      myImplementedMemberData.put(filePath, newImplementedMembers);
-    }
-
-    if (hasChanges) {
+    if (classesChanged || membersChanged) {
+      updateFileData(filePath, data -> {
+        if (classesChanged) data.myImplementedClasses = Collections.unmodifiableList(newImplementedClasses);
+        if (membersChanged) data.myImplementedMembers = Collections.unmodifiableList(newImplementedMembers);
+      });
       forceFileAnnotation(file, false);
     }
   }
 
+  /**
+   * Publishes a new snapshot of the file data: a copy of the current one modified by {@code modifier}.
+   */
+  private void updateFileData(@NotNull final String filePath, @NotNull final Consumer<? super FileData> modifier) {
+    myFileData.compute(filePath, (path, oldData) -> {
+      final FileData newData = new FileData(oldData);
+      modifier.accept(newData);
+      return newData;
+    });
+  }
+
   @NotNull
   List<DartError> getErrors(@NotNull final SearchScope scope) {
     final List<DartError> errors = new ArrayList<>();
 
-    synchronized (myErrorData) {
-      for (Map.Entry<String, List<DartError>> entry : myErrorData.entrySet()) {
-        final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(entry.getKey());
-        if (file != null && scope.contains(file)) {
-          errors.addAll(entry.getValue());
-        }
+    for (Map.Entry<String, FileData> entry : myFileData.entrySet()) {
+      final List<DartError> fileErrors = entry.getValue().myErrors;
+      if (fileErrors == null || fileErrors.isEmpty()) continue;
+
+      final VirtualFile file = LocalFileSystem.getInstance().findFileByPath(entry.getKey());
+      if (file != null && scope.contains(file)) {
+        errors.addAll(fileErrors);
       }
     }
 
@@ -239,43 +284,54 @@ public class DartServerData {
 
   @NotNull
   List<DartError> getErrors(@NotNull final VirtualFile file) {
-    final List<DartError> errors = myErrorData.get(file.getPath());
-    return errors != null ? errors : Collections.emptyList();
+    final FileData data = myFileData.get(file.getPath());
+    return data != null && data.myErrors != null ? data.myErrors : Collections.emptyList();
   }
 
   @NotNull
   List<DartHighlightRegion> getHighlight(@NotNull final VirtualFile file) {
-    final List<DartHighlightRegion> regions = myHighlightData.get(file.getPath());
-    return regions != null ? regions : Collections.emptyList();
+    final FileData data = myFileData.get(file.getPath());
+    return data != null && data.myHighlights != null ? data.myHighlights : Collections.emptyList();
   }
 
   @NotNull
   List<DartNavigationRegion> getNavigation(@NotNull final VirtualFile file) {
-    final List<DartNavigationRegion> regions = myNavigationData.get(file.getPath());
-    return regions != null ? regions : Collections.emptyList();
+    final FileData data = myFileData.get(file.getPath());
+    return data != null && data.myNavigation != null ? data.myNavigation : Collections.emptyList();
   }
 
   @NotNull
   List<DartOverrideMember> getOverrideMembers(@NotNull final VirtualFile file) {
-    final List<DartOverrideMember> regions = myOverrideData.get(file.getPath());
-    return regions != null ? regions : Collections.emptyList();
+    final FileData data = myFileData.get(file.getPath());
+    return data != null && data.myOverrides != null ? data.myOverrides : Collections.emptyList();
   }
 
   @NotNull
   List<DartRegion> getImplementedClasses(@NotNull final VirtualFile file) {
-    final List<DartRegion> classes = myImplementedClassData.get(file.getPath());
-    return classes != null ? classes : Collections.emptyList();
+    final FileData data = myFileData.get(file.getPath());
+    return data != null && data.myImplementedClasses != null ? data.myImplementedClasses : Collections.emptyList();
   }
 
   @NotNull
   List<DartRegion> getImplementedMembers(@NotNull final VirtualFile file) {
-    final List<DartRegion> classes = myImplementedMemberData.get(file.getPath());
-    return classes != null ? classes : Collections.emptyList();
+    final FileData data = myFileData.get(file.getPath());
+    return data != null && data.myImplementedMembers != null ? data.myImplementedMembers : Collections.emptyList();
   }
 
   @Nullable
   Outline getOutline(@NotNull final VirtualFile file) {
-    return myOutlineData.get(file.getPath());
+    final FileData data = myFileData.get(file.getPath());
+    return data != null ? data.myOutline : null;
+  }
+
+  /**
+   * @return approximate number of bytes retained by highlighting and navigation regions of the file
+   */
+  long getRegionsMemorySize(@NotNull final VirtualFile file) {
+    final FileData data = myFileData.get(file.getPath());
+    if (data == null) return 0;
+    return (data.myHighlights != null ? data.myHighlights.getMemorySize() : 0) +
+           (data.myNavigation != null ? data.myNavigation.getMemorySize() : 0);
   }
 
   void addOutlineListener(@NotNull final OutlineListener listener) {
@@ -288,18 +344,25 @@ public class DartServerData {
 
   @Nullable
   AvailableSuggestionSet getAvailableSuggestionSet(int id) {
-    return myAvailableSuggestionSetMap.get(id);
+    return myAvailableSuggestionSets.get(id);
+  }
+
+  @NotNull
+  String getAvailableSuggestionSetStatistics() {
+    return myAvailableSuggestionSets.getStatistics();
   }
 
   boolean hasAllData_TESTS_ONLY(@NotNull VirtualFile file) {
     assert ApplicationManager.getApplication().isUnitTestMode();
+    final FileData data = myFileData.get(file.getPath());
     return !isErrorInfoInaccurate(file.getPath()) &&
-           myHighlightData.get(file.getPath()) != null &&
-           myNavigationData.get(file.getPath()) != null &&
-           myOverrideData.get(file.getPath()) != null &&
-           myImplementedClassData.get(file.getPath()) != null &&
-           myImplementedMemberData.get(file.getPath()) != null &&
-           myOutlineData.get(file.getPath()) != null;
+           data != null &&
+           data.myHighlights != null &&
+           data.myNavigation != null &&
+           data.myOverrides != null &&
+           data.myImplementedClasses != null &&
+           data.myImplementedMembers != null &&
+           data.myOutline != null;
   }
 
   @Nullable
@@ -333,42 +396,58 @@ public class DartServerData {
   }
 
   void onFileClosed(@NotNull final VirtualFile file) {
-    // do not remove from myErrorData, this map is always kept up-to-date for all files, not only for visible
-    myHighlightData.remove(file.getPath());
-    myNavigationData.remove(file.getPath());
-    myOverrideData.remove(file.getPath());
-    myImplementedClassData.remove(file.getPath());
-    myImplementedMemberData.remove(file.getPath());
-    myOutlineData.remove(file.getPath());
+    // do not remove errors, they are always kept up-to-date for all files, not only for visible
+    myFileData.computeIfPresent(file.getPath(), (path, oldData) -> {
+      if (oldData.myErrors == null) return null;
+
+      final FileData newData = new FileData(null);
+      newData.myErrors = oldData.myErrors;
+      return newData;
+    });
   }
 
   void onFlushedResults(@NotNull final List<String> filePaths) {
-    removeAllFromMap(myErrorData, filePaths);
-    removeAllFromMap(myHighlightData, filePaths);
-    removeAllFromMap(myNavigationData, filePaths);
-    removeAllFromMap(myOverrideData, filePaths);
-    removeAllFromMap(myImplementedClassData, filePaths);
-    removeAllFromMap(myImplementedMemberData, filePaths);
-    removeAllFromMap(myOutlineData, filePaths);
+    if (myFileData.isEmpty()) return;
+
+    for (String filePath : filePaths) {
+      myFileData.compute(filePath, (path, oldData) -> {
+        myFilePathsWithCachedErrorInfo.remove(filePath);
+        return null;
+      });
+    }
   }
 
-  private static <T> void removeAllFromMap(@NotNull Map<T, ?> map, @NotNull List<? extends T> keys) {
-    if (map.isEmpty()) return;
+  /**
+   * Drops errors loaded from the on-disk cache that the server hasn't confirmed by the end of the analysis: the server doesn't
+   * analyze these files anymore.
+   *
+   * @return paths of the files whose errors have been dropped
+   */
+  @NotNull
+  List<String> expireCachedErrors() {
+    final List<String> filePaths = new ArrayList<>();
+    for (String filePath : new ArrayList<>(myFilePathsWithCachedErrorInfo)) {
+      myFileData.computeIfPresent(filePath, (path, oldData) -> {
+        if (!myFilePathsWithCachedErrorInfo.remove(filePath)) return oldData;
+
+        final FileData newData = new FileData(oldData);
+        newData.myErrors = null;
+        filePaths.add(filePath);
+        return newData;
+      });
+      myFilePathsWithCachedErrorInfo.remove(filePath);
+    }
 
-    for (T key : keys) {
-      map.remove(key);
+    for (String filePath : filePaths) {
+      forceFileAnnotation(LocalFileSystem.getInstance().findFileByPath(filePath), false);
     }
+    return filePaths;
   }
 
   void clearData() {
-    myErrorData.clear();
-    myHighlightData.clear();
-    myNavigationData.clear();
-    myOverrideData.clear();
-    myImplementedClassData.clear();
-    myImplementedMemberData.clear();
-    myOutlineData.clear();
-    myAvailableSuggestionSetMap.clear();
+    myFileData.clear();
+    myFilePathsWithCachedErrorInfo.clear();
+    myAvailableSuggestionSets.clear();
   }
 
   void onDocumentChanged(@NotNull final DocumentEvent e) {
@@ -378,53 +457,56 @@ public class DartServerData {
     final String filePath = file.getPath();
     myFilePathsWithUnsentChanges.add(filePath);
 
-    boolean regionsUpdated = updateRegionsDeletingTouched(filePath, myErrorData.get(filePath), e);
-    if (regionsUpdated) {
-      myFilePathsWithInaccurateErrorInfo.add(filePath);
-    }
-    updateRegionsUpdatingTouched(myHighlightData.get(filePath), e);
-    updateRegionsDeletingTouched(filePath, myNavigationData.get(filePath), e);
-    updateRegionsDeletingTouched(filePath, myOverrideData.get(filePath), e);
-    updateRegionsDeletingTouched(filePath, myImplementedClassData.get(filePath), e);
-    updateRegionsDeletingTouched(filePath, myImplementedMemberData.get(filePath), e);
-    // A bit outdated outline data is not a big problem, updated data will come shortly
+    myFileData.computeIfPresent(filePath, (path, oldData) -> {
+      final FileData newData = new FileData(oldData);
+      newData.myErrors = updateRegionsDeletingTouched(oldData.myErrors, e);
+      if (newData.myErrors != oldData.myErrors) {
+        myFilePathsWithInaccurateErrorInfo.add(filePath);
+      }
+      if (oldData.myHighlights != null) {
+        newData.myHighlights = oldData.myHighlights.updateUpdatingTouched(e);
+      }
+      if (oldData.myNavigation != null) {
+        // may be we'd better delete target touched by editing?
+        final int deltaLength = e.getNewLength() - e.getOldLength();
+        newData.myNavigation = oldData.myNavigation.withShiftedTargets(filePath, e.getOffset(), deltaLength).updateDeletingTouched(e);
+      }
+      newData.myOverrides = updateRegionsDeletingTouched(oldData.myOverrides, e);
+      newData.myImplementedClasses = updateRegionsDeletingTouched(oldData.myImplementedClasses, e);
+      newData.myImplementedMembers = updateRegionsDeletingTouched(oldData.myImplementedMembers, e);
+      // A bit outdated outline data is not a big problem, updated data will come shortly
+      return newData;
+    });
   }
 
   /**
-   * @return {@code true} if at least one region has been updated or deleted, {@code false} if nothing done at all
+   * Shifts untouched regions and deletes touched ones. Regions are never modified, shifted copies are created instead.
+   *
+   * @return {@code regions} if nothing has changed, otherwise a new unmodifiable list
    */
-  private static boolean updateRegionsDeletingTouched(@NotNull final String filePath,
-                                                      @Nullable final List<? extends DartRegion> regions,
-                                                      @NotNull final DocumentEvent e) {
-    if (regions == null) return false;
+  @Contract("null, _ -> null")
+  private static <T extends DartRegion> List<T> updateRegionsDeletingTouched(@Nullable final List<T> regions,
+                                                                            @NotNull final DocumentEvent e) {
+    if (regions == null) return null;
 
     boolean regionUpdated = false;
+    final List<T> result = new ArrayList<>(regions.size());
 
     // delete touched regions, shift untouched
     final int eventOffset = e.getOffset();
     final int deltaLength = e.getNewLength() - e.getOldLength();
 
-    final Iterator<? extends DartRegion> iterator = regions.iterator();
-    while (iterator.hasNext()) {
-      final DartRegion region = iterator.next();
-
-      if (region instanceof DartNavigationRegion) {
-        // may be we'd better delete target touched by editing?
-        for (DartNavigationTarget target : ((DartNavigationRegion)region).getTargets()) {
-          if (target.myFile.equals(filePath) && target.myConvertedOffset >= eventOffset) {
-            target.myConvertedOffset += deltaLength;
-          }
-        }
-      }
+    for (T region : regions) {
+      T newRegion = region;
 
       if (deltaLength > 0) {
         // Something was typed. Shift untouched regions, delete touched.
         if (eventOffset <= region.myOffset) {
-          region.myOffset += deltaLength;
+          newRegion = cast(newRegion.withRange(region.myOffset + deltaLength, region.myLength));
           regionUpdated = true;
         }
         else if (eventOffset < region.myOffset + region.myLength) {
-          iterator.remove();
+          newRegion = null;
           regionUpdated = true;
         }
       }
@@ -433,66 +515,71 @@ public class DartServerData {
         final int eventRightOffset = eventOffset - deltaLength;
 
         if (eventRightOffset <= region.myOffset) {
-          region.myOffset += deltaLength;
+          newRegion = cast(newRegion.withRange(region.myOffset + deltaLength, region.myLength));
           regionUpdated = true;
         }
         else if (eventOffset < region.myOffset + region.myLength) {
-          iterator.remove();
+          newRegion = null;
           regionUpdated = true;
         }
       }
+
+      if (newRegion != null) {
+        result.add(newRegion);
+      }
     }
 
-    return regionUpdated;
+    return regionUpdated ? Collections.unmodifiableList(result) : regions;
   }
 
-  private static void updateRegionsUpdatingTouched(@Nullable final List<? extends DartRegion> regions,
-                                                   @NotNull final DocumentEvent e) {
-    if (regions == null) return;
-
-    final int eventOffset = e.getOffset();
-    final int deltaLength = e.getNewLength() - e.getOldLength();
-
-    final Iterator<? extends DartRegion> iterator = regions.iterator();
-    while (iterator.hasNext()) {
-      final DartRegion region = iterator.next();
-
-      if (deltaLength > 0) {
-        // Something was typed. Shift untouched regions, update touched.
-        if (eventOffset <= region.myOffset) {
-          region.myOffset += deltaLength;
-        }
-        else if (eventOffset < region.myOffset + region.myLength) {
-          region.myLength += deltaLength;
-        }
-      }
-      else if (deltaLength < 0) {
-        // Some text was deleted. Shift untouched regions, delete or update touched.
-        final int eventRightOffset = eventOffset - deltaLength;
-        final int regionRightOffset = region.myOffset + region.myLength;
+  @SuppressWarnings("unchecked")
+  private static <T extends DartRegion> T cast(@NotNull final DartRegion region) {
+    return (T)region;
+  }
 
-        if (eventRightOffset <= region.myOffset) {
-          region.myOffset += deltaLength;
-        }
-        else if (region.myOffset <= eventOffset && eventRightOffset <= regionRightOffset && region.myLength != -deltaLength) {
-          region.myLength += deltaLength;
-        }
-        else if (eventOffset < regionRightOffset) {
-          iterator.remove();
-        }
+  /**
+   * All the data received from the server for a single file. Instances are never modified after they are published in
+   * {@link #myFileData}, a modified copy is published instead. {@code null} fields mean that data has not been received yet.
+   */
+  private static final class FileData {
+    @Nullable private List<DartError> myErrors;
+    @Nullable private DartHighlightRegionList myHighlights;
+    @Nullable private DartNavigationRegionList myNavigation;
+    @Nullable private List<DartOverrideMember> myOverrides;
+    @Nullable private List<DartRegion> myImplementedClasses;
+    @Nullable private List<DartRegion> myImplementedMembers;
+    @Nullable private Outline myOutline;
+
+    private FileData(@Nullable final FileData other) {
+      if (other != null) {
+        myErrors = other.myErrors;
+        myHighlights = other.myHighlights;
+        myNavigation = other.myNavigation;
+        myOverrides = other.myOverrides;
+        myImplementedClasses = other.myImplementedClasses;
+        myImplementedMembers = other.myImplementedMembers;
+        myOutline = other.myOutline;
       }
     }
   }
 
   public static class DartRegion {
-    protected int myOffset;
-    protected int myLength;
+    protected final int myOffset;
+    protected final int myLength;
 
     DartRegion(final int offset, final int length) {
       myOffset = offset;
       myLength = length;
     }
 
+    /**
+     * Regions are shared between threads as parts of immutable snapshots, so moving a region means creating its copy.
+     */
+    @NotNull
+    DartRegion withRange(final int offset, final int length) {
+      return new DartRegion(offset, length);
+    }
+
     public final int getOffset() {
       return myOffset;
     }
@@ -515,9 +602,9 @@ public class DartServerData {
   public static class DartHighlightRegion extends DartRegion {
     private final String type;
 
-    private DartHighlightRegion(final int offset, final int length, @NotNull final String type) {
+    DartHighlightRegion(final int offset, final int length, @NotNull final String type) {
       super(offset, length);
-      this.type = type.intern();
+      this.type = type;
     }
 
     public String getType() {
@@ -543,6 +630,22 @@ public class DartServerData {
       myUrl = error.getUrl();
     }
 
+    private DartError(@NotNull final DartError error, final int offset, final int length) {
+      super(offset, length);
+      myAnalysisErrorFileSD = error.myAnalysisErrorFileSD;
+      mySeverity = error.mySeverity;
+      myCode = error.myCode;
+      myMessage = error.myMessage;
+      myCorrection = error.myCorrection;
+      myUrl = error.myUrl;
+    }
+
+    @NotNull
+    @Override
+    DartError withRange(final int offset, final int length) {
+      return new DartError(this, offset, length);
+    }
+
     @NotNull
     public String getAnalysisErrorFileSD() {
       return myAnalysisErrorFileSD;
@@ -601,12 +704,33 @@ public class DartServerData {
     private final int myOriginalOffset;
     private final String myKind;
 
-    private int myConvertedOffset = -1;
+    // table to store lazily computed converted offset in, if this object is created by DartNavigationRegionList
+    @Nullable private final DartNavigationRegionList.Targets myOwner;
+    private final int myIndexInOwner;
+
+    // lazily computed, -1 means not computed yet
+    private volatile int myConvertedOffset = -1;
 
     private DartNavigationTarget(@NotNull final NavigationTarget target) {
       myFile = FileUtil.toSystemIndependentName(target.getFile().trim()).intern();
       myOriginalOffset = target.getOffset();
       myKind = target.getKind().intern();
+      myOwner = null;
+      myIndexInOwner = -1;
+    }
+
+    DartNavigationTarget(@NotNull final String file,
+                         final int originalOffset,
+                         @NotNull final String kind,
+                         final int convertedOffset,
+                         @NotNull final DartNavigationRegionList.Targets owner,
+                         final int indexInOwner) {
+      myFile = file;
+      myOriginalOffset = originalOffset;
+      myKind = kind;
+      myConvertedOffset = convertedOffset;
+      myOwner = owner;
+      myIndexInOwner = indexInOwner;
     }
 
     public String getFile() {
@@ -616,6 +740,9 @@ public class DartServerData {
     public int getOffset(@NotNull final Project project, @Nullable final VirtualFile file) {
       if (myConvertedOffset == -1) {
         myConvertedOffset = DartAnalysisServerService.getInstance(project).getConvertedOffset(file, myOriginalOffset);
+        if (myOwner != null) {
+          myOwner.cacheConvertedOffset(myIndexInOwner, myConvertedOffset);
+        }
       }
       return myConvertedOffset;
     }
@@ -638,6 +765,12 @@ public class DartServerData {
       myInterfaceMembers = interfaceMembers;
     }
 
+    @NotNull
+    @Override
+    DartOverrideMember withRange(final int offset, final int length) {
+      return new DartOverrideMember(offset, length, mySuperclassMember, myInterfaceMembers);
+    }
+
     @Nullable
     public OverriddenMember getSuperclassMember() {
       return mySuperclassMember;
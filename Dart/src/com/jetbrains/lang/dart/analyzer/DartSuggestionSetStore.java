@@ -0,0 +1,192 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.analyzer;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.text.StringUtil;
+import gnu.trove.TIntObjectHashMap;
+import org.dartlang.analysis.server.protocol.AvailableSuggestion;
+import org.dartlang.analysis.server.protocol.AvailableSuggestionSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps {@link AvailableSuggestionSet}s reported by the server. The server sends only changes of the sets, so a set can't be simply
+ * dropped. Instead, the least recently used sets that don't fit into the memory budget are kept compressed and are decompressed
+ * when completion refers to them again.
+ */
+final class DartSuggestionSetStore {
+  private static final Logger LOG = Logger.getInstance(DartSuggestionSetStore.class);
+
+  private final long myMaxLiveSize;
+
+  // access-ordered, the eldest entry is the least recently used one
+  private final LinkedHashMap<Integer, LiveSet> myLiveSets = new LinkedHashMap<>(64, 0.75f, true);
+  private final TIntObjectHashMap<CompressedSet> myCompressedSets = new TIntObjectHashMap<>();
+  private long myLiveSize;
+  private long myCompressedSize;
+
+  private long myHits;
+  private long myMisses;
+  private long myEvictions;
+
+  DartSuggestionSetStore(final long maxLiveSize) {
+    myMaxLiveSize = maxLiveSize;
+  }
+
+  synchronized void put(@NotNull final AvailableSuggestionSet set) {
+    remove(set.getId());
+
+    final LiveSet liveSet = new LiveSet(set, estimateSize(set));
+    myLiveSets.put(set.getId(), liveSet);
+    myLiveSize += liveSet.mySize;
+    evictIfNeeded(set.getId());
+  }
+
+  synchronized void remove(final int id) {
+    final LiveSet liveSet = myLiveSets.remove(id);
+    if (liveSet != null) {
+      myLiveSize -= liveSet.mySize;
+    }
+
+    final CompressedSet compressedSet = myCompressedSets.remove(id);
+    if (compressedSet != null) {
+      myCompressedSize -= compressedSet.myBytes.length;
+    }
+  }
+
+  @Nullable
+  synchronized AvailableSuggestionSet get(final int id) {
+    final LiveSet liveSet = myLiveSets.get(id);
+    if (liveSet != null) {
+      myHits++;
+      return liveSet.mySet;
+    }
+
+    final CompressedSet compressedSet = myCompressedSets.get(id);
+    if (compressedSet == null) return null;
+
+    myMisses++;
+    final AvailableSuggestionSet set = compressedSet.decompress();
+    if (set != null) {
+      put(set);
+    }
+    return set;
+  }
+
+  synchronized void clear() {
+    myLiveSets.clear();
+    myCompressedSets.clear();
+    myLiveSize = 0;
+    myCompressedSize = 0;
+  }
+
+  @NotNull
+  synchronized String getStatistics() {
+    return "Suggestion sets: " + myLiveSets.size() + " live (" + StringUtil.formatFileSize(myLiveSize) + "), " +
+           myCompressedSets.size() + " compressed (" + StringUtil.formatFileSize(myCompressedSize) + "); " +
+           "hits: " + myHits + ", decompressions: " + myMisses + ", evictions: " + myEvictions;
+  }
+
+  private void evictIfNeeded(final int keptId) {
+    final Iterator<Map.Entry<Integer, LiveSet>> iterator = myLiveSets.entrySet().iterator();
+    while (myLiveSize > myMaxLiveSize && iterator.hasNext()) {
+      final Map.Entry<Integer, LiveSet> entry = iterator.next();
+      if (entry.getKey() == keptId) continue;
+
+      iterator.remove();
+      myLiveSize -= entry.getValue().mySize;
+      myEvictions++;
+
+      final CompressedSet compressedSet = CompressedSet.compress(entry.getValue().mySet);
+      myCompressedSets.put(entry.getKey(), compressedSet);
+      myCompressedSize += compressedSet.myBytes.length;
+    }
+  }
+
+  /**
+   * Rough estimate of the retained memory, it is only used to compare sets with each other and with the budget.
+   */
+  private static long estimateSize(@NotNull final AvailableSuggestionSet set) {
+    long size = 64 + 2L * StringUtil.length(set.getUri());
+    for (AvailableSuggestion suggestion : set.getItems()) {
+      size += 400 + 4L * StringUtil.length(suggestion.getLabel()) + 2L * StringUtil.length(suggestion.getDeclaringLibraryUri());
+    }
+    return size;
+  }
+
+  private static final class LiveSet {
+    @NotNull private final AvailableSuggestionSet mySet;
+    private final long mySize;
+
+    private LiveSet(@NotNull final AvailableSuggestionSet set, final long size) {
+      mySet = set;
+      mySize = size;
+    }
+  }
+
+  private static final class CompressedSet {
+    private final byte @NotNull [] myBytes;
+    private final int myUncompressedLength;
+
+    private CompressedSet(final byte @NotNull [] bytes, final int uncompressedLength) {
+      myBytes = bytes;
+      myUncompressedLength = uncompressedLength;
+    }
+
+    @NotNull
+    private static CompressedSet compress(@NotNull final AvailableSuggestionSet set) {
+      final byte[] json = set.toJson().toString().getBytes(StandardCharsets.UTF_8);
+      final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try {
+        deflater.setInput(json);
+        deflater.finish();
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 16);
+        final byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+          out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return new CompressedSet(out.toByteArray(), json.length);
+      }
+      finally {
+        deflater.end();
+      }
+    }
+
+    @Nullable
+    private AvailableSuggestionSet decompress() {
+      final Inflater inflater = new Inflater();
+      try {
+        inflater.setInput(myBytes);
+        final byte[] json = new byte[myUncompressedLength];
+        int length = 0;
+        while (length < json.length && !inflater.finished()) {
+          final int inflated = inflater.inflate(json, length, json.length - length);
+          if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+          length += inflated;
+        }
+
+        final JsonObject jsonObject = new JsonParser().parse(new String(json, 0, length, StandardCharsets.UTF_8)).getAsJsonObject();
+        return AvailableSuggestionSet.fromJson(jsonObject);
+      }
+      catch (DataFormatException | RuntimeException e) {
+        LOG.warn("Failed to decompress suggestion set", e);
+        return null;
+      }
+      finally {
+        inflater.end();
+      }
+    }
+  }
+}
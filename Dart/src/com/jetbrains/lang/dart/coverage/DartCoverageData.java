@@ -1,78 +1,116 @@
-// Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.jetbrains.lang.dart.coverage;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
-import org.jetbrains.annotations.Nullable;
 
-import java.util.*;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.Map;
 
+/**
+ * Coverage data in the hitmap format of the {@code coverage} package: {@code {"coverage": [{"source": ..., "hits": [line, count, ...]}, ...]}}.
+ * The file is parsed as a stream, hits are merged right away into a primitive array per source, so that neither the whole JSON
+ * tree nor boxed line numbers are kept in memory.
+ */
 public class DartCoverageData {
-  @Nullable private List<DartFileCoverageData> coverage;
+  /**
+   * Value of the line that has no hit data, that is the line that is not executable.
+   */
+  static final int NO_HITS = -1;
 
-  @Nullable
-  public List<DartFileCoverageData> getCoverage() {
-    return coverage;
-  }
+  // source uri -> array indexed by line number, values are hit counts or NO_HITS
+  private final Map<String, int[]> mySourceToLineHits = new THashMap<>();
 
-  public void setCoverage(@Nullable List<DartFileCoverageData> coverage) {
-    this.coverage = coverage;
+  private DartCoverageData() {
   }
 
+  /**
+   * @return source uri -> array indexed by line number that contains hit count for the line or {@link #NO_HITS}
+   */
   @NotNull
-  public Map<String, SortedMap<Integer, Integer>> getMergedDartFileCoverageData() {
-    Map<String, SortedMap<Integer, Integer>> mergedCoverageData = new HashMap<>();
-    List<DartFileCoverageData> coverageData = getCoverage();
-    if (coverageData != null) {
-      for (DartFileCoverageData item : coverageData) {
-        String source = item.getSource();
-        if (source == null) {
-          continue;
-        }
-        if (!mergedCoverageData.containsKey(source)) {
-          mergedCoverageData.put(source, new TreeMap<>());
-        }
+  public Map<String, int[]> getMergedDartFileCoverageData() {
+    return mySourceToLineHits;
+  }
 
-        SortedMap<Integer, Integer> fileData = mergedCoverageData.get(source);
-        List<Integer> hits = item.getHits();
-        if (hits == null) {
-          continue;
-        }
-        for (int i = 0; i < hits.size(); i += 2) {
-          Integer lineNumber = hits.get(i);
-          Integer hitCount = hits.get(i + 1);
-          if (!fileData.containsKey(lineNumber)) {
-            fileData.put(lineNumber, 0);
-          }
+  @NotNull
+  public static DartCoverageData load(@NotNull final Reader reader) throws IOException {
+    final DartCoverageData data = new DartCoverageData();
+    final JsonReader jsonReader = new JsonReader(reader);
 
-          fileData.put(lineNumber, fileData.get(lineNumber) + hitCount);
-        }
+    jsonReader.beginObject();
+    while (jsonReader.hasNext()) {
+      if ("coverage".equals(jsonReader.nextName()) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+        data.readCoverage(jsonReader);
+      }
+      else {
+        jsonReader.skipValue();
       }
     }
+    jsonReader.endObject();
 
-    return mergedCoverageData;
+    return data;
   }
-}
 
+  private void readCoverage(@NotNull final JsonReader reader) throws IOException {
+    // hits of the current item are buffered because "source" may follow "hits"
+    int[] hits = new int[1024];
 
-class DartFileCoverageData {
-  @Nullable private String source;
-  @Nullable private List<Integer> hits;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      String source = null;
+      int hitsSize = 0;
 
-  @Nullable
-  public String getSource() {
-    return source;
-  }
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if ("source".equals(name) && reader.peek() == JsonToken.STRING) {
+          source = reader.nextString();
+        }
+        else if ("hits".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+          reader.beginArray();
+          while (reader.hasNext()) {
+            if (hitsSize == hits.length) {
+              hits = Arrays.copyOf(hits, hitsSize * 2);
+            }
+            hits[hitsSize++] = reader.nextInt();
+          }
+          reader.endArray();
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
 
-  public void setSource(@Nullable String source) {
-    this.source = source;
+      if (source != null) {
+        mergeHits(source, hits, hitsSize);
+      }
+    }
+    reader.endArray();
   }
 
-  @Nullable
-  public List<Integer> getHits() {
-    return hits;
-  }
+  private void mergeHits(@NotNull final String source, final int @NotNull [] hits, final int hitsSize) {
+    int maxLine = -1;
+    for (int i = 0; i + 1 < hitsSize; i += 2) {
+      maxLine = Math.max(maxLine, hits[i]);
+    }
+
+    int[] lineHits = mySourceToLineHits.get(source);
+    if (lineHits == null || lineHits.length <= maxLine) {
+      final int oldLength = lineHits == null ? 0 : lineHits.length;
+      lineHits = lineHits == null ? new int[maxLine + 1] : Arrays.copyOf(lineHits, maxLine + 1);
+      Arrays.fill(lineHits, oldLength, lineHits.length, NO_HITS);
+      mySourceToLineHits.put(source, lineHits);
+    }
 
-  public void setHits(@Nullable List<Integer> hits) {
-    this.hits = hits;
+    for (int i = 0; i + 1 < hitsSize; i += 2) {
+      final int line = hits[i];
+      if (line < 0) continue;
+      lineHits[line] = Math.max(lineHits[line], 0) + hits[i + 1];
+    }
   }
-}
\ No newline at end of file
+}
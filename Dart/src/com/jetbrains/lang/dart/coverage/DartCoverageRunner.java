@@ -15,8 +15,8 @@
  */
 package com.jetbrains.lang.dart.coverage;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonSyntaxException;
+import com.google.gson.JsonParseException;
+import com.intellij.concurrency.JobLauncher;
 import com.intellij.coverage.CoverageEngine;
 import com.intellij.coverage.CoverageRunner;
 import com.intellij.coverage.CoverageSuite;
@@ -34,12 +34,11 @@ import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
 
 public class DartCoverageRunner extends CoverageRunner {
   private static final String ID = "DartCoverageRunner";
@@ -99,37 +98,38 @@ public class DartCoverageRunner extends CoverageRunner {
     final ProjectData projectData = new ProjectData();
 
     try {
-      DartCoverageData data = new Gson().fromJson(new BufferedReader(new FileReader(sessionDataFile)), DartCoverageData.class);
-      if (data == null) {
-        LOG.warn("Coverage file does not contain valid data.");
-        return null;
+      final DartCoverageData data;
+      try (Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(sessionDataFile), StandardCharsets.UTF_8))) {
+        data = DartCoverageData.load(reader);
+      }
+
+      final List<Map.Entry<String, int[]>> entries = new ArrayList<>(data.getMergedDartFileCoverageData().entrySet());
+
+      // Each uri is mapped by a separate analysis server request, so requests are sent from several threads at once
+      final String[] filePaths = new String[entries.size()];
+      final List<Integer> indices = new ArrayList<>(entries.size());
+      for (int i = 0; i < entries.size(); i++) {
+        indices.add(i);
       }
+      JobLauncher.getInstance().invokeConcurrentlyUnderProgress(indices, ProgressManager.getInstance().getProgressIndicator(), index -> {
+        filePaths[index] = getFileForUri(project, contextId, entries.get(index).getKey());
+        return true;
+      });
 
-      for (Map.Entry<String, SortedMap<Integer, Integer>> entry : data.getMergedDartFileCoverageData().entrySet()) {
+      for (int i = 0; i < entries.size(); i++) {
         ProgressManager.checkCanceled();
 
-        String filePath = getFileForUri(project, contextId, entry.getKey());
+        final String filePath = filePaths[i];
         if (filePath == null) {
           // File is not found.
           continue;
         }
-        SortedMap<Integer, Integer> lineHits = entry.getValue();
-        ClassData classData = projectData.getOrCreateClassData(filePath);
-        if (lineHits.size() == 0) {
-          classData.setLines(new LineData[1]);
-          continue;
-        }
-        LineData[] lines = new LineData[lineHits.lastKey() + 1];
-        for (Map.Entry<Integer, Integer> hit : lineHits.entrySet()) {
-          LineData lineData = new LineData(hit.getKey(), null);
-          lineData.setHits(hit.getValue());
-          lines[hit.getKey()] = lineData;
-        }
-        classData.setLines(lines);
+        final ClassData classData = projectData.getOrCreateClassData(filePath);
+        classData.setLines(createLines(entries.get(i).getValue()));
       }
     }
-    catch (FileNotFoundException | JsonSyntaxException e) {
-      LOG.warn(e);
+    catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+      LOG.warn("Failed to load coverage data from " + sessionDataFile.getPath(), e);
     }
     finally {
       DartAnalysisServerService.getInstance(project).execution_deleteContext(contextId);
@@ -138,6 +138,22 @@ public class DartCoverageRunner extends CoverageRunner {
     return projectData;
   }
 
+  private static LineData @NotNull [] createLines(final int @NotNull [] lineHits) {
+    if (lineHits.length == 0) {
+      return new LineData[1];
+    }
+
+    final LineData[] lines = new LineData[lineHits.length];
+    for (int line = 0; line < lineHits.length; line++) {
+      if (lineHits[line] != DartCoverageData.NO_HITS) {
+        final LineData lineData = new LineData(line, null);
+        lineData.setHits(lineHits[line]);
+        lines[line] = lineData;
+      }
+    }
+    return lines;
+  }
+
   @Nullable
   private static String getFileForUri(@NotNull final Project project, @NotNull final String contextId, @NotNull final String uri) {
     if (uri.startsWith("dart:_") || uri.startsWith("dart:") && uri.contains("-patch/")) {
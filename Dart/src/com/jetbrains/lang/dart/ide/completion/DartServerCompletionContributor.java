@@ -38,6 +38,7 @@ import com.intellij.util.PlatformIcons;
 import com.intellij.util.ProcessingContext;
 import com.jetbrains.lang.dart.DartLanguage;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
+import com.jetbrains.lang.dart.analyzer.DartCompletionStatistics;
 import com.jetbrains.lang.dart.assists.AssistUtils;
 import com.jetbrains.lang.dart.assists.DartSourceEditException;
 import com.jetbrains.lang.dart.ide.codeInsight.DartCodeInsightSettings;
@@ -107,7 +108,9 @@ public class DartServerCompletionContributor extends CompletionContributor {
                if (sdk == null || !DartAnalysisServerService.isDartSdkVersionSufficient(sdk)) return;
 
                final DartAnalysisServerService das = DartAnalysisServerService.getInstance(project);
+               final long startNanos = System.nanoTime();
                das.updateFilesContent();
+               das.getCompletionStatistics().record(DartCompletionStatistics.Phase.UPDATE_CONTENT, startNanos);
 
                final int offset = InjectedLanguageManager.getInstance(project).injectedToHost(originalFile, parameters.getOffset());
                final String completionId = das.completion_getSuggestions(file, offset);
@@ -7,14 +7,17 @@ import com.intellij.notification.Notification;
 import com.intellij.notification.NotificationType;
 import com.intellij.notification.Notifications;
 import com.intellij.openapi.actionSystem.AnActionEvent;
+import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.project.DumbAwareAction;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.text.StringUtil;
 import com.jetbrains.lang.dart.DartBundle;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
 import org.dartlang.analysis.server.protocol.RequestError;
 import org.jetbrains.annotations.NotNull;
 
 public class AnalysisServerDiagnosticsAction extends DumbAwareAction {
+  private static final Logger LOG = Logger.getInstance(AnalysisServerDiagnosticsAction.class);
   private static final String GROUP_DISPLAY_ID = "Dart Analysis Server";
 
   public AnalysisServerDiagnosticsAction() {
@@ -40,6 +43,14 @@ public class AnalysisServerDiagnosticsAction extends DumbAwareAction {
     // Get the current analysis server.
     DartAnalysisServerService server = DartAnalysisServerService.getInstance(project);
 
+    // Report what the IDE side keeps, the server page knows nothing about it.
+    final String clientDiagnostics = server.getClientDiagnostics();
+    LOG.info(clientDiagnostics);
+    Notifications.Bus.notify(new Notification(GROUP_DISPLAY_ID,
+                                              DartBundle.message("analysis.server.client.diagnostics.title"),
+                                              StringUtil.escapeXmlEntities(clientDiagnostics).replace("\n", "<br>"),
+                                              NotificationType.INFORMATION), project);
+
     // Ask it for the diagnostics port.
     server.diagnostic_getServerPort(new GetServerPortConsumer() {
       @Override
@@ -4,15 +4,33 @@ package com.jetbrains.lang.dart.ide.errorTreeView;
 import com.intellij.analysis.problemsView.AnalysisProblem;
 import com.intellij.analysis.problemsView.AnalysisProblemsPresentationHelper;
 import com.intellij.analysis.problemsView.AnalysisProblemsTableModel;
+import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class DartProblemsTableModel extends AnalysisProblemsTableModel {
+  // All problems for each particular file are stored continuously in the model. Buckets describe these row ranges in the row order,
+  // so that problems for a file can be removed without scanning the whole table.
+  private final List<FileBucket> myBuckets = new ArrayList<>();
+  private final Map<String, FileBucket> myFilePathToBucket = new THashMap<>();
+  private boolean myBucketsValid = true;
+  private boolean myBucketStartsValid = true;
+  private boolean myUpdatingRows;
+
   public DartProblemsTableModel(@NotNull AnalysisProblemsPresentationHelper presentationHelper) {
     super(presentationHelper);
+
+    // rows changed not by setErrorsAndReturnReplacementForSelection() (filter change, removeAll(), etc.) make buckets outdated
+    addTableModelListener(e -> {
+      if (!myUpdatingRows) {
+        myBucketsValid = false;
+      }
+    });
   }
 
   /**
@@ -23,8 +41,128 @@ public class DartProblemsTableModel extends AnalysisProblemsTableModel {
   public AnalysisProblem setErrorsAndReturnReplacementForSelection(@NotNull Set<String> filePaths,
                                                                    @NotNull List<? extends AnalysisProblem> problems,
                                                                    @Nullable AnalysisProblem selectedProblem) {
-    final boolean selectedProblemRemoved = removeRowsForFilesInSet(filePaths, selectedProblem);
-    return addProblemsAndReturnReplacementForSelection(problems, selectedProblemRemoved ? selectedProblem : null);
+    myUpdatingRows = true;
+    try {
+      if (!myBucketsValid) {
+        rebuildBuckets();
+      }
+
+      final boolean selectedProblemRemoved = myBucketsValid ? removeBucketsForFilesInSet(filePaths, selectedProblem)
+                                                            : removeRowsForFilesInSet(filePaths, selectedProblem);
+
+      final int oldRowCount = getRowCount();
+      final AnalysisProblem replacement =
+        addProblemsAndReturnReplacementForSelection(problems, selectedProblemRemoved ? selectedProblem : null);
+      if (myBucketsValid) {
+        appendBuckets(oldRowCount);
+      }
+      return replacement;
+    }
+    finally {
+      myUpdatingRows = false;
+    }
+  }
+
+  /**
+   * Groups rows into per-file buckets. Buckets can't be used if rows of some file are not contiguous.
+   */
+  private void rebuildBuckets() {
+    myBuckets.clear();
+    myFilePathToBucket.clear();
+    myBucketsValid = true;
+    appendBuckets(0);
+  }
+
+  /**
+   * Creates buckets for rows starting from {@code fromRow}, which are expected to be just appended to the model.
+   */
+  private void appendBuckets(final int fromRow) {
+    final int rowCount = getRowCount();
+    FileBucket current = myBuckets.isEmpty() ? null : myBuckets.get(myBuckets.size() - 1);
+
+    for (int row = fromRow; row < rowCount; row++) {
+      final String filePath = getItem(row).getSystemIndependentPath();
+      if (current != null && row > fromRow && current.myFilePath.equals(filePath)) {
+        current.myRowCount++;
+        continue;
+      }
+
+      if (myFilePathToBucket.containsKey(filePath)) {
+        // rows for this file are not contiguous
+        myBuckets.clear();
+        myFilePathToBucket.clear();
+        myBucketsValid = false;
+        return;
+      }
+
+      current = new FileBucket(filePath, row);
+      myBuckets.add(current);
+      myFilePathToBucket.put(filePath, current);
+    }
+  }
+
+  private void ensureBucketStartsUpToDate() {
+    if (myBucketStartsValid) return;
+
+    int start = 0;
+    for (FileBucket bucket : myBuckets) {
+      bucket.myStartRow = start;
+      start += bucket.myRowCount;
+    }
+    myBucketStartsValid = true;
+  }
+
+  private boolean removeBucketsForFilesInSet(@NotNull Set<String> filePaths, @Nullable final AnalysisProblem selectedProblem) {
+    boolean hasBucketsToRemove = false;
+    for (String filePath : filePaths) {
+      if (myFilePathToBucket.containsKey(filePath)) {
+        hasBucketsToRemove = true;
+        break;
+      }
+    }
+    if (!hasBucketsToRemove) return false;
+
+    ensureBucketStartsUpToDate();
+
+    final boolean selectedProblemRemoved = selectedProblem != null &&
+                                           myFilePathToBucket.containsKey(selectedProblem.getSystemIndependentPath()) &&
+                                           filePaths.contains(selectedProblem.getSystemIndependentPath());
+
+    // Iterate from the end so that start rows of the buckets that are not processed yet remain correct.
+    // Adjacent buckets are removed by a single removeRows() call.
+    int lastRowToDelete = -1;
+    int firstRowToDelete = -1;
+    final List<FileBucket> remainingBuckets = new ArrayList<>(myBuckets.size());
+
+    for (int i = myBuckets.size() - 1; i >= 0; i--) {
+      final FileBucket bucket = myBuckets.get(i);
+      if (!filePaths.contains(bucket.myFilePath)) {
+        if (lastRowToDelete >= 0) {
+          removeRows(firstRowToDelete, lastRowToDelete);
+          lastRowToDelete = -1;
+        }
+        remainingBuckets.add(bucket);
+        continue;
+      }
+
+      myFilePathToBucket.remove(bucket.myFilePath);
+      if (lastRowToDelete < 0) {
+        lastRowToDelete = bucket.myStartRow + bucket.myRowCount - 1;
+      }
+      firstRowToDelete = bucket.myStartRow;
+    }
+
+    if (lastRowToDelete >= 0) {
+      removeRows(firstRowToDelete, lastRowToDelete);
+    }
+
+    myBuckets.clear();
+    for (int i = remainingBuckets.size() - 1; i >= 0; i--) {
+      myBuckets.add(remainingBuckets.get(i));
+    }
+    myBucketStartsValid = false;
+
+    return selectedProblemRemoved;
   }
 
   private boolean removeRowsForFilesInSet(@NotNull Set<String> filePaths, @Nullable final AnalysisProblem selectedProblem) {
@@ -93,4 +231,15 @@ public class DartProblemsTableModel extends AnalysisProblemsTableModel {
 
     return selectedProblemRemoved;
   }
+
+  private static final class FileBucket {
+    @NotNull private final String myFilePath;
+    private int myStartRow;
+    private int myRowCount = 1;
+
+    private FileBucket(@NotNull final String filePath, final int startRow) {
+      myFilePath = filePath;
+      myStartRow = startRow;
+    }
+  }
 }
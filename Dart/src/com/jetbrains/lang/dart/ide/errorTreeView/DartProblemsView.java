@@ -30,6 +30,7 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import javax.swing.event.HyperlinkEvent;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -45,6 +46,7 @@ public class DartProblemsView implements PersistentStateComponent<DartProblemsVi
     NotificationGroup.toolWindowGroup(TOOLWINDOW_ID, TOOLWINDOW_ID, false);
 
   private static final int TABLE_REFRESH_PERIOD = 300;
+  private static final int MAX_PROBLEMS_PER_UPDATE = 5000;
 
   private final Project myProject;
   private final DartProblemsPresentationHelper myPresentationHelper;
@@ -73,10 +75,22 @@ public class DartProblemsView implements PersistentStateComponent<DartProblemsVi
         }
       }
 
-      final Map<String, List<? extends AnalysisError>> filePathToErrors;
+      final Map<String, List<? extends AnalysisError>> filePathToErrors = new THashMap<>();
       synchronized (myLock) {
-        filePathToErrors = new THashMap<>(myScheduledFilePathToErrors);
-        myScheduledFilePathToErrors.clear();
+        // Take a limited number of problems at a time so that a huge batch (like initial analysis of a big project) doesn't freeze
+        // the UI; the rest is handled by the next request, which is scheduled without delay.
+        int problemCount = 0;
+        final Iterator<Map.Entry<String, List<? extends AnalysisError>>> iterator = myScheduledFilePathToErrors.entrySet().iterator();
+        while (iterator.hasNext() && problemCount < MAX_PROBLEMS_PER_UPDATE) {
+          final Map.Entry<String, List<? extends AnalysisError>> entry = iterator.next();
+          filePathToErrors.put(entry.getKey(), entry.getValue());
+          problemCount += entry.getValue().size() + 1;
+          iterator.remove();
+        }
+
+        if (!myScheduledFilePathToErrors.isEmpty()) {
+          myAlarm.addRequest(this, 0, ModalityState.NON_MODAL);
+        }
       }
 
       DartProblemsViewPanel panel = getProblemsViewPanel();
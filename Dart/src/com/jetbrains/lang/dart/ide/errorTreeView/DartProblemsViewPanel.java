@@ -101,7 +101,10 @@ public class DartProblemsViewPanel extends AnalysisProblemsViewPanel {
   protected void updateStatusDescription() {
     final AnalysisProblemsTableModel model = getModel();
     DartProblemsView problemsView = DartProblemsView.getInstance(myProject);
-    problemsView.setHeaderText(model.getStatusText());
+    final String statusText = model.getStatusText();
+    problemsView.setHeaderText(DartAnalysisServerService.getInstance(myProject).hasStaleErrorInfo()
+                               ? DartBundle.message("dart.problems.view.cached.results.status", statusText)
+                               : statusText);
     problemsView.setToolWindowIcon(getStatusIcon());
   }
 
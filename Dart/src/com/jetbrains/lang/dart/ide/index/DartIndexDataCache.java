@@ -0,0 +1,52 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.index;
+
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.project.ProjectManagerListener;
+import com.intellij.openapi.util.registry.Registry;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@link DartFileIndexData} of recently indexed files by content hash. Identical files are common: the same package versions in different
+ * pub caches, SDK copies, reindexing after caches invalidation. At most {@code dart.index.data.cache.size} entries are kept, and all of
+ * them are dropped when a project is closed.
+ */
+public final class DartIndexDataCache {
+  private final Map<String, DartFileIndexData> myContentHashToIndexData =
+    new LinkedHashMap<String, DartFileIndexData>(256, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, DartFileIndexData> eldest) {
+        return size() > Registry.intValue("dart.index.data.cache.size", 2000);
+      }
+    };
+
+  @NotNull
+  public static DartIndexDataCache getInstance() {
+    return ServiceManager.getService(DartIndexDataCache.class);
+  }
+
+  @Nullable
+  synchronized DartFileIndexData get(@NotNull final String contentHash) {
+    return myContentHashToIndexData.get(contentHash);
+  }
+
+  synchronized void put(@NotNull final String contentHash, @NotNull final DartFileIndexData indexData) {
+    myContentHashToIndexData.put(contentHash, indexData);
+  }
+
+  public synchronized void clear() {
+    myContentHashToIndexData.clear();
+  }
+
+  public static class ProjectCloseListener implements ProjectManagerListener {
+    @Override
+    public void projectClosed(@NotNull final Project project) {
+      getInstance().clear();
+    }
+  }
+}
@@ -2,6 +2,7 @@
 package com.jetbrains.lang.dart.ide.index;
 
 import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.psi.PsiElement;
 import com.intellij.psi.PsiFile;
 import com.intellij.psi.util.PsiTreeUtil;
@@ -12,7 +13,10 @@ import com.jetbrains.lang.dart.util.DartControlFlowUtil;
 import com.jetbrains.lang.dart.util.DartResolveUtil;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Set;
 
 import static com.jetbrains.lang.dart.ide.index.DartImportOrExportInfo.Kind;
@@ -23,6 +27,10 @@ public class DartIndexUtil {
 
   private static final Key<DartFileIndexData> ourDartCachesData = Key.create("dart.caches.index.data");
 
+  /**
+   * All Dart indexes get their data from a single pass over the file, the result is shared via {@link FileContent} user data
+   * and is also reused for other files with the same content via {@link DartIndexDataCache}.
+   */
   public static DartFileIndexData indexFile(FileContent content) {
     DartFileIndexData indexData = content.getUserData(ourDartCachesData);
     if (indexData != null) return indexData;
@@ -30,12 +38,38 @@ public class DartIndexUtil {
     synchronized (content) {
       indexData = content.getUserData(ourDartCachesData);
       if (indexData != null) return indexData;
-      indexData = indexFileRoots(content.getPsiFile());
+
+      final String contentHash = getContentHash(content.getContent());
+      if (contentHash != null) {
+        indexData = DartIndexDataCache.getInstance().get(contentHash);
+      }
+
+      if (indexData == null) {
+        indexData = indexFileRoots(content.getPsiFile());
+        if (contentHash != null) {
+          DartIndexDataCache.getInstance().put(contentHash, indexData);
+        }
+      }
+
+      content.putUserData(ourDartCachesData, indexData);
     }
 
     return indexData;
   }
 
+  @Nullable
+  private static String getContentHash(final byte @NotNull [] bytes) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      digest.update(bytes);
+      // length makes collisions of different files even less likely
+      return StringUtil.toHexString(digest.digest()) + ":" + bytes.length;
+    }
+    catch (NoSuchAlgorithmException e) {
+      return null;
+    }
+  }
+
   private static DartFileIndexData indexFileRoots(PsiFile psiFile) {
     DartFileIndexData result = new DartFileIndexData();
 
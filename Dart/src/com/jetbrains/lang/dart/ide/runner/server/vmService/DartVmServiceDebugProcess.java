@@ -17,7 +17,6 @@ import com.intellij.openapi.ui.InputValidator;
 import com.intellij.openapi.ui.Messages;
 import com.intellij.openapi.util.Disposer;
 import com.intellij.openapi.util.Key;
-import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.util.registry.Registry;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.LocalFileSystem;
@@ -51,7 +50,6 @@ import com.jetbrains.lang.dart.util.DartResolveUtil;
 import com.jetbrains.lang.dart.util.DartUrlResolver;
 import gnu.trove.THashMap;
 import gnu.trove.THashSet;
-import gnu.trove.TIntObjectHashMap;
 import org.dartlang.vm.service.VmService;
 import org.dartlang.vm.service.element.*;
 import org.dartlang.vm.service.logging.Logging;
@@ -80,8 +78,15 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
   private String myLatestCurrentIsolateId;
 
   private final Map<String, LightVirtualFile> myScriptIdToContentMap = new THashMap<>();
-  private final Map<String, TIntObjectHashMap<Pair<Integer, Integer>>> myScriptIdToLinesAndColumnsMap =
-    new THashMap<>();
+  // LRU cache guarded by itself; an evicted table is requested from the VM again when needed
+  private final Map<String, TokenPosTable> myScriptIdToTokenPosTable = new LinkedHashMap<String, TokenPosTable>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(final Map.Entry<String, TokenPosTable> eldest) {
+      return size() > Registry.intValue("dart.debugger.token.pos.tables.cache.size", 100);
+    }
+  };
+  private int myTokenPosTableHits;
+  private int myTokenPosTableMisses;
 
   @Nullable private final String myDASExecutionContextId;
   @NotNull private final DebugType myDebugType;
@@ -462,6 +467,13 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
   public void stop() {
     myVmConnected = false;
 
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(getTokenPosTableStatistics());
+      if (myVmServiceWrapper != null) {
+        LOG.debug(myVmServiceWrapper.getPauseStatistics());
+      }
+    }
+
     if (myVmServiceWrapper != null) {
       if (myDASExecutionContextId != null) {
         DartAnalysisServerService.getInstance(getSession().getProject()).execution_deleteContext(myDASExecutionContextId);
@@ -662,12 +674,10 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
       file = myScriptIdToContentMap.get(scriptRef.getId());
     }
 
-    TIntObjectHashMap<Pair<Integer, Integer>> tokenPosToLineAndColumn = myScriptIdToLinesAndColumnsMap.get(scriptRef.getId());
+    TokenPosTable tokenPosTable = getCachedTokenPosTable(scriptRef.getId());
 
-    if (file != null && tokenPosToLineAndColumn != null) {
-      final Pair<Integer, Integer> lineAndColumn = tokenPosToLineAndColumn.get(tokenPos);
-      if (lineAndColumn == null) return XDebuggerUtil.getInstance().createPositionByOffset(file, 0);
-      return XDebuggerUtil.getInstance().createPosition(file, lineAndColumn.first, lineAndColumn.second);
+    if (file != null && tokenPosTable != null) {
+      return createPosition(file, tokenPosTable, tokenPos);
     }
 
     final Script script = myVmServiceWrapper.getScriptSync(isolateId, scriptRef.getId());
@@ -682,42 +692,65 @@ public class DartVmServiceDebugProcess extends XDebugProcess {
       myScriptIdToContentMap.put(scriptRef.getId(), (LightVirtualFile)file);
     }
 
-    if (tokenPosToLineAndColumn == null) {
+    if (tokenPosTable == null) {
       List<List<Integer>> table = script.getTokenPosTable();
       if (table != null) {
-        tokenPosToLineAndColumn = createTokenPosToLineAndColumnMap(table);
-        myScriptIdToLinesAndColumnsMap.put(scriptRef.getId(), tokenPosToLineAndColumn);
+        tokenPosTable = TokenPosTable.create(table);
+        synchronized (myScriptIdToTokenPosTable) {
+          myScriptIdToTokenPosTable.put(scriptRef.getId(), tokenPosTable);
+        }
       }
     }
 
-    final Pair<Integer, Integer> lineAndColumn = tokenPosToLineAndColumn != null ? tokenPosToLineAndColumn.get(tokenPos) : null;
-    if (lineAndColumn == null) return XDebuggerUtil.getInstance().createPositionByOffset(file, 0);
+    if (tokenPosTable == null) return XDebuggerUtil.getInstance().createPositionByOffset(file, 0);
 
-    return XDebuggerUtil.getInstance().createPosition(file, lineAndColumn.first, lineAndColumn.second);
+    return createPosition(file, tokenPosTable, tokenPos);
   }
 
-  private static boolean isDartPatchUri(@NotNull final String uri) {
-    // dart:_builtin or dart:core-patch/core_patch.dart
-    return uri.startsWith("dart:_") || uri.startsWith("dart:") && uri.contains("-patch/");
+  @Nullable
+  private static XSourcePosition createPosition(@NotNull final VirtualFile file,
+                                                @NotNull final TokenPosTable tokenPosTable,
+                                                final int tokenPos) {
+    final long lineAndColumn = tokenPosTable.getLineAndColumn(tokenPos);
+    if (lineAndColumn == TokenPosTable.NOT_FOUND) return XDebuggerUtil.getInstance().createPositionByOffset(file, 0);
+
+    return XDebuggerUtil.getInstance().createPosition(file, TokenPosTable.getLine(lineAndColumn), TokenPosTable.getColumn(lineAndColumn));
   }
 
-  @NotNull
-  private static TIntObjectHashMap<Pair<Integer, Integer>> createTokenPosToLineAndColumnMap(@NotNull final List<List<Integer>> tokenPosTable) {
-    // Each subarray consists of a line number followed by (tokenPos, columnNumber) pairs
-    // see https://github.com/dart-lang/vm_service_drivers/blob/master/dart/tool/service.md#script
-    final TIntObjectHashMap<Pair<Integer, Integer>> result = new TIntObjectHashMap<>();
-
-    for (List<Integer> lineAndPairs : tokenPosTable) {
-      final Iterator<Integer> iterator = lineAndPairs.iterator();
-      int line = Math.max(0, iterator.next() - 1);
-      while (iterator.hasNext()) {
-        final int tokenPos = iterator.next();
-        final int column = Math.max(0, iterator.next() - 1);
-        result.put(tokenPos, Pair.create(line, column));
+  @Nullable
+  private TokenPosTable getCachedTokenPosTable(@NotNull final String scriptId) {
+    synchronized (myScriptIdToTokenPosTable) {
+      final TokenPosTable table = myScriptIdToTokenPosTable.get(scriptId);
+      if (table != null) {
+        myTokenPosTableHits++;
+      }
+      else {
+        myTokenPosTableMisses++;
       }
+      return table;
     }
+  }
 
-    return result;
+  boolean isTokenPosTableCached(@NotNull final String scriptId) {
+    synchronized (myScriptIdToTokenPosTable) {
+      return myScriptIdToTokenPosTable.containsKey(scriptId);
+    }
+  }
+
+  /**
+   * @return human-readable hit/miss counts of the token position tables cache
+   */
+  @NotNull
+  public String getTokenPosTableStatistics() {
+    synchronized (myScriptIdToTokenPosTable) {
+      return "Token position tables: " + myScriptIdToTokenPosTable.size() + " cached, hits: " + myTokenPosTableHits +
+             ", misses: " + myTokenPosTableMisses;
+    }
+  }
+
+  private static boolean isDartPatchUri(@NotNull final String uri) {
+    // dart:_builtin or dart:core-patch/core_patch.dart
+    return uri.startsWith("dart:_") || uri.startsWith("dart:") && uri.contains("-patch/");
   }
 
   @Nullable
@@ -65,6 +65,7 @@ public class DartVmServiceListener implements VmServiceListener {
         myDebugProcess.isolateExit(Objects.requireNonNull(event.getIsolate()));
         break;
       case IsolateReload:
+        myDebugProcess.getVmServiceWrapper().isolateReloaded(Objects.requireNonNull(event.getIsolate()).getId());
         break;
       case IsolateRunnable:
         break;
@@ -80,6 +81,7 @@ public class DartVmServiceListener implements VmServiceListener {
       case PauseException:
       case PauseInterrupted:
         myDebugProcess.isolateSuspended(Objects.requireNonNull(event.getIsolate()));
+        myDebugProcess.getVmServiceWrapper().isolatePaused(event.getIsolate().getId());
 
         ApplicationManager.getApplication().executeOnPooledThread(() -> {
           final ElementList<Breakpoint> breakpoints = event.getKind() == EventKind.PauseBreakpoint ? event.getPauseBreakpoints() : null;
@@ -142,6 +144,7 @@ public class DartVmServiceListener implements VmServiceListener {
       new DartVmServiceSuspendContext(myDebugProcess, isolateRef, vmTopFrame, exception, atAsyncSuspension);
     final XStackFrame xTopFrame = suspendContext.getActiveExecutionStack().getTopFrame();
     final XSourcePosition sourcePosition = xTopFrame == null ? null : xTopFrame.getSourcePosition();
+    myDebugProcess.getVmServiceWrapper().topFrameComputed(isolateRef.getId());
 
     if (vmBreakpoints == null || vmBreakpoints.isEmpty()) {
       final StepOption latestStep = myDebugProcess.getVmServiceWrapper().getLatestStep();
@@ -1,15 +1,20 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.jetbrains.lang.dart.ide.runner.server.vmService;
 
+import com.intellij.openapi.util.registry.Registry;
 import gnu.trove.THashMap;
+import org.dartlang.vm.service.element.ClassObj;
 import org.dartlang.vm.service.element.Isolate;
 import org.dartlang.vm.service.element.IsolateRef;
+import org.dartlang.vm.service.element.Script;
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class IsolatesInfo {
@@ -20,6 +25,16 @@ public class IsolatesInfo {
     private boolean breakpointsSet = false;
     private boolean shouldInitialResume = false;
     private CompletableFuture<Isolate> myCachedIsolate;
+    // Scripts and classes don't change until the isolate is reloaded. Scripts include sources, so they are kept only until they are
+    // consumed, and only recently requested ones are kept if they are not.
+    private final Map<String, CompletableFuture<Script>> myCachedScripts =
+      new LinkedHashMap<String, CompletableFuture<Script>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, CompletableFuture<Script>> eldest) {
+          return size() > Registry.intValue("dart.debugger.cached.scripts", 50);
+        }
+      };
+    private final Map<String, CompletableFuture<ClassObj>> myCachedClasses = new THashMap<>();
 
     private IsolateInfo(@NotNull final String isolateId, @NotNull final String isolateName) {
       myIsolateId = isolateId;
@@ -114,6 +129,77 @@ public class IsolatesInfo {
     return cachedIsolate;
   }
 
+  /**
+   * Scripts and classes are cached for the whole session, but they change when the isolate is reloaded.
+   */
+  public synchronized void invalidateScriptsAndClasses(@NotNull final String isolateId) {
+    IsolateInfo info = myIsolateIdToInfoMap.get(isolateId);
+    if (info != null) {
+      info.myCachedScripts.clear();
+      info.myCachedClasses.clear();
+    }
+  }
+
+  @NotNull
+  public CompletableFuture<Script> getCachedScript(@NotNull final String isolateId,
+                                                   @NotNull final String scriptId,
+                                                   @NotNull final Supplier<? extends CompletableFuture<Script>> scriptSupplier) {
+    return getCachedObject(isolateId, scriptId, info -> info.myCachedScripts, scriptSupplier);
+  }
+
+  /**
+   * Called when the script is not needed anymore: the debug process keeps its token position table and, if needed, its source.
+   */
+  public synchronized void removeCachedScript(@NotNull final String isolateId, @NotNull final String scriptId) {
+    IsolateInfo info = myIsolateIdToInfoMap.get(isolateId);
+    if (info != null) {
+      info.myCachedScripts.remove(scriptId);
+    }
+  }
+
+  @NotNull
+  public CompletableFuture<ClassObj> getCachedClass(@NotNull final String isolateId,
+                                                    @NotNull final String classId,
+                                                    @NotNull final Supplier<? extends CompletableFuture<ClassObj>> classSupplier) {
+    return getCachedObject(isolateId, classId, info -> info.myCachedClasses, classSupplier);
+  }
+
+  @NotNull
+  private <T> CompletableFuture<T> getCachedObject(@NotNull final String isolateId,
+                                                   @NotNull final String objectId,
+                                                   @NotNull final Function<IsolateInfo, Map<String, CompletableFuture<T>>> cacheGetter,
+                                                   @NotNull final Supplier<? extends CompletableFuture<T>> objectSupplier) {
+    final CompletableFuture<T> future;
+    synchronized (this) {
+      IsolateInfo info = myIsolateIdToInfoMap.get(isolateId);
+      if (info == null) {
+        return objectSupplier.get();
+      }
+
+      final Map<String, CompletableFuture<T>> cache = cacheGetter.apply(info);
+      final CompletableFuture<T> cached = cache.get(objectId);
+      if (cached != null) {
+        return cached;
+      }
+
+      future = objectSupplier.get();
+      cache.put(objectId, future);
+    }
+
+    // don't cache failures, next time the object will be requested again
+    future.whenComplete((object, error) -> {
+      if (object == null || error != null) {
+        synchronized (this) {
+          IsolateInfo info = myIsolateIdToInfoMap.get(isolateId);
+          if (info != null) {
+            cacheGetter.apply(info).remove(objectId, future);
+          }
+        }
+      }
+    });
+    return future;
+  }
+
   public synchronized Collection<IsolateInfo> getIsolateInfos() {
     return new ArrayList<>(myIsolateIdToInfoMap.values());
   }
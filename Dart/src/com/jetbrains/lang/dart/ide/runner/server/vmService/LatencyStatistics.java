@@ -0,0 +1,36 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time between pause events and the moments when a part of the paused state is shown.
+ */
+final class LatencyStatistics {
+  @NotNull private final String myName;
+  private final AtomicLong myCount = new AtomicLong();
+  private final AtomicLong myTotalNanos = new AtomicLong();
+  private final AtomicLong myMaxNanos = new AtomicLong();
+
+  LatencyStatistics(@NotNull final String name) {
+    myName = name;
+  }
+
+  void record(final long nanos) {
+    myCount.incrementAndGet();
+    myTotalNanos.addAndGet(nanos);
+    myMaxNanos.accumulateAndGet(nanos, Math::max);
+    VmServiceWrapper.LOG.debug(myName + " shown in " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms after pause");
+  }
+
+  @Override
+  public String toString() {
+    final long count = myCount.get();
+    if (count == 0) return myName + ": no pauses";
+    return myName + ": " + count + " pauses, average " + TimeUnit.NANOSECONDS.toMillis(myTotalNanos.get() / count) + " ms, max " +
+           TimeUnit.NANOSECONDS.toMillis(myMaxNanos.get()) + " ms";
+  }
+}
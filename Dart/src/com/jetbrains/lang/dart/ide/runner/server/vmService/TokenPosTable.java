@@ -0,0 +1,108 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact form of the script's {@code tokenPosTable}: token positions sorted in ascending order and the corresponding 0-based
+ * line and column packed into a single {@code long}.
+ */
+final class TokenPosTable {
+  static final long NOT_FOUND = -1;
+
+  private final int @NotNull [] myTokenPositions;
+  private final long @NotNull [] myLinesAndColumns;
+
+  private TokenPosTable(final int @NotNull [] tokenPositions, final long @NotNull [] linesAndColumns) {
+    myTokenPositions = tokenPositions;
+    myLinesAndColumns = linesAndColumns;
+  }
+
+  /**
+   * @param tokenPosTable each subarray consists of a line number followed by (tokenPos, columnNumber) pairs,
+   *                      see https://github.com/dart-lang/vm_service_drivers/blob/master/dart/tool/service.md#script
+   */
+  @NotNull
+  static TokenPosTable create(@NotNull final List<List<Integer>> tokenPosTable) {
+    int size = 0;
+    for (List<Integer> lineAndPairs : tokenPosTable) {
+      size += lineAndPairs.size() / 2;
+    }
+
+    int[] tokenPositions = new int[size];
+    long[] linesAndColumns = new long[size];
+    int count = 0;
+    boolean sorted = true;
+
+    for (List<Integer> lineAndPairs : tokenPosTable) {
+      if (lineAndPairs.isEmpty()) continue;
+
+      final int line = Math.max(0, lineAndPairs.get(0) - 1);
+      for (int i = 1; i + 1 < lineAndPairs.size(); i += 2) {
+        final int tokenPos = lineAndPairs.get(i);
+        final int column = Math.max(0, lineAndPairs.get(i + 1) - 1);
+        if (count > 0 && tokenPos <= tokenPositions[count - 1]) {
+          sorted = false;
+        }
+        tokenPositions[count] = tokenPos;
+        linesAndColumns[count] = pack(line, column);
+        count++;
+      }
+    }
+
+    if (!sorted) {
+      // the VM emits the table ordered by lines, token positions are normally ascending as well, but don't rely on that
+      final long[] pairs = new long[count];
+      for (int i = 0; i < count; i++) {
+        pairs[i] = ((long)tokenPositions[i] << 32) | i;
+      }
+      Arrays.sort(pairs);
+
+      final int[] sortedTokenPositions = new int[count];
+      final long[] sortedLinesAndColumns = new long[count];
+      int sortedCount = 0;
+      for (long pair : pairs) {
+        final int tokenPos = (int)(pair >> 32);
+        final int index = (int)pair;
+        if (sortedCount > 0 && sortedTokenPositions[sortedCount - 1] == tokenPos) {
+          // the last occurrence wins, as it used to be with a map
+          sortedLinesAndColumns[sortedCount - 1] = linesAndColumns[index];
+          continue;
+        }
+        sortedTokenPositions[sortedCount] = tokenPos;
+        sortedLinesAndColumns[sortedCount] = linesAndColumns[index];
+        sortedCount++;
+      }
+
+      tokenPositions = sortedTokenPositions;
+      linesAndColumns = sortedLinesAndColumns;
+      count = sortedCount;
+    }
+
+    return new TokenPosTable(count == tokenPositions.length ? tokenPositions : Arrays.copyOf(tokenPositions, count),
+                             count == linesAndColumns.length ? linesAndColumns : Arrays.copyOf(linesAndColumns, count));
+  }
+
+  /**
+   * @return packed line and column, use {@link #getLine(long)} and {@link #getColumn(long)}; or {@link #NOT_FOUND}
+   */
+  long getLineAndColumn(final int tokenPos) {
+    final int index = Arrays.binarySearch(myTokenPositions, tokenPos);
+    return index >= 0 ? myLinesAndColumns[index] : NOT_FOUND;
+  }
+
+  static int getLine(final long lineAndColumn) {
+    return (int)(lineAndColumn >>> 32);
+  }
+
+  static int getColumn(final long lineAndColumn) {
+    return (int)lineAndColumn;
+  }
+
+  private static long pack(final int line, final int column) {
+    return ((long)line << 32) | (column & 0xFFFFFFFFL);
+  }
+}
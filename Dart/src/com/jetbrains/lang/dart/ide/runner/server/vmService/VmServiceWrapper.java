@@ -6,9 +6,9 @@ import com.intellij.execution.ui.ConsoleViewContentType;
 import com.intellij.openapi.Disposable;
 import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
-import com.intellij.openapi.util.Ref;
+import com.intellij.openapi.util.registry.Registry;
 import com.intellij.util.Alarm;
-import com.intellij.util.concurrency.Semaphore;
+import com.intellij.util.containers.ContainerUtil;
 import com.intellij.xdebugger.XSourcePosition;
 import com.intellij.xdebugger.breakpoints.XBreakpointProperties;
 import com.intellij.xdebugger.breakpoints.XLineBreakpoint;
@@ -30,6 +30,9 @@ import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public class VmServiceWrapper implements Disposable {
@@ -48,6 +51,11 @@ public class VmServiceWrapper implements Disposable {
 
   @Nullable private StepOption myLatestStep;
 
+  // isolateId -> System.nanoTime() when the pause event was received
+  private final Map<String, Long> myIsolateIdToPauseStartNanos = ContainerUtil.newConcurrentMap();
+  private final LatencyStatistics myTopFrameLatency = new LatencyStatistics("top frame");
+  private final LatencyStatistics myStackLatency = new LatencyStatistics("stack frames");
+
   public VmServiceWrapper(@NotNull final DartVmServiceDebugProcess debugProcess,
                           @NotNull final VmService vmService,
                           @NotNull final DartVmServiceListener vmServiceListener,
@@ -183,6 +191,107 @@ public class VmServiceWrapper implements Disposable {
     });
   }
 
+  /**
+   * Scripts are cached in {@link IsolatesInfo} until the isolate is reloaded.
+   */
+  @NotNull
+  public CompletableFuture<Script> getCachedScript(@NotNull final String isolateId, @NotNull final String scriptId) {
+    return myIsolatesInfo.getCachedScript(isolateId, scriptId, () -> getObjectFuture(isolateId, scriptId, Script.class));
+  }
+
+  /**
+   * Classes are cached in {@link IsolatesInfo} until the isolate is reloaded.
+   */
+  @NotNull
+  public CompletableFuture<ClassObj> getCachedClass(@NotNull final String isolateId, @NotNull final String classId) {
+    return myIsolatesInfo.getCachedClass(isolateId, classId, () -> getObjectFuture(isolateId, classId, ClassObj.class));
+  }
+
+  /**
+   * @return future that is completed with {@code null} if the object can't be received in time or has unexpected type
+   */
+  @NotNull
+  private <T extends Obj> CompletableFuture<T> getObjectFuture(@NotNull final String isolateId,
+                                                               @NotNull final String objectId,
+                                                               @NotNull final Class<T> objectClass) {
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    getObject(isolateId, objectId, new GetObjectConsumer() {
+      @Override
+      public void received(Obj response) {
+        future.complete(objectClass.isInstance(response) ? objectClass.cast(response) : null);
+      }
+
+      @Override
+      public void received(Sentinel response) {
+        future.complete(null);
+      }
+
+      @Override
+      public void onError(RPCError error) {
+        future.complete(null);
+      }
+    });
+    // the cached future would wait for a lost response forever
+    return future.completeOnTimeout(null, RESPONSE_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+  }
+
+  void isolateReloaded(@NotNull final String isolateId) {
+    myIsolatesInfo.invalidateScriptsAndClasses(isolateId);
+  }
+
+  void isolatePaused(@NotNull final String isolateId) {
+    myIsolateIdToPauseStartNanos.put(isolateId, System.nanoTime());
+  }
+
+  void topFrameComputed(@NotNull final String isolateId) {
+    final Long startNanos = myIsolateIdToPauseStartNanos.get(isolateId);
+    if (startNanos != null) {
+      myTopFrameLatency.record(System.nanoTime() - startNanos);
+    }
+  }
+
+  private void stackFramesComputed(@NotNull final String isolateId) {
+    final Long startNanos = myIsolateIdToPauseStartNanos.remove(isolateId);
+    if (startNanos != null) {
+      myStackLatency.record(System.nanoTime() - startNanos);
+    }
+  }
+
+  /**
+   * @return human-readable time spent between pause events and the moments when the paused state was shown
+   */
+  @NotNull
+  public String getPauseStatistics() {
+    return "Pause latency: " + myTopFrameLatency + "; " + myStackLatency;
+  }
+
+  /**
+   * Requests scripts and classes of 'this' objects for the top frames concurrently, so that they are ready when the frames and their
+   * variables are rendered.
+   * Locals are not prefetched: their references come with the stack, and the presentation of all but primitive values and strings
+   * calls toString() in the paused isolate. That runs user code, so it is done only for the variables that are actually shown.
+   */
+  private void prefetchFrames(@NotNull final String isolateId, @NotNull final List<Frame> vmFrames) {
+    final int framesToPrefetch = Math.min(vmFrames.size(), Registry.intValue("dart.debugger.prefetch.frames", 20));
+    for (int i = 0; i < framesToPrefetch; i++) {
+      final Frame vmFrame = vmFrames.get(i);
+      final SourceLocation location = vmFrame.getLocation();
+      if (location != null && !myDebugProcess.isTokenPosTableCached(location.getScript().getId())) {
+        getCachedScript(isolateId, location.getScript().getId());
+      }
+
+      final ElementList<BoundVariable> vars = vmFrame.getVars();
+      if (vars == null) continue;
+
+      for (BoundVariable var : vars) {
+        if ("this".equals(var.getName()) && var.getValue() instanceof InstanceRef) {
+          getCachedClass(isolateId, ((InstanceRef)var.getValue()).getClassRef().getId());
+          break;
+        }
+      }
+    }
+  }
+
   private void getIsolate(@NotNull final String isolateId, @NotNull final GetIsolateConsumer consumer) {
     addRequest(() -> myVmService.getIsolate(isolateId, consumer));
   }
@@ -415,6 +524,7 @@ public class VmServiceWrapper implements Disposable {
 
           final List<Frame> vmFrames = Lists.newArrayList(elementList);
           final List<XStackFrame> xStackFrames = new ArrayList<>(vmFrames.size());
+          prefetchFrames(isolateId, vmFrames);
 
           for (final Frame vmFrame : vmFrames) {
             if (vmFrame.getKind() == FrameKind.AsyncSuspensionMarker) {
@@ -435,6 +545,7 @@ public class VmServiceWrapper implements Disposable {
             }
           }
           container.addStackFrames(firstFrameIndex == 0 ? xStackFrames : xStackFrames.subList(firstFrameIndex, xStackFrames.size()), true);
+          stackFramesComputed(isolateId);
         });
       }
 
@@ -449,31 +560,16 @@ public class VmServiceWrapper implements Disposable {
   public Script getScriptSync(@NotNull final String isolateId, @NotNull final String scriptId) {
     assertSyncRequestAllowed();
 
-    final Semaphore semaphore = new Semaphore();
-    semaphore.down();
-
-    final Ref<Script> resultRef = Ref.create();
-
-    addRequest(() -> myVmService.getObject(isolateId, scriptId, new GetObjectConsumer() {
-      @Override
-      public void received(Obj script) {
-        resultRef.set((Script)script);
-        semaphore.up();
-      }
-
-      @Override
-      public void received(Sentinel response) {
-        semaphore.up();
-      }
-
-      @Override
-      public void onError(RPCError error) {
-        semaphore.up();
-      }
-    }));
-
-    semaphore.waitFor(RESPONSE_WAIT_TIMEOUT);
-    return resultRef.get();
+    try {
+      // the script may be already requested by prefetchFrames()
+      return getCachedScript(isolateId, scriptId).get(RESPONSE_WAIT_TIMEOUT, TimeUnit.MILLISECONDS);
+    }
+    catch (InterruptedException | ExecutionException | TimeoutException e) {
+      return null;
+    }
+    finally {
+      myIsolatesInfo.removeCachedScript(isolateId, scriptId);
+    }
   }
 
   public void getObject(@NotNull final String isolateId, @NotNull final String objectId, @NotNull final GetObjectConsumer consumer) {
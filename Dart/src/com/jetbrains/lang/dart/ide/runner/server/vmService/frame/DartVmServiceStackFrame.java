@@ -13,7 +13,6 @@ import com.intellij.xdebugger.frame.XCompositeNode;
 import com.intellij.xdebugger.frame.XStackFrame;
 import com.intellij.xdebugger.frame.XValueChildrenList;
 import com.jetbrains.lang.dart.ide.runner.server.vmService.DartVmServiceDebugProcess;
-import org.dartlang.vm.service.consumer.GetObjectConsumer;
 import org.dartlang.vm.service.element.*;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -142,11 +141,11 @@ public class DartVmServiceStackFrame extends XStackFrame {
     }
 
     final ClassRef classRef = ((InstanceRef)thisVarValue).getClassRef();
-    myDebugProcess.getVmServiceWrapper().getObject(myIsolateId, classRef.getId(), new GetObjectConsumer() {
-      @Override
-      public void received(Obj classObj) {
+    // usually already requested when the stack frames were computed
+    myDebugProcess.getVmServiceWrapper().getCachedClass(myIsolateId, classRef.getId()).thenAccept(classObj -> {
+      if (classObj != null) {
         final SmartList<FieldRef> staticFields = new SmartList<>();
-        for (FieldRef fieldRef : ((ClassObj)classObj).getFields()) {
+        for (FieldRef fieldRef : classObj.getFields()) {
           if (fieldRef.isStatic()) {
             staticFields.add(fieldRef);
           }
@@ -154,22 +153,12 @@ public class DartVmServiceStackFrame extends XStackFrame {
 
         if (!staticFields.isEmpty()) {
           final XValueChildrenList list = new XValueChildrenList();
-          list.addTopGroup(new DartStaticFieldsGroup(myDebugProcess, myIsolateId, ((ClassObj)classObj).getName(), staticFields));
+          list.addTopGroup(new DartStaticFieldsGroup(myDebugProcess, myIsolateId, classObj.getName(), staticFields));
           node.addChildren(list, false);
         }
-
-        addVars(node, vars);
-      }
-
-      @Override
-      public void received(Sentinel sentinel) {
-        addVars(node, vars);
       }
 
-      @Override
-      public void onError(RPCError error) {
-        addVars(node, vars);
-      }
+      addVars(node, vars);
     });
   }
 
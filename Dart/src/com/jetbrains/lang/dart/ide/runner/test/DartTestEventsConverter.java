@@ -2,6 +2,8 @@
 package com.jetbrains.lang.dart.ide.runner.test;
 
 import com.google.gson.*;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.intellij.execution.testframework.TestConsoleProperties;
 import com.intellij.execution.testframework.sm.ServiceMessageBuilder;
 import com.intellij.execution.testframework.sm.runner.OutputToGeneralTestEventsConverter;
@@ -17,12 +19,10 @@ import jetbrains.buildServer.messages.serviceMessages.ServiceMessageVisitor;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
+import java.io.StringReader;
 import java.text.ParseException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -71,6 +71,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
   private static final String JSON_LINE = "line";
   private static final String JSON_COLUMN = "column";
   private static final String JSON_URL = "url";
+  private static final String JSON_SKIP = "skip";
+  private static final String JSON_SKIP_REASON = "skipReason";
 
   private static final String RESULT_SUCCESS = "success";
   private static final String RESULT_FAILURE = "failure";
@@ -86,15 +88,22 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
 
   private static final Gson GSON = new Gson();
 
+  // Finished tests are released, but an 'error' or 'print' event may still come for a test after its 'testDone' event
+  private static final int RECENTLY_FINISHED_TESTS_LIMIT = 1000;
+
   @NotNull private final DartUrlResolver myUrlResolver;
 
   private String myLocation;
   private Key myCurrentOutputType;
   private ServiceMessageVisitor myCurrentVisitor;
   private final TIntLongHashMap myTestIdToTimestamp;
+  // finished tests are removed, so that the memory doesn't grow with the number of tests in the run
   private final Map<Integer, Test> myTestData;
   private final Map<Integer, Group> myGroupData;
   private final Map<Integer, Suite> mySuiteData;
+  private final Map<Integer, Test> myRecentlyFinishedTests;
+  // reused for every event
+  private final Event myEvent = new Event();
   private int mySuitCount;
 
   public DartTestEventsConverter(@NotNull final String testFrameworkName,
@@ -106,12 +115,20 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     myTestData = new HashMap<>();
     myGroupData = new HashMap<>();
     mySuiteData = new HashMap<>();
+    myRecentlyFinishedTests = new LinkedHashMap<Integer, Test>() {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<Integer, Test> eldest) {
+        return size() > RECENTLY_FINISHED_TESTS_LIMIT;
+      }
+    };
   }
 
   @Override
   protected boolean processServiceMessages(final String text, final Key outputType, final ServiceMessageVisitor visitor)
     throws ParseException {
-    LOG.debug("<<< " + text.trim());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("<<< " + text.trim());
+    }
     myCurrentOutputType = outputType;
     myCurrentVisitor = visitor;
     // service message parser expects line like "##teamcity[ .... ]" without whitespaces in the end.
@@ -119,33 +136,58 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
   }
 
   private boolean processEventText(final String text) throws JsonSyntaxException, ParseException {
-    JsonParser jp = new JsonParser();
-    JsonElement elem;
+    if (!startsWithObject(text)) {
+      // not an event; the lenient parser is kept for such lines to handle them exactly as before
+      try {
+        new JsonParser().parse(text);
+      }
+      catch (JsonSyntaxException ex) {
+        return processNotJsonText(text);
+      }
+      return false;
+    }
+
     try {
-      elem = jp.parse(text);
-    }
-    catch (JsonSyntaxException ex) {
-      if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
-        final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
-        final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
-        testFailed.addAttribute("message", "Please update your pubspec.yaml dependency on package:test to version 0.12.9 or later.");
-        final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished("Failed to start");
-        return finishMessage(testStarted, 1, 0) & finishMessage(testFailed, 1, 0) & finishMessage(testFinished, 1, 0);
+      if (!myEvent.decode(text)) {
+        return processNotJsonText(text);
       }
+    }
+    catch (IOException | IllegalStateException | NumberFormatException e) {
+      return processNotJsonText(text);
+    }
 
-      return doProcessServiceMessages(text);
+    return process(myEvent);
+  }
+
+  private static boolean startsWithObject(@NotNull final String text) {
+    for (int i = 0; i < text.length(); i++) {
+      final char c = text.charAt(i);
+      if (!Character.isWhitespace(c)) return c == '{';
     }
-    if (elem == null || !elem.isJsonObject()) return false;
-    return process(elem.getAsJsonObject());
+    return false;
+  }
+
+  private boolean processNotJsonText(@NotNull final String text) throws ParseException {
+    if (text.contains("\"json\" is not an allowed value for option \"reporter\"")) {
+      final ServiceMessageBuilder testStarted = ServiceMessageBuilder.testStarted("Failed to start");
+      final ServiceMessageBuilder testFailed = ServiceMessageBuilder.testFailed("Failed to start");
+      testFailed.addAttribute("message", "Please update your pubspec.yaml dependency on package:test to version 0.12.9 or later.");
+      final ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished("Failed to start");
+      return finishMessage(testStarted, 1, 0) & finishMessage(testFailed, 1, 0) & finishMessage(testFinished, 1, 0);
+    }
+
+    return doProcessServiceMessages(text);
   }
 
   private boolean doProcessServiceMessages(@NotNull final String text) throws ParseException {
-    LOG.debug(">>> " + text);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(">>> " + text);
+    }
     return super.processServiceMessages(text, myCurrentOutputType, myCurrentVisitor);
   }
 
-  private boolean process(JsonObject obj) throws JsonSyntaxException, ParseException {
-    String type = obj.get(JSON_TYPE).getAsString();
+  private boolean process(Event obj) throws ParseException {
+    String type = obj.myType;
     if (TYPE_TEST_START.equals(type)) {
       return handleTestStart(obj);
     }
@@ -178,10 +220,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     }
   }
 
-  private boolean handleTestStart(JsonObject obj) throws ParseException {
-    final JsonObject testObj = obj.getAsJsonObject(DEF_TEST);
-
-    // Not reached if testObj == null.
+  private boolean handleTestStart(Event obj) throws ParseException {
+    // Not reached if there's no test object in the event.
     final Test test = getTest(obj);
     myTestIdToTimestamp.put(test.getId(), getTimestamp(obj));
 
@@ -209,10 +249,9 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     addLocationHint(testStarted, test);
     boolean result = finishMessage(testStarted, test.getId(), test.getValidParentId());
 
-    final Metadata metadata = Metadata.from(testObj.getAsJsonObject(DEF_METADATA));
-    if (metadata.skip) {
+    if (obj.myTest.mySkip) {
       final ServiceMessageBuilder message = ServiceMessageBuilder.testIgnored(test.getBaseName());
-      if (metadata.skipReason != null) message.addAttribute("message", metadata.skipReason);
+      if (obj.myTest.mySkipReason != null) message.addAttribute("message", obj.myTest.mySkipReason);
       result &= finishMessage(message, test.getId(), test.getValidParentId());
     }
 
@@ -231,14 +270,16 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
            group != null && group.getDoneTestsCount() > 0 && test.getBaseName().equals(TEAR_DOWN_ALL_VIRTUAL_TEST_NAME);
   }
 
-  private boolean handleTestDone(JsonObject obj) throws ParseException {
+  private boolean handleTestDone(Event obj) throws ParseException {
     final Test test = getTest(obj);
+    final long startTimestamp = myTestIdToTimestamp.remove(test.getId());
+    releaseTest(test);
 
     if (!test.myTestStartReported) return true;
 
     String result = getResult(obj);
     if (!result.equals(RESULT_SUCCESS) && !result.equals(RESULT_FAILURE) && !result.equals(RESULT_ERROR)) {
-      throw new ParseException("Unknown result: " + obj, 0);
+      throw new ParseException("Unknown result: " + result, 0);
     }
 
     test.testDone();
@@ -246,7 +287,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     //if (test.getMetadata().skip) return true; // skipped tests are reported as ignored in handleTestStart(). testFinished signal must follow
 
     ServiceMessageBuilder testFinished = ServiceMessageBuilder.testFinished(test.getBaseName());
-    long duration = getTimestamp(obj) - myTestIdToTimestamp.get(test.getId());
+    long duration = getTimestamp(obj) - startTimestamp;
     testFinished.addAttribute("duration", Long.toString(duration));
 
     return finishMessage(testFinished, test.getId(), test.getValidParentId()) && checkGroupDone(test.getParent());
@@ -259,8 +300,8 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return true;
   }
 
-  private boolean handleGroup(JsonObject obj) throws ParseException {
-    Group group = getGroup(obj.getAsJsonObject(DEF_GROUP));
+  private boolean handleGroup(Event obj) throws ParseException {
+    Group group = getGroup(obj);
 
     // From spec: The implicit group at the root of each test suite has null name and parentID attributes.
     if (group.getParent() == null && group.getTestCount() > 0) {
@@ -278,15 +319,15 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return finishMessage(groupMsg, group.getId(), group.getValidParentId());
   }
 
-  private boolean handleSuite(JsonObject obj) throws ParseException {
-    Suite suite = getSuite(obj.getAsJsonObject(DEF_SUITE));
+  private boolean handleSuite(Event obj) throws ParseException {
+    Suite suite = getSuite(obj);
     if (!suite.hasPath()) {
       mySuiteData.remove(suite.getId());
     }
     return true;
   }
 
-  private boolean handleError(JsonObject obj) throws ParseException {
+  private boolean handleError(Event obj) throws ParseException {
     final Test test = getTest(obj);
     final String message = getErrorMessage(obj);
     boolean result = true;
@@ -324,7 +365,7 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
         }
       }
 
-      if (!getBoolean(obj, JSON_IS_FAILURE)) testError.addAttribute("error", "true");
+      if (!getIsFailure(obj)) testError.addAttribute("error", "true");
       testError.addAttribute("message", appendLineBreakIfNeeded(failureMessage));
 
       result &= finishMessage(testError, test.getId(), test.getValidParentId());
@@ -345,14 +386,13 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return message.endsWith("\n") ? message : message + "\n";
   }
 
-  private boolean handleAllSuites(JsonObject obj) {
-    JsonElement elem = obj.get(JSON_COUNT);
-    if (elem == null || !elem.isJsonPrimitive()) return true;
-    mySuitCount = elem.getAsInt();
+  private boolean handleAllSuites(Event obj) {
+    if (obj.myCount < 0) return true;
+    mySuitCount = obj.myCount;
     return true;
   }
 
-  private boolean handlePrint(JsonObject obj) throws ParseException {
+  private boolean handlePrint(Event obj) throws ParseException {
     final Test test = getTest(obj);
     boolean result = true;
 
@@ -372,17 +412,18 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     return result & finishMessage(message, test.getId(), test.getValidParentId());
   }
 
-  private boolean handleStart(JsonObject obj) throws ParseException {
+  private boolean handleStart(Event obj) throws ParseException {
     myTestIdToTimestamp.clear();
     myTestData.clear();
     myGroupData.clear();
     mySuiteData.clear();
+    myRecentlyFinishedTests.clear();
     mySuitCount = 0;
 
     return doProcessServiceMessages(ServiceMessageBuilder.testsStarted().toString());
   }
 
-  private boolean handleDone(JsonObject obj) throws ParseException {
+  private boolean handleDone(Event obj) throws ParseException {
     // The test runner has reached the end of the tests.
     processAllTestsDone();
     return true;
@@ -408,9 +449,16 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     myTestData.clear();
     myGroupData.clear();
     mySuiteData.clear();
+    myRecentlyFinishedTests.clear();
     mySuitCount = 0;
   }
 
+  private void releaseTest(@NotNull final Test test) {
+    if (myTestData.remove(test.getId(), test)) {
+      myRecentlyFinishedTests.put(test.getId(), test);
+    }
+  }
+
   private boolean processGroupDone(@NotNull final Group group) throws ParseException {
     if (group.isArtificial()) return true;
 
@@ -454,101 +502,336 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     messageBuilder.addAttribute("locationHint", location);
   }
 
-  private static long getTimestamp(JsonObject obj) throws ParseException {
-    return getLong(obj, JSON_MILLIS);
+  private static long getTimestamp(Event obj) throws ParseException {
+    if (!obj.myHasTime) throw new ParseException("Value is not type long: " + JSON_MILLIS, 0);
+    return obj.myTime;
   }
 
-  private static long getLong(JsonObject obj, String name) throws ParseException {
-    JsonElement val = obj == null ? null : obj.get(name);
-    if (val == null || !val.isJsonPrimitive()) throw new ParseException("Value is not type long: " + val, 0);
-    return val.getAsLong();
+  private static boolean getIsFailure(Event obj) throws ParseException {
+    if (obj.myIsFailure == null) throw new ParseException("Value is not type boolean: " + JSON_IS_FAILURE, 0);
+    return obj.myIsFailure;
+  }
+
+  @NotNull
+  private Test getTest(Event obj) throws ParseException {
+    if (obj.myHasTestId) {
+      Test test = myTestData.get(obj.myTestId);
+      if (test == null) test = myRecentlyFinishedTests.get(obj.myTestId);
+      if (test == null) throw new ParseException("Unknown testID: " + obj.myTestId, 0);
+      return test;
+    }
+
+    final ItemData testObj = getItemData(obj.myTest);
+    final Test test = Test.from(testObj, myGroupData, mySuiteData);
+    myTestData.put(testObj.myId, test);
+    return test;
   }
 
-  private static boolean getBoolean(JsonObject obj, String name) throws ParseException {
-    JsonElement val = obj == null ? null : obj.get(name);
-    if (val == null || !val.isJsonPrimitive()) throw new ParseException("Value is not type boolean: " + val, 0);
-    return val.getAsBoolean();
+  @NotNull
+  private Group getGroup(Event obj) throws ParseException {
+    final ItemData groupObj = getItemData(obj.myGroup);
+    final Group group = Group.from(groupObj, myGroupData, mySuiteData);
+    myGroupData.put(groupObj.myId, group);
+    return group;
+  }
+
+  @NotNull
+  private Suite getSuite(Event obj) throws ParseException {
+    final ItemData suiteObj = getItemData(obj.mySuite);
+    final Suite suite = Suite.from(suiteObj);
+    mySuiteData.put(suiteObj.myId, suite);
+    return suite;
   }
 
   @NotNull
-  private Test getTest(JsonObject obj) throws ParseException {
-    return getItem(obj, myTestData);
+  private static ItemData getItemData(@NotNull final ItemData itemData) throws ParseException {
+    if (!itemData.myPresent) throw new ParseException("Unexpected null json object", 0);
+    if (!itemData.myHasId) throw new ParseException("No testId in json object", 0);
+    return itemData;
   }
 
   @NotNull
-  private Group getGroup(JsonObject obj) throws ParseException {
-    return getItem(obj, myGroupData);
+  private static String getErrorMessage(Event obj) {
+    return obj.myError != null ? obj.myError : "<no error message>";
   }
 
   @NotNull
-  private Suite getSuite(JsonObject obj) throws ParseException {
-    return getItem(obj, mySuiteData);
+  private static String getMessage(Event obj) {
+    return obj.myMessage != null ? obj.myMessage : "<no message>";
   }
 
   @NotNull
-  private <T extends Item> T getItem(JsonObject obj, Map<Integer, T> items) throws ParseException {
-    if (obj == null) throw new ParseException("Unexpected null json object", 0);
-    T item;
-    JsonElement id = obj.get(JSON_ID);
-    if (id != null) {
-      if (items == myTestData) {
-        @SuppressWarnings("unchecked") T type = (T)Test.from(obj, myGroupData, mySuiteData);
-        item = type;
+  private static String getStackTrace(Event obj) {
+    return obj.myStackTrace != null ? obj.myStackTrace : "<no stack trace>";
+  }
+
+  @NotNull
+  private static String getResult(Event obj) {
+    return obj.myResult != null ? obj.myResult : "<no result>";
+  }
+
+  /**
+   * Fields of a JSON event that the converter needs. Events are decoded by a streaming reader without building a JSON tree; one
+   * instance is reused for all events, so handlers must not keep references to it.
+   */
+  private static final class Event {
+    private String myType;
+    private boolean myHasTime;
+    private long myTime;
+    private boolean myHasTestId;
+    private int myTestId;
+    private String myResult;
+    private String myMessage;
+    private String myError;
+    private String myStackTrace;
+    private Boolean myIsFailure;
+    private int myCount;
+    private final ItemData myTest = new ItemData();
+    private final ItemData myGroup = new ItemData();
+    private final ItemData mySuite = new ItemData();
+
+    /**
+     * @return {@code false} if the text is not a single JSON object
+     */
+    private boolean decode(@NotNull final String text) throws IOException {
+      myType = null;
+      myHasTime = false;
+      myTime = 0;
+      myHasTestId = false;
+      myTestId = -1;
+      myResult = null;
+      myMessage = null;
+      myError = null;
+      myStackTrace = null;
+      myIsFailure = null;
+      myCount = -1;
+      myTest.reset();
+      myGroup.reset();
+      mySuite.reset();
+
+      final JsonReader reader = new JsonReader(new StringReader(text));
+      reader.setLenient(true);
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case JSON_TYPE:
+            myType = readString(reader, null);
+            break;
+          case JSON_MILLIS:
+            myHasTime = isNumberOrString(reader);
+            myTime = readLong(reader, 0);
+            break;
+          case JSON_TEST_ID:
+            myHasTestId = isNumberOrString(reader);
+            myTestId = (int)readLong(reader, -1);
+            break;
+          case JSON_RESULT:
+            myResult = readString(reader, null);
+            break;
+          case JSON_MESSAGE:
+            myMessage = readString(reader, null);
+            break;
+          case JSON_ERROR_MESSAGE:
+            myError = readString(reader, null);
+            break;
+          case JSON_STACK_TRACE:
+            myStackTrace = readString(reader, null);
+            break;
+          case JSON_IS_FAILURE:
+            myIsFailure = readBoolean(reader);
+            break;
+          case JSON_COUNT:
+            myCount = (int)readLong(reader, -1);
+            break;
+          case DEF_TEST:
+            myTest.read(reader);
+            break;
+          case DEF_GROUP:
+            myGroup.read(reader);
+            break;
+          case DEF_SUITE:
+            mySuite.read(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
       }
-      else if (items == myGroupData) {
-        @SuppressWarnings("unchecked") T group = (T)Group.from(obj, myGroupData, mySuiteData);
-        item = group;
+      reader.endObject();
+
+      return reader.peek() == JsonToken.END_DOCUMENT && myType != null;
+    }
+  }
+
+  /**
+   * Reusable holder of the 'test', 'group' or 'suite' object of an event.
+   */
+  private static final class ItemData {
+    private boolean myPresent;
+    private boolean myHasId;
+    private int myId;
+    private String myName;
+    private int mySuiteId;
+    private int myParentId;
+    private int myLastGroupId;
+    private int myTestCount;
+    private int myLine;
+    private int myColumn;
+    private String myUrl;
+    private String myPath;
+    private String myPlatform;
+    private boolean mySkip;
+    private String mySkipReason;
+
+    private void reset() {
+      myPresent = false;
+      myHasId = false;
+      myId = -1;
+      myName = null;
+      mySuiteId = -1;
+      myParentId = -1;
+      myLastGroupId = -1;
+      myTestCount = -1;
+      myLine = -1;
+      myColumn = -1;
+      myUrl = null;
+      myPath = null;
+      myPlatform = null;
+      mySkip = false;
+      mySkipReason = null;
+    }
+
+    private void read(@NotNull final JsonReader reader) throws IOException {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        return;
       }
-      else {
-        @SuppressWarnings("unchecked") T suite = (T)Suite.from(obj);
-        item = suite;
+
+      myPresent = true;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case JSON_ID:
+            myHasId = isNumberOrString(reader);
+            myId = (int)readLong(reader, -1);
+            break;
+          case JSON_NAME:
+            myName = readString(reader, null);
+            break;
+          case JSON_SUITE_ID:
+            mySuiteId = (int)readLong(reader, -1);
+            break;
+          case JSON_PARENT_ID:
+            myParentId = (int)readLong(reader, -1);
+            break;
+          case JSON_GROUP_IDS:
+            myLastGroupId = readLastInt(reader);
+            break;
+          case JSON_TEST_COUNT:
+            myTestCount = (int)readLong(reader, -1);
+            break;
+          case JSON_LINE:
+            myLine = (int)readLong(reader, -1);
+            break;
+          case JSON_COLUMN:
+            myColumn = (int)readLong(reader, -1);
+            break;
+          case JSON_URL:
+            myUrl = readString(reader, null);
+            break;
+          case JSON_PATH:
+            myPath = readString(reader, null);
+            break;
+          case JSON_PLATFORM:
+            myPlatform = readString(reader, null);
+            break;
+          case DEF_METADATA:
+            readMetadata(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
       }
-      items.put(id.getAsInt(), item);
+      reader.endObject();
     }
-    else {
-      JsonElement testId = obj.get(JSON_TEST_ID);
-      if (testId != null) {
-        int baseId = testId.getAsInt();
-        item = items.get(baseId);
+
+    private void readMetadata(@NotNull final JsonReader reader) throws IOException {
+      if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+        reader.skipValue();
+        return;
       }
-      else {
-        JsonElement testObj = obj.get(DEF_TEST);
-        if (testObj != null) {
-          return getItem(testObj.getAsJsonObject(), items);
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        final String name = reader.nextName();
+        if (JSON_SKIP.equals(name)) {
+          mySkip = Boolean.TRUE.equals(readBoolean(reader));
+        }
+        else if (JSON_SKIP_REASON.equals(name)) {
+          mySkipReason = readString(reader, null);
         }
         else {
-          throw new ParseException("No testId in json object", 0);
+          reader.skipValue();
         }
       }
+      reader.endObject();
     }
-    return item;
   }
 
-  @NotNull
-  private static String getErrorMessage(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_ERROR_MESSAGE, "<no error message>");
+  private static String readString(@NotNull final JsonReader reader, final String defaultValue) throws IOException {
+    switch (reader.peek()) {
+      case STRING:
+      case NUMBER:
+        return reader.nextString();
+      case BOOLEAN:
+        return String.valueOf(reader.nextBoolean());
+      default:
+        reader.skipValue();
+        return defaultValue;
+    }
   }
 
-  @NotNull
-  private static String getMessage(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_MESSAGE, "<no message>");
+  private static boolean isNumberOrString(@NotNull final JsonReader reader) throws IOException {
+    final JsonToken token = reader.peek();
+    return token == JsonToken.NUMBER || token == JsonToken.STRING;
   }
 
-  @NotNull
-  private static String getStackTrace(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_STACK_TRACE, "<no stack trace>");
+  private static long readLong(@NotNull final JsonReader reader, final long defaultValue) throws IOException {
+    if (isNumberOrString(reader)) {
+      return reader.nextLong();
+    }
+    reader.skipValue();
+    return defaultValue;
   }
 
-  @NotNull
-  private static String getResult(JsonObject obj) {
-    return nonNullJsonValue(obj, JSON_RESULT, "<no result>");
+  @Nullable
+  private static Boolean readBoolean(@NotNull final JsonReader reader) throws IOException {
+    switch (reader.peek()) {
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case STRING:
+        return Boolean.parseBoolean(reader.nextString());
+      default:
+        reader.skipValue();
+        return null;
+    }
   }
 
-  @NotNull
-  private static String nonNullJsonValue(JsonObject obj, @NotNull String id, @NotNull String def) {
-    JsonElement val = obj == null ? null : obj.get(id);
-    if (val == null || !val.isJsonPrimitive()) return def;
-    return val.getAsString();
+  /**
+   * Only the innermost group is needed from the 'groupIDs' array, so the array itself is not created.
+   */
+  private static int readLastInt(@NotNull final JsonReader reader) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+      reader.skipValue();
+      return -1;
+    }
+
+    int last = -1;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      last = (int)readLong(reader, -1);
+    }
+    reader.endArray();
+    return last;
   }
 
   private static class Item {
@@ -557,43 +840,23 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     private final String myName;
     private final Group myParent;
     private final Suite mySuite;
-    private final Metadata myMetadata;
     private final int myLine;
     private final int myColumn;
     private final String myUrl;
 
-    static int extractInt(JsonObject obj, String memberName) {
-      JsonElement elem = obj.get(memberName);
-      if (elem == null || !elem.isJsonPrimitive()) return -1;
-      return elem.getAsInt();
+    static String nameOrDefault(ItemData obj) {
+      return obj.myName != null ? obj.myName : NO_NAME;
     }
 
-    static String extractString(JsonObject obj, String memberName, String defaultResult) {
-      JsonElement elem = obj.get(memberName);
-      if (elem == null || elem.isJsonNull()) return defaultResult;
-      return elem.getAsString();
-    }
-
-    static Metadata extractMetadata(JsonObject obj) {
-      return Metadata.from(obj.get(DEF_METADATA));
-    }
-
-    static Suite lookupSuite(JsonObject obj, Map<Integer, Suite> suites) {
-      JsonElement suiteObj = obj.get(JSON_SUITE_ID);
-      Suite suite = null;
-      if (suiteObj != null && suiteObj.isJsonPrimitive()) {
-        int parentId = suiteObj.getAsInt();
-        suite = suites.get(parentId);
-      }
-      return suite;
+    static Suite lookupSuite(ItemData obj, Map<Integer, Suite> suites) {
+      return obj.mySuiteId >= 0 ? suites.get(obj.mySuiteId) : null;
     }
 
-    Item(int id, String name, Group parent, Suite suite, Metadata metadata, int line, int column, String url) {
+    Item(int id, String name, Group parent, Suite suite, int line, int column, String url) {
       myId = id;
       myName = name;
       myParent = parent;
       mySuite = suite;
-      myMetadata = metadata;
       myLine = line;
       myColumn = column;
       myUrl = url;
@@ -651,10 +914,6 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
       return myParent;
     }
 
-    Metadata getMetadata() {
-      return myMetadata;
-    }
-
     boolean isArtificial() {
       return NO_NAME.equals(myName) && myParent == null && !hasSuite();
     }
@@ -711,21 +970,17 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     private boolean myTestStartReported = false;
     private boolean myTestErrorReported = false;
 
-    static Test from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      int[] groupIds = GSON.fromJson(obj.get(JSON_GROUP_IDS), (Type)int[].class);
-      Group parent = null;
-      if (groupIds != null && groupIds.length > 0) {
-        parent = groups.get(groupIds[groupIds.length - 1]);
-      }
+    static Test from(ItemData obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
+      Group parent = obj.myLastGroupId >= 0 ? groups.get(obj.myLastGroupId) : null;
       Suite suite = lookupSuite(obj, suites);
-      final int line = extractInt(obj, JSON_LINE);
-      final int column = extractInt(obj, JSON_COLUMN);
-      return new Test(extractInt(obj, JSON_ID), extractString(obj, JSON_NAME, NO_NAME), parent, suite, extractMetadata(obj),
-                      line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, extractString(obj, JSON_URL, null));
+      final int line = obj.myLine;
+      final int column = obj.myColumn;
+      return new Test(obj.myId, nameOrDefault(obj), parent, suite,
+                      line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, obj.myUrl);
     }
 
-    Test(int id, String name, Group parent, Suite suite, Metadata metadata, int line, int column, String url) {
-      super(id, name, parent, suite, metadata, line, column, url);
+    Test(int id, String name, Group parent, Suite suite, int line, int column, String url) {
+      super(id, name, parent, suite, line, column, url);
     }
 
     public void testDone() {
@@ -739,23 +994,17 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
     private int myTestCount = 0;
     private int myDoneTestsCount = 0;
 
-    static Group from(JsonObject obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
-      JsonElement parentObj = obj.get(JSON_PARENT_ID);
-      Group parent = null;
-      if (parentObj != null && parentObj.isJsonPrimitive()) {
-        int parentId = parentObj.getAsInt();
-        parent = groups.get(parentId);
-      }
+    static Group from(ItemData obj, Map<Integer, Group> groups, Map<Integer, Suite> suites) {
+      Group parent = obj.myParentId >= 0 ? groups.get(obj.myParentId) : null;
       Suite suite = lookupSuite(obj, suites);
-      final int line = extractInt(obj, JSON_LINE);
-      final int column = extractInt(obj, JSON_COLUMN);
-      return new Group(extractInt(obj, JSON_ID), extractString(obj, JSON_NAME, NO_NAME), parent, suite, extractMetadata(obj),
-                       extractInt(obj, JSON_TEST_COUNT), line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1,
-                       extractString(obj, JSON_URL, null));
+      final int line = obj.myLine;
+      final int column = obj.myColumn;
+      return new Group(obj.myId, nameOrDefault(obj), parent, suite, obj.myTestCount,
+                       line < 0 ? -1 : line - 1, column < 0 ? -1 : column - 1, obj.myUrl);
     }
 
-    Group(int id, String name, Group parent, Suite suite, Metadata metadata, int count, int line, int column, String url) {
-      super(id, name, parent, suite, metadata, line, column, url);
+    Group(int id, String name, Group parent, Suite suite, int count, int line, int column, String url) {
+      super(id, name, parent, suite, line, column, url);
       myTestCount = count;
     }
 
@@ -777,17 +1026,16 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
   }
 
   private static class Suite extends Item {
-    static Metadata NoMetadata = new Metadata();
     static String NONE = "<none>";
 
-    static Suite from(JsonObject obj) {
-      return new Suite(extractInt(obj, JSON_ID), extractString(obj, JSON_PATH, NONE), extractString(obj, JSON_PLATFORM, NONE));
+    static Suite from(ItemData obj) {
+      return new Suite(obj.myId, obj.myPath != null ? obj.myPath : NONE, obj.myPlatform != null ? obj.myPlatform : NONE);
     }
 
     private final String myPlatform;
 
     Suite(int id, String path, String platform) {
-      super(id, path, null, null, NoMetadata, -1, -1, "file://" + path);
+      super(id, path, null, null, -1, -1, "file://" + path);
       myPlatform = platform;
     }
 
@@ -803,14 +1051,4 @@ public class DartTestEventsConverter extends OutputToGeneralTestEventsConverter
       return getPath() != NONE;
     }
   }
-
-  private static class Metadata {
-    @SuppressWarnings("unused") private boolean skip; // assigned by GSON via reflection
-    @SuppressWarnings("unused") private String skipReason; // assigned by GSON via reflection
-
-    static Metadata from(JsonElement elem) {
-      if (elem == null) return new Metadata();
-      return GSON.fromJson(elem, (Type)Metadata.class);
-    }
-  }
 }
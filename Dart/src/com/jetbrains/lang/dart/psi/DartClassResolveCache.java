@@ -1,23 +1,38 @@
 // Copyright 2000-2019 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
 package com.jetbrains.lang.dart.psi;
 
+import com.intellij.ProjectTopics;
+import com.intellij.openapi.Disposable;
 import com.intellij.openapi.components.ServiceManager;
 import com.intellij.openapi.progress.ProgressIndicatorProvider;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.util.Key;
+import com.intellij.openapi.util.SimpleModificationTracker;
+import com.intellij.psi.*;
 import com.intellij.psi.impl.AnyPsiChangeListener;
 import com.intellij.psi.impl.PsiManagerImpl;
-import com.intellij.util.containers.ContainerUtil;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.util.messages.MessageBusConnection;
+import com.jetbrains.lang.dart.DartLanguage;
 import com.jetbrains.lang.dart.util.DartClassResolveResult;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.concurrent.ConcurrentMap;
-
 /**
+ * Caches {@link DartClassResolveResult} of a class in the user data of the class, so that the result is collected together with
+ * the PSI. Resolving a class hierarchy depends only on the top-level structure of the files: declarations, imports and exports.
+ * A cached result stays valid while no change is made outside of class and function bodies, so typing inside a method doesn't
+ * make hierarchies to be resolved again, while any change that may affect resolution, in any file, drops all results. Any change of
+ * non-physical PSI drops all results too, such changes are not reported in detail.
+ *
  * @author Fedor.Korotkov
  */
-public class DartClassResolveCache {
-  private final ConcurrentMap<DartClass, DartClassResolveResult> myMap = createWeakMap();
+public class DartClassResolveCache implements Disposable {
+  private static final Key<Entry> RESOLVE_RESULT_KEY = Key.create("DART_CLASS_RESOLVE_RESULT");
+
+  private final SimpleModificationTracker myStructureModificationTracker = new SimpleModificationTracker();
 
   public static DartClassResolveCache getInstance(Project project) {
     ProgressIndicatorProvider.checkCanceled(); // We hope this method is being called often enough to cancel daemon processes smoothly
@@ -25,25 +40,112 @@ public class DartClassResolveCache {
   }
 
   public DartClassResolveCache(@NotNull Project project) {
-    project.getMessageBus().connect().subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener() {
+    PsiManager.getInstance(project).addPsiTreeChangeListener(new PsiTreeChangeAdapter() {
+      @Override
+      public void childAdded(@NotNull PsiTreeChangeEvent event) {
+        onChange(event);
+      }
+
+      @Override
+      public void childRemoved(@NotNull PsiTreeChangeEvent event) {
+        onChange(event);
+      }
+
+      @Override
+      public void childReplaced(@NotNull PsiTreeChangeEvent event) {
+        onChange(event);
+      }
+
+      @Override
+      public void childMoved(@NotNull PsiTreeChangeEvent event) {
+        onChange(event);
+      }
+
+      @Override
+      public void childrenChanged(@NotNull PsiTreeChangeEvent event) {
+        onChange(event);
+      }
+
+      @Override
+      public void propertyChanged(@NotNull PsiTreeChangeEvent event) {
+        myStructureModificationTracker.incModificationCount();
+      }
+    }, this);
+
+    final MessageBusConnection connection = project.getMessageBus().connect(this);
+    // tree change listeners are not notified about changes of non-physical PSI, e.g. of file copies used by completion
+    connection.subscribe(PsiManagerImpl.ANY_PSI_CHANGE_TOPIC, new AnyPsiChangeListener() {
       @Override
       public void beforePsiChanged(boolean isPhysical) {
-        myMap.clear();
+        if (!isPhysical) {
+          myStructureModificationTracker.incModificationCount();
+        }
+      }
+    });
+    // package roots affect resolution of package: imports
+    connection.subscribe(ProjectTopics.PROJECT_ROOTS, new ModuleRootListener() {
+      @Override
+      public void rootsChanged(@NotNull ModuleRootEvent event) {
+        myStructureModificationTracker.incModificationCount();
       }
     });
   }
 
-  private static <K, V> ConcurrentMap<K, V> createWeakMap() {
-    return ContainerUtil.createConcurrentWeakMap(7, 0.75f, Runtime.getRuntime().availableProcessors(),
-                                           ContainerUtil.canonicalStrategy());
+  private void onChange(@NotNull final PsiTreeChangeEvent event) {
+    if (affectsResolve(event)) {
+      myStructureModificationTracker.incModificationCount();
+    }
   }
 
+  private static boolean affectsResolve(@NotNull final PsiTreeChangeEvent event) {
+    final PsiFile file = event.getFile();
+    // file creation, deletion or renaming, changes of pubspec.yaml and .packages files
+    if (file == null || !file.getViewProvider().getLanguages().contains(DartLanguage.INSTANCE)) return true;
+
+    final PsiElement child = event.getChild();
+    final PsiElement oldChild = event.getOldChild();
+    final PsiElement newChild = event.getNewChild();
+    if ((child != null || oldChild != null || newChild != null) &&
+        isCommentOrWhiteSpace(child) && isCommentOrWhiteSpace(oldChild) && isCommentOrWhiteSpace(newChild)) {
+      return false;
+    }
+
+    // members of classes don't take part in the hierarchy, bodies of functions don't declare anything visible outside
+    return PsiTreeUtil.getNonStrictParentOfType(event.getParent(), DartClassBody.class, DartFunctionBody.class) == null;
+  }
+
+  private static boolean isCommentOrWhiteSpace(@Nullable final PsiElement element) {
+    return element == null || element instanceof PsiComment || element instanceof PsiWhiteSpace;
+  }
+
+  @Override
+  public void dispose() {
+  }
+
+  /**
+   * Caches the result of {@code dartClass} until a change that may affect resolution. May be called before supertypes of
+   * {@code dartClass} are resolved, to stop on cyclic hierarchies.
+   */
   public void put(@NotNull DartClass dartClass, @NotNull DartClassResolveResult result) {
-    myMap.put(dartClass, result);
+    dartClass.putUserData(RESOLVE_RESULT_KEY, new Entry(result, myStructureModificationTracker.getModificationCount()));
   }
 
   @Nullable
   public DartClassResolveResult get(DartClass dartClass) {
-    return myMap.get(dartClass);
+    final Entry entry = dartClass.getUserData(RESOLVE_RESULT_KEY);
+    if (entry == null || entry.myModificationCount != myStructureModificationTracker.getModificationCount()) {
+      return null;
+    }
+    return entry.myResult;
+  }
+
+  private static final class Entry {
+    @NotNull private final DartClassResolveResult myResult;
+    private final long myModificationCount;
+
+    private Entry(@NotNull DartClassResolveResult result, long modificationCount) {
+      myResult = result;
+      myModificationCount = modificationCount;
+    }
   }
 }
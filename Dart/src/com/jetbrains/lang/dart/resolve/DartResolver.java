@@ -15,6 +15,7 @@ import com.intellij.util.ObjectUtils;
 import com.intellij.util.Processor;
 import com.intellij.util.SmartList;
 import com.jetbrains.lang.dart.analyzer.DartAnalysisServerService;
+import com.jetbrains.lang.dart.analyzer.DartRegionList;
 import com.jetbrains.lang.dart.analyzer.DartServerData;
 import com.jetbrains.lang.dart.analyzer.DartServerData.DartNavigationRegion;
 import com.jetbrains.lang.dart.analyzer.DartServerData.DartNavigationTarget;
@@ -133,6 +134,14 @@ public class DartResolver implements ResolveCache.AbstractResolver<DartReference
   public static DartNavigationRegion findRegion(@NotNull final List<? extends DartNavigationRegion> regions,
                                                 final int offset,
                                                 final int length) {
+    if (regions instanceof DartRegionList) {
+      final DartRegionList<? extends DartNavigationRegion> packedRegions = (DartRegionList<? extends DartNavigationRegion>)regions;
+      final int i = packedRegions.findFirstIndex(offset);
+      return i < packedRegions.size() && packedRegions.getOffset(i) == offset && packedRegions.getLength(i) == length
+             ? packedRegions.get(i)
+             : null;
+    }
+
     int i = findOffsetIndex(regions, offset);
     if (i >= 0) {
       DartNavigationRegion midVal = regions.get(i);
@@ -150,6 +159,15 @@ public class DartResolver implements ResolveCache.AbstractResolver<DartReference
                                            @NotNull final Processor<? super DartNavigationRegion> processor) {
     if (regions.isEmpty()) return;
 
+    if (regions instanceof DartRegionList) {
+      final DartRegionList<? extends DartNavigationRegion> packedRegions = (DartRegionList<? extends DartNavigationRegion>)regions;
+      for (int i = packedRegions.findFirstIndex(range.getStartOffset()); i < packedRegions.size(); i++) {
+        if (packedRegions.getOffset(i) + packedRegions.getLength(i) > range.getEndOffset()) return;
+        if (!processor.process(packedRegions.get(i))) return;
+      }
+      return;
+    }
+
     // first find the first region that has minimal allowed offset
 
     int i = ObjectUtils.binarySearch(0, regions.size(), mid -> regions.get(mid).getOffset() < range.getStartOffset() ? -1 : 1);
@@ -0,0 +1,195 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.util;
+
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.fileEditor.FileDocumentManager;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectRootModificationTracker;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.psi.util.CachedValueProvider;
+import com.intellij.psi.util.CachedValuesManager;
+import com.intellij.util.ObjectUtils;
+import com.intellij.util.containers.ContainerUtil;
+import com.jetbrains.lang.dart.ide.errorTreeView.DartProblemsView;
+import com.jetbrains.lang.dart.ide.errorTreeView.DartProblemsViewSettings;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Project-level cache of Dart package roots: the nearest pubspec.yaml file for a folder and live packages (from .packages file or
+ * path dependencies) of each pubspec.yaml file. The whole index is dropped on VFS structure changes and project roots changes.
+ * Edits of pubspec.yaml and .packages files are detected by their modification stamps when a cached {@link LivePackages} is requested.
+ */
+public final class DartPackageRootsIndex {
+  private static final Object NO_PUBSPEC = ObjectUtils.sentinel("NO_PUBSPEC");
+
+  @NotNull private final Project myProject;
+  @NotNull private final DartProblemsViewSettings.ScopedAnalysisMode myScopedAnalysisMode;
+  // folder -> nearest pubspec.yaml or NO_PUBSPEC
+  private final ConcurrentMap<VirtualFile, Object> myDirToPubspec = ContainerUtil.newConcurrentMap();
+  // folder -> nearest pubspec.yaml for the files in this folder or NO_PUBSPEC
+  private final ConcurrentMap<VirtualFile, Object> myFileDirToPubspec = ContainerUtil.newConcurrentMap();
+  private final ConcurrentMap<VirtualFile, LivePackages> myPubspecToLivePackages = ContainerUtil.newConcurrentMap();
+
+  private DartPackageRootsIndex(@NotNull final Project project, @NotNull final DartProblemsViewSettings.ScopedAnalysisMode scopedAnalysisMode) {
+    myProject = project;
+    myScopedAnalysisMode = scopedAnalysisMode;
+  }
+
+  @NotNull
+  public static DartPackageRootsIndex getInstance(@NotNull final Project project) {
+    final Map<DartProblemsViewSettings.ScopedAnalysisMode, DartPackageRootsIndex> modeToIndex =
+      CachedValuesManager.getManager(project).getCachedValue(project, () -> CachedValueProvider.Result
+        .create(ContainerUtil.newConcurrentMap(), VirtualFileManager.VFS_STRUCTURE_MODIFICATIONS,
+                ProjectRootModificationTracker.getInstance(project)));
+
+    // the result of pubspec.yaml lookup depends on this setting
+    return modeToIndex.computeIfAbsent(DartProblemsView.getScopeAnalysisMode(project),
+                                       mode -> new DartPackageRootsIndex(project, mode));
+  }
+
+  /**
+   * Cached version of {@link PubspecYamlUtil#findPubspecYamlFile(Project, VirtualFile)}
+   */
+  @Nullable
+  public VirtualFile findPubspecYamlFile(@NotNull final VirtualFile contextFile) {
+    // The lookup result is the same for all files in a folder, unless the file is named 'lib'. It may differ from the result for
+    // the folder itself: a folder named 'lib' is looked up even if it is not in content, files in it aren't.
+    final boolean isDir = contextFile.isDirectory();
+    final VirtualFile dir = isDir ? contextFile : contextFile.getParent();
+    if (dir == null || !isDir && PubspecYamlUtil.LIB_DIR_NAME.equals(contextFile.getName())) {
+      return PubspecYamlUtil.doFindPubspecYamlFile(myProject, contextFile, myScopedAnalysisMode);
+    }
+
+    final Object result = (isDir ? myDirToPubspec : myFileDirToPubspec).computeIfAbsent(dir, d -> {
+      final VirtualFile pubspec = PubspecYamlUtil.doFindPubspecYamlFile(myProject, contextFile, myScopedAnalysisMode);
+      return pubspec != null ? pubspec : NO_PUBSPEC;
+    });
+    return result instanceof VirtualFile ? (VirtualFile)result : null;
+  }
+
+  /**
+   * @return live packages of the Dart project defined by {@code pubspecYamlFile}: packages listed in the .packages file if it exists,
+   * otherwise this package itself and path packages
+   */
+  @NotNull
+  public LivePackages getLivePackages(@NotNull final VirtualFile pubspecYamlFile) {
+    LivePackages packages = myPubspecToLivePackages.get(pubspecYamlFile);
+    if (packages == null || !packages.isUpToDate()) {
+      packages = computeLivePackages(pubspecYamlFile);
+      myPubspecToLivePackages.put(pubspecYamlFile, packages);
+    }
+    return packages;
+  }
+
+  @NotNull
+  private LivePackages computeLivePackages(@NotNull final VirtualFile pubspecYamlFile) {
+    final Map<String, VirtualFile> packageNameToDir = new THashMap<>();
+    final List<VirtualFile> dependencies = new ArrayList<>();
+    dependencies.add(pubspecYamlFile);
+
+    final VirtualFile baseDir = pubspecYamlFile.getParent();
+    if (baseDir != null) {
+      final VirtualFile dotPackagesFile = baseDir.findChild(DotPackagesFileUtil.DOT_PACKAGES);
+
+      if (dotPackagesFile != null && !dotPackagesFile.isDirectory()) {
+        dependencies.add(dotPackagesFile);
+
+        final Map<String, String> packagesMap = DotPackagesFileUtil.getPackagesMap(dotPackagesFile);
+        if (packagesMap != null) {
+          for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
+            final VirtualFile packageDir = pubspecYamlFile.getFileSystem().findFileByPath(entry.getValue());
+            if (packageDir != null) {
+              packageNameToDir.put(entry.getKey(), packageDir);
+            }
+          }
+        }
+      }
+      else {
+        final String name = PubspecYamlUtil.getDartProjectName(pubspecYamlFile);
+        final VirtualFile libFolder = baseDir.findChild(PubspecYamlUtil.LIB_DIR_NAME);
+
+        if (name != null && libFolder != null && libFolder.isDirectory()) {
+          packageNameToDir.put(name, libFolder);
+        }
+
+        final Set<VirtualFile> processedPubspecs = new THashSet<>();
+        PubspecYamlUtil.processInProjectPathPackagesRecursively(myProject, pubspecYamlFile, processedPubspecs, packageNameToDir::put);
+        dependencies.addAll(processedPubspecs);
+      }
+    }
+
+    return new LivePackages(packageNameToDir, dependencies);
+  }
+
+  private static long getModificationStamp(@NotNull final VirtualFile file) {
+    final Document document = FileDocumentManager.getInstance().getCachedDocument(file);
+    return document != null ? document.getModificationStamp() : file.getModificationCount();
+  }
+
+  /**
+   * Immutable map of package names to package folders with the reverse lookup of the package that owns a file.
+   */
+  public static final class LivePackages {
+    @NotNull private final Map<String, VirtualFile> myPackageNameToDir;
+    @NotNull private final Map<VirtualFile, String> myDirToPackageName = new THashMap<>();
+    private final VirtualFile @NotNull [] myDependencies;
+    private final long @NotNull [] myDependencyStamps;
+
+    private LivePackages(@NotNull final Map<String, VirtualFile> packageNameToDir, @NotNull final List<VirtualFile> dependencies) {
+      myPackageNameToDir = Collections.unmodifiableMap(packageNameToDir);
+      for (Map.Entry<String, VirtualFile> entry : packageNameToDir.entrySet()) {
+        myDirToPackageName.putIfAbsent(entry.getValue(), entry.getKey());
+      }
+
+      myDependencies = dependencies.toArray(VirtualFile.EMPTY_ARRAY);
+      myDependencyStamps = new long[myDependencies.length];
+      for (int i = 0; i < myDependencies.length; i++) {
+        myDependencyStamps[i] = getModificationStamp(myDependencies[i]);
+      }
+    }
+
+    private boolean isUpToDate() {
+      for (int i = 0; i < myDependencies.length; i++) {
+        if (!myDependencies[i].isValid() || getModificationStamp(myDependencies[i]) != myDependencyStamps[i]) return false;
+      }
+      return true;
+    }
+
+    @NotNull
+    public Map<String, VirtualFile> getPackageNameToDirMap() {
+      return myPackageNameToDir;
+    }
+
+    @Nullable
+    public VirtualFile getPackageDir(@NotNull final String packageName) {
+      return myPackageNameToDir.get(packageName);
+    }
+
+    /**
+     * Walks up the folder hierarchy, so the cost doesn't depend on the number of packages.
+     *
+     * @return {@code package:} URI of the file or {@code null} if the file doesn't belong to any live package
+     */
+    @Nullable
+    public String getPackageUrl(@NotNull final VirtualFile file) {
+      if (myDirToPackageName.isEmpty()) return null;
+
+      for (VirtualFile dir = file; dir != null; dir = dir.getParent()) {
+        final String packageName = myDirToPackageName.get(dir);
+        if (packageName != null) {
+          final String relPath = VfsUtilCore.getRelativePath(file, dir, '/');
+          return relPath == null ? null : DartUrlResolver.PACKAGE_PREFIX + packageName + "/" + relPath;
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -30,6 +30,7 @@ import org.jetbrains.annotations.Nullable;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -39,17 +40,19 @@ public class DartUrlResolverImpl extends DartUrlResolver {
   @NotNull private final Project myProject;
   @Nullable private final DartSdk myDartSdk;
   @Nullable private final VirtualFile myPubspecYamlFile;
-  // myLivePackageNameToDirMap also contains packages map from .packages file if applicable
-  @NotNull private final Map<String, VirtualFile> myLivePackageNameToDirMap = new THashMap<>();
+  // myLivePackages also contains packages map from .packages file if applicable
+  @Nullable private final DartPackageRootsIndex.LivePackages myLivePackages;
+  @NotNull private final Map<String, VirtualFile> myLivePackageNameToDirMap;
   // myPackagesMapFromLib is not empty only if pubspec.yaml file is null
   @NotNull private final Map<String, List<String>> myPackagesMapFromLib = new THashMap<>();
 
   public DartUrlResolverImpl(final @NotNull Project project, final @NotNull VirtualFile contextFile) {
     myProject = project;
     myDartSdk = DartSdk.getDartSdk(project);
-    myPubspecYamlFile = PubspecYamlUtil.findPubspecYamlFile(myProject, contextFile);
-
-    initLivePackageNameToDirMap();
+    final DartPackageRootsIndex packageRootsIndex = DartPackageRootsIndex.getInstance(project);
+    myPubspecYamlFile = packageRootsIndex.findPubspecYamlFile(contextFile);
+    myLivePackages = myPubspecYamlFile == null ? null : packageRootsIndex.getLivePackages(myPubspecYamlFile);
+    myLivePackageNameToDirMap = myLivePackages == null ? Collections.emptyMap() : myLivePackages.getPackageNameToDirMap();
 
     if (myPubspecYamlFile == null) {
       initPackagesMapFromLib(contextFile);
@@ -155,7 +158,7 @@ public class DartUrlResolverImpl extends DartUrlResolver {
     if (myDartSdk != null) result = getUrlIfFileFromSdkLib(myProject, file, myDartSdk);
     if (result != null) return result;
 
-    result = getUrlIfFileFromLivePackage(file, myLivePackageNameToDirMap);
+    result = myLivePackages == null ? null : myLivePackages.getPackageUrl(file);
     if (result != null) return result;
 
     result = getUrlIfFileFromDartPackagesLib(file, myPackagesMapFromLib);
@@ -181,20 +184,6 @@ public class DartUrlResolverImpl extends DartUrlResolver {
              : null;
   }
 
-  @Nullable
-  private static String getUrlIfFileFromLivePackage(final @NotNull VirtualFile file,
-                                                    final @NotNull Map<String, VirtualFile> livePackageNameToDirMap) {
-    for (Map.Entry<String, VirtualFile> entry : livePackageNameToDirMap.entrySet()) {
-      final String packageName = entry.getKey();
-      final VirtualFile packageDir = entry.getValue();
-      final String relPath = VfsUtilCore.getRelativePath(file, packageDir, '/');
-      if (relPath != null) {
-        return PACKAGE_PREFIX + packageName + "/" + relPath;
-      }
-    }
-    return null;
-  }
-
   @Nullable
   private static String getUrlIfFileFromDartPackagesLib(final @NotNull VirtualFile file,
                                                         final @NotNull Map<String, List<String>> pubListPackageDirsMap) {
@@ -209,37 +198,6 @@ public class DartUrlResolverImpl extends DartUrlResolver {
     return null;
   }
 
-  private void initLivePackageNameToDirMap() {
-    final VirtualFile baseDir = myPubspecYamlFile == null ? null : myPubspecYamlFile.getParent();
-    if (myPubspecYamlFile == null || baseDir == null) return;
-    final VirtualFile dotPackagesFile = baseDir.findChild(DotPackagesFileUtil.DOT_PACKAGES);
-
-    if (dotPackagesFile != null && !dotPackagesFile.isDirectory()) {
-      final Map<String, String> packagesMap = DotPackagesFileUtil.getPackagesMap(dotPackagesFile);
-      if (packagesMap != null) {
-        for (Map.Entry<String, String> entry : packagesMap.entrySet()) {
-          final String packageName = entry.getKey();
-          final String packagePath = entry.getValue();
-          final VirtualFile packageDir = myPubspecYamlFile.getFileSystem().findFileByPath(packagePath);
-          if (packageDir != null) {
-            myLivePackageNameToDirMap.put(packageName, packageDir);
-          }
-        }
-      }
-    }
-    else {
-      final String name = PubspecYamlUtil.getDartProjectName(myPubspecYamlFile);
-      final VirtualFile libFolder = baseDir.findChild(PubspecYamlUtil.LIB_DIR_NAME);
-
-      if (name != null && libFolder != null && libFolder.isDirectory()) {
-        myLivePackageNameToDirMap.put(name, libFolder);
-      }
-
-      PubspecYamlUtil
-        .processInProjectPathPackagesRecursively(myProject, myPubspecYamlFile, myLivePackageNameToDirMap::put);
-    }
-  }
-
   private void initPackagesMapFromLib(final @NotNull VirtualFile contextFile) {
     final Module module = ModuleUtilCore.findModuleForFile(contextFile, myProject);
 
@@ -11,7 +11,6 @@ import com.intellij.openapi.util.Pair;
 import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.intellij.util.PairConsumer;
-import com.jetbrains.lang.dart.ide.errorTreeView.DartProblemsView;
 import com.jetbrains.lang.dart.ide.errorTreeView.DartProblemsViewSettings;
 import gnu.trove.THashSet;
 import org.jetbrains.annotations.NotNull;
@@ -48,12 +47,18 @@ public class PubspecYamlUtil {
 
   @Nullable
   public static VirtualFile findPubspecYamlFile(@NotNull final Project project, @NotNull final VirtualFile contextFile) {
+    return DartPackageRootsIndex.getInstance(project).findPubspecYamlFile(contextFile);
+  }
+
+  @Nullable
+  static VirtualFile doFindPubspecYamlFile(@NotNull final Project project,
+                                           @NotNull final VirtualFile contextFile,
+                                           @NotNull final DartProblemsViewSettings.ScopedAnalysisMode scopedAnalysisMode) {
     final ProjectFileIndex fileIndex = ProjectRootManager.getInstance(project).getFileIndex();
     VirtualFile current = contextFile;
     VirtualFile parent = contextFile.isDirectory() ? contextFile : contextFile.getParent();
 
-    boolean isPackageScopedAnalysis =
-      DartProblemsView.getScopeAnalysisMode(project) == DartProblemsViewSettings.ScopedAnalysisMode.DartPackage;
+    boolean isPackageScopedAnalysis = scopedAnalysisMode == DartProblemsViewSettings.ScopedAnalysisMode.DartPackage;
 
     while (parent != null && (LIB_DIR_NAME.equals(current.getName()) || isPackageScopedAnalysis || fileIndex.isInContent(parent))) {
       current = parent;
@@ -81,10 +86,10 @@ public class PubspecYamlUtil {
     processInProjectPathPackagesRecursively(project, pubspecYamlFile, new THashSet<>(), pathPackageNameAndDirConsumer);
   }
 
-  private static void processInProjectPathPackagesRecursively(@NotNull final Project project,
-                                                              @NotNull final VirtualFile pubspecYamlFile,
-                                                              @NotNull final Set<VirtualFile> processedPubspecs,
-                                                              @NotNull final PairConsumer<String, VirtualFile> pathPackageNameAndDirConsumer) {
+  static void processInProjectPathPackagesRecursively(@NotNull final Project project,
+                                                      @NotNull final VirtualFile pubspecYamlFile,
+                                                      @NotNull final Set<VirtualFile> processedPubspecs,
+                                                      @NotNull final PairConsumer<String, VirtualFile> pathPackageNameAndDirConsumer) {
     if (!processedPubspecs.add(pubspecYamlFile)) return;
 
     final VirtualFile baseDir = pubspecYamlFile.getParent();
@@ -0,0 +1,73 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.dart.analysisServer;
+
+import com.google.dart.server.internal.remote.PrioritizedRequestQueue;
+import com.google.dart.server.internal.remote.utilities.RequestUtilities;
+import com.google.gson.JsonObject;
+import com.intellij.testFramework.UsefulTestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+
+public class DartPrioritizedRequestQueueTest extends UsefulTestCase {
+  private final PrioritizedRequestQueue myQueue = new PrioritizedRequestQueue();
+
+  public void testInteractiveRequestOvertakesSearch() throws Exception {
+    add(RequestUtilities.generateSearchFindElementReferences("1", "/a.dart", 10, false));
+    add(RequestUtilities.generateAnalysisGetHover("2", "/a.dart", 20));
+    add(RequestUtilities.generateCompletionGetSuggestions("3", "/b.dart", 30));
+
+    assertTakenInOrder("2", "3", "1");
+  }
+
+  public void testStateChangingRequestIsNotOvertaken() throws Exception {
+    add(RequestUtilities.generateSearchFindElementReferences("1", "/a.dart", 10, false));
+    add(RequestUtilities.generateAnalysisUpdateContent("2", Collections.emptyMap()));
+    add(RequestUtilities.generateCompletionGetSuggestions("3", "/a.dart", 30));
+
+    assertTakenInOrder("1", "2", "3");
+  }
+
+  public void testSetPriorityFilesCoalesced() throws Exception {
+    add(RequestUtilities.generateAnalysisSetPriorityFiles("1", Collections.singletonList("/a.dart")));
+    add(RequestUtilities.generateAnalysisUpdateContent("2", Collections.emptyMap()));
+    final List<PrioritizedRequestQueue.Entry> superseded =
+      add(RequestUtilities.generateAnalysisSetPriorityFiles("3", Collections.singletonList("/b.dart")));
+
+    assertEquals(1, superseded.size());
+    assertEquals("1", superseded.get(0).getId());
+    assertTakenInOrder("2", "3");
+  }
+
+  public void testStaleQueryDropped() throws Exception {
+    add(RequestUtilities.generateCompletionGetSuggestions("1", "/a.dart", 30));
+    add(RequestUtilities.generateCompletionGetSuggestions("2", "/a.dart", 40));
+    final List<PrioritizedRequestQueue.Entry> superseded = add(RequestUtilities.generateCompletionGetSuggestions("3", "/a.dart", 30));
+
+    assertEquals(1, superseded.size());
+    assertEquals("1", superseded.get(0).getId());
+    assertTakenInOrder("2", "3");
+  }
+
+  public void testQueryWithOtherParamsNotDropped() throws Exception {
+    add(RequestUtilities.generateSearchFindElementReferences("1", "/a.dart", 10, false));
+    final List<PrioritizedRequestQueue.Entry> superseded =
+      add(RequestUtilities.generateSearchFindElementReferences("2", "/a.dart", 10, true));
+
+    assertEmpty(superseded);
+    assertTakenInOrder("1", "2");
+  }
+
+  @NotNull
+  private List<PrioritizedRequestQueue.Entry> add(@NotNull final JsonObject request) {
+    return myQueue.add(request, request.toString());
+  }
+
+  private void assertTakenInOrder(String @NotNull ... ids) throws InterruptedException {
+    for (String id : ids) {
+      assertEquals(id, myQueue.take().getId());
+    }
+    assertTrue(myQueue.isEmpty());
+  }
+}
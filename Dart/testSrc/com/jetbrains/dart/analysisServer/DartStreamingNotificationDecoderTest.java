@@ -0,0 +1,129 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.dart.analysisServer;
+
+import com.google.dart.server.AnalysisServerListenerAdapter;
+import com.google.dart.server.internal.remote.DecodedNotification;
+import com.google.dart.server.internal.remote.StreamingNotificationDecoder;
+import com.google.dart.server.internal.remote.processor.NotificationAnalysisHighlightsProcessor;
+import com.google.dart.server.internal.remote.processor.NotificationAnalysisNavigationProcessor;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.UsefulTestCase;
+import org.dartlang.analysis.server.protocol.HighlightRegion;
+import org.dartlang.analysis.server.protocol.NavigationRegion;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DartStreamingNotificationDecoderTest extends UsefulTestCase {
+  private static final String HIGHLIGHTS =
+    "{\"event\":\"analysis.highlights\",\"params\":{\"file\":\"/foo/bar.dart\",\"regions\":[" +
+    "{\"type\":\"KEYWORD\",\"offset\":0,\"length\":5},{\"type\":\"CLASS\",\"offset\":6,\"length\":3}]}}";
+
+  private static final String NAVIGATION =
+    "{\"event\":\"analysis.navigation\",\"params\":{\"file\":\"/foo/bar.dart\"," +
+    "\"regions\":[{\"offset\":6,\"length\":3,\"targets\":[0,1]},{\"offset\":12,\"length\":2,\"targets\":[1]}]," +
+    "\"targets\":[{\"kind\":\"CLASS\",\"fileIndex\":0,\"offset\":6,\"length\":3,\"startLine\":1,\"startColumn\":7,\"codeOffset\":0,\"codeLength\":20}," +
+    "{\"kind\":\"FIELD\",\"fileIndex\":1,\"offset\":40,\"length\":2,\"startLine\":3,\"startColumn\":5}]," +
+    "\"files\":[\"/foo/bar.dart\",\"/foo/baz.dart\"]}}";
+
+  public void testHighlights() throws Exception {
+    final RecordingListener decoded = dispatchDecoded(HIGHLIGHTS);
+    final RecordingListener parsed = new RecordingListener();
+    new NotificationAnalysisHighlightsProcessor(parsed).process(parse(HIGHLIGHTS));
+
+    assertEquals("/foo/bar.dart", decoded.myFile);
+    assertEquals(parsed.myHighlights, decoded.myHighlights);
+  }
+
+  public void testNavigation() throws Exception {
+    final RecordingListener decoded = dispatchDecoded(NAVIGATION);
+    final RecordingListener parsed = new RecordingListener();
+    new NotificationAnalysisNavigationProcessor(parsed).process(parse(NAVIGATION));
+
+    assertEquals("/foo/bar.dart", decoded.myFile);
+    assertEquals(parsed.myNavigation, decoded.myNavigation);
+    assertEquals(2, decoded.myNavigation.get(0).getTargetObjects().size());
+    assertEquals("/foo/baz.dart", decoded.myNavigation.get(1).getTargetObjects().get(0).getFile());
+  }
+
+  public void testOtherResponsesNotDecoded() throws Exception {
+    assertNull(StreamingNotificationDecoder.decode("{\"event\":\"analysis.errors\",\"params\":{\"file\":\"/foo.dart\",\"errors\":[]}}"));
+    assertNull(StreamingNotificationDecoder.decode("{\"id\":\"1\",\"result\":{}}"));
+  }
+
+  public void testMalformedNotification() {
+    try {
+      StreamingNotificationDecoder.decode("{\"event\":\"analysis.highlights\",\"params\":{\"regions\":[]}}");
+      fail("IOException expected");
+    }
+    catch (IOException ignore) {
+    }
+  }
+
+  public void testNavigationDecodingPerformance() {
+    final String line = createLargeNavigationNotification(20_000);
+    PlatformTestUtil.startPerformanceTest("analysis.navigation decoding", 5_000, () -> {
+      for (int i = 0; i < 20; i++) {
+        dispatchDecoded(line);
+      }
+    }).assertTiming();
+  }
+
+  @NotNull
+  private static String createLargeNavigationNotification(int regionCount) {
+    final StringBuilder builder = new StringBuilder("{\"event\":\"analysis.navigation\",\"params\":{\"file\":\"/foo/bar.dart\",\"regions\":[");
+    for (int i = 0; i < regionCount; i++) {
+      if (i > 0) builder.append(',');
+      builder.append("{\"offset\":").append(i * 10).append(",\"length\":5,\"targets\":[").append(i).append("]}");
+    }
+    builder.append("],\"targets\":[");
+    for (int i = 0; i < regionCount; i++) {
+      if (i > 0) builder.append(',');
+      builder.append("{\"kind\":\"CLASS\",\"fileIndex\":").append(i % 100).append(",\"offset\":").append(i)
+        .append(",\"length\":5,\"startLine\":").append(i).append(",\"startColumn\":1}");
+    }
+    builder.append("],\"files\":[");
+    for (int i = 0; i < 100; i++) {
+      if (i > 0) builder.append(',');
+      builder.append("\"/foo/file").append(i).append(".dart\"");
+    }
+    return builder.append("]}}").toString();
+  }
+
+  @NotNull
+  private static RecordingListener dispatchDecoded(@NotNull final String line) throws IOException {
+    final DecodedNotification notification = StreamingNotificationDecoder.decode(line);
+    assertNotNull(notification);
+    assertEquals(line, notification.getLine());
+    final RecordingListener listener = new RecordingListener();
+    notification.dispatch(listener);
+    return listener;
+  }
+
+  @NotNull
+  private static JsonObject parse(@NotNull final String line) {
+    return (JsonObject)new JsonParser().parse(line);
+  }
+
+  private static class RecordingListener extends AnalysisServerListenerAdapter {
+    private String myFile;
+    private List<HighlightRegion> myHighlights = new ArrayList<>();
+    private List<NavigationRegion> myNavigation = new ArrayList<>();
+
+    @Override
+    public void computedHighlights(String file, List<HighlightRegion> highlights) {
+      myFile = file;
+      myHighlights = highlights;
+    }
+
+    @Override
+    public void computedNavigation(String file, List<NavigationRegion> targets) {
+      myFile = file;
+      myNavigation = targets;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.coverage;
+
+import com.intellij.testFramework.UsefulTestCase;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.jetbrains.lang.dart.coverage.DartCoverageData.NO_HITS;
+
+public class DartCoverageDataTest extends UsefulTestCase {
+  public void testHitsMerged() throws Exception {
+    final DartCoverageData data = DartCoverageData.load(new StringReader(
+      "{\"type\":\"CodeCoverage\",\"coverage\":[" +
+      "{\"source\":\"package:foo/foo.dart\",\"script\":{\"type\":\"@Script\"},\"hits\":[1,2,3,0]}," +
+      "{\"hits\":[3,5,6,1],\"source\":\"package:foo/foo.dart\"}," +
+      "{\"source\":\"package:foo/bar.dart\",\"hits\":[]}]}"));
+
+    final Map<String, int[]> merged = data.getMergedDartFileCoverageData();
+    assertEquals(2, merged.size());
+    assertLineHits(merged.get("package:foo/foo.dart"), NO_HITS, 2, NO_HITS, 5, NO_HITS, NO_HITS, 1);
+    assertEquals(0, merged.get("package:foo/bar.dart").length);
+  }
+
+  private static void assertLineHits(int[] actual, int... expected) {
+    assertEquals(Arrays.toString(expected), Arrays.toString(actual));
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.errorTreeView;
+
+import com.intellij.analysis.problemsView.AnalysisProblem;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.dartlang.analysis.server.protocol.AnalysisError;
+import org.dartlang.analysis.server.protocol.AnalysisErrorSeverity;
+import org.dartlang.analysis.server.protocol.AnalysisErrorType;
+import org.dartlang.analysis.server.protocol.Location;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+public class DartProblemsTableModelTest extends BasePlatformTestCase {
+  private DartProblemsTableModel myModel;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myModel = new DartProblemsTableModel(new DartProblemsPresentationHelper(getProject()));
+  }
+
+  public void testReplaceErrorsForFiles() {
+    setErrors(createErrors("/a.dart", 2), createErrors("/b.dart", 3), createErrors("/c.dart", 4));
+    assertRowCounts("/a.dart", 2, "/b.dart", 3, "/c.dart", 4);
+
+    setErrors(createErrors("/b.dart", 1));
+    assertRowCounts("/a.dart", 2, "/b.dart", 1, "/c.dart", 4);
+
+    setErrors(createErrors("/a.dart", 0), createErrors("/c.dart", 5));
+    assertRowCounts("/b.dart", 1, "/c.dart", 5);
+  }
+
+  public void testReplayLargeErrorsStream() {
+    final int fileCount = 2_000;
+    final Random random = new Random(42);
+    final List<Map<String, List<AnalysisError>>> batches = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      final Map<String, List<AnalysisError>> batch = new LinkedHashMap<>();
+      for (int j = 0; j < 20; j++) {
+        final String filePath = "/file" + random.nextInt(fileCount) + ".dart";
+        batch.putAll(createErrors(filePath, random.nextInt(50)));
+      }
+      batches.add(batch);
+    }
+
+    PlatformTestUtil.startPerformanceTest("Dart Problems view model update", 5_000, () -> {
+      myModel = new DartProblemsTableModel(new DartProblemsPresentationHelper(getProject()));
+      for (int i = 0; i < fileCount; i++) {
+        final String filePath = "/file" + i + ".dart";
+        setErrors(createErrors(filePath, 25));
+      }
+      for (Map<String, List<AnalysisError>> batch : batches) {
+        setErrors(batch);
+      }
+    }).assertTiming();
+  }
+
+  @SafeVarargs
+  private final void setErrors(@NotNull final Map<String, List<AnalysisError>>... filePathToErrors) {
+    final Map<String, List<AnalysisError>> merged = new LinkedHashMap<>();
+    for (Map<String, List<AnalysisError>> map : filePathToErrors) {
+      merged.putAll(map);
+    }
+
+    final List<AnalysisProblem> problems = new ArrayList<>();
+    for (List<AnalysisError> errors : merged.values()) {
+      for (AnalysisError error : errors) {
+        problems.add(new DartProblem(getProject(), error));
+      }
+    }
+    myModel.setErrorsAndReturnReplacementForSelection(merged.keySet(), problems, null);
+  }
+
+  @NotNull
+  private static Map<String, List<AnalysisError>> createErrors(@NotNull final String filePath, final int count) {
+    final List<AnalysisError> errors = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      final Location location = new Location(filePath, i * 10, 5, i + 1, 1);
+      errors.add(new AnalysisError(AnalysisErrorSeverity.WARNING, AnalysisErrorType.STATIC_WARNING, location, "warning " + i, null,
+                                   "code", null, null, false));
+    }
+    return Collections.singletonMap(filePath, errors);
+  }
+
+  private void assertRowCounts(Object @NotNull ... filePathsAndCounts) {
+    final Map<String, Integer> expected = new HashMap<>();
+    for (int i = 0; i < filePathsAndCounts.length; i += 2) {
+      expected.put((String)filePathsAndCounts[i], (Integer)filePathsAndCounts[i + 1]);
+    }
+
+    final Map<String, Integer> actual = new HashMap<>();
+    for (int row = 0; row < myModel.getRowCount(); row++) {
+      actual.merge(myModel.getItem(row).getSystemIndependentPath(), 1, Integer::sum);
+    }
+    assertEquals(expected, actual);
+  }
+}
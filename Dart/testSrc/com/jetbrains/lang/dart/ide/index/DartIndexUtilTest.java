@@ -0,0 +1,74 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.index;
+
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.FileContentImpl;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class DartIndexUtilTest extends BasePlatformTestCase {
+  private static final String TEXT =
+    "library foo;\nimport 'dart:core' show int;\npart 'bar.dart';\nclass A { int b; void c() {} }\nenum E { x, y }\n";
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    DartIndexDataCache.getInstance().clear();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      DartIndexDataCache.getInstance().clear();
+    }
+    catch (Throwable e) {
+      addSuppressedException(e);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testSameContentSharesIndexData() {
+    final VirtualFile file1 = myFixture.addFileToProject("a/foo.dart", TEXT).getVirtualFile();
+    final VirtualFile file2 = myFixture.addFileToProject("b/foo.dart", TEXT).getVirtualFile();
+
+    final FileContent content1 = createFileContent(file1);
+    final DartFileIndexData data1 = DartIndexUtil.indexFile(content1);
+    assertSame(data1, DartIndexUtil.indexFile(content1));
+    assertSame(data1, DartIndexUtil.indexFile(createFileContent(file2)));
+
+    assertEquals("foo", data1.getLibraryName());
+    assertEquals(Arrays.asList("A", "E"), data1.getClassNames());
+    assertSameElements(data1.getSymbols(), "A", "b", "c", "E", "x", "y");
+    assertEquals(Collections.singletonList("bar.dart"), data1.getPartUris());
+    assertEquals(1, data1.getImportAndExportInfos().size());
+  }
+
+  public void testProjectCloseClearsSharedIndexData() {
+    final VirtualFile file1 = myFixture.addFileToProject("a/foo.dart", TEXT).getVirtualFile();
+    final VirtualFile file2 = myFixture.addFileToProject("b/foo.dart", TEXT).getVirtualFile();
+
+    final DartFileIndexData data1 = DartIndexUtil.indexFile(createFileContent(file1));
+    new DartIndexDataCache.ProjectCloseListener().projectClosed(getProject());
+
+    final DartFileIndexData data2 = DartIndexUtil.indexFile(createFileContent(file2));
+    assertNotSame(data1, data2);
+    assertEquals(data1.getClassNames(), data2.getClassNames());
+  }
+
+  @NotNull
+  private FileContent createFileContent(@NotNull final VirtualFile file) {
+    try {
+      return FileContentImpl.createByFile(file, getProject());
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
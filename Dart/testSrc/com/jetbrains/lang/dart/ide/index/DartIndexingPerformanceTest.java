@@ -0,0 +1,96 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.index;
+
+import com.intellij.concurrency.JobLauncher;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.vfs.LocalFileSystem;
+import com.intellij.openapi.vfs.VfsUtilCore;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.openapi.vfs.newvfs.impl.VfsRootAccess;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import com.intellij.util.indexing.DataIndexer;
+import com.intellij.util.indexing.FileContent;
+import com.intellij.util.indexing.FileContentImpl;
+import com.jetbrains.lang.dart.DartFileType;
+import com.jetbrains.lang.dart.util.DartTestUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class DartIndexingPerformanceTest extends BasePlatformTestCase {
+  private static final List<DataIndexer<?, ?, FileContent>> INDEXERS = Arrays.asList(new DartClassIndex().getIndexer(),
+                                                                                      new DartComponentIndex().getIndexer(),
+                                                                                      new DartImportAndExportIndex().getIndexer(),
+                                                                                      new DartLibraryIndex().getIndexer(),
+                                                                                      new DartPartUriIndex().getIndexer(),
+                                                                                      new DartSymbolIndex().getIndexer());
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    DartIndexDataCache.getInstance().clear();
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      DartIndexDataCache.getInstance().clear();
+    }
+    catch (Throwable e) {
+      addSuppressedException(e);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testIndexSdkSources() {
+    // -Ddart.sdk makes the benchmark run over the real SDK sources
+    final String sdkHome = System.getProperty("dart.sdk", DartTestUtils.SDK_HOME_PATH);
+    VfsRootAccess.allowRootAccess(getTestRootDisposable(), sdkHome);
+    final VirtualFile libDir = LocalFileSystem.getInstance().refreshAndFindFileByPath(sdkHome + "/lib");
+    assertNotNull(libDir);
+
+    final List<VirtualFile> files = new ArrayList<>();
+    VfsUtilCore.iterateChildrenRecursively(libDir, null, file -> {
+      if (!file.isDirectory() && file.getFileType() == DartFileType.INSTANCE) {
+        files.add(file);
+      }
+      return true;
+    });
+    assertFalse(files.isEmpty());
+
+    final AtomicInteger keys = new AtomicInteger();
+    PlatformTestUtil.startPerformanceTest("Dart SDK indexing", 5_000, () -> {
+      DartIndexDataCache.getInstance().clear();
+      // second pass emulates reindexing of the same content, e.g. another copy of the SDK
+      for (int pass = 0; pass < 2; pass++) {
+        assertTrue(JobLauncher.getInstance().invokeConcurrentlyUnderProgress(files, null, file -> {
+          ReadAction.run(() -> {
+            final FileContent content = createFileContent(file);
+            for (DataIndexer<?, ?, FileContent> indexer : INDEXERS) {
+              keys.addAndGet(indexer.map(content).size());
+            }
+          });
+          return true;
+        }));
+      }
+    }).assertTiming();
+    assertTrue(keys.get() > 0);
+  }
+
+  @NotNull
+  private FileContent createFileContent(@NotNull final VirtualFile file) {
+    try {
+      return FileContentImpl.createByFile(file, getProject());
+    }
+    catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import com.google.gson.JsonObject;
+import com.intellij.testFramework.fixtures.BasePlatformTestCase;
+import org.dartlang.vm.service.element.ClassObj;
+import org.dartlang.vm.service.element.IsolateRef;
+import org.dartlang.vm.service.element.Script;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+public class IsolatesInfoTest extends BasePlatformTestCase {
+  private static final String ISOLATE_ID = "isolates/1";
+
+  private final IsolatesInfo myIsolatesInfo = new IsolatesInfo();
+  private final AtomicInteger myRequests = new AtomicInteger();
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    final JsonObject json = new JsonObject();
+    json.addProperty("id", ISOLATE_ID);
+    json.addProperty("name", "main");
+    assertTrue(myIsolatesInfo.addIsolate(new IsolateRef(json)));
+  }
+
+  public void testConcurrentRequestsShareFuture() {
+    final CompletableFuture<ClassObj> pending = new CompletableFuture<>();
+    final CompletableFuture<ClassObj> first = myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(() -> pending));
+    final CompletableFuture<ClassObj> second = myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(() -> pending));
+    assertSame(first, second);
+    assertEquals(1, myRequests.get());
+
+    pending.complete(new ClassObj(new JsonObject()));
+    assertSame(first, myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(CompletableFuture::new)));
+    assertEquals(1, myRequests.get());
+  }
+
+  public void testFailuresAreNotCached() {
+    myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(() -> CompletableFuture.completedFuture(null)));
+    myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(() -> CompletableFuture.completedFuture(null)));
+    assertEquals(2, myRequests.get());
+  }
+
+  public void testExceptionallyCompletedFuturesAreNotCached() {
+    final CompletableFuture<ClassObj> pending = new CompletableFuture<>();
+    myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(() -> pending));
+    pending.completeExceptionally(new RuntimeException("lost connection"));
+
+    final ClassObj classObj = new ClassObj(new JsonObject());
+    final CompletableFuture<ClassObj> retried =
+      myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(() -> CompletableFuture.completedFuture(classObj)));
+    assertNotSame(pending, retried);
+    assertEquals(2, myRequests.get());
+  }
+
+  public void testConsumedScriptsAreRemoved() {
+    final Script loaded = new Script(new JsonObject());
+    final CompletableFuture<Script> script =
+      myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/1", request(() -> CompletableFuture.completedFuture(loaded)));
+    assertSame(script, myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/1", request(CompletableFuture::new)));
+    assertEquals(1, myRequests.get());
+
+    myIsolatesInfo.removeCachedScript(ISOLATE_ID, "scripts/1");
+    assertNotSame(script, myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/1", request(CompletableFuture::new)));
+    assertEquals(2, myRequests.get());
+  }
+
+  public void testScriptsCacheIsBounded() {
+    for (int i = 0; i < 100; i++) {
+      myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/" + i, request(CompletableFuture::new));
+    }
+    assertEquals(100, myRequests.get());
+
+    // the most recent scripts are kept, the oldest ones are requested again
+    myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/99", request(CompletableFuture::new));
+    assertEquals(100, myRequests.get());
+    myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/0", request(CompletableFuture::new));
+    assertEquals(101, myRequests.get());
+  }
+
+  public void testReloadInvalidatesScriptsAndClasses() {
+    myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/1", request(CompletableFuture::new));
+    myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(CompletableFuture::new));
+    myIsolatesInfo.invalidateScriptsAndClasses(ISOLATE_ID);
+
+    myIsolatesInfo.getCachedScript(ISOLATE_ID, "scripts/1", request(CompletableFuture::new));
+    myIsolatesInfo.getCachedClass(ISOLATE_ID, "classes/1", request(CompletableFuture::new));
+    assertEquals(4, myRequests.get());
+  }
+
+  public void testUnknownIsolateIsNotCached() {
+    myIsolatesInfo.getCachedClass("isolates/2", "classes/1", request(CompletableFuture::new));
+    myIsolatesInfo.getCachedClass("isolates/2", "classes/1", request(CompletableFuture::new));
+    assertEquals(2, myRequests.get());
+  }
+
+  @NotNull
+  private <T> Supplier<CompletableFuture<T>> request(@NotNull final Supplier<CompletableFuture<T>> supplier) {
+    return () -> {
+      myRequests.incrementAndGet();
+      return supplier.get();
+    };
+  }
+}
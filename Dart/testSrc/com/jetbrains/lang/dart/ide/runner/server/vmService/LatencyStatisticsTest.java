@@ -0,0 +1,20 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import junit.framework.TestCase;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyStatisticsTest extends TestCase {
+  public void testNoPauses() {
+    assertEquals("top frame: no pauses", new LatencyStatistics("top frame").toString());
+  }
+
+  public void testAverageAndMax() {
+    final LatencyStatistics statistics = new LatencyStatistics("stack frames");
+    statistics.record(TimeUnit.MILLISECONDS.toNanos(10));
+    statistics.record(TimeUnit.MILLISECONDS.toNanos(50));
+    statistics.record(TimeUnit.MILLISECONDS.toNanos(30));
+    assertEquals("stack frames: 3 pauses, average 30 ms, max 50 ms", statistics.toString());
+  }
+}
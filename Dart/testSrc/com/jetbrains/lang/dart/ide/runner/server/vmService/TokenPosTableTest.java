@@ -0,0 +1,38 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.server.vmService;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class TokenPosTableTest extends TestCase {
+  private static void assertPosition(final TokenPosTable table, final int tokenPos, final int line, final int column) {
+    final long lineAndColumn = table.getLineAndColumn(tokenPos);
+    assertTrue(lineAndColumn != TokenPosTable.NOT_FOUND);
+    assertEquals(line, TokenPosTable.getLine(lineAndColumn));
+    assertEquals(column, TokenPosTable.getColumn(lineAndColumn));
+  }
+
+  public void testLookup() {
+    final TokenPosTable table = TokenPosTable.create(Arrays.asList(Arrays.asList(1, 0, 1, 5, 7),
+                                                                   Arrays.asList(3, 12, 3),
+                                                                   Collections.singletonList(4),
+                                                                   Arrays.asList(5, 20, 1, 25, 10)));
+    assertPosition(table, 0, 0, 0);
+    assertPosition(table, 5, 0, 6);
+    assertPosition(table, 12, 2, 2);
+    assertPosition(table, 20, 4, 0);
+    assertPosition(table, 25, 4, 9);
+    assertEquals(TokenPosTable.NOT_FOUND, table.getLineAndColumn(6));
+    assertEquals(TokenPosTable.NOT_FOUND, table.getLineAndColumn(100));
+  }
+
+  public void testUnsortedTokenPositions() {
+    final TokenPosTable table = TokenPosTable.create(Arrays.asList(Arrays.asList(2, 30, 1, 10, 4),
+                                                                   Arrays.asList(1, 20, 2, 30, 8)));
+    assertPosition(table, 10, 1, 3);
+    assertPosition(table, 20, 0, 1);
+    assertPosition(table, 30, 0, 7);
+  }
+}
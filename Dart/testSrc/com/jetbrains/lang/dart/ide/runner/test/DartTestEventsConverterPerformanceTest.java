@@ -0,0 +1,113 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.ide.runner.test;
+
+import com.intellij.execution.testframework.TestConsoleProperties;
+import com.intellij.execution.testframework.sm.runner.BaseSMTRunnerTestCase;
+import com.intellij.execution.testframework.sm.runner.GeneralIdBasedToSMTRunnerEventsConvertor;
+import com.intellij.execution.testframework.sm.runner.GeneralTestEventsProcessor;
+import com.intellij.execution.testframework.sm.runner.SMTestProxy;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.openapi.util.Key;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.jetbrains.lang.dart.util.DartUrlResolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DartTestEventsConverterPerformanceTest extends BaseSMTRunnerTestCase {
+  private DartTestEventsConverter myEventsConverter;
+  private GeneralTestEventsProcessor myEventsProcessor;
+  private SMTestProxy.SMRootTestProxy myRootProxy;
+
+  public void testReplayLargeRun() {
+    // mimics `pub run test --reporter json` output for 10 suites with 1000 tests each
+    final List<String> events = new ArrayList<>();
+    events.add("{\"protocolVersion\":\"0.1.0\",\"runnerVersion\":\"1.14.4\",\"pid\":1,\"type\":\"start\",\"time\":0}\n");
+    events.add("{\"count\":10,\"type\":\"allSuites\",\"time\":0}\n");
+    int id = 0;
+    int time = 0;
+    for (int suite = 0; suite < 10; suite++) {
+      final int suiteId = id++;
+      final String path = "/project/test/suite" + suite + "_test.dart";
+      events.add("{\"suite\":{\"id\":" + suiteId + ",\"platform\":\"vm\",\"path\":\"" + path + "\"},\"type\":\"suite\",\"time\":" + time + "}\n");
+      final int loadingId = id++;
+      events.add("{\"test\":{\"id\":" + loadingId + ",\"name\":\"loading " + path + "\",\"suiteID\":" + suiteId +
+                 ",\"groupIDs\":[],\"metadata\":{\"skip\":false,\"skipReason\":null},\"line\":null,\"column\":null,\"url\":null}," +
+                 "\"type\":\"testStart\",\"time\":" + time + "}\n");
+      events.add("{\"testID\":" + loadingId + ",\"result\":\"success\",\"skipped\":false,\"hidden\":true,\"type\":\"testDone\",\"time\":" +
+                 (time += 5) + "}\n");
+      final int rootGroupId = id++;
+      events.add("{\"group\":{\"id\":" + rootGroupId + ",\"suiteID\":" + suiteId + ",\"parentID\":null,\"name\":null," +
+                 "\"metadata\":{\"skip\":false,\"skipReason\":null},\"testCount\":1000,\"line\":null,\"column\":null,\"url\":null}," +
+                 "\"type\":\"group\",\"time\":" + time + "}\n");
+      for (int group = 0; group < 10; group++) {
+        final int groupId = id++;
+        final String groupName = "group " + group;
+        events.add("{\"group\":{\"id\":" + groupId + ",\"suiteID\":" + suiteId + ",\"parentID\":" + rootGroupId + ",\"name\":\"" +
+                   groupName + "\",\"metadata\":{\"skip\":false,\"skipReason\":null},\"testCount\":100,\"line\":" + (group + 10) +
+                   ",\"column\":3,\"url\":\"file://" + path + "\"},\"type\":\"group\",\"time\":" + time + "}\n");
+        for (int test = 0; test < 100; test++) {
+          final int testId = id++;
+          events.add("{\"test\":{\"id\":" + testId + ",\"name\":\"" + groupName + " test " + test + "\",\"suiteID\":" + suiteId +
+                     ",\"groupIDs\":[" + rootGroupId + "," + groupId + "],\"metadata\":{\"skip\":false,\"skipReason\":null}," +
+                     "\"line\":" + (test + 20) + ",\"column\":5,\"url\":\"file://" + path + "\"},\"type\":\"testStart\",\"time\":" +
+                     time + "}\n");
+          if (test % 10 == 0) {
+            events.add("{\"testID\":" + testId + ",\"messageType\":\"print\",\"message\":\"output of test " + test +
+                       "\",\"type\":\"print\",\"time\":" + time + "}\n");
+          }
+          events.add("{\"testID\":" + testId + ",\"result\":\"success\",\"skipped\":false,\"hidden\":false,\"type\":\"testDone\"," +
+                     "\"time\":" + (time += 1) + "}\n");
+        }
+      }
+    }
+    events.add("{\"success\":true,\"type\":\"done\",\"time\":" + time + "}\n");
+
+    final Key key = new Key("stdout");
+    PlatformTestUtil.startPerformanceTest("Dart test events replay", 20_000, () -> {
+      for (String event : events) {
+        myEventsConverter.process(event, key);
+      }
+    }).setup(this::startTesting).assertTiming();
+
+    final List<? extends SMTestProxy> suites = myRootProxy.getChildren();
+    assertEquals(10, suites.size());
+    assertEquals("suite0_test.dart", suites.get(0).getName());
+    assertEquals("suite9_test.dart", suites.get(9).getName());
+  }
+
+  /**
+   * Starts a new run, the converter and the processor keep the state of tests seen so far.
+   */
+  private void startTesting() {
+    disposeProcessor();
+    final TestConsoleProperties consoleProperties = createConsoleProperties();
+    myRootProxy = new SMTestProxy.SMRootTestProxy();
+    myEventsConverter = new DartTestEventsConverter(DartTestRunningState.DART_FRAMEWORK_NAME, consoleProperties,
+                                                    DartUrlResolver.getInstance(getProject(), getSourceRoot()));
+    myEventsProcessor =
+      new GeneralIdBasedToSMTRunnerEventsConvertor(getProject(), myRootProxy, DartTestRunningState.DART_FRAMEWORK_NAME);
+    myEventsConverter.setProcessor(myEventsProcessor);
+    myEventsProcessor.onStartTesting();
+  }
+
+  private void disposeProcessor() {
+    if (myEventsProcessor != null) {
+      Disposer.dispose(myEventsProcessor);
+      myEventsProcessor = null;
+    }
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      disposeProcessor();
+    }
+    catch (Throwable e) {
+      addSuppressedException(e);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+}
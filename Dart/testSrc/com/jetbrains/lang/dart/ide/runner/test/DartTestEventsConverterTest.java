@@ -338,6 +338,25 @@ public class DartTestEventsConverterTest extends BaseSMTRunnerTestCase {
     runTest(events, signals, new int[]{});
   }
 
+  public void testOutputAfterTestDone() {
+    String[] events = {
+      "{'suite':{'id':0,'platform':'vm','path':'test/late_test.dart'},'type':'suite','time':0}\n",
+      "{'group':{'id':1,'suiteID':0,'parentID':null,'name':null,'metadata':{'skip':false,'skipReason':null},'testCount':1},'type':'group','time':1}\n",
+      "{'test':{'id':2,'name':'async test','suiteID':0,'groupIDs':[1],'metadata':{'skip':false,'skipReason':null}},'type':'testStart','time':2}\n",
+      "{'testID':2,'result':'success','hidden':false,'type':'testDone','time':3}\n",
+      "{'testID':2,'message':'late output','type':'print','time':4}\n",
+      "{'success':true,'type':'done','time':5}\n",
+    };
+    String[] signals = {
+      "suite started late_test.dart",
+      "start async test",
+      "finish async test",
+      "suite finished late_test.dart",
+      "print async test late output\n"
+    };
+    runTest(events, signals, new int[]{});
+  }
+
   private void runTest(String[] jsonEvents, String[] signals, int[] parents) {
     DartTestEventsConverter parser = myEventsConverter;
     Key key = new Key("stdout");
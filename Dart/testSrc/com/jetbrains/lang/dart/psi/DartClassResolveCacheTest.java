@@ -0,0 +1,147 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.psi;
+
+import com.intellij.openapi.command.WriteCommandAction;
+import com.intellij.openapi.editor.Document;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.psi.PsiDocumentManager;
+import com.intellij.psi.PsiFile;
+import com.intellij.psi.util.PsiTreeUtil;
+import com.intellij.testFramework.PlatformTestUtil;
+import com.jetbrains.lang.dart.DartCodeInsightFixtureTestCase;
+import com.jetbrains.lang.dart.util.DartClassResolveResult;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class DartClassResolveCacheTest extends DartCodeInsightFixtureTestCase {
+  private static final int HIERARCHY_DEPTH = 30;
+
+  /**
+   * Flutter-style hierarchy: every widget is declared in its own file, extends the previous one and has a generic State class.
+   */
+  @NotNull
+  private List<DartClass> createHierarchy() {
+    myFixture.addFileToProject("widget0.dart", "class Widget0 {}\nclass State0<T extends Widget0> {}\n");
+    for (int i = 1; i < HIERARCHY_DEPTH; i++) {
+      myFixture.addFileToProject("widget" + i + ".dart",
+                                 "import 'widget" + (i - 1) + ".dart';\n" +
+                                 "mixin Mixin" + i + " {}\n" +
+                                 "class Widget" + i + " extends Widget" + (i - 1) + " with Mixin" + i + " {}\n" +
+                                 "class State" + i + " extends State" + (i - 1) + "<Widget" + i + "> {}\n");
+    }
+
+    final PsiFile lastFile = myFixture.addFileToProject("main.dart",
+                                                        "import 'widget" + (HIERARCHY_DEPTH - 1) + ".dart';\n" +
+                                                        "class MyWidget extends Widget" + (HIERARCHY_DEPTH - 1) + " {}\n" +
+                                                        "class MyState extends State" + (HIERARCHY_DEPTH - 1) + "<MyWidget> {}\n");
+    return new ArrayList<>(PsiTreeUtil.findChildrenOfType(lastFile, DartClass.class));
+  }
+
+  @NotNull
+  private static List<DartClassResolveResult> resolveAll(@NotNull final List<DartClass> classes) {
+    final List<DartClassResolveResult> results = new ArrayList<>(classes.size());
+    for (DartClass dartClass : classes) {
+      final DartClassResolveResult result = DartClassResolveResult.create(dartClass);
+      assertNotNull(result.getDartClass());
+      results.add(result);
+    }
+    return results;
+  }
+
+  private static void assertSameResults(@NotNull final List<DartClassResolveResult> expected,
+                                        @NotNull final List<DartClassResolveResult> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertSame(expected.get(i), actual.get(i));
+    }
+  }
+
+  private static void assertNewResults(@NotNull final List<DartClassResolveResult> old,
+                                       @NotNull final List<DartClassResolveResult> actual) {
+    assertEquals(old.size(), actual.size());
+    for (int i = 0; i < old.size(); i++) {
+      assertNotSame(old.get(i), actual.get(i));
+    }
+  }
+
+  /**
+   * Inserts the text before the first occurrence of {@code marker}, or at the end of the file if {@code marker} is {@code null}.
+   */
+  private void type(@NotNull final PsiFile file, @Nullable final String marker, @NotNull final String text) {
+    final Document document = PsiDocumentManager.getInstance(getProject()).getDocument(file);
+    assertNotNull(document);
+    final int offset = marker == null ? document.getTextLength() : document.getText().indexOf(marker);
+    assertTrue(offset >= 0);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> document.insertString(offset, text));
+    PsiDocumentManager.getInstance(getProject()).commitAllDocuments();
+  }
+
+  @NotNull
+  private PsiFile findFile(@NotNull final String relativePath) {
+    final VirtualFile file = myFixture.findFileInTempDir(relativePath);
+    assertNotNull(file);
+    final PsiFile psiFile = getPsiManager().findFile(file);
+    assertNotNull(psiFile);
+    return psiFile;
+  }
+
+  public void testEditInsideBodiesKeepsCachedHierarchy() {
+    final List<DartClass> classes = createHierarchy();
+    final PsiFile unrelatedFile = myFixture.addFileToProject("unrelated.dart", "class Unrelated {\n  void foo() {\n  }\n}\n");
+    final List<DartClassResolveResult> results = resolveAll(classes);
+
+    type(unrelatedFile, "  }\n}", "    print(1);\n");
+    type(unrelatedFile, "\n}\n", "  int bar = 0;\n");
+    type(findFile("widget0.dart"), "}\nclass State0", "int baz = 0;");
+    assertSameResults(results, resolveAll(classes));
+
+    type(findFile("widget0.dart"), null, "class Widget01 {}\n");
+    assertNewResults(results, resolveAll(classes));
+  }
+
+  public void testDeclarationInImportedFileDropsCachedResult() {
+    final PsiFile file = myFixture.addFileToProject("foo.dart", "import 'bar.dart';\nclass Foo extends Bar {}\n");
+    final PsiFile importedFile = myFixture.addFileToProject("bar.dart", "class Baz {}\n");
+    final DartClass dartClass = PsiTreeUtil.findChildOfType(file, DartClass.class);
+    assertNotNull(dartClass);
+    final DartClassResolveResult result = DartClassResolveResult.create(dartClass);
+    assertSame(result, DartClassResolveResult.create(dartClass));
+
+    // the imported file is not in the hierarchy, but the new declaration makes the supertype resolved
+    type(importedFile, null, "class Bar {}\n");
+    assertNotSame(result, DartClassResolveResult.create(dartClass));
+  }
+
+  public void testChangeOfNonPhysicalCopyDropsCachedResult() {
+    myFixture.addFileToProject("bar.dart", "class Bar {}\n");
+    final PsiFile file = myFixture.addFileToProject("foo.dart", "import 'bar.dart';\nclass Foo extends Bar {}\n");
+    final PsiFile copy = (PsiFile)file.copy();
+    assertFalse(copy.isPhysical());
+    final DartClass copyClass = PsiTreeUtil.findChildOfType(copy, DartClass.class);
+    assertNotNull(copyClass);
+    final DartClassResolveResult result = DartClassResolveResult.create(copyClass);
+    assertSame(result, DartClassResolveResult.create(copyClass));
+
+    // the copy doesn't send tree change events
+    final DartImportStatement importStatement = PsiTreeUtil.findChildOfType(copy, DartImportStatement.class);
+    assertNotNull(importStatement);
+    WriteCommandAction.runWriteCommandAction(getProject(), () -> importStatement.delete());
+    assertNotSame(result, DartClassResolveResult.create(copyClass));
+  }
+
+  public void testTypingInsideMethodPerformance() {
+    final List<DartClass> classes = createHierarchy();
+    final PsiFile unrelatedFile = myFixture.addFileToProject("unrelated.dart", "class Unrelated {\n  void foo() {\n  }\n}\n");
+    resolveAll(classes);
+
+    PlatformTestUtil.startPerformanceTest("Dart class hierarchy resolve while typing", 3_000, () -> {
+      for (int i = 0; i < 200; i++) {
+        type(unrelatedFile, "  }\n}", "a");
+        resolveAll(classes);
+      }
+    }).assertTiming();
+  }
+}
@@ -0,0 +1,32 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.jetbrains.lang.dart.util;
+
+import com.intellij.openapi.roots.ModuleRootManager;
+import com.intellij.openapi.vfs.VirtualFile;
+import com.intellij.testFramework.VfsTestUtil;
+import com.jetbrains.lang.dart.DartCodeInsightFixtureTestCase;
+
+public class DartPackageRootsIndexTest extends DartCodeInsightFixtureTestCase {
+
+  public void testFileInContentLibFolder() {
+    final VirtualFile pubspec = myFixture.addFileToProject("pubspec.yaml", "name: foo").getVirtualFile();
+    final VirtualFile file = myFixture.addFileToProject("lib/foo.dart", "").getVirtualFile();
+
+    assertEquals(pubspec, PubspecYamlUtil.findPubspecYamlFile(getProject(), file.getParent()));
+    assertEquals(pubspec, PubspecYamlUtil.findPubspecYamlFile(getProject(), file));
+  }
+
+  public void testFileInLibFolderOutsideContent() {
+    final VirtualFile outsideRoot = ModuleRootManager.getInstance(getModule()).getContentRoots()[0].getParent();
+    final VirtualFile pubspec = VfsTestUtil.createFile(outsideRoot, "pub-cache/foo/pubspec.yaml", "name: foo");
+    final VirtualFile file = VfsTestUtil.createFile(outsideRoot, "pub-cache/foo/lib/foo.dart", "");
+    try {
+      // the folder named 'lib' is looked up even if it is not in content, the files in it are not
+      assertEquals(pubspec, PubspecYamlUtil.findPubspecYamlFile(getProject(), file.getParent()));
+      assertNull(PubspecYamlUtil.findPubspecYamlFile(getProject(), file));
+    }
+    finally {
+      VfsTestUtil.deleteFile(pubspec.getParent().getParent());
+    }
+  }
+}
@@ -14,6 +14,8 @@
 package com.google.dart.server.internal.remote;
 
 import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.dart.server.internal.remote.utilities.ResponseUtilities;
+import com.google.dart.server.utilities.logging.Logging;
 import com.google.gson.JsonObject;
 
 import java.io.OutputStream;
@@ -21,8 +23,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -31,6 +32,12 @@ import java.util.concurrent.TimeUnit;
  * @coverage dart.server.remote
  */
 public class ByteRequestSink implements RequestSink {
+  /**
+   * The error code of the response sent for a request that was dropped before being written to the
+   * server because a newer request superseded it.
+   */
+  public static final String REQUEST_SUPERSEDED = "REQUEST_SUPERSEDED";
+
   /**
    * The {@link PrintWriter} to print JSON strings to.
    */
@@ -40,9 +47,13 @@ public class ByteRequestSink implements RequestSink {
    */
   private DebugPrintStream debugStream;
   /**
-   * The queue of lines.
+   * The queue of requests.
    */
-  private final BlockingQueue<String> lineQueue = new LinkedBlockingQueue<String>();
+  private final PrioritizedRequestQueue requestQueue = new PrioritizedRequestQueue();
+  /**
+   * The {@link ResponseSink} to send error responses for superseded requests to, may be {@code null}.
+   */
+  private volatile ResponseSink supersededResponseSink;
 
   /**
    * Initializes a newly created request sink.
@@ -64,18 +75,37 @@ public class ByteRequestSink implements RequestSink {
         debugStream.println(System.currentTimeMillis() + " => " + text);
       }
     }
-    lineQueue.add(text);
+    List<PrioritizedRequestQueue.Entry> superseded = requestQueue.add(request, text);
+    ResponseSink responseSink = supersededResponseSink;
+    if (responseSink != null) {
+      for (PrioritizedRequestQueue.Entry entry : superseded) {
+        try {
+          responseSink.add(ResponseUtilities.createErrorResponse(entry.getId(), REQUEST_SUPERSEDED,
+              "The request was superseded by a newer one before being sent to the server"));
+        } catch (Throwable e) {
+          Logging.getLogger().logError(e.getMessage(), e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Sets the {@link ResponseSink} to send error responses to for the requests that were dropped
+   * from the queue as superseded, so that their consumers do not wait for a response forever.
+   */
+  public void setSupersededResponseSink(ResponseSink responseSink) {
+    supersededResponseSink = responseSink;
   }
 
   @Override
   public void close() {
     writer.close();
-    lineQueue.add(ByteResponseStream.EOF_LINE);
+    requestQueue.addLast(ByteResponseStream.EOF_LINE);
   }
 
   public void waitForFlush() {
     while (true) {
-      if (lineQueue.isEmpty()) {
+      if (requestQueue.isEmpty()) {
         return;
       }
       Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
@@ -92,7 +122,7 @@ public class ByteRequestSink implements RequestSink {
     public void run() {
       while (true) {
         try {
-          String line = lineQueue.take();
+          String line = requestQueue.take().getText();
           if (line == ByteResponseStream.EOF_LINE) {
             return;
           }
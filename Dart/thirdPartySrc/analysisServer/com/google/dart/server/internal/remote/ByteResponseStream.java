@@ -99,6 +99,14 @@ public class ByteResponseStream implements ResponseStream {
     new LinesReaderThread().start();
   }
 
+  /**
+   * Adds a response created on the client side, it is taken after the server responses that are
+   * already read.
+   */
+  public void addResponse(JsonObject response) {
+    lineQueue.add(response.toString());
+  }
+
   @Override
   public void lastRequestProcessed() {
   }
@@ -110,6 +118,28 @@ public class ByteResponseStream implements ResponseStream {
       lineQueue.add(line);
       return null;
     }
+    return parse(line);
+  }
+
+  @Override
+  public Object takeResponse() throws Exception {
+    String line = lineQueue.take();
+    if (line == EOF_LINE) {
+      lineQueue.add(line);
+      return null;
+    }
+    try {
+      DecodedNotification notification = StreamingNotificationDecoder.decode(line);
+      if (notification != null) {
+        return notification;
+      }
+    } catch (Exception e) {
+      // fall back to the JSON tree, it reports malformed lines properly
+    }
+    return parse(line);
+  }
+
+  private static JsonObject parse(String line) {
     try {
       return (JsonObject) new JsonParser().parse(line);
     } catch (JsonSyntaxException e) {
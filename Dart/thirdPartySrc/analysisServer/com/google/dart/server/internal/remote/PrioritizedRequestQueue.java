@@ -0,0 +1,213 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import com.google.dart.server.internal.remote.utilities.RequestUtilities;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The queue of requests waiting to be written to the server.
+ * <p>
+ * Queries are taken in the order of their priority: interactive requests (completion, assists,
+ * fixes, hover) first, then navigation, then background search and refactoring requests. Requests
+ * that change the server state (content updates, analysis roots, subscriptions, etc.) are never
+ * reordered: neither they nor the queries added after them can overtake each other.
+ * <p>
+ * A pending {@code analysis.setPriorityFiles} or {@code analysis.setSubscriptions}-like request is
+ * dropped when a newer request with the same method is added. A pending query is dropped when a
+ * newer query with the same method and the same parameters is added.
+ *
+ * @coverage dart.server.remote
+ */
+public class PrioritizedRequestQueue {
+  public static final int PRIORITY_INTERACTIVE = 0;
+  public static final int PRIORITY_NAVIGATION = 1;
+  public static final int PRIORITY_BACKGROUND = 2;
+
+  /**
+   * Requests that are neither reordered nor allowed to be overtaken.
+   */
+  public static final int PRIORITY_ORDERED = 3;
+
+  private static final Set<String> INTERACTIVE_METHODS = ImmutableSet.of(
+      "completion.getSuggestions",
+      "completion.getSuggestionDetails",
+      "edit.getAssists",
+      "edit.getFixes",
+      "edit.getPostfixCompletion",
+      "edit.getStatementCompletion",
+      "edit.isPostfixCompletionApplicable",
+      "analysis.getHover");
+
+  private static final Set<String> NAVIGATION_METHODS = ImmutableSet.of(
+      "analysis.getNavigation",
+      "analysis.getImportedElements",
+      "search.getTypeHierarchy",
+      "execution.mapUri");
+
+  private static final Set<String> BACKGROUND_METHODS = ImmutableSet.of(
+      "search.findElementReferences",
+      "search.findMemberDeclarations",
+      "search.findMemberReferences",
+      "search.findTopLevelDeclarations",
+      "edit.getAvailableRefactorings",
+      "edit.getRefactoring",
+      "edit.dartfix");
+
+  /**
+   * Requests that replace the corresponding server state completely, so only the last one matters.
+   */
+  private static final Set<String> COALESCED_METHODS = ImmutableSet.of(
+      "analysis.setPriorityFiles",
+      "analysis.setSubscriptions",
+      "analysis.setGeneralSubscriptions",
+      "completion.setSubscriptions",
+      "execution.setSubscriptions",
+      "server.setSubscriptions");
+
+  /**
+   * A request waiting in the queue.
+   */
+  public static class Entry {
+    private final String text;
+    private final String id;
+    private final String method;
+    private final String params;
+    private final int priority;
+
+    private Entry(String text, String id, String method, String params, int priority) {
+      this.text = text;
+      this.id = id;
+      this.method = method;
+      this.params = params;
+      this.priority = priority;
+    }
+
+    /**
+     * The identifier of the request, {@code null} for the end-of-stream marker.
+     */
+    public String getId() {
+      return id;
+    }
+
+    /**
+     * The JSON text of the request to write.
+     */
+    public String getText() {
+      return text;
+    }
+
+    private boolean isSupersededBy(Entry other) {
+      if (method == null || !method.equals(other.method)) {
+        return false;
+      }
+      if (COALESCED_METHODS.contains(method)) {
+        return true;
+      }
+      return priority != PRIORITY_ORDERED && params != null && params.equals(other.params);
+    }
+  }
+
+  private final LinkedList<Entry> entries = new LinkedList<Entry>();
+
+  /**
+   * Returns the priority of the request with the given method.
+   */
+  public static int getPriority(String method) {
+    if (INTERACTIVE_METHODS.contains(method)) {
+      return PRIORITY_INTERACTIVE;
+    }
+    if (NAVIGATION_METHODS.contains(method)) {
+      return PRIORITY_NAVIGATION;
+    }
+    if (BACKGROUND_METHODS.contains(method)) {
+      return PRIORITY_BACKGROUND;
+    }
+    return PRIORITY_ORDERED;
+  }
+
+  /**
+   * Adds the given request to the queue.
+   *
+   * @return the pending requests that were dropped because they are superseded by the given one
+   */
+  public List<Entry> add(JsonObject request, String text) {
+    String method = RequestUtilities.getRequestMethod(request);
+    JsonElement params = RequestUtilities.getRequestParams(request);
+    Entry entry = new Entry(text, RequestUtilities.getId(request), method,
+        params != null ? params.toString() : null, getPriority(method));
+    List<Entry> superseded = Lists.newArrayList();
+    synchronized (entries) {
+      for (Iterator<Entry> iterator = entries.iterator(); iterator.hasNext();) {
+        Entry pending = iterator.next();
+        if (pending.isSupersededBy(entry)) {
+          iterator.remove();
+          superseded.add(pending);
+        }
+      }
+      entries.add(entry);
+      entries.notifyAll();
+    }
+    return superseded;
+  }
+
+  /**
+   * Adds the given line that is written after all requests that are already in the queue.
+   */
+  public void addLast(String text) {
+    synchronized (entries) {
+      entries.add(new Entry(text, null, null, null, PRIORITY_ORDERED));
+      entries.notifyAll();
+    }
+  }
+
+  /**
+   * Takes the next request to write. Blocks if the queue is empty.
+   */
+  public Entry take() throws InterruptedException {
+    synchronized (entries) {
+      while (entries.isEmpty()) {
+        entries.wait();
+      }
+      Entry best = null;
+      for (Entry entry : entries) {
+        if (entry.priority == PRIORITY_ORDERED) {
+          if (best == null) {
+            best = entry;
+          }
+          break;
+        }
+        if (best == null || entry.priority < best.priority) {
+          best = entry;
+        }
+      }
+      entries.remove(best);
+      return best;
+    }
+  }
+
+  public boolean isEmpty() {
+    synchronized (entries) {
+      return entries.isEmpty();
+    }
+  }
+}
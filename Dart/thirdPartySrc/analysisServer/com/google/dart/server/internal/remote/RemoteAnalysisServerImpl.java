@@ -712,6 +712,11 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
     return true;
   }
 
+  private void processDecodedNotification(DecodedNotification notification) {
+    notifyResponseListeners(notification.getLine());
+    notification.dispatch(listener);
+  }
+
   private void processResponse(JsonObject response) throws Exception {
     notifyResponseListeners(response);
     // handle notification
@@ -743,7 +748,12 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
     // Analysis Domain
     //
     if (consumer instanceof UpdateContentConsumer) {
-      ((UpdateContentConsumer)consumer).onResponse();
+      if (requestError != null) {
+        ((UpdateContentConsumer)consumer).onError(requestError);
+      }
+      else {
+        ((UpdateContentConsumer)consumer).onResponse();
+      }
     }
     //
     // Completion Domain
@@ -876,10 +886,19 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
   }
 
   private void notifyResponseListeners(JsonObject response) {
+    synchronized (responseListenerList) {
+      if (responseListenerList.isEmpty()) {
+        return;
+      }
+    }
+    notifyResponseListeners(response.toString());
+  }
+
+  private void notifyResponseListeners(String response) {
     synchronized (responseListenerList) {
       List<ResponseListener> listeners = ImmutableList.copyOf(responseListenerList);
       for (ResponseListener listener : listeners) {
-        listener.onResponse(response.toString());
+        listener.onResponse(response);
       }
     }
   }
@@ -918,6 +937,16 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
     consumerMap.clear();
     requestSink = socket.getRequestSink();
     responseStream = socket.getResponseStream();
+    if (requestSink instanceof ByteRequestSink && responseStream instanceof ByteResponseStream) {
+      // error responses for superseded requests are processed by the response reader thread
+      final ByteResponseStream byteResponseStream = (ByteResponseStream)responseStream;
+      ((ByteRequestSink)requestSink).setSupersededResponseSink(new ResponseSink() {
+        @Override
+        public void add(JsonObject response) {
+          byteResponseStream.addResponse(response);
+        }
+      });
+    }
     errorStream = socket.getErrorStream();
     new ServerResponseReaderThread(responseStream).start();
     if (errorStream != null) {
@@ -1132,13 +1161,18 @@ public class RemoteAnalysisServerImpl implements AnalysisServer {
     public void run() {
       while (true) {
         try {
-          JsonObject response = stream.take();
+          Object response = stream.takeResponse();
           if (response == null) {
             return;
           }
           lastResponseTime.set(System.currentTimeMillis());
           try {
-            processResponse(response);
+            if (response instanceof DecodedNotification) {
+              processDecodedNotification((DecodedNotification)response);
+            }
+            else {
+              processResponse((JsonObject)response);
+            }
           }
           finally {
             stream.lastRequestProcessed();
@@ -30,4 +30,13 @@ public interface ResponseStream {
    * Takes the the next response from the stream. Blocks if no response available.
    */
   JsonObject take() throws Exception;
+
+  /**
+   * Takes the the next response from the stream. Blocks if no response available. The result is
+   * either a {@link JsonObject} or a {@link DecodedNotification}, or {@code null} at the end of the
+   * stream.
+   */
+  default Object takeResponse() throws Exception {
+    return take();
+  }
 }
@@ -0,0 +1,303 @@
+/*
+ * Copyright (c) 2014, the Dart project authors.
+ * 
+ * Licensed under the Eclipse Public License v1.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ * 
+ * http://www.eclipse.org/legal/epl-v10.html
+ * 
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package com.google.dart.server.internal.remote;
+
+import com.google.common.collect.Lists;
+import com.google.dart.server.AnalysisServerListener;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import org.dartlang.analysis.server.protocol.HighlightRegion;
+import org.dartlang.analysis.server.protocol.NavigationRegion;
+import org.dartlang.analysis.server.protocol.NavigationTarget;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes the largest and most frequent notifications ("analysis.highlights" and
+ * "analysis.navigation") from a JSON line directly into protocol objects using a streaming
+ * {@link JsonReader}. All other responses are left for the generic {@link com.google.gson.JsonParser}
+ * based processing.
+ *
+ * @coverage dart.server.remote
+ */
+public class StreamingNotificationDecoder {
+  private static final String ANALYSIS_NOTIFICATION_HIGHLIGHTS = "analysis.highlights";
+  private static final String ANALYSIS_NOTIFICATION_NAVIGATION = "analysis.navigation";
+
+  /**
+   * Returns the decoded notification, or {@code null} if the given line is not a notification that
+   * this decoder can handle. The "event" property is expected to be the first one, as the server
+   * always writes it.
+   *
+   * @throws IOException if the line is not a well-formed notification
+   */
+  public static DecodedNotification decode(final String line) throws IOException {
+    JsonReader reader = new JsonReader(new StringReader(line));
+    try {
+      reader.beginObject();
+      if (!reader.hasNext() || !"event".equals(reader.nextName()) || reader.peek() != JsonToken.STRING) {
+        return null;
+      }
+      String event = reader.nextString();
+      if (ANALYSIS_NOTIFICATION_HIGHLIGHTS.equals(event)) {
+        return decodeHighlights(line, reader);
+      }
+      if (ANALYSIS_NOTIFICATION_NAVIGATION.equals(event)) {
+        return decodeNavigation(line, reader);
+      }
+      return null;
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static DecodedNotification decodeHighlights(final String line, JsonReader reader) throws IOException {
+    String file = null;
+    List<HighlightRegion> regions = new ArrayList<HighlightRegion>();
+    if (!enterParams(reader)) {
+      return null;
+    }
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if ("file".equals(name)) {
+        file = reader.nextString();
+      }
+      else if ("regions".equals(name)) {
+        regions = readHighlightRegions(reader);
+      }
+      else {
+        reader.skipValue();
+      }
+    }
+    if (file == null) {
+      throw new IOException("'file' expected in " + ANALYSIS_NOTIFICATION_HIGHLIGHTS);
+    }
+    final String finalFile = file;
+    final List<HighlightRegion> finalRegions = regions;
+    return new DecodedNotification() {
+      @Override
+      public String getLine() {
+        return line;
+      }
+
+      @Override
+      public void dispatch(AnalysisServerListener listener) {
+        listener.computedHighlights(finalFile, finalRegions);
+      }
+    };
+  }
+
+  private static DecodedNotification decodeNavigation(final String line, JsonReader reader) throws IOException {
+    String file = null;
+    List<NavigationRegion> regions = new ArrayList<NavigationRegion>();
+    List<NavigationTarget> targets = new ArrayList<NavigationTarget>();
+    String[] targetFiles = new String[0];
+    if (!enterParams(reader)) {
+      return null;
+    }
+    while (reader.hasNext()) {
+      String name = reader.nextName();
+      if ("file".equals(name)) {
+        file = reader.nextString();
+      }
+      else if ("regions".equals(name)) {
+        regions = readNavigationRegions(reader);
+      }
+      else if ("targets".equals(name)) {
+        targets = readNavigationTargets(reader);
+      }
+      else if ("files".equals(name)) {
+        targetFiles = readStringArray(reader);
+      }
+      else {
+        reader.skipValue();
+      }
+    }
+    if (file == null) {
+      throw new IOException("'file' expected in " + ANALYSIS_NOTIFICATION_NAVIGATION);
+    }
+    for (NavigationTarget target : targets) {
+      target.lookupFile(targetFiles);
+    }
+    for (NavigationRegion region : regions) {
+      region.lookupTargets(targets);
+    }
+    final String finalFile = file;
+    final List<NavigationRegion> finalRegions = regions;
+    return new DecodedNotification() {
+      @Override
+      public String getLine() {
+        return line;
+      }
+
+      @Override
+      public void dispatch(AnalysisServerListener listener) {
+        listener.computedNavigation(finalFile, finalRegions);
+      }
+    };
+  }
+
+  /**
+   * Skips everything up to the "params" object and enters it. Returns {@code false} if there is no
+   * "params" object.
+   */
+  private static boolean enterParams(JsonReader reader) throws IOException {
+    while (reader.hasNext()) {
+      if ("params".equals(reader.nextName()) && reader.peek() == JsonToken.BEGIN_OBJECT) {
+        reader.beginObject();
+        return true;
+      }
+      reader.skipValue();
+    }
+    return false;
+  }
+
+  private static List<HighlightRegion> readHighlightRegions(JsonReader reader) throws IOException {
+    List<HighlightRegion> result = new ArrayList<HighlightRegion>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      String type = null;
+      int offset = 0;
+      int length = 0;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("type".equals(name)) {
+          type = reader.nextString();
+        }
+        else if ("offset".equals(name)) {
+          offset = reader.nextInt();
+        }
+        else if ("length".equals(name)) {
+          length = reader.nextInt();
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      result.add(new HighlightRegion(type, offset, length));
+    }
+    reader.endArray();
+    return result;
+  }
+
+  private static List<NavigationRegion> readNavigationRegions(JsonReader reader) throws IOException {
+    List<NavigationRegion> result = new ArrayList<NavigationRegion>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      int offset = 0;
+      int length = 0;
+      int[] targets = new int[0];
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("offset".equals(name)) {
+          offset = reader.nextInt();
+        }
+        else if ("length".equals(name)) {
+          length = reader.nextInt();
+        }
+        else if ("targets".equals(name)) {
+          targets = readIntArray(reader);
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      result.add(new NavigationRegion(offset, length, targets));
+    }
+    reader.endArray();
+    return result;
+  }
+
+  private static List<NavigationTarget> readNavigationTargets(JsonReader reader) throws IOException {
+    List<NavigationTarget> result = new ArrayList<NavigationTarget>();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      String kind = null;
+      int fileIndex = 0;
+      int offset = 0;
+      int length = 0;
+      int startLine = 0;
+      int startColumn = 0;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if ("kind".equals(name)) {
+          kind = reader.nextString();
+        }
+        else if ("fileIndex".equals(name)) {
+          fileIndex = reader.nextInt();
+        }
+        else if ("offset".equals(name)) {
+          offset = reader.nextInt();
+        }
+        else if ("length".equals(name)) {
+          length = reader.nextInt();
+        }
+        else if ("startLine".equals(name)) {
+          startLine = reader.nextInt();
+        }
+        else if ("startColumn".equals(name)) {
+          startColumn = reader.nextInt();
+        }
+        else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+      result.add(new NavigationTarget(kind, fileIndex, offset, length, startLine, startColumn));
+    }
+    reader.endArray();
+    return result;
+  }
+
+  private static int[] readIntArray(JsonReader reader) throws IOException {
+    int[] result = new int[4];
+    int size = 0;
+    reader.beginArray();
+    while (reader.hasNext()) {
+      if (size == result.length) {
+        int[] newResult = new int[size * 2];
+        System.arraycopy(result, 0, newResult, 0, size);
+        result = newResult;
+      }
+      result[size++] = reader.nextInt();
+    }
+    reader.endArray();
+    if (size == result.length) {
+      return result;
+    }
+    int[] trimmed = new int[size];
+    System.arraycopy(result, 0, trimmed, 0, size);
+    return trimmed;
+  }
+
+  private static String[] readStringArray(JsonReader reader) throws IOException {
+    List<String> result = Lists.newArrayList();
+    reader.beginArray();
+    while (reader.hasNext()) {
+      result.add(reader.nextString());
+    }
+    reader.endArray();
+    return result.toArray(new String[result.size()]);
+  }
+}
@@ -1112,7 +1112,7 @@ public class RequestUtilities {
   /**
    * Returns the request method, or {@code null}.
    */
-  private static String getRequestMethod(JsonObject request) {
+  public static String getRequestMethod(JsonObject request) {
     JsonElement child = request.get(METHOD);
     if (child instanceof JsonPrimitive) {
       return child.getAsString();
@@ -1120,6 +1120,13 @@ public class RequestUtilities {
     return null;
   }
 
+  /**
+   * Returns the parameters of the given request, or {@code null}.
+   */
+  public static JsonElement getRequestParams(JsonObject request) {
+    return request.get(PARAMS);
+  }
+
   private RequestUtilities() {
   }
 }
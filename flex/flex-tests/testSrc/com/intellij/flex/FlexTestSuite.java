@@ -25,6 +25,9 @@ import com.intellij.flex.refactoring.*;
 import com.intellij.flex.resolver.ActionScriptResolveTest;
 import com.intellij.flex.resolver.FlexCssNavigationTest;
 import com.intellij.flex.uml.FlashUmlTest;
+import com.intellij.jps.flex.build.FlexBuildStateTest;
+import com.intellij.jps.flex.build.JpsBuiltInFlexCompilerPoolTest;
+import com.intellij.lang.javascript.flex.debug.FdbOutputBufferTest;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 
@@ -136,6 +139,13 @@ public class FlexTestSuite {
     //com.intellij.flex.uml.*
     testSuite.addTestSuite(FlashUmlTest.class);
 
+    //com.intellij.jps.flex.build.*
+    testSuite.addTestSuite(JpsBuiltInFlexCompilerPoolTest.class);
+    testSuite.addTestSuite(FlexBuildStateTest.class);
+
+    //com.intellij.lang.javascript.flex.debug.*
+    testSuite.addTestSuite(FdbOutputBufferTest.class);
+
     return testSuite;
   }
 }
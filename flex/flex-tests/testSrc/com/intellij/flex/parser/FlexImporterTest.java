@@ -2,9 +2,12 @@
 package com.intellij.flex.parser;
 
 import com.intellij.flex.util.FlexTestUtils;
+import com.intellij.javascript.flex.compiled.SwfInterfaceCache;
 import com.intellij.lang.javascript.flex.importer.FlexImporter;
+import com.intellij.openapi.util.ThrowableComputable;
 import com.intellij.openapi.util.io.FileUtil;
 import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.testFramework.PlatformTestUtil;
 import junit.framework.TestCase;
 
 import java.io.ByteArrayInputStream;
@@ -12,6 +15,10 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -69,21 +76,104 @@ public class FlexImporterTest extends TestCase {
     doTestFor("hotbook.swf");
   }
 
+  public final void testTruncatedSwf() throws Exception {
+    final byte[] contents = FileUtil.loadFileBytes(new File(getTestDataPath() + "employeedirectory.swf"));
+    final byte[] truncated = Arrays.copyOf(contents, contents.length / 2);
+    assertEquals("/* Unexpected end of ZLIB input stream */", FlexImporter.buildInterface(truncated));
+  }
+
+  public final void testSdkLibrariesPerformance() throws Exception {
+    final List<byte[]> libraries = new ArrayList<>();
+    FileUtil.processFilesRecursively(new File(FlexTestUtils.getPathToCompleteFlexSdk("4.5") + "/frameworks/libs"), file -> {
+      if (file.getName().endsWith(".swc")) {
+        try {
+          libraries.add(loadLibrarySwf(file));
+        }
+        catch (IOException e) {
+          throw new RuntimeException(e);
+        }
+      }
+      return true;
+    });
+    assertFalse(libraries.isEmpty());
+
+    PlatformTestUtil.startPerformanceTest("SWF interfaces of Flex SDK libraries", 5_000, () -> {
+      for (byte[] library : libraries) {
+        assertFalse(FlexImporter.buildInterface(library).startsWith("/*"));
+      }
+    }).assertTiming();
+  }
+
+  public final void testInterfaceCache() throws Exception {
+    final File cacheRoot = FileUtil.createTempDirectory("swf-interfaces", null);
+    try {
+      final File staleVersionDir = new File(cacheRoot, "v0.0");
+      assertTrue(staleVersionDir.mkdirs());
+
+      final byte[] contents = FileUtil.loadFileBytes(new File(getTestDataPath() + "employeedirectory.swf"));
+      final String expected = FlexImporter.buildInterfaceFromStream(new ByteArrayInputStream(contents));
+
+      assertEquals(expected, new SwfInterfaceCache(cacheRoot).getInterface(contents));
+      assertFalse(staleVersionDir.exists());
+
+      final File[] versionDirs = cacheRoot.listFiles();
+      assertEquals(1, versionDirs.length);
+      assertEquals(1, versionDirs[0].list().length);
+
+      // a new instance reads the entry from disk
+      assertEquals(expected, new SwfInterfaceCache(cacheRoot).getInterface(contents));
+      assertEquals(1, versionDirs[0].list().length);
+    }
+    finally {
+      FileUtil.delete(cacheRoot);
+    }
+  }
+
+  public final void testPrepareInterfaces() throws Exception {
+    final File cacheRoot = FileUtil.createTempDirectory("swf-interfaces", null);
+    try {
+      final File swf = new File(getTestDataPath() + "employeedirectory.swf");
+      final File assets = new File(getTestDataPath() + "Assets.swf");
+      final List<ThrowableComputable<byte[], IOException>> contents =
+        Arrays.asList(() -> FileUtil.loadFileBytes(swf), () -> FileUtil.loadFileBytes(assets), () -> FileUtil.loadFileBytes(swf));
+
+      final SwfInterfaceCache cache = new SwfInterfaceCache(cacheRoot);
+      for (Future<?> future : cache.prepareInterfaces(contents)) {
+        future.get();
+      }
+
+      final File[] versionDirs = cacheRoot.listFiles();
+      assertEquals(1, versionDirs.length);
+      assertEquals(2, versionDirs[0].list().length);
+      assertEquals(FlexImporter.buildInterfaceFromStream(new ByteArrayInputStream(FileUtil.loadFileBytes(assets))),
+                   cache.getInterface(FileUtil.loadFileBytes(assets)));
+    }
+    finally {
+      FileUtil.delete(cacheRoot);
+    }
+  }
+
+  public final void testInterfaceCacheSkipsFailures() throws Exception {
+    final File cacheRoot = FileUtil.createTempDirectory("swf-interfaces", null);
+    try {
+      final byte[] contents = FileUtil.loadFileBytes(new File(getTestDataPath() + "employeedirectory.swf"));
+      final byte[] truncated = Arrays.copyOf(contents, contents.length / 2);
+
+      assertTrue(new SwfInterfaceCache(cacheRoot).getInterface(truncated).startsWith("/*"));
+      final File[] versionDirs = cacheRoot.listFiles();
+      assertTrue(versionDirs == null || versionDirs.length == 0 || versionDirs[0].list().length == 0);
+    }
+    finally {
+      FileUtil.delete(cacheRoot);
+    }
+  }
+
   private void doTestFor(final String fileName) throws IOException {
     final File file = new File(getTestDataPath() + fileName);
     final byte[] contents;
 
     if (file.getName().endsWith(".swc")) {
-      final ZipFile zipFile = new ZipFile(file);
-      try {
-        final ZipEntry zipEntry = zipFile.getEntry("library.swf");
-        final InputStream inputStream = zipFile.getInputStream(zipEntry);
-        contents = FileUtil.loadBytes(inputStream, (int)zipEntry.getSize());
-        inputStream.close();
-      }
-      finally {
-        zipFile.close();
-      }
+      contents = loadLibrarySwf(file);
     }
     else {
       contents = FileUtil.loadFileBytes(file);
@@ -114,6 +204,20 @@ public class FlexImporterTest extends TestCase {
     }
   }
 
+  private static byte[] loadLibrarySwf(final File swc) throws IOException {
+    final ZipFile zipFile = new ZipFile(swc);
+    try {
+      final ZipEntry zipEntry = zipFile.getEntry("library.swf");
+      final InputStream inputStream = zipFile.getInputStream(zipEntry);
+      final byte[] contents = FileUtil.loadBytes(inputStream, (int)zipEntry.getSize());
+      inputStream.close();
+      return contents;
+    }
+    finally {
+      zipFile.close();
+    }
+  }
+
   public static String getTestDataPath() {
     return FlexTestUtils.getTestDataPath("flex_importer") + "/";
   }
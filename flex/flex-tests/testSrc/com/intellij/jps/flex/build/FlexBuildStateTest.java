@@ -0,0 +1,157 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.jps.flex.build;
+
+import com.intellij.openapi.util.io.FileUtil;
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class FlexBuildStateTest extends TestCase {
+  private File myDir;
+  private File myStateFile;
+  private File mySources;
+  private File myOutput;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    myDir = FileUtil.createTempDirectory("flex-build-state", null);
+    myStateFile = new File(myDir, "state/flex-build-state.dat");
+    mySources = new File(myDir, "src");
+    myOutput = new File(myDir, "out/Main.swf");
+    FileUtil.writeToFile(new File(mySources, "Main.as"), "package { public class Main {} }");
+    FileUtil.writeToFile(new File(mySources, "foo/Foo.as"), "package foo { public class Foo {} }");
+    FileUtil.writeToFile(myOutput, "swf");
+  }
+
+  @Override
+  protected void tearDown() throws Exception {
+    try {
+      FileUtil.delete(myDir);
+    }
+    finally {
+      super.tearDown();
+    }
+  }
+
+  public void testNoStateIsNotUpToDate() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    assertFalse(state.isUpToDate(computeDigest(state), outputs()));
+  }
+
+  public void testSavedStateIsUpToDateAfterReload() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    state.save(digest, outputs());
+
+    final FlexBuildState reloaded = FlexBuildState.load(myStateFile);
+    assertEquals(digest, computeDigest(reloaded));
+    assertTrue(reloaded.isUpToDate(digest, outputs()));
+  }
+
+  public void testTouchedFileWithSameContent() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    state.save(digest, outputs());
+
+    final File main = new File(mySources, "Main.as");
+    assertTrue(main.setLastModified(main.lastModified() + 10_000));
+    final FlexBuildState reloaded = FlexBuildState.load(myStateFile);
+    assertTrue(reloaded.isUpToDate(computeDigest(reloaded), outputs()));
+  }
+
+  public void testChangedContent() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    state.save(computeDigest(state), outputs());
+
+    FileUtil.writeToFile(new File(mySources, "foo/Foo.as"), "package foo { public class Foo { public var bar:int; } }");
+    final FlexBuildState reloaded = FlexBuildState.load(myStateFile);
+    assertFalse(reloaded.isUpToDate(computeDigest(reloaded), outputs()));
+  }
+
+  public void testAddedAndRemovedFiles() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    state.save(digest, outputs());
+
+    final File bar = new File(mySources, "foo/Bar.as");
+    FileUtil.writeToFile(bar, "package foo { public class Bar {} }");
+    assertFalse(state.isUpToDate(computeDigest(state), outputs()));
+
+    FileUtil.delete(bar);
+    assertTrue(state.isUpToDate(computeDigest(state), outputs()));
+
+    FileUtil.delete(new File(mySources, "Main.as"));
+    assertFalse(state.isUpToDate(computeDigest(state), outputs()));
+  }
+
+  public void testChangedString() {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final FlexBuildState.InputsDigest first = state.newInputsDigest();
+    first.addString("-debug=true");
+    final FlexBuildState.InputsDigest second = state.newInputsDigest();
+    second.addString("-debug=false");
+    assertFalse(first.getDigest().equals(second.getDigest()));
+  }
+
+  public void testDeletedOrChangedOutput() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    state.save(digest, outputs());
+
+    FileUtil.writeToFile(myOutput, "truncated swf");
+    assertFalse(state.isUpToDate(digest, outputs()));
+
+    FileUtil.delete(myOutput);
+    assertFalse(state.isUpToDate(digest, outputs()));
+  }
+
+  public void testOtherOutputs() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    state.save(digest, outputs());
+
+    final File rlm = new File(myDir, "out/Module.swf");
+    FileUtil.writeToFile(rlm, "rlm");
+    assertFalse(state.isUpToDate(digest, Arrays.asList(myOutput, rlm)));
+  }
+
+  public void testFailedCompilationIsNotUpToDate() throws IOException {
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    state.save(digest, outputs());
+    // the builder forgets the state before the compilation starts
+    state.save(null, outputs());
+
+    assertFalse(FlexBuildState.load(myStateFile).isUpToDate(digest, outputs()));
+    assertFalse(state.isUpToDate(null, outputs()));
+  }
+
+  public void testCorruptedStateFile() throws IOException {
+    FileUtil.writeToFile(myStateFile, "garbage");
+    final FlexBuildState state = FlexBuildState.load(myStateFile);
+    final String digest = computeDigest(state);
+    assertFalse(state.isUpToDate(digest, outputs()));
+
+    state.save(digest, outputs());
+    assertTrue(FlexBuildState.load(myStateFile).isUpToDate(digest, outputs()));
+  }
+
+  @NotNull
+  private String computeDigest(@NotNull final FlexBuildState state) throws IOException {
+    final FlexBuildState.InputsDigest digest = state.newInputsDigest();
+    digest.addFile(mySources, file -> file.isDirectory() || file.getName().endsWith(".as"));
+    digest.addString("-debug=true");
+    return digest.getDigest();
+  }
+
+  @NotNull
+  private List<File> outputs() {
+    return Collections.singletonList(myOutput);
+  }
+}
@@ -0,0 +1,91 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.jps.flex.build;
+
+import junit.framework.TestCase;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.model.JpsElementFactory;
+import org.jetbrains.jps.model.JpsProject;
+
+public class JpsBuiltInFlexCompilerPoolTest extends TestCase {
+  private final JpsProject myProject = JpsElementFactory.getInstance().createModel().getProject();
+
+  public void testLeastLoadedDaemonIsShared() {
+    final JpsBuiltInFlexCompilerPool pool = new TestPool(2, 2, true);
+    final JpsBuiltInFlexCompilerHandler first = pool.acquire("sdk", myProject);
+    assertSame(first, pool.acquire("sdk", myProject));
+
+    // the first daemon is fully loaded
+    final JpsBuiltInFlexCompilerHandler second = pool.acquire("sdk", myProject);
+    assertNotSame(first, second);
+    assertSame(second, pool.acquire("sdk", myProject));
+
+    // the limit is reached, the least loaded daemon takes more compilations
+    pool.release(first);
+    assertSame(first, pool.acquire("sdk", myProject));
+    assertSame(first, pool.acquire("sdk", myProject));
+  }
+
+  public void testDaemonsAreNotSharedBetweenSdks() {
+    final JpsBuiltInFlexCompilerPool pool = new TestPool(2, 2, true);
+    assertNotSame(pool.acquire("sdk1", myProject), pool.acquire("sdk2", myProject));
+  }
+
+  public void testUsedDaemonsKeptBetweenBuilds() {
+    final JpsBuiltInFlexCompilerPool pool = new TestPool(2, 2, true);
+    pool.buildStarted();
+    final TestHandler used = (TestHandler)pool.acquire("sdk1", myProject);
+    final TestHandler unused = (TestHandler)pool.acquire("sdk2", myProject);
+    pool.release(used);
+    pool.release(unused);
+    pool.buildFinished();
+    assertEquals(0, used.myStopCount);
+    assertEquals(0, unused.myStopCount);
+
+    pool.buildStarted();
+    assertSame(used, pool.acquire("sdk1", myProject));
+    pool.release(used);
+    pool.buildFinished();
+    assertEquals(0, used.myStopCount);
+    assertEquals(1, unused.myStopCount);
+
+    assertNotSame(unused, pool.acquire("sdk2", myProject));
+  }
+
+  public void testAllDaemonsStoppedIfNotKept() {
+    final JpsBuiltInFlexCompilerPool pool = new TestPool(2, 2, false);
+    pool.buildStarted();
+    final TestHandler handler = (TestHandler)pool.acquire("sdk", myProject);
+    pool.release(handler);
+    pool.buildFinished();
+    assertEquals(1, handler.myStopCount);
+
+    pool.buildStarted();
+    assertNotSame(handler, pool.acquire("sdk", myProject));
+  }
+
+  private static class TestPool extends JpsBuiltInFlexCompilerPool {
+    TestPool(int maxDaemons, int bcsPerDaemon, boolean keepDaemonsBetweenBuilds) {
+      super(maxDaemons, bcsPerDaemon, keepDaemonsBetweenBuilds);
+    }
+
+    @NotNull
+    @Override
+    JpsBuiltInFlexCompilerHandler createHandler(@NotNull JpsProject project) {
+      return new TestHandler(project);
+    }
+  }
+
+  private static class TestHandler extends JpsBuiltInFlexCompilerHandler {
+    private int myStopCount;
+
+    TestHandler(JpsProject project) {
+      super(project);
+    }
+
+    @Override
+    public synchronized void stopCompilerProcess() {
+      myStopCount++;
+      super.stopCompilerProcess();
+    }
+  }
+}
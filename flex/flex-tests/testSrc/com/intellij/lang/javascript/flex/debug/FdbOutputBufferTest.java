@@ -0,0 +1,48 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.lang.javascript.flex.debug;
+
+import junit.framework.TestCase;
+
+public class FdbOutputBufferTest extends TestCase {
+
+  public void testWrapAround() {
+    final FdbOutputBuffer buffer = new FdbOutputBuffer(8);
+    append(buffer, "abcdef");
+    assertEquals("abcd", buffer.consume(4, 0));
+
+    // the end of the text is stored at the beginning of the array
+    append(buffer, "ghijk");
+    assertEquals(7, buffer.length());
+    assertEquals(3, buffer.indexOf("hij", 0));
+    assertEquals(-1, buffer.indexOf("ef", 1));
+    assertEquals("efg", buffer.consume(3, 1));
+    assertEquals("ijk", buffer.consume(3, 0));
+    assertEquals(0, buffer.length());
+  }
+
+  public void testGrowth() {
+    final FdbOutputBuffer buffer = new FdbOutputBuffer(4);
+    append(buffer, "abc");
+    assertEquals("ab", buffer.consume(2, 0));
+    append(buffer, "defghij");
+    assertEquals(8, buffer.length());
+    assertEquals(7, buffer.indexOf("j", 0));
+    assertEquals("cdefghij", buffer.consume(8, 0));
+  }
+
+  public void testBlank() {
+    final FdbOutputBuffer buffer = new FdbOutputBuffer(4);
+    assertTrue(buffer.isBlank());
+    append(buffer, "  x");
+    assertFalse(buffer.isBlank());
+    buffer.consume(0, 3);
+    append(buffer, "   ");
+    assertTrue(buffer.isBlank());
+    buffer.clear();
+    assertEquals(0, buffer.length());
+  }
+
+  private static void append(FdbOutputBuffer buffer, String text) {
+    buffer.append(text.toCharArray(), 0, text.length());
+  }
+}
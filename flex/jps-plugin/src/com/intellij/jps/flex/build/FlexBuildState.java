@@ -0,0 +1,227 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.jps.flex.build;
+
+import com.intellij.flex.build.FlexBuildTarget;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.jps.incremental.CompileContext;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Persistent state of a {@link FlexBuildTarget}: digest of all compilation inputs (sources, SWCs, generated compiler configuration
+ * files, compiler options) of the last successful compilation and the resulting output files. It lets the builder skip compilation
+ * when files were touched but their content didn't change, e.g. after switching VCS branches back and forth.
+ * Content hashes of the input files are cached by file length and timestamp, so unchanged files are not read again.
+ */
+final class FlexBuildState {
+  private static final Logger LOG = Logger.getInstance(FlexBuildState.class.getName());
+
+  private static final String STATE_FILE_NAME = "flex-build-state.dat";
+  private static final int VERSION = 1;
+
+  @NotNull private final File myStateFile;
+  @Nullable private String myInputsDigest;
+  // output file path -> length
+  private final Map<String, Long> myOutputs = new THashMap<>();
+  private final Map<String, FileHash> myFileHashes = new THashMap<>();
+  private final Set<String> myUsedFileHashes = new THashSet<>();
+
+  private FlexBuildState(@NotNull final File stateFile) {
+    myStateFile = stateFile;
+  }
+
+  @NotNull
+  static FlexBuildState load(@NotNull final CompileContext context, @NotNull final FlexBuildTarget target) {
+    final File dataRoot = context.getProjectDescriptor().dataManager.getDataPaths().getTargetDataRoot(target);
+    return load(new File(dataRoot, STATE_FILE_NAME));
+  }
+
+  @NotNull
+  static FlexBuildState load(@NotNull final File stateFile) {
+    final FlexBuildState state = new FlexBuildState(stateFile);
+    if (!state.myStateFile.isFile()) return state;
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(state.myStateFile)))) {
+      if (in.readInt() != VERSION) return state;
+
+      state.myInputsDigest = in.readBoolean() ? in.readUTF() : null;
+
+      for (int i = in.readInt(); i > 0; i--) {
+        state.myOutputs.put(in.readUTF(), in.readLong());
+      }
+
+      for (int i = in.readInt(); i > 0; i--) {
+        final String path = in.readUTF();
+        state.myFileHashes.put(path, new FileHash(in.readLong(), in.readLong(), in.readUTF()));
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Failed to load " + state.myStateFile.getPath() + ": " + e.getMessage());
+      state.myInputsDigest = null;
+      state.myOutputs.clear();
+      state.myFileHashes.clear();
+    }
+
+    return state;
+  }
+
+  /**
+   * @return {@code true} if the inputs digest is the same as at the last successful compilation and its output files are still there
+   */
+  boolean isUpToDate(@Nullable final String inputsDigest, @NotNull final Collection<File> outputFiles) {
+    if (inputsDigest == null || !inputsDigest.equals(myInputsDigest) || myOutputs.size() != outputFiles.size()) return false;
+
+    for (File outputFile : outputFiles) {
+      final Long length = myOutputs.get(FileUtil.toSystemIndependentName(outputFile.getPath()));
+      if (length == null || !outputFile.isFile() || outputFile.length() != length) return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param inputsDigest {@code null} if the compilation failed or was cancelled
+   */
+  void save(@Nullable final String inputsDigest, @NotNull final Collection<File> outputFiles) {
+    myInputsDigest = inputsDigest;
+    myOutputs.clear();
+    if (inputsDigest != null) {
+      for (File outputFile : outputFiles) {
+        myOutputs.put(FileUtil.toSystemIndependentName(outputFile.getPath()), outputFile.length());
+      }
+    }
+    // hashes of the files that are not inputs anymore are dropped
+    myFileHashes.keySet().retainAll(myUsedFileHashes);
+
+    if (!FileUtil.createParentDirs(myStateFile)) {
+      LOG.info("Failed to create folder for " + myStateFile.getPath());
+      return;
+    }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(myStateFile)))) {
+      out.writeInt(VERSION);
+
+      out.writeBoolean(myInputsDigest != null);
+      if (myInputsDigest != null) {
+        out.writeUTF(myInputsDigest);
+      }
+
+      out.writeInt(myOutputs.size());
+      for (Map.Entry<String, Long> entry : myOutputs.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeLong(entry.getValue());
+      }
+
+      out.writeInt(myFileHashes.size());
+      for (Map.Entry<String, FileHash> entry : myFileHashes.entrySet()) {
+        out.writeUTF(entry.getKey());
+        out.writeLong(entry.getValue().myLength);
+        out.writeLong(entry.getValue().myTimestamp);
+        out.writeUTF(entry.getValue().myHash);
+      }
+    }
+    catch (IOException e) {
+      LOG.info("Failed to save " + myStateFile.getPath() + ": " + e.getMessage());
+      FileUtil.delete(myStateFile);
+    }
+  }
+
+  @NotNull
+  InputsDigest newInputsDigest() {
+    return new InputsDigest();
+  }
+
+  @NotNull
+  private static MessageDigest createMessageDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  @NotNull
+  private String getContentHash(@NotNull final File file) throws IOException {
+    final String path = FileUtil.toSystemIndependentName(file.getPath());
+    myUsedFileHashes.add(path);
+
+    final long length = file.length();
+    final long timestamp = file.lastModified();
+    final FileHash cached = myFileHashes.get(path);
+    if (cached != null && cached.myLength == length && cached.myTimestamp == timestamp) {
+      return cached.myHash;
+    }
+
+    final MessageDigest digest = createMessageDigest();
+    try (InputStream in = new FileInputStream(file)) {
+      final byte[] buffer = new byte[64 * 1024];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        digest.update(buffer, 0, read);
+      }
+    }
+
+    final String hash = StringUtil.toHexString(digest.digest());
+    myFileHashes.put(path, new FileHash(length, timestamp, hash));
+    return hash;
+  }
+
+  final class InputsDigest {
+    private final MessageDigest myDigest = createMessageDigest();
+
+    void addString(@Nullable final String value) {
+      final String s = StringUtil.notNullize(value);
+      myDigest.update(s.getBytes(StandardCharsets.UTF_8));
+      myDigest.update((byte)0);
+    }
+
+    /**
+     * Adds the file or, if it is a folder, all files and folders inside it that match the filter. A missing file is also a part of
+     * the state.
+     */
+    void addFile(@NotNull final File file, @NotNull final FileFilter filter) throws IOException {
+      if (file.isDirectory()) {
+        final File[] children = file.listFiles();
+        if (children == null) return;
+
+        Arrays.sort(children, Comparator.comparing(File::getName));
+        for (File child : children) {
+          if (filter.accept(child)) {
+            addFile(child, filter);
+          }
+        }
+      }
+      else {
+        addString(FileUtil.toSystemIndependentName(file.getPath()));
+        addString(file.isFile() ? getContentHash(file) : "<missing>");
+      }
+    }
+
+    @NotNull
+    String getDigest() {
+      return StringUtil.toHexString(myDigest.digest());
+    }
+  }
+
+  private static final class FileHash {
+    private final long myLength;
+    private final long myTimestamp;
+    @NotNull private final String myHash;
+
+    private FileHash(final long length, final long timestamp, @NotNull final String hash) {
+      myLength = length;
+      myTimestamp = timestamp;
+      myHash = hash;
+    }
+  }
+}
@@ -20,7 +20,9 @@ import com.intellij.openapi.util.io.FileUtilRt;
 import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.util.PathUtilRt;
 import com.intellij.util.concurrency.Semaphore;
+import gnu.trove.THashMap;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.jps.builders.BuildOutputConsumer;
 import org.jetbrains.jps.builders.BuildRootDescriptor;
 import org.jetbrains.jps.builders.DirtyFilesHolder;
@@ -38,16 +40,18 @@ import org.jetbrains.jps.model.library.sdk.JpsSdk;
 import org.jetbrains.jps.model.module.JpsModule;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTarget> {
 
   private static final Logger LOG = Logger.getInstance(FlexBuilder.class.getName());
-  private JpsBuiltInFlexCompilerHandler myBuiltInCompilerHandler;
+  private final JpsBuiltInFlexCompilerPool myBuiltInCompilerPool = new JpsBuiltInFlexCompilerPool();
 
   private enum Status {Ok, Failed, Cancelled}
 
@@ -64,15 +68,14 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
   @Override
   public void buildStarted(final CompileContext context) {
     super.buildStarted(context);
-    myBuiltInCompilerHandler = new JpsBuiltInFlexCompilerHandler(context.getProjectDescriptor().getProject());
+    myBuiltInCompilerPool.buildStarted();
   }
 
   @Override
   public void buildFinished(final CompileContext context) {
-    LOG.assertTrue(myBuiltInCompilerHandler.getActiveCompilationsNumber() == 0,
-                   myBuiltInCompilerHandler.getActiveCompilationsNumber() + " Flex compilation(s) are not finished!");
-    myBuiltInCompilerHandler.stopCompilerProcess();
-    myBuiltInCompilerHandler = null;
+    final int activeCompilations = myBuiltInCompilerPool.getActiveCompilationsNumber();
+    LOG.assertTrue(activeCompilations == 0, activeCompilations + " Flex compilation(s) are not finished!");
+    myBuiltInCompilerPool.buildFinished();
 
     FlexCommonUtils.deleteTempFlexConfigFiles(context.getProjectDescriptor().getProject().getName());
 
@@ -135,8 +138,35 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
       }
     }
 
+    final List<File> outputFiles = new ArrayList<>(bcsToCompile.size());
     for (JpsFlexBuildConfiguration bc : bcsToCompile) {
-      final Status status = compileBuildConfiguration(context, bc, myBuiltInCompilerHandler);
+      outputFiles.add(new File(bc.getActualOutputFilePath()));
+    }
+
+    // FlexUnit BCs have generated launcher sources, the build state doesn't track them
+    final FlexBuildState buildState = FlexCommonUtils.isFlexUnitBC(mainBC) ? null : FlexBuildState.load(context, buildTarget);
+    // config files generated for the digest are reused for the compilation
+    final Map<JpsFlexBuildConfiguration, List<File>> bcToConfigFiles = new THashMap<>();
+    final String inputsDigest =
+      buildState == null ? null : computeInputsDigest(context, buildTarget, bcsToCompile, buildState, bcToConfigFiles);
+
+    if (buildState != null && !context.getScope().isBuildForced(buildTarget) && buildState.isUpToDate(inputsDigest, outputFiles)) {
+      LOG.debug(buildTarget.getId() + ": content of the inputs is the same as at the last successful compilation, skipping");
+      outputConsumer.registerOutputFile(new File(mainBC.getActualOutputFilePath()), dirtyFilePaths);
+      // the build state tracks only the SWFs; HTML wrapper, copied resources and packaging are regenerated if needed
+      for (JpsFlexBuildConfiguration bc : bcsToCompile) {
+        FlexBuilderUtils.performPostCompileActions(context, bc, dirtyFilePaths, outputConsumer);
+      }
+      return;
+    }
+
+    if (buildState != null) {
+      // forget the previous state in case the compilation fails or the build process is killed
+      buildState.save(null, outputFiles);
+    }
+
+    for (JpsFlexBuildConfiguration bc : bcsToCompile) {
+      final Status status = compileBuildConfiguration(context, bc, bcToConfigFiles.get(bc), myBuiltInCompilerPool);
 
       switch (status) {
         case Ok:
@@ -162,6 +192,61 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
           return;
       }
     }
+
+    if (buildState != null && inputsDigest != null) {
+      buildState.save(inputsDigest, outputFiles);
+    }
+  }
+
+  /**
+   * @return digest of the content of everything that affects the compilation result, or {@code null} if it can't be calculated
+   */
+  @Nullable
+  private static String computeInputsDigest(@NotNull final CompileContext context,
+                                            @NotNull final FlexBuildTarget buildTarget,
+                                            @NotNull final List<JpsFlexBuildConfiguration> bcsToCompile,
+                                            @NotNull final FlexBuildState buildState,
+                                            @NotNull final Map<JpsFlexBuildConfiguration, List<File>> bcToConfigFiles) {
+    final ProjectDescriptor projectDescriptor = context.getProjectDescriptor();
+    final FlexBuildState.InputsDigest digest = buildState.newInputsDigest();
+
+    try {
+      for (BuildRootDescriptor root : projectDescriptor.getBuildRootIndex().getTargetRoots(buildTarget, context)) {
+        final FileFilter rootFilter = root.createFileFilter();
+        digest.addFile(root.getRootFile(), file -> !projectDescriptor.getIgnoredFileIndex().isIgnored(file.getName()) &&
+                                                   !projectDescriptor.getModuleExcludeIndex().isExcluded(file) &&
+                                                   (file.isDirectory() || rootFilter.accept(file)));
+      }
+
+      for (JpsFlexBuildConfiguration bc : bcsToCompile) {
+        final JpsSdk<?> sdk = bc.getSdk();
+        digest.addString(sdk == null ? null : sdk.getHomePath());
+        digest.addString(sdk == null ? null : sdk.getVersionString());
+        digest.addString(bc.getActualOutputFilePath());
+
+        // generated configuration files contain compiler options, source paths and libraries
+        final List<File> configFiles = createConfigFiles(bc, projectDescriptor);
+        bcToConfigFiles.put(bc, configFiles);
+        for (File configFile : configFiles) {
+          digest.addFile(configFile, file -> true);
+        }
+
+        final List<String> command = buildCommand(Collections.emptyList(), Collections.emptyList(), bc);
+        for (String s : command) {
+          digest.addString(s);
+        }
+      }
+
+      final JpsFlexCompilerProjectExtension compilerSettings = JpsFlexCompilerProjectExtension.getInstance(projectDescriptor.getProject());
+      digest.addString(String.valueOf(compilerSettings.USE_BUILT_IN_COMPILER));
+      digest.addString(String.valueOf(compilerSettings.PREFER_ASC_20));
+    }
+    catch (IOException e) {
+      LOG.debug(buildTarget.getId() + ": failed to calculate inputs digest: " + e.getMessage());
+      return null;
+    }
+
+    return digest.getDigest();
   }
 
   /**
@@ -283,13 +368,15 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
 
   private static Status compileBuildConfiguration(final CompileContext context,
                                                   final JpsFlexBuildConfiguration bc,
-                                                  final JpsBuiltInFlexCompilerHandler builtInCompilerHandler) {
+                                                  @Nullable final List<File> precomputedConfigFiles,
+                                                  final JpsBuiltInFlexCompilerPool builtInCompilerPool) {
     setProgressMessage(context, bc);
 
     final String compilerName = FlexBuilderUtils.getCompilerName(bc);
 
     try {
-      final List<File> configFiles = createConfigFiles(bc, context.getProjectDescriptor());
+      final List<File> configFiles =
+        precomputedConfigFiles != null ? precomputedConfigFiles : createConfigFiles(bc, context.getProjectDescriptor());
       final String outputFilePath = bc.getActualOutputFilePath();
 
       if (!ensureCanCreateFile(new File(outputFilePath))) {
@@ -298,7 +385,7 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
         return Status.Failed;
       }
 
-      return doCompile(context, bc, configFiles, compilerName, builtInCompilerHandler);
+      return doCompile(context, bc, configFiles, compilerName, builtInCompilerPool);
     }
     catch (IOException e) {
       context.processMessage(new CompilerMessage(compilerName, BuildMessage.Kind.ERROR, e.getMessage()));
@@ -351,7 +438,7 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
                                   final JpsFlexBuildConfiguration bc,
                                   final List<File> configFiles,
                                   final String compilerName,
-                                  final JpsBuiltInFlexCompilerHandler builtInCompilerHandler) {
+                                  final JpsBuiltInFlexCompilerPool builtInCompilerPool) {
     final boolean app = bc.getOutputType() != OutputType.Library;
     final JpsSdk<?> sdk = bc.getSdk();
     assert sdk != null;
@@ -361,11 +448,18 @@ public class FlexBuilder extends TargetBuilder<BuildRootDescriptor, FlexBuildTar
                           (JpsFlexCompilerProjectExtension.getInstance(bc.getModule().getProject()).PREFER_ASC_20 ||
                            FlexCommonUtils.isAirSdkWithoutFlex(sdk));
     final boolean builtIn = !asc20 &&
-                            JpsFlexCompilerProjectExtension.getInstance(bc.getModule().getProject()).USE_BUILT_IN_COMPILER &&
-                            builtInCompilerHandler.canBeUsedForSdk(sdk.getHomePath());
+                            JpsFlexCompilerProjectExtension.getInstance(bc.getModule().getProject()).USE_BUILT_IN_COMPILER;
 
     if (builtIn) {
-      return doCompileWithBuiltInCompiler(context, bc, configFiles, compilerName, builtInCompilerHandler);
+      // independent build configurations are compiled in parallel, a compiler process runs several compilations at once
+      final JpsBuiltInFlexCompilerHandler builtInCompilerHandler = builtInCompilerPool.acquire(context, sdk);
+
+      try {
+        return doCompileWithBuiltInCompiler(context, bc, configFiles, compilerName, builtInCompilerHandler);
+      }
+      finally {
+        builtInCompilerPool.release(builtInCompilerHandler);
+      }
     }
 
     final List<String> compilerCommand = asc20 ? getASC20Command(bc.getModule().getProject(), sdk, app)
@@ -26,7 +26,7 @@ public class JpsBuiltInFlexCompilerHandler {
   private static final String CONNECTION_SUCCESSFUL = "Connection successful";
   public static final String COMPILATION_FINISHED = "Compilation finished";
 
-  private final JpsProject myProject;
+  private JpsProject myProject;
 
   private String mySdkHome;
 
@@ -47,8 +47,8 @@ public class JpsBuiltInFlexCompilerHandler {
     myProject = project;
   }
 
-  public synchronized boolean canBeUsedForSdk(final String sdkHome) {
-    return mySdkHome == null || mySdkHome.equals(sdkHome);
+  synchronized void setProject(final JpsProject project) {
+    myProject = project;
   }
 
   public synchronized void startCompilerIfNeeded(final JpsSdk<?> sdk,
@@ -84,18 +84,7 @@ public class JpsBuiltInFlexCompilerHandler {
                                     final int port,
                                     final CompileContext context,
                                     final String compilerName) throws IOException {
-    final StringBuilder classpath = new StringBuilder();
-
-    classpath.append(FlexCommonUtils.getPathToBundledJar("idea-flex-compiler-fix.jar"));
-    classpath.append(File.pathSeparatorChar);
-    classpath.append(FlexCommonUtils.getPathToBundledJar("flex-compiler.jar"));
-
-    if (sdk.getSdkType() == JpsFlexSdkType.INSTANCE) {
-      classpath.append(File.pathSeparator).append(FileUtil.toSystemDependentName(sdk.getHomePath() + "/lib/flex-compiler-oem.jar"));
-    }
-
-    final List<String> commandLine =
-      FlexCommonUtils.getCommandLineForSdkTool(myProject, sdk, classpath.toString(), "com.intellij.flex.compiler.FlexCompiler");
+    final List<String> commandLine = getCommandLine(myProject, sdk);
     commandLine.add(String.valueOf(port));
 
     final ProcessBuilder processBuilder = new ProcessBuilder(commandLine);
@@ -109,6 +98,23 @@ public class JpsBuiltInFlexCompilerHandler {
     readInputStreamUntilConnected(process, context, compilerName);
   }
 
+  /**
+   * @return command line of the compiler process without the port number
+   */
+  static List<String> getCommandLine(final JpsProject project, final JpsSdk<?> sdk) {
+    final StringBuilder classpath = new StringBuilder();
+
+    classpath.append(FlexCommonUtils.getPathToBundledJar("idea-flex-compiler-fix.jar"));
+    classpath.append(File.pathSeparatorChar);
+    classpath.append(FlexCommonUtils.getPathToBundledJar("flex-compiler.jar"));
+
+    if (sdk.getSdkType() == JpsFlexSdkType.INSTANCE) {
+      classpath.append(File.pathSeparator).append(FileUtil.toSystemDependentName(sdk.getHomePath() + "/lib/flex-compiler-oem.jar"));
+    }
+
+    return FlexCommonUtils.getCommandLineForSdkTool(project, sdk, classpath.toString(), "com.intellij.flex.compiler.FlexCompiler");
+  }
+
   private void readInputStreamUntilConnected(final Process process, final CompileContext context, final String compilerName) {
     SharedThreadPool.getInstance().execute(() -> {
       final InputStreamReader reader = FlexCommonUtils.createInputStreamReader(process.getInputStream());
@@ -0,0 +1,154 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.jps.flex.build;
+
+import com.intellij.flex.FlexCommonUtils;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.text.StringUtil;
+import gnu.trove.THashMap;
+import gnu.trove.THashSet;
+import gnu.trove.TObjectIntHashMap;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.jps.incremental.CompileContext;
+import org.jetbrains.jps.model.JpsProject;
+import org.jetbrains.jps.model.library.sdk.JpsSdk;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Built-in compiler processes shared by the build configurations that are compiled in parallel. Processes are grouped by the
+ * command line they are started with (SDK, JVM options, working folder). Each process runs several compilations at once, so a
+ * compilation is given to the least loaded process, and another process is started only when all of them are running
+ * {@code idea.flex.compiler.bcs.per.daemon} compilations. Processes used by a build are kept warm for the next build made by the same
+ * build process, others are stopped when the build finishes. Set {@code idea.flex.compiler.keep.daemons} to {@code false} to stop
+ * all processes after each build.
+ */
+class JpsBuiltInFlexCompilerPool {
+  private static final Logger LOG = Logger.getInstance(JpsBuiltInFlexCompilerPool.class.getName());
+
+  // each compiler process is a JVM of its own, half of the cores leaves room for the build process and the compilations themselves
+  private static final int DEFAULT_MAX_DAEMONS = Math.min(4, Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+  private static final int DEFAULT_BCS_PER_DAEMON = 4;
+
+  private final int myMaxDaemons;
+  private final int myBcsPerDaemon;
+  private final boolean myKeepDaemonsBetweenBuilds;
+
+  // command line key -> compiler processes started with this command line
+  private final Map<String, List<JpsBuiltInFlexCompilerHandler>> myKeyToHandlers = new THashMap<>();
+  // compiler process -> number of compilations given to it and not released yet
+  private final TObjectIntHashMap<JpsBuiltInFlexCompilerHandler> myHandlerToLoad = new TObjectIntHashMap<>();
+  private final Set<String> myKeysUsedInCurrentBuild = new THashSet<>();
+
+  JpsBuiltInFlexCompilerPool() {
+    this(Integer.getInteger("idea.flex.compiler.daemons", DEFAULT_MAX_DAEMONS),
+         Integer.getInteger("idea.flex.compiler.bcs.per.daemon", DEFAULT_BCS_PER_DAEMON),
+         Boolean.parseBoolean(System.getProperty("idea.flex.compiler.keep.daemons", "true")));
+  }
+
+  JpsBuiltInFlexCompilerPool(final int maxDaemons, final int bcsPerDaemon, final boolean keepDaemonsBetweenBuilds) {
+    myMaxDaemons = Math.max(1, maxDaemons);
+    myBcsPerDaemon = Math.max(1, bcsPerDaemon);
+    myKeepDaemonsBetweenBuilds = keepDaemonsBetweenBuilds;
+  }
+
+  synchronized void buildStarted() {
+    myKeysUsedInCurrentBuild.clear();
+  }
+
+  /**
+   * Returns the least loaded compiler process for the SDK, or a new one if all processes are fully loaded and the limit is not
+   * reached yet. The returned handler must be given back using {@link #release(JpsBuiltInFlexCompilerHandler)}.
+   */
+  @NotNull
+  JpsBuiltInFlexCompilerHandler acquire(@NotNull final CompileContext context, @NotNull final JpsSdk<?> sdk) {
+    final JpsProject project = context.getProjectDescriptor().getProject();
+    return acquire(getKey(project, sdk), project);
+  }
+
+  /**
+   * @param key command line the compiler process is started with, processes are shared only between compilations with the same key
+   */
+  @NotNull
+  synchronized JpsBuiltInFlexCompilerHandler acquire(@NotNull final String key, @NotNull final JpsProject project) {
+    myKeysUsedInCurrentBuild.add(key);
+
+    final List<JpsBuiltInFlexCompilerHandler> handlers = myKeyToHandlers.computeIfAbsent(key, k -> new ArrayList<>());
+
+    JpsBuiltInFlexCompilerHandler result = null;
+    for (JpsBuiltInFlexCompilerHandler handler : handlers) {
+      if (result == null || myHandlerToLoad.get(handler) < myHandlerToLoad.get(result)) {
+        result = handler;
+      }
+    }
+
+    if (result == null || myHandlerToLoad.get(result) >= myBcsPerDaemon && handlers.size() < myMaxDaemons) {
+      result = createHandler(project);
+      handlers.add(result);
+      LOG.debug("Built-in compiler processes for the SDK: " + handlers.size());
+    }
+
+    result.setProject(project);
+    myHandlerToLoad.adjustOrPutValue(result, 1, 1);
+    return result;
+  }
+
+  @NotNull
+  JpsBuiltInFlexCompilerHandler createHandler(@NotNull final JpsProject project) {
+    return new JpsBuiltInFlexCompilerHandler(project);
+  }
+
+  synchronized void release(@NotNull final JpsBuiltInFlexCompilerHandler handler) {
+    final int load = myHandlerToLoad.get(handler);
+    if (load > 1) {
+      myHandlerToLoad.put(handler, load - 1);
+    }
+    else {
+      myHandlerToLoad.remove(handler);
+    }
+  }
+
+  synchronized int getActiveCompilationsNumber() {
+    int result = 0;
+    for (List<JpsBuiltInFlexCompilerHandler> handlers : myKeyToHandlers.values()) {
+      for (JpsBuiltInFlexCompilerHandler handler : handlers) {
+        result += handler.getActiveCompilationsNumber();
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Stops all processes, or only the processes that were not used by the finished build if they are kept between builds.
+   */
+  synchronized void buildFinished() {
+    final Iterator<Map.Entry<String, List<JpsBuiltInFlexCompilerHandler>>> iterator = myKeyToHandlers.entrySet().iterator();
+    while (iterator.hasNext()) {
+      final Map.Entry<String, List<JpsBuiltInFlexCompilerHandler>> entry = iterator.next();
+      if (!myKeepDaemonsBetweenBuilds || !myKeysUsedInCurrentBuild.contains(entry.getKey())) {
+        for (JpsBuiltInFlexCompilerHandler handler : entry.getValue()) {
+          handler.stopCompilerProcess();
+        }
+        iterator.remove();
+      }
+      else {
+        // forget the project model, the next build brings its own
+        for (JpsBuiltInFlexCompilerHandler handler : entry.getValue()) {
+          handler.setProject(null);
+        }
+      }
+    }
+
+    myHandlerToLoad.clear();
+    myKeysUsedInCurrentBuild.clear();
+  }
+
+  @NotNull
+  private static String getKey(@NotNull final JpsProject project, @NotNull final JpsSdk<?> sdk) {
+    final List<String> commandLine = JpsBuiltInFlexCompilerHandler.getCommandLine(project, sdk);
+    return FlexCommonUtils.getFlexCompilerWorkDirPath(project) + "\n" + StringUtil.join(commandLine, "\n");
+  }
+}
@@ -1,6 +1,5 @@
 package com.intellij.javascript.flex.compiled;
 
-import com.intellij.lang.javascript.flex.importer.FlexImporter;
 import com.intellij.openapi.fileTypes.BinaryFileDecompiler;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.project.ProjectManager;
@@ -20,7 +19,7 @@ public class SwfFileDecompiler implements BinaryFileDecompiler {
     final Project project = findProject();
     if (project == null) return "";
     try {
-      return FlexImporter.buildInterfaceFromStream(file.getInputStream());
+      return SwfInterfaceCache.getInstance().getInterface(file.contentsToByteArray());
     }
     catch (IOException ex) {
       return ArrayUtil.EMPTY_CHAR_SEQUENCE;
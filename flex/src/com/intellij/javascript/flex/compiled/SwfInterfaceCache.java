@@ -0,0 +1,199 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.javascript.flex.compiled;
+
+import com.intellij.lang.javascript.flex.importer.FlexImporter;
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.intellij.util.containers.ContainerUtil;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * On-disk cache of ActionScript interfaces generated from SWF files by {@link FlexImporter}. Entries are keyed by the SWF content hash,
+ * so the same framework SWC is decompiled once for all projects and survives restarts. Entries made by another version of the dumper
+ * and least recently used entries are deleted after the first save of a session and then after every {@link #TRIM_PERIOD} saves.
+ * Interfaces of libraries attached to Flex modules are generated in advance by {@link SwfInterfaceCacheRootsListener}.
+ */
+public final class SwfInterfaceCache {
+  private static final Logger LOG = Logger.getInstance(SwfInterfaceCache.class.getName());
+
+  private static final int FORMAT_VERSION = 1;
+  private static final String EXTENSION = ".as";
+  private static final int TRIM_PERIOD = 50;
+  private static final ExecutorService ourExecutor = AppExecutorUtil.createBoundedApplicationPoolExecutor(
+    "SWF Interface Cache Pool", Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2)));
+
+  @NotNull private final File myRootDir;
+  @NotNull private final File myCacheDir;
+  private final AtomicInteger mySaveCount = new AtomicInteger();
+  // content key -> interface that is being generated right now, lets concurrent requests for the same content wait for one result
+  private final ConcurrentMap<String, CompletableFuture<String>> myInProgress = ContainerUtil.newConcurrentMap();
+
+  @NotNull
+  public static SwfInterfaceCache getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  public SwfInterfaceCache(@NotNull final File rootDir) {
+    myRootDir = rootDir;
+    myCacheDir = new File(rootDir, "v" + FORMAT_VERSION + "." + FlexImporter.INTERFACE_DUMPER_VERSION);
+  }
+
+  @NotNull
+  public String getInterface(final byte @NotNull [] content) {
+    final String key = getKey(content);
+    final File file = getCacheFile(key);
+    final String cached = load(file);
+    if (cached != null) return cached;
+
+    final CompletableFuture<String> future = new CompletableFuture<>();
+    final CompletableFuture<String> existing = myInProgress.putIfAbsent(key, future);
+    if (existing != null) return existing.join();
+
+    try {
+      final String result = FlexImporter.buildInterface(content);
+      // a broken file may be fixed by a newer dumper version or be read completely next time
+      if (!isFailure(result)) {
+        save(file, result);
+        if (mySaveCount.getAndIncrement() % TRIM_PERIOD == 0) {
+          trim();
+        }
+      }
+      future.complete(result);
+      return result;
+    }
+    catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    }
+    finally {
+      myInProgress.remove(key, future);
+    }
+  }
+
+  /**
+   * Generates interfaces of the given SWF files in parallel on a bounded pool. Contents that are already cached are only hashed.
+   */
+  @NotNull
+  public List<Future<?>> prepareInterfaces(@NotNull final Collection<? extends ThrowableComputable<byte[], IOException>> contents) {
+    final List<Future<?>> futures = new ArrayList<>(contents.size());
+    for (ThrowableComputable<byte[], IOException> content : contents) {
+      futures.add(ourExecutor.submit(() -> {
+        try {
+          final byte[] bytes = content.compute();
+          if (!getCacheFile(getKey(bytes)).isFile()) {
+            getInterface(bytes);
+          }
+        }
+        catch (IOException e) {
+          LOG.debug("Failed to read SWF", e);
+        }
+      }));
+    }
+    return futures;
+  }
+
+  @NotNull
+  private File getCacheFile(@NotNull final String key) {
+    return new File(myCacheDir, key + EXTENSION);
+  }
+
+  @Nullable
+  private static String load(@NotNull final File file) {
+    if (!file.isFile()) return null;
+
+    try {
+      final String result = FileUtil.loadFile(file, StandardCharsets.UTF_8);
+      // recently used entries survive trimming
+      //noinspection ResultOfMethodCallIgnored
+      file.setLastModified(System.currentTimeMillis());
+      return result;
+    }
+    catch (IOException e) {
+      LOG.debug("Failed to load " + file.getPath(), e);
+      return null;
+    }
+  }
+
+  private static void save(@NotNull final File file, @NotNull final String text) {
+    // another IDE instance may write the same entry, so the file appears at once or not at all
+    final File tempFile = new File(file.getPath() + "." + Thread.currentThread().getId() + ".tmp");
+    try {
+      FileUtil.writeToFile(tempFile, text.getBytes(StandardCharsets.UTF_8));
+      if (!tempFile.renameTo(file) && !file.isFile()) {
+        LOG.debug("Failed to save " + file.getPath());
+      }
+    }
+    catch (IOException e) {
+      LOG.debug("Failed to save " + file.getPath(), e);
+    }
+    finally {
+      FileUtil.delete(tempFile);
+    }
+  }
+
+  /**
+   * Deletes entries of other versions and least recently used entries if there are more of them than allowed.
+   */
+  private void trim() {
+    final File[] versionDirs = myRootDir.listFiles();
+    if (versionDirs != null) {
+      for (File dir : versionDirs) {
+        if (!FileUtil.filesEqual(dir, myCacheDir)) {
+          FileUtil.delete(dir);
+        }
+      }
+    }
+
+    final File[] files = myCacheDir.listFiles();
+    final int maxSize = Integer.getInteger("idea.flex.swf.interface.cache.size", 500);
+    if (files == null || files.length <= maxSize) return;
+
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (int i = 0; i < files.length - maxSize; i++) {
+      FileUtil.delete(files[i]);
+    }
+  }
+
+  /**
+   * {@link FlexImporter} reports errors as a comment instead of the interface.
+   */
+  private static boolean isFailure(@NotNull final String result) {
+    return result.startsWith("/*") && result.endsWith("*/");
+  }
+
+  @NotNull
+  private static String getKey(final byte @NotNull [] content) {
+    try {
+      final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+      return StringUtil.toHexString(digest.digest(content)) + "-" + content.length;
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static final class InstanceHolder {
+    private static final SwfInterfaceCache INSTANCE = new SwfInterfaceCache(new File(PathManager.getSystemPath(), "flex/swf-interfaces"));
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.javascript.flex.compiled;
+
+import com.intellij.lang.javascript.flex.FlexModuleType;
+import com.intellij.openapi.application.ApplicationManager;
+import com.intellij.openapi.application.ReadAction;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.module.ModuleManager;
+import com.intellij.openapi.module.ModuleType;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ModuleRootEvent;
+import com.intellij.openapi.roots.ModuleRootListener;
+import com.intellij.openapi.roots.OrderEnumerator;
+import com.intellij.openapi.util.ThrowableComputable;
+import com.intellij.openapi.vfs.JarFileSystem;
+import com.intellij.openapi.vfs.VirtualFile;
+import gnu.trove.THashSet;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates interfaces of the SWC libraries that are attached to Flex modules while the project is open, so that opening a class of a new
+ * library doesn't wait for its SWC to be decompiled. Libraries that the project already has when the first roots change arrives are
+ * decompiled on demand only, so opening a project doesn't decompile anything.
+ */
+public class SwfInterfaceCacheRootsListener implements ModuleRootListener {
+  private static final String LIBRARY_SWF = "library.swf";
+
+  // guarded by this, null until the first roots change
+  @Nullable private Set<VirtualFile> myKnownSwfFiles;
+
+  @Override
+  public void rootsChanged(@NotNull final ModuleRootEvent event) {
+    if (ApplicationManager.getApplication().isUnitTestMode()) return;
+    if (!Boolean.parseBoolean(System.getProperty("idea.flex.swf.interface.cache.prepare", "true"))) return;
+
+    final Project project = event.getProject();
+    ApplicationManager.getApplication().executeOnPooledThread(() -> {
+      final Set<VirtualFile> swfFiles = ReadAction.compute(() -> collectLibrarySwfFiles(project));
+      final List<ThrowableComputable<byte[], IOException>> contents = new ArrayList<>();
+      for (VirtualFile swfFile : getNewFiles(swfFiles)) {
+        contents.add(swfFile::contentsToByteArray);
+      }
+      if (!contents.isEmpty()) {
+        SwfInterfaceCache.getInstance().prepareInterfaces(contents);
+      }
+    });
+  }
+
+  @NotNull
+  private synchronized Set<VirtualFile> getNewFiles(@NotNull final Set<VirtualFile> swfFiles) {
+    final Set<VirtualFile> result = new THashSet<>();
+    if (myKnownSwfFiles == null) {
+      myKnownSwfFiles = new THashSet<>(swfFiles);
+      return result;
+    }
+
+    for (VirtualFile swfFile : swfFiles) {
+      if (myKnownSwfFiles.add(swfFile)) {
+        result.add(swfFile);
+      }
+    }
+    return result;
+  }
+
+  @NotNull
+  private static Set<VirtualFile> collectLibrarySwfFiles(@NotNull final Project project) {
+    final Set<VirtualFile> result = new THashSet<>();
+    if (project.isDisposed()) return result;
+
+    for (Module module : ModuleManager.getInstance(project).getModules()) {
+      if (!(ModuleType.get(module) instanceof FlexModuleType)) continue;
+
+      for (VirtualFile root : OrderEnumerator.orderEntries(module).getAllLibrariesAndSdkClassesRoots()) {
+        if (root.getFileSystem() instanceof JarFileSystem) {
+          final VirtualFile swf = root.findChild(LIBRARY_SWF);
+          if (swf != null) result.add(swf);
+        }
+      }
+    }
+    return result;
+  }
+}
@@ -47,6 +47,14 @@ class DebuggerCommand {
     return getClass().getName();
   }
 
+  /**
+   * @return {@code true} if the command only reads the state of the suspended VM, so it can be sent before the responses to the
+   * previously sent commands are read
+   */
+  boolean isPipelinable() {
+    return false;
+  }
+
   public void post(final FlexDebugProcess flexDebugProcess) throws IOException {
     flexDebugProcess.doSendCommandText(this);
   }
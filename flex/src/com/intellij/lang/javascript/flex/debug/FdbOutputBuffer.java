@@ -0,0 +1,92 @@
+// Copyright 2000-2020 JetBrains s.r.o. Use of this source code is governed by the Apache 2.0 license that can be found in the LICENSE file.
+package com.intellij.lang.javascript.flex.debug;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Ring buffer of fdb output that has not been consumed yet. Consuming text from its beginning doesn't move the rest of the buffer,
+ * unlike {@link StringBuilder#delete(int, int)}, which matters when the response to evaluation of a large object arrives in many chunks.
+ */
+class FdbOutputBuffer {
+  private char[] myChars;
+  private int myStart;
+  private int myLength;
+
+  FdbOutputBuffer(final int initialCapacity) {
+    myChars = new char[initialCapacity];
+  }
+
+  int length() {
+    return myLength;
+  }
+
+  void append(final char @NotNull [] chars, final int offset, final int length) {
+    ensureCapacity(myLength + length);
+
+    final int end = (myStart + myLength) % myChars.length;
+    final int firstPart = Math.min(length, myChars.length - end);
+    System.arraycopy(chars, offset, myChars, end, firstPart);
+    System.arraycopy(chars, offset + firstPart, myChars, 0, length - firstPart);
+    myLength += length;
+  }
+
+  private void ensureCapacity(final int capacity) {
+    if (capacity <= myChars.length) return;
+
+    final char[] newChars = new char[Math.max(capacity, myChars.length * 2)];
+    copyTo(newChars, 0, myLength);
+    myChars = newChars;
+    myStart = 0;
+  }
+
+  private void copyTo(final char @NotNull [] target, final int from, final int length) {
+    final int start = (myStart + from) % myChars.length;
+    final int firstPart = Math.min(length, myChars.length - start);
+    System.arraycopy(myChars, start, target, 0, firstPart);
+    System.arraycopy(myChars, 0, target, firstPart, length - firstPart);
+  }
+
+  private char charAt(final int index) {
+    return myChars[(myStart + index) % myChars.length];
+  }
+
+  int indexOf(@NotNull final String s, final int fromIndex) {
+    final int last = myLength - s.length();
+    outer:
+    for (int i = Math.max(0, fromIndex); i <= last; i++) {
+      for (int j = 0; j < s.length(); j++) {
+        if (charAt(i + j) != s.charAt(j)) continue outer;
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  /**
+   * Removes {@code length + skip} chars from the beginning of the buffer.
+   *
+   * @return the first {@code length} of the removed chars
+   */
+  @NotNull
+  String consume(final int length, final int skip) {
+    final char[] result = new char[length];
+    copyTo(result, 0, length);
+
+    myStart = (myStart + length + skip) % myChars.length;
+    myLength -= length + skip;
+    if (myLength == 0) myStart = 0;
+    return new String(result);
+  }
+
+  boolean isBlank() {
+    for (int i = 0; i < myLength; ++i) {
+      if (charAt(i) != ' ') return false;
+    }
+    return true;
+  }
+
+  void clear() {
+    myStart = 0;
+    myLength = 0;
+  }
+}
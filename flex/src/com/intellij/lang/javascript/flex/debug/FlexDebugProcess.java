@@ -116,6 +116,9 @@ public class FlexDebugProcess extends XDebugProcess {
   @NonNls private static final String FDB_MARKER = "(fdb) ";
   @NonNls private static final String WAITING_PLAYER_MARKER_1 = "Waiting for Player to connect";
   @NonNls private static final String WAITING_PLAYER_MARKER_2 = "Trying to connect to Player";
+  private static final int MAX_PIPELINED_COMMANDS = Integer.getInteger("idea.flex.debugger.pipelined.commands", 8);
+  private static final int MAX_MARKER_LENGTH =
+    Math.max(Math.max(FDB_MARKER.length(), "(y or n)".length()), Math.max(WAITING_PLAYER_MARKER_1.length(), WAITING_PLAYER_MARKER_2.length()));
   @NonNls static final String ATTEMPTING_TO_RESOLVE_BREAKPOINT_MARKER = "Attempting to resolve breakpoint ";
 
   @NonNls private static final String ADL_PREFIX = "[AIR Debug Launcher]: ";
@@ -170,6 +173,9 @@ public class FlexDebugProcess extends XDebugProcess {
     }
   };
 
+  // commands that have been sent to fdb but their responses have not been read yet, accessed only from the debugger manager thread
+  private final LinkedList<DebuggerCommand> myPipelinedCommands = new LinkedList<>();
+
   private boolean suspended;
   private boolean fdbWaitingForPlayerStateReached;
   private boolean startupDone;
@@ -661,7 +667,8 @@ public class FlexDebugProcess extends XDebugProcess {
 
       if (toInsertContinue) insertCommand(new ContinueCommand());
     }
-    while (explicitlyContinueRead || reader.hasSomeDataPending());
+    // pending data belongs to the pipelined commands, if any
+    while (explicitlyContinueRead || myPipelinedCommands.isEmpty() && reader.hasSomeDataPending());
   }
 
   private boolean evaluateCondition(@Nullable XExpression expression, FlexStackFrame frame) {
@@ -953,9 +960,18 @@ public class FlexDebugProcess extends XDebugProcess {
   }
 
   private DebuggerCommand postCommand() throws IOException {
+    // already sent, the response is waiting to be read
+    if (!myPipelinedCommands.isEmpty()) return myPipelinedCommands.removeFirst();
+
     DebuggerCommand command = commandsToWrite.removeFirst();
     final boolean currentlyExecuting = !suspended && startupDone;
 
+    if (!currentlyExecuting && isPipelinable(command)) {
+      command.post(this);
+      pipelineNextCommands();
+      return command;
+    }
+
     if (command.getStartVMState() == VMState.RUNNING) {
       if (!currentlyExecuting) {
         if (command instanceof SuspendDebuggerCommand) ((SuspendDebuggerCommand)command).doCommandAfterSuspend();
@@ -984,6 +1000,35 @@ public class FlexDebugProcess extends XDebugProcess {
     return command;
   }
 
+  private static boolean isPipelinable(@NotNull final DebuggerCommand command) {
+    return command.isPipelinable() &&
+           command.getOutputProcessingMode() == CommandOutputProcessingType.SPECIAL_PROCESSING &&
+           command.getStartVMState() == VMState.SUSPENDED &&
+           command.getEndVMState() == VMState.SUSPENDED;
+  }
+
+  /**
+   * Sends queued read-only commands without waiting for the responses to the previous ones, fdb answers them in the same order.
+   * It saves a round trip per command when the Variables view evaluates many values at once.
+   */
+  private void pipelineNextCommands() throws IOException {
+    while (myPipelinedCommands.size() < MAX_PIPELINED_COMMANDS) {
+      final DebuggerCommand next = pollPipelinableCommand();
+      if (next == null) break;
+
+      next.post(this);
+      myPipelinedCommands.addLast(next);
+    }
+  }
+
+  @Nullable
+  private DebuggerCommand pollPipelinableCommand() {
+    synchronized (commandsToWrite) {
+      final DebuggerCommand next = commandsToWrite.peekFirst();
+      return next != null && isPipelinable(next) ? commandsToWrite.removeFirst() : null;
+    }
+  }
+
   boolean isDebuggerFromSdk3() {
     return myDebuggerVersion != null && myDebuggerVersion.startsWith("3.");
   }
@@ -1171,6 +1216,10 @@ public class FlexDebugProcess extends XDebugProcess {
   public void sendAndProcessOneCommand(final DebuggerCommand command, final @Nullable Function<Exception, Void> onException) {
     insertCommand(command);
     try {
+      // responses to the commands that were sent earlier come first
+      while (!myPipelinedCommands.isEmpty()) {
+        processOneCommandLoop();
+      }
       processOneCommandLoop();
     }
     catch (Exception e) {
@@ -1223,7 +1272,8 @@ public class FlexDebugProcess extends XDebugProcess {
   class MyFdbOutputReader {
     private final InputStreamReader myReader;
     private final char[] buf = new char[8192];
-    private final StringBuilder lastText = new StringBuilder();
+    private final FdbOutputBuffer lastText = new FdbOutputBuffer(buf.length * 2);
+    // markers can't start before this index, text before it has been scanned already
     private int lastTextMarkerScanningStart;
     private final InputStream myInputStream;
 
@@ -1237,10 +1287,8 @@ public class FlexDebugProcess extends XDebugProcess {
     }
 
     String readLine(boolean nonblock) throws IOException {
-      if (lastText != null) {
-        final String lastText = getNextLine(nonblock);
-        if (lastText != null) return lastText;
-      }
+      final String line = getNextLine(nonblock);
+      if (line != null) return line;
 
       while (true) {
         int read = myReader.read(buf, 0, buf.length);
@@ -1255,7 +1303,6 @@ public class FlexDebugProcess extends XDebugProcess {
     }
 
     private String getNextLine(boolean allowEmptyMarker) {
-      String result;
       String marker = FDB_MARKER;
       int i = lastText.indexOf(marker, lastTextMarkerScanningStart);
 
@@ -1274,25 +1321,16 @@ public class FlexDebugProcess extends XDebugProcess {
       }
 
       if (i != -1) {
-        result = lastText.substring(0, i);
-        lastText.delete(0, i + marker.length());
+        final String result = lastText.consume(i, marker.length());
         lastTextMarkerScanningStart = 0;
-        if (isBlank(lastText)) lastText.setLength(0);
+        if (lastText.isBlank()) lastText.clear();
         setSuspended(marker.length() != 0);
         return result;
       }
-      else {
-        lastTextMarkerScanningStart = lastText.length();
-        result = null;
-      }
-      return result;
-    }
 
-    private boolean isBlank(StringBuilder lastText) {
-      for (int i = 0; i < lastText.length(); ++i) {
-        if (lastText.charAt(i) != ' ') return false;
-      }
-      return true;
+      // a marker may be split between chunks, so its beginning is scanned once again when more text arrives
+      lastTextMarkerScanningStart = Math.max(0, lastText.length() - MAX_MARKER_LENGTH + 1);
+      return null;
     }
   }
 
@@ -411,6 +411,12 @@ class FlexValue extends XValue {
 
     final FlexStackFrame.EvaluateCommand
       command = myFlexStackFrame.new EvaluateCommand(expression, null) {
+      @Override
+      boolean isPipelinable() {
+        // only lists the members, unlike the default evaluation it never falls back to additional commands
+        return true;
+      }
+
       @Override
       CommandOutputProcessingMode doOnTextAvailable(@NonNls final String resultS) {
         StringTokenizer tokenizer = new StringTokenizer(resultS, "\r\n");
@@ -1,30 +1,49 @@
 package com.intellij.lang.javascript.flex.importer;
 
+import com.intellij.openapi.util.io.FileUtilRt;
+import com.intellij.util.ArrayUtilRt;
 import org.jetbrains.annotations.NotNull;
 
-import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.zip.InflaterInputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
+ * Reads SWF and ABC data. The content is a region of a byte array, it is never copied when a part of the buffer is passed to a nested
+ * reader. Positions are relative to the start of the region.
+ *
  * @author Maxim.Mossienko
 */
 class ByteBuffer {
-  private byte[] bytes;
+  private byte[] bytes = ArrayUtilRt.EMPTY_BYTE_ARRAY;
+  private int start;
+  private int end;
   private int position;
   private boolean littleEndian;
 
   void read(@NotNull InputStream inputStream) throws IOException {
     try {
-      bytes = readStream(inputStream);
+      wrap(FileUtilRt.loadBytes(inputStream));
     }
     finally {
       inputStream.close();
     }
   }
 
+  void wrap(byte @NotNull [] bytes) {
+    wrap(bytes, 0, bytes.length);
+  }
+
+  private void wrap(byte @NotNull [] bytes, int start, int end) {
+    this.bytes = bytes;
+    this.start = start;
+    this.end = end;
+    position = 0;
+  }
+
   void setLittleEndian() {
     littleEndian = true;
   }
@@ -32,10 +51,12 @@ class ByteBuffer {
   int readInt() {
     int result;
     if (littleEndian) {
-      result = (((bytes[position + 3] & 0xFF) << 8 | (bytes[position + 2] & 0xFF)) << 16) + ((bytes[position + 1] & 0xFF) << 8) | (bytes[position] & 0xFF);
+      result = (((bytes[start + position + 3] & 0xFF) << 8 | (bytes[start + position + 2] & 0xFF)) << 16) +
+               ((bytes[start + position + 1] & 0xFF) << 8) | (bytes[start + position] & 0xFF);
     }
     else {
-      result = (((bytes[position] & 0xFF) << 8 | (bytes[position + 1] & 0xFF)) << 16) + ((bytes[position + 2] & 0xFF) << 8) | (bytes[position + 3] & 0xFF);
+      result = (((bytes[start + position] & 0xFF) << 8 | (bytes[start + position + 1] & 0xFF)) << 16) +
+               ((bytes[start + position + 2] & 0xFF) << 8) | (bytes[start + position + 3] & 0xFF);
     }
     position += 4;
     return result;
@@ -50,77 +71,109 @@ class ByteBuffer {
   }
 
   public int bytesSize() {
-    return bytes.length;
+    return end - start;
   }
 
-  public void uncompress() throws IOException {
-    final InflaterInputStream zipInputStream = new InflaterInputStream(new ByteArrayInputStream(bytes));
-
-    bytes = readStream(zipInputStream);
-
-    zipInputStream.close();
-  }
-
-  private static byte[] readStream(final InputStream zipInputStream) throws IOException {
-    final byte[] buf = new byte[8192];
-    byte[] result = new byte[8192];
-    int total = 0;
+  /**
+   * Inflates the content starting at the current position.
+   *
+   * @param expectedSize size of the inflated data if it is known from the header, used to allocate the result at once
+   */
+  public void uncompress(final int expectedSize) throws IOException {
+    final Inflater inflater = new Inflater();
+    try {
+      final int inputSize = bytesSize() - position;
+      inflater.setInput(bytes, start + position, inputSize);
+
+      // the size comes from the file header, don't trust it blindly
+      final int initialSize = expectedSize > 0 && expectedSize / 64 <= inputSize ? expectedSize : inputSize * 4;
+      byte[] result = new byte[Math.max(initialSize, 8192)];
+      int total = 0;
+
+      while (!inflater.finished()) {
+        if (inflater.needsInput()) break;
+        if (total == result.length) {
+          final byte[] newResult = new byte[result.length * 2];
+          System.arraycopy(result, 0, newResult, 0, total);
+          result = newResult;
+        }
+        final int inflated = inflater.inflate(result, total, result.length - total);
+        if (inflated == 0 && inflater.needsDictionary()) break;
+        total += inflated;
+      }
 
-    while (true) {
-      int read = zipInputStream.read(buf);
-      if (read == -1) break;
-      if (total + read >= result.length) {
-        byte[] newresult = new byte[result.length * 2];
-        System.arraycopy(result, 0, newresult, 0, total);
-        result = newresult;
+      if (!inflater.finished()) {
+        throw new EOFException("Unexpected end of ZLIB input stream");
       }
 
-      System.arraycopy(buf, 0, result, total, read);
-      total += read;
+      wrap(result, 0, total);
+    }
+    catch (DataFormatException e) {
+      throw new IOException(e);
+    }
+    finally {
+      inflater.end();
     }
-
-    final byte[] realResult = new byte[total];
-    System.arraycopy(result, 0, realResult, 0, total);
-    return realResult;
   }
 
   public int readUnsignedByte() {
-    return bytes[position++] & 0xFF;
+    return bytes[start + position++] & 0xFF;
   }
 
   public int readByte() {
-    return bytes[position++];
+    return bytes[start + position++];
   }
 
   public int readUnsignedShort() {
     int result;
     if (littleEndian) {
-      result = (bytes[position + 1] & 0xFF) << 8 | (bytes[position] & 0xFF);
+      result = (bytes[start + position + 1] & 0xFF) << 8 | (bytes[start + position] & 0xFF);
     }
     else {
-      result = (bytes[position] & 0xFF) << 8 | (bytes[position + 1] & 0xFF);
+      result = (bytes[start + position] & 0xFF) << 8 | (bytes[start + position + 1] & 0xFF);
     }
     position += 2;
     return result;
   }
 
+  /**
+   * Makes {@code data2} a view of the next {@code length} bytes of this buffer, nothing is copied.
+   */
   public void readBytes(ByteBuffer data2, int length) {
-    data2.bytes = new byte[length];
-    System.arraycopy(bytes, position, data2.bytes, 0, length);
+    if (length < 0 || position + length > bytesSize()) {
+      throw new IndexOutOfBoundsException("Region " + position + "+" + length + " is out of " + bytesSize() + " bytes");
+    }
+    data2.wrap(bytes, start + position, start + position + length);
     position += length;
   }
 
   public boolean eof() {
-    return position >= bytes.length;
+    return position >= bytesSize();
   }
 
   public String readUTFBytes(int i) {
-    final byte[] buf = new byte[i];
-    while (i > 0) {
-      buf[buf.length - i] = (byte)readByte();
-      --i;
-    }
-    return new String(buf, StandardCharsets.UTF_8);
+    final String result = getUTFBytes(position, i);
+    position += i;
+    return result;
+  }
+
+  /**
+   * Decodes a string at the given offset without changing the current position.
+   */
+  String getUTFBytes(final int offset, final int length) {
+    return new String(bytes, start + offset, length, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads a zero-terminated string, one byte per char.
+   */
+  public String readZeroTerminatedString() {
+    final int stringStart = start + position;
+    int stringEnd = stringStart;
+    while (bytes[stringEnd] != 0) stringEnd++;
+
+    position += stringEnd - stringStart + 1;
+    return new String(bytes, stringStart, stringEnd - stringStart, StandardCharsets.ISO_8859_1);
   }
 
   public double readDouble() {
@@ -142,7 +195,7 @@ class ByteBuffer {
   }
 
   public byte getByte(int i) {
-    return bytes[i];
+    return bytes[start + i];
   }
 
   public int getPosition() {
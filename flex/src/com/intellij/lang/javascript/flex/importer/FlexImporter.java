@@ -11,6 +11,12 @@ import java.io.*;
  * Produced from abcdump.as
  */
 public class FlexImporter {
+  /**
+   * Must be incremented whenever the text produced by {@link #buildInterfaceFromStream(InputStream)} changes, it invalidates caches of
+   * the generated interfaces.
+   */
+  public static final int INTERFACE_DUMPER_VERSION = 1;
+
   private static final int ABC_VER = 46 << 16 | 14;
   private static final int ABC_VER2 = 46 << 16 | 15;
   private static final int ABC_VER3 = 46 << 16 | 16;
@@ -51,16 +57,35 @@ public class FlexImporter {
   @NonNls
   public static String buildInterfaceFromStream(final InputStream in) {
     try {
-      final AbstractDumpProcessor abcDumper = new AS3InterfaceDumper();
-      processFlexByteCode(in, abcDumper);
-      final String s = abcDumper.getResult();
-      //saveStringAsFile(s, File.createTempFile("fleximport", ".as").getPath());
-      return s;
+      final ByteBuffer data = new ByteBuffer();
+      data.read(in);
+      return buildInterface(data);
+    }
+    catch (IOException ex) {
+      return "/* " + ex.getLocalizedMessage() + " */";
+    }
+  }
+
+  /**
+   * Same as {@link #buildInterfaceFromStream(InputStream)} for the content that is already loaded, it is not copied.
+   */
+  @NonNls
+  public static String buildInterface(final byte @NotNull [] content) {
+    final ByteBuffer data = new ByteBuffer();
+    data.wrap(content);
+    return buildInterface(data);
+  }
+
+  private static String buildInterface(@NotNull ByteBuffer data) {
+    try {
+      final AS3InterfaceDumper abcDumper = new AS3InterfaceDumper();
+      processFlexByteCode(data, abcDumper);
+      return abcDumper.getResult();
     }
     catch (IOException ex) {
       return "/* " + ex.getLocalizedMessage() + " */";
     }
-    catch (ArrayIndexOutOfBoundsException ex) {
+    catch (IndexOutOfBoundsException ex) {
       return "/* Invalid format */";
     }
   }
@@ -70,9 +95,22 @@ public class FlexImporter {
     processFlexByteCode(in, new AS3InterfaceStubDumper(parent));
   }
 
+  /**
+   * Same as {@link #buildStubsInterfaceFromStream(InputStream, StubElement)} for the content that is already loaded, it is not copied.
+   */
+  public static void buildStubsInterface(final byte @NotNull [] content, final StubElement parent) throws Exception {
+    final ByteBuffer data = new ByteBuffer();
+    data.wrap(content);
+    processFlexByteCode(data, new AS3InterfaceStubDumper(parent));
+  }
+
   private static void processFlexByteCode(@NotNull final InputStream in, @NotNull FlexByteCodeInformationProcessor processor) throws IOException {
     ByteBuffer data = new ByteBuffer();
     data.read(in);
+    processFlexByteCode(data, processor);
+  }
+
+  private static void processFlexByteCode(@NotNull final ByteBuffer data, @NotNull FlexByteCodeInformationProcessor processor) throws IOException {
     data.setLittleEndian();
     if (data.bytesSize() == 0) return;
     int version = data.readUnsignedInt();
@@ -83,15 +121,13 @@ public class FlexImporter {
     }
     else if ((version & SWF_MAGIC) == SWF_MAGIC) {
       final int delta = 8;
+      final int uncompressedSize = data.readInt() - delta; // file length in the header includes the header itself
       data.setPosition(delta);
-      ByteBuffer udata = new ByteBuffer();
-      udata.setLittleEndian();
-      data.readBytes(udata, data.bytesSize() - delta);
-      int csize = udata.bytesSize();
-      udata.uncompress();
-      processor.dumpStat("decompressed swf " + csize + " -> " + udata.bytesSize() + "\n");
-      udata.setPosition(0);
-      new Swf(udata, processor);
+      int csize = data.bytesSize() - delta;
+      data.uncompress(uncompressedSize);
+      processor.dumpStat("decompressed swf " + csize + " -> " + data.bytesSize() + "\n");
+      data.setPosition(0);
+      new Swf(data, processor);
     }
     else if ((version & SWF_MAGIC2) == SWF_MAGIC2) {
       data.setPosition(8); // skip header and length